@@ -0,0 +1,90 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import com.devbox.mavenapp.model.ResultMessage;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+import com.devbox.mavenapp.websocket.OutboundSession;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * N セッションへのブロードキャストで、送る側（ルームのスレッド）が負担するコスト。
+ * 実際の送信は送信スレッドがスタブのセッションへ流す。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({ "2", "16", "128" })
+    public int sessionCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageCodec codec = new MessageCodec();
+    private OutboundDispatcher dispatcher;
+    private List<OutboundSession> sessions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // キューが詰まっても古いものから捨てるだけにして、メモリを一定に保つ
+        dispatcher = new OutboundDispatcher(Duration.ofSeconds(5), 512 * 1024, 256, OverflowPolicy.DROP_OLDEST);
+        sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(dispatcher.wrap(new StubWebSocketSession("s" + i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * 1回だけシリアライズして全員に同じフレームを送る（現在の方式）。
+     */
+    @Benchmark
+    public void encodeOnce() {
+        OutboundFrame frame = codec.encode(new ResultMessage("「しりとり」\n正解！"));
+        for (OutboundSession session : sessions) {
+            session.send(frame);
+        }
+    }
+
+    /**
+     * セッションごとに Map を作り直してシリアライズする（以前の方式）。比較用。
+     */
+    @Benchmark
+    public void encodePerSession() throws Exception {
+        for (OutboundSession session : sessions) {
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "resultMessage");
+            message.put("body", "「しりとり」\n正解！");
+            session.send(new TextMessage(objectMapper.writeValueAsString(message)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devbox.mavenapp.model.GameState;
+import com.devbox.mavenapp.model.GameStateMessage;
+import com.devbox.mavenapp.model.Player;
+import com.devbox.mavenapp.model.StateDeltaMessage;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+
+/**
+ * 盤面の送信メッセージの組み立てとシリアライズ。
+ * スナップショットは単語履歴の長さに比例し、差分は履歴の長さによらないことを確認する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+    @Param({ "0", "50", "500" })
+    public int historySize;
+
+    private final MessageCodec codec = new MessageCodec();
+    private List<Player> players;
+    private List<String> wordHistory;
+    private long seq;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        players = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player(i, i, "s" + i);
+            player.setPosition(i * 7);
+            players.add(player);
+        }
+        wordHistory = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            wordHistory.add(i % 2 == 0 ? "りんご" : "ごりら");
+        }
+    }
+
+    @Benchmark
+    public OutboundFrame snapshot() {
+        GameState state = new GameState(players, 1, wordHistory);
+        return codec.encode(new GameStateMessage(++seq, state, 'ら'));
+    }
+
+    @Benchmark
+    public OutboundFrame delta() {
+        List<Map<String, Object>> ops = new ArrayList<>(3);
+        ops.add(Map.of("op", "playerMoved", "playerId", 1, "position", 10));
+        ops.add(Map.of("op", "wordAppended", "index", historySize, "word", "らっぱ"));
+        ops.add(Map.of("op", "turnChanged", "currentPlayerIndex", 0, "lastCharacter", 'ぱ'));
+        return codec.encode(new StateDeltaMessage(++seq, ops));
+    }
+}
@@ -0,0 +1,82 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devbox.mavenapp.game.HeadCharacterIndex;
+import com.devbox.mavenapp.game.ShiritoriRules;
+import com.devbox.mavenapp.game.UsedWordSet;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+
+/**
+ * 同梱の辞書からボットが1語選ぶ時間。索引の大きさ（辞書そのものは含まない）はセットアップで一度だけ表示する。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeadCharacterIndexBenchmark {
+    private static final char[] HEADS = "りごらぱだうぎこしとかすいきくたなまやあ".toCharArray();
+
+    /** ルームで使用済みの単語数。候補が使われているほど先を見る */
+    @Param({ "0", "20" })
+    public int usedWordCount;
+
+    private HeadCharacterIndex index;
+    private UsedWordSet usedWords;
+    private SplittableRandom random;
+    private int turn;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        index = HeadCharacterIndex.build(LocalDictionary.loadFromClasspath("dictionary/words.txt"));
+        System.out.printf("%nHeadCharacterIndex: %,d words, %,d bytes%n", index.size(), index.getIndexBytes());
+
+        // しりとりを続けて、実際のルームと同じくつながった単語で履歴を埋める
+        usedWords = new UsedWordSet();
+        random = new SplittableRandom(7);
+        char head = ShiritoriRules.FIRST_CHARACTER;
+        while (usedWords.size() < usedWordCount) {
+            String word = pickAnyLength(head);
+            if (word == null) {
+                break;
+            }
+            usedWords.add(word);
+            head = ShiritoriRules.lastCharacter(word);
+        }
+    }
+
+    @Benchmark
+    public String pick() {
+        turn++;
+        char head = HEADS[turn % HEADS.length];
+        int length = 2 + turn % 7;
+        return index.pick(head, length, usedWords, random);
+    }
+
+    private String pickAnyLength(char head) {
+        for (int length = 2; length <= 8; length++) {
+            String word = index.pick(head, length, usedWords, random);
+            if (word != null) {
+                return word;
+            }
+        }
+        return null;
+    }
+}
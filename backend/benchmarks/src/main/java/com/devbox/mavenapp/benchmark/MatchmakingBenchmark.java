@@ -0,0 +1,64 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devbox.mavenapp.service.matchmaking.JoinResult;
+import com.devbox.mavenapp.service.matchmaking.MatchmakingQueue;
+import com.devbox.mavenapp.service.matchmaking.WaitingPlayer;
+
+/**
+ * マッチングキューへの参加。マッチしたプレイヤーは実際と同じように待機画面から抜けさせて、
+ * キューの索引が大きくなり続けないようにする。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchmakingBenchmark {
+    private final AtomicLong nextId = new AtomicLong();
+    private MatchmakingQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        queue = new MatchmakingQueue(2);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JoinResult join() {
+        return joinAndLeaveOnMatch();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public JoinResult joinContended() {
+        return joinAndLeaveOnMatch();
+    }
+
+    private JoinResult joinAndLeaveOnMatch() {
+        long id = nextId.incrementAndGet();
+        JoinResult result = queue.join(new WaitingPlayer("session-" + id, Long.toString(id), "user-" + id));
+        if (result.getStatus() == JoinResult.Status.MATCHED) {
+            for (WaitingPlayer player : result.getPlayers()) {
+                queue.leave(player.getSessionId());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import com.devbox.mavenapp.game.GameRoom;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.model.GameMessage;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+
+/**
+ * 受信メッセージのデコードとルームでの処理。
+ * decodeAndDispatch はルームのメールボックスを経由せずベンチマークのスレッドで直接処理するので、
+ * 1スレッドで動かすこと。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDispatchBenchmark {
+    private static final String ROOM_ID = "bench";
+
+    @Param({ "inputWord", "startRoulette" })
+    public String messageType;
+
+    private RoomRegistry registry;
+    private OutboundDispatcher dispatcher;
+    private MessageCodec codec;
+    private GameRoom room;
+    private StubWebSocketSession sender;
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        registry = new RoomRegistry(word -> WordVerdict.VALID);
+        dispatcher = new OutboundDispatcher();
+        codec = registry.getCodec();
+        GameWebSocketHandler handler = new GameWebSocketHandler(registry, dispatcher);
+
+        sender = join(handler, "s1", 0);
+        StubWebSocketSession other = join(handler, "s2", 1);
+        awaitSent(sender);
+        awaitSent(other);
+        room = registry.getRoom(ROOM_ID);
+
+        payload = "inputWord".equals(messageType)
+                ? "{\"type\":\"inputWord\",\"word\":\"しりとり\",\"playerId\":0}"
+                : "{\"type\":\"startRoulette\"}";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public MessageType decode() throws Exception {
+        GameMessage message = codec.decode(payload);
+        return MessageType.fromWireName(message.getType());
+    }
+
+    @Benchmark
+    public void decodeAndDispatch() throws Exception {
+        GameMessage message = codec.decode(payload);
+        room.handleMessage(sender, MessageType.fromWireName(message.getType()), message);
+    }
+
+    private static StubWebSocketSession join(GameWebSocketHandler handler, String id, int order) throws Exception {
+        StubWebSocketSession session = new StubWebSocketSession(id, URI.create("ws://localhost/game?roomId=" + ROOM_ID));
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new TextMessage("{\"type\":\"join\",\"order\":" + order + "}"));
+        return session;
+    }
+
+    private static void awaitSent(StubWebSocketSession session) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (session.getSentMessages() == 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("join was not processed: " + session.getId());
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devbox.mavenapp.service.validation.MarkerScanner;
+
+/**
+ * Weblio の応答から「見つかりません」の文言を探す方法の比較。
+ * <ul>
+ * <li>jsoupDom: 以前の実装。DOM にして html() で文字列に戻してから探す</li>
+ * <li>decodeString: 本文全体を String にしてから探す</li>
+ * <li>streamingScan: 16KB ずつ届くバッファを {@link MarkerScanner} で走査し、見つかった時点で打ち切る</li>
+ * </ul>
+ *
+ * 既定ではページの形と大きさをまねて生成したページを使う。実際に保存したページで測るときは
+ * -p pageDir=DIR を指定する（DIR/found.html と DIR/notfound.html）。-prof gc で割り当ても比べられる。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseScanBenchmark {
+    private static final String MARKER = "該当する単語が見つかりません";
+    private static final int CHUNK_BYTES = 16 * 1024;
+    private static final long MAX_BODY_BYTES = 512 * 1024;
+
+    @Param({ "found", "notfound" })
+    public String page;
+
+    @Param({ "" })
+    public String pageDir;
+
+    private final MarkerScanner scanner = MarkerScanner.utf8(MARKER);
+    private final LongAdder scannedBytes = new LongAdder();
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (pageDir.isEmpty()) {
+            body = samplePage(page.equals("notfound")).getBytes(StandardCharsets.UTF_8);
+        } else {
+            body = Files.readAllBytes(Path.of(pageDir, page + ".html"));
+        }
+    }
+
+    @Benchmark
+    public boolean jsoupDom() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(body), "UTF-8", "https://www.weblio.jp/").html().contains(MARKER);
+    }
+
+    @Benchmark
+    public boolean decodeString() {
+        return new String(body, StandardCharsets.UTF_8).contains(MARKER);
+    }
+
+    @Benchmark
+    public MarkerScanner.Result streamingScan() {
+        HttpResponse.BodySubscriber<MarkerScanner.Result> subscriber = scanner.bodySubscriber(MAX_BODY_BYTES,
+                scannedBytes);
+        ChunkedSubscription subscription = new ChunkedSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    /**
+     * HttpClient と同じように、要求されたら次のバッファを1つ渡す。
+     */
+    private final class ChunkedSubscription implements Flow.Subscription {
+        private final HttpResponse.BodySubscriber<?> subscriber;
+        private int offset;
+        private long demand;
+        private boolean cancelled;
+
+        private ChunkedSubscription(HttpResponse.BodySubscriber<?> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            demand += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            while (!cancelled && demand > 0) {
+                if (offset >= body.length) {
+                    subscriber.onComplete();
+                    return;
+                }
+                int length = Math.min(CHUNK_BYTES, body.length - offset);
+                demand--;
+                subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, length).slice()));
+                offset += length;
+            }
+        }
+    }
+
+    /**
+     * 辞書ページに似せた HTML。ヘッダーのスクリプトと項目の一覧が大半を占め、
+     * 見つからなかった場合の文言は本文の前半にある。
+     */
+    private static String samplePage(boolean notFound) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html lang=\"ja\"><head><meta charset=\"UTF-8\">");
+        for (int i = 0; i < 40; i++) {
+            html.append("<script>window.dataLayer=window.dataLayer||[];function gtag").append(i)
+                    .append("(){dataLayer.push(arguments);}</script>");
+            html.append("<link rel=\"stylesheet\" href=\"https://cdn.weblio.jp/css/style").append(i).append(".css\">");
+        }
+        html.append("</head><body><div id=\"main\">");
+        if (notFound) {
+            html.append("<div class=\"nrCntSgT\"><p>").append(MARKER).append("でした。</p></div>");
+        }
+        int entries = notFound ? 60 : 600;
+        for (int i = 0; i < entries; i++) {
+            html.append("<div class=\"kiji\"><h2 class=\"midashigo\">りんご").append(i).append("</h2>")
+                    .append("<p>バラ科の落葉高木。春に白い花を咲かせ、秋に実をつける。")
+                    .append("果実は食用で、品種が多い。</p><a href=\"/content/").append(i).append("\">詳しく</a></div>");
+        }
+        return html.append("</div></body></html>").toString();
+    }
+}
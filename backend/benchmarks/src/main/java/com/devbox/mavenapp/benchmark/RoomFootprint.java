@@ -0,0 +1,131 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.journal.GameEvent;
+import com.devbox.mavenapp.journal.RoomState;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+
+/**
+ * ルーム数を増やしたときの1ルームあたりのヒープ使用量を表示する。JMH ではなく、GC 後のヒープの差を見るだけの計測。
+ * GC のタイミングで値が揺れるので、合否は判定せずに数字だけ出す。
+ *
+ * <p>ルームはジャーナルからの復元で作り、どれも2人が対戦中で WORDS_PER_ROOM 語を出し終えた状態にする。
+ * 単語はクライアントから届いたときと同じくルームごとに別の String にする。
+ *
+ * <pre>
+ *   java -cp target/benchmarks.jar com.devbox.mavenapp.benchmark.RoomFootprint [ルーム数...]
+ * </pre>
+ */
+public final class RoomFootprint {
+    private static final int WORDS_PER_ROOM = 20;
+    private static final int[] DEFAULT_ROOM_COUNTS = {1_000, 10_000, 100_000};
+
+    private RoomFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int[] roomCounts = DEFAULT_ROOM_COUNTS;
+        if (args.length > 0) {
+            roomCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                roomCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+        List<String> vocabulary = new ArrayList<>();
+        LocalDictionary dictionary = LocalDictionary.loadFromClasspath("dictionary/words.txt");
+        for (int i = 0; i < dictionary.size(); i++) {
+            vocabulary.add(dictionary.wordAt(i));
+        }
+        for (int rooms : roomCounts) {
+            System.out.printf("%,d rooms: %,d bytes/room%n", rooms, measure(rooms, vocabulary));
+        }
+    }
+
+    private static long measure(int rooms, List<String> vocabulary) throws InterruptedException {
+        long before = usedHeap();
+        RecoveredJournal journal = new RecoveredJournal(states(rooms, vocabulary));
+        RoomRegistry registry = new RoomRegistry(word -> WordVerdict.VALID, new RoomRegistry.Options().journal(journal));
+        try {
+            if (registry.getRoomCount() != rooms) {
+                throw new IllegalStateException("Recovered " + registry.getRoomCount() + " of " + rooms + " rooms");
+            }
+            return (usedHeap() - before) / rooms;
+        } finally {
+            registry.shutdown();
+        }
+    }
+
+    private static List<RoomState> states(int rooms, List<String> vocabulary) {
+        SplittableRandom random = new SplittableRandom(rooms);
+        List<RoomState> states = new ArrayList<>(rooms);
+        for (int r = 0; r < rooms; r++) {
+            List<String> words = new ArrayList<>(WORDS_PER_ROOM);
+            int score = 0;
+            for (int w = 0; w < WORDS_PER_ROOM; w++) {
+                String word = new String(vocabulary.get(random.nextInt(vocabulary.size())));
+                words.add(word);
+                score += word.length();
+            }
+            List<RoomState.PlayerState> players = List.of(new RoomState.PlayerState(0, 0, score / 2),
+                    new RoomState.PlayerState(1, 1, score - score / 2));
+            states.add(new RoomState("room-" + r, r, players, words, WORDS_PER_ROOM % 2));
+        }
+        return states;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 起動時に一度だけ、渡した状態を復元したルームとして返すジャーナル。返したあとは参照を持たない。
+     */
+    private static final class RecoveredJournal implements EventJournal {
+        private List<RoomState> recovered;
+
+        private RecoveredJournal(List<RoomState> recovered) {
+            this.recovered = recovered;
+        }
+
+        @Override
+        public long append(String roomId, GameEvent.Type type, int playerId, int value, String text) {
+            return 0;
+        }
+
+        @Override
+        public List<RoomState> takeRecoveredRooms() {
+            List<RoomState> taken = recovered;
+            recovered = List.of();
+            return taken;
+        }
+
+        @Override
+        public void setSnapshotSource(Supplier<CompletableFuture<List<RoomState>>> source) {
+        }
+
+        @Override
+        public List<GameEvent> replay(String roomId) {
+            return List.of();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
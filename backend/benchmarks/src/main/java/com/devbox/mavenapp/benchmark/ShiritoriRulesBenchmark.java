@@ -0,0 +1,65 @@
+package com.devbox.mavenapp.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devbox.mavenapp.game.RuleViolation;
+import com.devbox.mavenapp.game.ShiritoriRules;
+import com.devbox.mavenapp.game.UsedWordSet;
+
+/**
+ * 最後の文字の取り出しとルール判定。-prof gc で1手あたりの割り当てが 0 であることも確認する。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShiritoriRulesBenchmark {
+    private static final String[] WORDS = { "りんご", "ゴリラ", "らっぱ", "パンダ", "だちょう", "うさぎ", "ぎゅうにゅう", "コーヒー" };
+
+    /** 使用済みの単語数。判定が履歴の長さによらないことを見る */
+    @Param({ "10", "1000" })
+    public int usedWordCount;
+
+    private UsedWordSet usedWords;
+    private char[] previousLastCharacters;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        usedWords = new UsedWordSet();
+        for (int i = 0; i < usedWordCount; i++) {
+            usedWords.add("ことば" + i);
+        }
+        previousLastCharacters = new char[WORDS.length];
+        for (int i = 0; i < WORDS.length; i++) {
+            previousLastCharacters[i] = ShiritoriRules.normalize(WORDS[i].charAt(0));
+        }
+    }
+
+    @Benchmark
+    public char lastCharacter() {
+        index = (index + 1) % WORDS.length;
+        return ShiritoriRules.lastCharacter(WORDS[index]);
+    }
+
+    @Benchmark
+    public RuleViolation check() {
+        index = (index + 1) % WORDS.length;
+        return ShiritoriRules.check(WORDS[index], previousLastCharacters[index], usedWords);
+    }
+}
@@ -0,0 +1,65 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * メッセージの種類ごとの応答時間とエラー数。
+ */
+public class LatencyStats {
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final long startedAt = System.nanoTime();
+
+    public void record(String type, long nanos) {
+        histograms.computeIfAbsent(type, k -> new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3))
+                .recordValue(Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS));
+    }
+
+    public void recordError(String kind) {
+        errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    public long getCount(String type) {
+        Histogram histogram = histograms.get(type);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    public long getTotalCount() {
+        return histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public void print(PrintStream out) {
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+        out.printf("%-16s %10s %10s %10s %10s %10s %10s%n",
+                "type", "count", "per sec", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue().copy();
+            out.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), h.getTotalCount(), h.getTotalCount() / elapsedSeconds,
+                    millis(h.getValueAtPercentile(50)), millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)), millis(h.getMaxValue()));
+        }
+        if (!errors.isEmpty()) {
+            out.println("errors:");
+            new TreeMap<>(errors).forEach((kind, count) -> out.printf("  %-24s %d%n", kind, count.sum()));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,142 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket の負荷試験。指定した数のクライアントを少しずつ接続し、duration の間
+ * マッチング → ゲーム → 切断を繰り返させて、メッセージの種類ごとの応答時間を集計する。
+ *
+ * サーバーは --game.validation.stub=true で起動しておくこと（単語判定で外部サービスに問い合わせないため）。
+ *
+ * <pre>
+ * cd backend &amp;&amp; mvn spring-boot:run -Dspring-boot.run.arguments=--game.validation.stub=true
+ * cd backend/loadtest &amp;&amp; mvn package
+ * java -jar target/loadtest.jar --clients=2000 --duration=120
+ * java -jar target/loadtest.jar --clients=500 --soak --duration=3600 --report=60
+ * </pre>
+ *
+ * --soak を付けると、サーバーの /metrics からヒープ使用量とスレッド数を report ごとに記録する。
+ */
+public class LoadTest {
+    private final LoadTestOptions options;
+    private final LatencyStats stats = new LatencyStats();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private volatile boolean running = true;
+
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: java -jar loadtest.jar [--url=ws://localhost:8080] [--clients=200] [--ramp-up=10]"
+                    + " [--duration=60] [--turns=5] [--timeout-rate=0.1] [--keystroke-ms=80] [--report=10]"
+                    + " [--soak] [--metrics-url=http://localhost:8080/metrics]");
+            System.exit(2);
+            return;
+        }
+        new LoadTest(options).run();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    void gameFinished() {
+        gamesFinished.increment();
+    }
+
+    void run() throws InterruptedException {
+        System.out.println("load test: " + options);
+        ExecutorService ioExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2,
+                daemonThreads("ws-client-"));
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, daemonThreads("client-timer-"));
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(ioExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        Map<String, Map<String, Long>> keystrokes = new ConcurrentHashMap<>();
+        SoakMonitor soakMonitor = options.soak ? new SoakMonitor(httpClient, options.metricsUri, options.rampUp) : null;
+
+        long rampNanos = options.rampUp.toNanos();
+        for (int i = 0; i < options.clients; i++) {
+            SimulatedPlayer player = new SimulatedPlayer(i, options, stats, httpClient, scheduler, this, keystrokes);
+            players.add(player);
+            long delay = rampNanos * i / options.clients;
+            scheduler.schedule(player::start, delay, TimeUnit.NANOSECONDS);
+        }
+        scheduler.scheduleAtFixedRate(() -> {
+            long now = System.nanoTime();
+            players.forEach(player -> player.checkIdle(now));
+        }, 1, 1, TimeUnit.SECONDS);
+
+        long startedAt = System.nanoTime();
+        long endAt = startedAt + options.duration.toNanos();
+        long reportNanos = options.reportInterval.toNanos();
+        long nextReport = startedAt + reportNanos;
+        if (soakMonitor != null) {
+            soakMonitor.sample(System.out, connectedClients());
+        }
+        while (System.nanoTime() < endAt) {
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, Math.min(nextReport, endAt) - System.nanoTime()));
+            if (System.nanoTime() >= nextReport) {
+                nextReport += reportNanos;
+                System.out.printf("[%4ds] connected=%d games=%d messages=%d errors=%d%n",
+                        TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt), connectedClients(),
+                        gamesFinished.sum(), stats.getTotalCount(), stats.getErrorCount());
+                if (soakMonitor != null) {
+                    soakMonitor.sample(System.out, connectedClients());
+                }
+            }
+        }
+
+        if (soakMonitor != null) {
+            soakMonitor.printSummary(System.out);
+        }
+        running = false;
+        players.forEach(SimulatedPlayer::stop);
+        scheduler.shutdownNow();
+
+        System.out.println();
+        System.out.printf("clients=%d duration=%ds games=%d%n", options.clients, options.duration.getSeconds(),
+                gamesFinished.sum());
+        stats.print(System.out);
+        ioExecutor.shutdownNow();
+    }
+
+    private int connectedClients() {
+        int connected = 0;
+        for (SimulatedPlayer player : players) {
+            if (player.isConnected()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
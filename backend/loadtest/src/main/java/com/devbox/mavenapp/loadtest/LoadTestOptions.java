@@ -0,0 +1,76 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * コマンドライン引数。--name=value の形で渡す。
+ */
+public class LoadTestOptions {
+    /** WebSocket の接続先（/waiting と /game の前まで） */
+    final URI baseUri;
+    /** /metrics の URL。ソークモードでサーバーのヒープとスレッド数を取る */
+    final URI metricsUri;
+    /** 同時に動かすクライアント数（偶数） */
+    final int clients;
+    /** 全クライアントが接続し終わるまでの時間 */
+    final Duration rampUp;
+    /** 計測時間 */
+    final Duration duration;
+    /** 1ゲームで各プレイヤーが行うターン数 */
+    final int turnsPerGame;
+    /** timeIsUp でターンを終える割合 */
+    final double timeoutRate;
+    /** inputWord のキー入力間隔 */
+    final Duration keystrokeInterval;
+    /** 途中経過を出す間隔 */
+    final Duration reportInterval;
+    /** ゲームが終わったら次のマッチングに入り、duration が終わるまで続ける */
+    final boolean soak;
+
+    private LoadTestOptions(Map<String, String> args) {
+        this.baseUri = URI.create(args.getOrDefault("url", "ws://localhost:8080"));
+        this.metricsUri = URI.create(args.getOrDefault("metrics-url", "http://localhost:8080/metrics"));
+        this.clients = Integer.parseInt(args.getOrDefault("clients", "200")) / 2 * 2;
+        this.rampUp = Duration.ofSeconds(Long.parseLong(args.getOrDefault("ramp-up", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(args.getOrDefault("duration", "60")));
+        this.turnsPerGame = Integer.parseInt(args.getOrDefault("turns", "5"));
+        this.timeoutRate = Double.parseDouble(args.getOrDefault("timeout-rate", "0.1"));
+        this.keystrokeInterval = Duration.ofMillis(Long.parseLong(args.getOrDefault("keystroke-ms", "80")));
+        this.reportInterval = Duration.ofSeconds(Long.parseLong(args.getOrDefault("report", "10")));
+        this.soak = Boolean.parseBoolean(args.getOrDefault("soak", "false"));
+        if (clients < 2) {
+            throw new IllegalArgumentException("--clients must be at least 2");
+        }
+    }
+
+    static LoadTestOptions parse(String[] argv) {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                // 値のないフラグ（--soak など）
+                args.put(arg.substring(2), "true");
+            } else {
+                args.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return new LoadTestOptions(args);
+    }
+
+    URI endpoint(String path) {
+        return baseUri.resolve(path);
+    }
+
+    @Override
+    public String toString() {
+        return "url=" + baseUri + ", clients=" + clients + ", rampUp=" + rampUp.getSeconds() + "s"
+                + ", duration=" + duration.getSeconds() + "s, turns=" + turnsPerGame
+                + ", timeoutRate=" + timeoutRate + ", soak=" + soak;
+    }
+}
@@ -0,0 +1,329 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 1人分のクライアント。ブラウザ版と同じ手順でマッチングからゲームまでを進める。
+ *
+ * <ol>
+ * <li>/waiting に join し、startGame を待つ</li>
+ * <li>/game?roomId= に join する</li>
+ * <li>自分の番になったら startRoulette → inputWord を1文字ずつ → checkWord。
+ *     一定の割合で単語を送らずに timeIsUp で終える</li>
+ * <li>決められたターン数を終えるか相手が抜けたら切断し、次のマッチングに入る</li>
+ * </ol>
+ *
+ * 応答時間はリクエストを送ってから対応するメッセージを受け取るまで。inputWord だけは相手側で
+ * overwriteWord を受け取るまでを測る。
+ */
+class SimulatedPlayer {
+    /** 単語の2文字目以降に使う文字。「ん」と小書き文字は語末に来ないように外してある */
+    private static final String KANA = "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめもやゆよらりるれろわ"
+            + "がぎぐげござじずぜぞだでどばびぶべぼぱぴぷぺぽ";
+    private static final long IDLE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+    private final int id;
+    private final LoadTestOptions options;
+    private final LatencyStats stats;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final LoadTest loadTest;
+    /** 同じルームの2人で共有する、inputWord の送信時刻 */
+    private final Map<String, Map<String, Long>> keystrokes;
+
+    private volatile WsConnection waiting;
+    private volatile WsConnection game;
+    private volatile int gameGeneration;
+    private volatile boolean inGame;
+    private volatile long lastMessageAt;
+
+    private String roomId;
+    private int order;
+    private int turnsPlayed;
+    private boolean myTurn;
+    private String lastCharacter = "り";
+
+    private volatile long matchmakingSentAt;
+    private volatile boolean waitingJoinAcknowledged;
+    private volatile long joinSentAt;
+    private volatile long rouletteSentAt;
+    private volatile long checkWordSentAt;
+    private volatile long timeIsUpSentAt;
+
+    SimulatedPlayer(int id, LoadTestOptions options, LatencyStats stats, HttpClient httpClient,
+            ScheduledExecutorService scheduler, LoadTest loadTest, Map<String, Map<String, Long>> keystrokes) {
+        this.id = id;
+        this.options = options;
+        this.stats = stats;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+        this.loadTest = loadTest;
+        this.keystrokes = keystrokes;
+    }
+
+    void start() {
+        if (!loadTest.isRunning()) {
+            return;
+        }
+        long connectStartedAt = System.nanoTime();
+        WsConnection.open(httpClient, options.endpoint("/waiting"), this::onWaitingMessage, this::onWaitingClosed)
+                .whenComplete((connection, error) -> {
+                    if (error != null) {
+                        stats.recordError("connect /waiting");
+                        retryLater();
+                        return;
+                    }
+                    stats.record("connect", System.nanoTime() - connectStartedAt);
+                    waiting = connection;
+                    lastMessageAt = System.nanoTime();
+                    waitingJoinAcknowledged = false;
+                    matchmakingSentAt = System.nanoTime();
+                    connection.send(Map.of("type", "join", "userName", "load-" + id, "userId", String.valueOf(id)));
+                });
+    }
+
+    void stop() {
+        closeQuietly(waiting);
+        closeQuietly(game);
+    }
+
+    /**
+     * ゲーム中に一定時間何も届かなければ、相手が落ちたものとして次のゲームへ進む。
+     */
+    void checkIdle(long now) {
+        if (inGame && now - lastMessageAt > IDLE_TIMEOUT_NANOS) {
+            stats.recordError("stalled game");
+            endGame(gameGeneration);
+        }
+    }
+
+    boolean isConnected() {
+        WsConnection w = waiting;
+        WsConnection g = game;
+        return (w != null && !w.isClosed()) || (g != null && !g.isClosed());
+    }
+
+    private void onWaitingMessage(JsonNode message) {
+        lastMessageAt = System.nanoTime();
+        if (message.has("error")) {
+            stats.recordError("matchmaking: " + message.get("error").asText());
+            closeQuietly(waiting);
+            retryLater();
+            return;
+        }
+        String type = message.path("type").asText();
+        if ("playerUpdate".equals(type)) {
+            // 2通目以降は待機人数の表示更新なので、最初の1通だけ測る
+            if (!waitingJoinAcknowledged) {
+                waitingJoinAcknowledged = true;
+                stats.record("join(waiting)", System.nanoTime() - matchmakingSentAt);
+            }
+        } else if ("startGame".equals(type)) {
+            stats.record("matchmaking", System.nanoTime() - matchmakingSentAt);
+            String startedRoomId = message.path("roomId").asText();
+            int index = 0;
+            int myOrder = -1;
+            for (JsonNode player : message.path("players")) {
+                if (String.valueOf(id).equals(player.path("userid").asText())) {
+                    myOrder = index;
+                }
+                index++;
+            }
+            closeQuietly(waiting);
+            if (myOrder < 0) {
+                stats.recordError("startGame without self");
+                retryLater();
+                return;
+            }
+            connectGame(startedRoomId, myOrder);
+        }
+    }
+
+    private void onWaitingClosed(Throwable error) {
+        if (error != null && loadTest.isRunning()) {
+            stats.recordError("/waiting closed");
+        }
+    }
+
+    private void connectGame(String roomId, int order) {
+        int generation = ++gameGeneration;
+        synchronized (this) {
+            this.roomId = roomId;
+            this.order = order;
+            this.turnsPlayed = 0;
+            this.myTurn = false;
+            this.lastCharacter = "り";
+        }
+        URI uri = options.endpoint("/game?roomId=" + roomId);
+        WsConnection.open(httpClient, uri, message -> onGameMessage(generation, message),
+                error -> onGameClosed(generation, error))
+                .whenComplete((connection, error) -> {
+                    if (error != null) {
+                        stats.recordError("connect /game");
+                        retryLater();
+                        return;
+                    }
+                    game = connection;
+                    inGame = true;
+                    lastMessageAt = System.nanoTime();
+                    joinSentAt = System.nanoTime();
+                    connection.send(Map.of("type", "join", "userName", "load-" + id, "order", order));
+                });
+    }
+
+    private synchronized void onGameMessage(int generation, JsonNode message) {
+        if (generation != gameGeneration || !inGame) {
+            return;
+        }
+        long now = System.nanoTime();
+        lastMessageAt = now;
+        switch (message.path("type").asText()) {
+            case "updateGameState":
+                recordPending("join", joinSentAt, now);
+                joinSentAt = 0;
+                lastCharacter = message.path("lastCharacter").asText(lastCharacter);
+                break;
+            case "stateDelta":
+                for (JsonNode op : message.path("ops")) {
+                    String name = op.path("op").asText();
+                    if ("turnChanged".equals(name)) {
+                        lastCharacter = op.path("lastCharacter").asText(lastCharacter);
+                    } else if ("playerLeft".equals(name)) {
+                        endGame(generation);
+                        return;
+                    }
+                }
+                break;
+            case "startTurn":
+                onStartTurn(generation, message.path("isCurrentUserTurn").asBoolean(), now);
+                break;
+            case "rouletteResult":
+                if (myTurn) {
+                    recordPending("startRoulette", rouletteSentAt, now);
+                    rouletteSentAt = 0;
+                    playTurn(generation, message.path("result").asInt());
+                }
+                break;
+            case "overwriteWord":
+                Map<String, Long> sent = keystrokes.get(roomId);
+                if (sent != null) {
+                    String word = message.path("word").asText();
+                    Long sentAt = sent.remove(word);
+                    if (sentAt != null) {
+                        stats.record("inputWord", now - sentAt);
+                    }
+                    // サーバーが間引いた途中の入力は届かないので、ここで捨てる
+                    sent.keySet().removeIf(word::startsWith);
+                }
+                break;
+            case "checkResult":
+                if (myTurn && checkWordSentAt != 0) {
+                    stats.record("checkWord", now - checkWordSentAt);
+                    checkWordSentAt = 0;
+                    if (!message.path("valid").asBoolean()) {
+                        stats.recordError("word rejected");
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onStartTurn(int generation, boolean isCurrentUserTurn, long now) {
+        if (timeIsUpSentAt != 0) {
+            recordPending("timeIsUp", timeIsUpSentAt, now);
+            timeIsUpSentAt = 0;
+        }
+        myTurn = isCurrentUserTurn;
+        if (!myTurn) {
+            return;
+        }
+        if (++turnsPlayed > options.turnsPerGame || !loadTest.isRunning()) {
+            endGame(generation);
+            return;
+        }
+        rouletteSentAt = System.nanoTime();
+        game.send(Map.of("type", "startRoulette"));
+    }
+
+    private void playTurn(int generation, int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < options.timeoutRate) {
+            scheduler.schedule(() -> sendIfCurrent(generation, () -> {
+                timeIsUpSentAt = System.nanoTime();
+                game.send(Map.of("type", "timeIsUp", "order", order));
+            }), options.keystrokeInterval.toMillis(), TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        StringBuilder typed = new StringBuilder();
+        for (int i = 1; i < Math.max(length, 2); i++) {
+            typed.append(KANA.charAt(random.nextInt(KANA.length())));
+        }
+        String word = lastCharacter + typed;
+        Map<String, Long> sent = keystrokes.computeIfAbsent(roomId, k -> new ConcurrentHashMap<>());
+        long interval = options.keystrokeInterval.toMillis();
+        for (int i = 1; i <= typed.length(); i++) {
+            String prefix = typed.substring(0, i);
+            scheduler.schedule(() -> sendIfCurrent(generation, () -> {
+                sent.put(prefix, System.nanoTime());
+                game.send(Map.of("type", "inputWord", "word", prefix, "playerId", order));
+            }), interval * i, TimeUnit.MILLISECONDS);
+        }
+        scheduler.schedule(() -> sendIfCurrent(generation, () -> {
+            checkWordSentAt = System.nanoTime();
+            game.send(Map.of("type", "checkWord", "word", word, "playerId", order));
+        }), interval * (typed.length() + 1), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sendIfCurrent(int generation, Runnable send) {
+        if (generation == gameGeneration && inGame) {
+            send.run();
+        }
+    }
+
+    private void onGameClosed(int generation, Throwable error) {
+        if (error != null && loadTest.isRunning()) {
+            stats.recordError("/game closed");
+        }
+        endGame(generation);
+    }
+
+    private synchronized void endGame(int generation) {
+        if (generation != gameGeneration || !inGame) {
+            return;
+        }
+        inGame = false;
+        keystrokes.remove(roomId);
+        closeQuietly(game);
+        loadTest.gameFinished();
+        scheduler.schedule(this::start, 100, TimeUnit.MILLISECONDS);
+    }
+
+    private void recordPending(String type, long sentAt, long now) {
+        if (sentAt != 0) {
+            stats.record(type, now - sentAt);
+        }
+    }
+
+    private void retryLater() {
+        if (loadTest.isRunning()) {
+            scheduler.schedule(this::start, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void closeQuietly(WsConnection connection) {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+}
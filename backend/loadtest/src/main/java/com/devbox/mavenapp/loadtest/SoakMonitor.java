@@ -0,0 +1,112 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ソークモードで、サーバーの /metrics からヒープ使用量・スレッド数・ルーム数を定期的に取る。
+ * 終了時に、ランプアップ後の最初のサンプルと最後のサンプルを比べて1時間あたりの増加量を出す。
+ */
+class SoakMonitor {
+    private static final String[] SERVER_METRICS = {
+        "jvm_memory_heap_used_bytes", "jvm_threads_live", "shiritori_rooms", "shiritori_sessions{endpoint=\"game\"}",
+        "shiritori_outbound_queue_depth",
+    };
+
+    private final HttpClient httpClient;
+    private final URI metricsUri;
+    private final long baselineAfterSeconds;
+    private final List<Sample> samples = new ArrayList<>();
+    private final long startedAt = System.nanoTime();
+
+    SoakMonitor(HttpClient httpClient, URI metricsUri, Duration rampUp) {
+        this.httpClient = httpClient;
+        this.metricsUri = metricsUri;
+        this.baselineAfterSeconds = rampUp.getSeconds();
+    }
+
+    void sample(PrintStream out, int connectedClients) {
+        Map<String, Long> server = scrape();
+        Sample sample = new Sample((System.nanoTime() - startedAt) / 1_000_000_000L, server, connectedClients,
+                ManagementFactory.getThreadMXBean().getThreadCount());
+        samples.add(sample);
+        if (samples.size() == 1) {
+            out.println("soak: elapsed_s,server_heap_mb,server_threads,rooms,game_sessions,outbound_queue,"
+                    + "clients_connected,client_threads");
+        }
+        out.printf("soak: %d,%.1f,%d,%d,%d,%d,%d,%d%n", sample.elapsedSeconds,
+                sample.server.getOrDefault("jvm_memory_heap_used_bytes", -1L) / 1048576.0,
+                sample.server.getOrDefault("jvm_threads_live", -1L),
+                sample.server.getOrDefault("shiritori_rooms", -1L),
+                sample.server.getOrDefault("shiritori_sessions{endpoint=\"game\"}", -1L),
+                sample.server.getOrDefault("shiritori_outbound_queue_depth", -1L),
+                sample.connectedClients, sample.clientThreads);
+    }
+
+    void printSummary(PrintStream out) {
+        // 接続中の増加は除くため、ランプアップが終わってからのサンプルを基準にする
+        Sample first = samples.stream()
+                .filter(sample -> sample.elapsedSeconds >= baselineAfterSeconds)
+                .findFirst()
+                .orElse(null);
+        Sample last = samples.get(samples.size() - 1);
+        if (first == null || first == last) {
+            return;
+        }
+        double hours = Math.max(last.elapsedSeconds - first.elapsedSeconds, 1) / 3600.0;
+        out.println("soak summary (first -> last, growth per hour):");
+        for (String name : SERVER_METRICS) {
+            Long from = first.server.get(name);
+            Long to = last.server.get(name);
+            if (from != null && to != null) {
+                out.printf("  %-40s %12d -> %12d  (%+.1f/h)%n", name, from, to, (to - from) / hours);
+            }
+        }
+        out.printf("  %-40s %12d -> %12d  (%+.1f/h)%n", "client threads", first.clientThreads, last.clientThreads,
+                (last.clientThreads - first.clientThreads) / hours);
+    }
+
+    private Map<String, Long> scrape() {
+        Map<String, Long> values = new HashMap<>();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(metricsUri).timeout(Duration.ofSeconds(5)).GET().build();
+            String body = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            for (String line : body.split("\n")) {
+                for (String name : SERVER_METRICS) {
+                    if (line.startsWith(name + " ")) {
+                        values.put(name, (long) Double.parseDouble(line.substring(name.length() + 1).trim()));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // サーバーが応答しない間もクライアント側の値は記録する
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return values;
+    }
+
+    private static final class Sample {
+        private final long elapsedSeconds;
+        private final Map<String, Long> server;
+        private final int connectedClients;
+        private final int clientThreads;
+
+        private Sample(long elapsedSeconds, Map<String, Long> server, int connectedClients, int clientThreads) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.server = server;
+            this.connectedClients = connectedClients;
+            this.clientThreads = clientThreads;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.devbox.mavenapp.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON をやりとりする WebSocket 接続。
+ * java.net.http.WebSocket は前の送信が終わる前に次を送れないので、送信はつなげて順番に行う。
+ */
+class WsConnection implements WebSocket.Listener {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Consumer<JsonNode> onMessage;
+    private final Consumer<Throwable> onClosed;
+    private final StringBuilder partial = new StringBuilder();
+    private CompletableFuture<WebSocket> sendChain;
+    private volatile WebSocket webSocket;
+    private volatile boolean closed;
+
+    private WsConnection(Consumer<JsonNode> onMessage, Consumer<Throwable> onClosed) {
+        this.onMessage = onMessage;
+        this.onClosed = onClosed;
+    }
+
+    /**
+     * @param onClosed 切断されたときに呼ばれる。正常に閉じた場合の引数は null
+     */
+    static CompletableFuture<WsConnection> open(HttpClient client, URI uri, Consumer<JsonNode> onMessage,
+            Consumer<Throwable> onClosed) {
+        WsConnection connection = new WsConnection(onMessage, onClosed);
+        return client.newWebSocketBuilder()
+                .buildAsync(uri, connection)
+                .thenApply(ws -> {
+                    connection.webSocket = ws;
+                    connection.sendChain = CompletableFuture.completedFuture(ws);
+                    return connection;
+                });
+    }
+
+    synchronized CompletableFuture<WebSocket> send(Map<String, Object> message) {
+        String text;
+        try {
+            text = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        sendChain = sendChain.thenCompose(ws -> ws.sendText(text, true));
+        return sendChain;
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "").exceptionally(e -> {
+                ws.abort();
+                return null;
+            });
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String text = partial.toString();
+            partial.setLength(0);
+            try {
+                onMessage.accept(objectMapper.readTree(text));
+            } catch (IOException e) {
+                onClosed.accept(e);
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        boolean expected = closed;
+        closed = true;
+        onClosed.accept(expected ? null : new IOException("closed by server: " + statusCode + " " + reason));
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        boolean expected = closed;
+        closed = true;
+        onClosed.accept(expected ? null : error);
+    }
+}
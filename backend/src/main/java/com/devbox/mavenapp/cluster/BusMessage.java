@@ -0,0 +1,137 @@
+package com.devbox.mavenapp.cluster;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * ノード間でやり取りするメッセージ。クライアントがつないだノード（入口）と
+ * ルームを担当するノードの間で、WebSocket セッションの出来事とフレームをそのまま運ぶ。
+ */
+public final class BusMessage {
+
+    public enum Type {
+        /** 入口 → 担当: セッションがつながった。payload は接続 URI */
+        OPEN,
+        /** 入口 → 担当: クライアントから届いたフレーム */
+        INBOUND,
+        /** 入口 → 担当: クライアントが切断した。code は切断理由 */
+        CLOSE,
+        /** 担当 → 入口: クライアントへ送るフレーム */
+        OUTBOUND,
+        /** 担当 → 入口: 担当側がセッションを閉じた。code は切断理由 */
+        DISCONNECT;
+
+        private static final Type[] VALUES = values();
+    }
+
+    private final Type type;
+    private final String endpoint;
+    private final String sourceNode;
+    private final String sessionId;
+    private final int code;
+    private final boolean binary;
+    private final byte[] payload;
+
+    public BusMessage(Type type, String endpoint, String sourceNode, String sessionId, int code, boolean binary,
+            byte[] payload) {
+        this.type = type;
+        this.endpoint = endpoint;
+        this.sourceNode = sourceNode;
+        this.sessionId = sessionId;
+        this.code = code;
+        this.binary = binary;
+        this.payload = payload == null ? new byte[0] : payload;
+    }
+
+    /**
+     * WebSocket のフレームを運ぶメッセージを作る。テキストとバイナリ以外のフレームなら null。
+     */
+    static BusMessage frame(Type type, String endpoint, String sourceNode, String sessionId,
+            WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return new BusMessage(type, endpoint, sourceNode, sessionId, 0, false,
+                    text.getPayload().getBytes(StandardCharsets.UTF_8));
+        }
+        if (message instanceof BinaryMessage binary) {
+            // 送信時に読み進められないよう、複製から読む
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] payload = new byte[buffer.remaining()];
+            buffer.get(payload);
+            return new BusMessage(type, endpoint, sourceNode, sessionId, 0, true, payload);
+        }
+        return null;
+    }
+
+    /** 運んでいるフレームを WebSocket のメッセージに戻す */
+    WebSocketMessage<?> toFrame() {
+        return binary ? new BinaryMessage(payload) : new TextMessage(new String(payload, StandardCharsets.UTF_8));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /** どのエンドポイント（game / waiting）のセッションか */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getSourceNode() {
+        return sourceNode;
+    }
+
+    /** 入口ノードでのセッション ID */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    /** payload がバイナリフレームか（false ならテキストフレームの UTF-8） */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(endpoint);
+        out.writeUTF(sourceNode);
+        out.writeUTF(sessionId);
+        out.writeInt(code);
+        out.writeBoolean(binary);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    static BusMessage readFrom(DataInput in, int maxPayloadBytes) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Type.VALUES.length) {
+            throw new IOException("Unknown bus message type: " + ordinal);
+        }
+        String endpoint = in.readUTF();
+        String sourceNode = in.readUTF();
+        String sessionId = in.readUTF();
+        int code = in.readInt();
+        boolean binary = in.readBoolean();
+        int length = in.readInt();
+        if (length < 0 || length > maxPayloadBytes) {
+            throw new IOException("Bus message payload out of range: " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new BusMessage(Type.VALUES[ordinal], endpoint, sourceNode, sessionId, code, binary, payload);
+    }
+}
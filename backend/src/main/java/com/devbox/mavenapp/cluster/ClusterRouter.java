@@ -0,0 +1,301 @@
+package com.devbox.mavenapp.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OutboundSession;
+
+/**
+ * ルームをノードに割り振り、担当でないノードにつながったセッションを担当ノードへ中継する。
+ *
+ * <p>クライアントはどのノードにつないでもよい。つないだノード（入口）は、ルーティングキー
+ * （/game なら roomId、/waiting なら固定のキー）の担当ノードをリングで引き、
+ * 自分が担当ならそのまま処理する。そうでなければ接続・受信・切断をバスで担当ノードに送り、
+ * 担当ノードは {@link RemoteWebSocketSession} を通常のセッションとしてハンドラーに渡す。
+ * 担当ノードからの送信（ルームのブロードキャストやマッチングの結果）はバスで入口ノードに戻る。
+ *
+ * <p>ノードの構成は起動時に固定で、ノードが落ちてもほかのノードに引き継がない。
+ */
+public class ClusterRouter implements MessageBus.Listener {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRouter.class);
+    private static final String STANDALONE_NODE = "local";
+
+    private final String nodeId;
+    private final ConsistentHashRing ring;
+    private final MessageBus bus;
+    private final OutboundDispatcher dispatcher;
+    private final Map<String, WebSocketHandler> endpoints = new ConcurrentHashMap<>();
+    /** 入口側: ほかのノードに中継しているクライアントのセッション（キーはセッション ID） */
+    private final Map<String, ForwardedSession> forwarded = new ConcurrentHashMap<>();
+    /** 担当側: ほかのノードから中継されているセッションの代理 */
+    private final Map<String, RemoteWebSocketSession> remote = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    /**
+     * @param ring ノード ID のリング。bus のノード ID を含むこと
+     */
+    public ClusterRouter(MessageBus bus, ConsistentHashRing ring, OutboundDispatcher dispatcher) {
+        if (bus != null && !ring.getNodes().contains(bus.getNodeId())) {
+            throw new IllegalArgumentException("Node " + bus.getNodeId() + " is not in the ring " + ring.getNodes());
+        }
+        this.nodeId = bus == null ? STANDALONE_NODE : bus.getNodeId();
+        this.ring = ring;
+        this.bus = bus;
+        this.dispatcher = dispatcher;
+        if (bus != null) {
+            bus.subscribe(this);
+        }
+    }
+
+    /**
+     * 1ノードだけで動かす場合のルーター。{@link #route} はハンドラーをそのまま返す。
+     */
+    public static ClusterRouter standalone() {
+        return new ClusterRouter(null, new ConsistentHashRing(List.of(STANDALONE_NODE), 1), null);
+    }
+
+    /**
+     * endpoint のハンドラーを、routingKey の担当ノードへ中継するハンドラーで包む。
+     */
+    public WebSocketHandler route(String endpoint, WebSocketHandler delegate,
+            Function<WebSocketSession, String> routingKey) {
+        if (bus == null) {
+            return delegate;
+        }
+        endpoints.put(endpoint, delegate);
+        return new RoutingHandler(endpoint, delegate, routingKey);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(String routingKey) {
+        return ring.nodeFor(routingKey);
+    }
+
+    /** ほかのノードに中継しているクライアントのセッション数 */
+    public int getForwardedSessionCount() {
+        return forwarded.size();
+    }
+
+    /** ほかのノードから中継されているセッション数 */
+    public int getRemoteSessionCount() {
+        return remote.size();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getDroppedCount() {
+        return bus == null ? 0 : bus.getDroppedCount();
+    }
+
+    public void close() {
+        if (bus != null) {
+            bus.close();
+        }
+    }
+
+    void send(String target, BusMessage message) {
+        sent.increment();
+        bus.send(target, message);
+    }
+
+    @Override
+    public void onMessage(BusMessage message) {
+        received.increment();
+        switch (message.getType()) {
+            case OPEN -> openRemote(message);
+            case INBOUND -> {
+                RemoteWebSocketSession session = remote.get(
+                        RemoteWebSocketSession.key(message.getSourceNode(), message.getSessionId()));
+                if (session != null) {
+                    WebSocketMessage<?> frame = message.toFrame();
+                    invoke(session, handler -> handler.handleMessage(session, frame));
+                }
+            }
+            case CLOSE -> {
+                RemoteWebSocketSession session = remote.remove(
+                        RemoteWebSocketSession.key(message.getSourceNode(), message.getSessionId()));
+                if (session != null) {
+                    session.markClosed();
+                    CloseStatus status = new CloseStatus(message.getCode());
+                    invoke(session, handler -> handler.afterConnectionClosed(session, status));
+                }
+            }
+            case OUTBOUND -> {
+                ForwardedSession session = forwarded.get(message.getSessionId());
+                if (session != null) {
+                    session.outbound.send(message.toFrame());
+                }
+            }
+            case DISCONNECT -> {
+                ForwardedSession session = forwarded.get(message.getSessionId());
+                if (session != null) {
+                    closeClient(session, new CloseStatus(message.getCode()));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onPeerLost(String peer) {
+        logger.warn("Lost connection to node {}; closing sessions routed through it", peer);
+        remote.values().removeIf(session -> {
+            if (!session.getGatewayNode().equals(peer)) {
+                return false;
+            }
+            session.markClosed();
+            invoke(session, handler -> handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY));
+            return true;
+        });
+        // 担当ノードがいなくなったルームのクライアントには、つなぎ直してもらう
+        forwarded.values().stream()
+                .filter(session -> session.owner.equals(peer))
+                .forEach(session -> closeClient(session, CloseStatus.SERVICE_RESTARTED));
+    }
+
+    /**
+     * 担当側のハンドラーが代理のセッションを閉じた。入口ノードにクライアントの切断を頼む。
+     */
+    void closeRemote(RemoteWebSocketSession session, CloseStatus status) {
+        if (remote.remove(session.getId(), session)) {
+            session.markClosed();
+            send(session.getGatewayNode(), new BusMessage(BusMessage.Type.DISCONNECT, session.getEndpoint(), nodeId,
+                    session.getGatewaySessionId(), status.getCode(), false, null));
+            // 実際の接続と同じく、閉じたことをハンドラーにも知らせる
+            invoke(session, handler -> handler.afterConnectionClosed(session, status));
+        }
+    }
+
+    private void openRemote(BusMessage message) {
+        WebSocketHandler handler = endpoints.get(message.getEndpoint());
+        if (handler == null) {
+            logger.warn("Unknown endpoint {} from node {}", message.getEndpoint(), message.getSourceNode());
+            return;
+        }
+        URI uri = URI.create(new String(message.getPayload(), StandardCharsets.UTF_8));
+        RemoteWebSocketSession session = new RemoteWebSocketSession(this, message.getSourceNode(),
+                message.getEndpoint(), message.getSessionId(), uri);
+        remote.put(session.getId(), session);
+        invoke(session, delegate -> delegate.afterConnectionEstablished(session));
+    }
+
+    private void invoke(RemoteWebSocketSession session, HandlerCall call) {
+        WebSocketHandler handler = endpoints.get(session.getEndpoint());
+        if (handler == null) {
+            return;
+        }
+        try {
+            call.apply(handler);
+        } catch (Exception e) {
+            logger.error("Error handling forwarded session {}", session.getId(), e);
+        }
+    }
+
+    private static void closeClient(ForwardedSession session, CloseStatus status) {
+        try {
+            session.outbound.getSession().close(status);
+        } catch (IOException e) {
+            logger.warn("Error closing sessionId={}", session.outbound.getId(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface HandlerCall {
+        void apply(WebSocketHandler handler) throws Exception;
+    }
+
+    private static final class ForwardedSession {
+        private final String owner;
+        private final OutboundSession outbound;
+
+        private ForwardedSession(String owner, OutboundSession outbound) {
+            this.owner = owner;
+            this.outbound = outbound;
+        }
+    }
+
+    /**
+     * 入口側のハンドラー。担当が自分のセッションは元のハンドラーに渡し、それ以外は担当ノードへ送る。
+     */
+    private final class RoutingHandler extends WebSocketHandlerDecorator {
+        private final String endpoint;
+        private final Function<WebSocketSession, String> routingKey;
+
+        private RoutingHandler(String endpoint, WebSocketHandler delegate,
+                Function<WebSocketSession, String> routingKey) {
+            super(delegate);
+            this.endpoint = endpoint;
+            this.routingKey = routingKey;
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            String owner = ring.nodeFor(routingKey.apply(session));
+            if (owner.equals(nodeId)) {
+                super.afterConnectionEstablished(session);
+                return;
+            }
+            forwarded.put(session.getId(), new ForwardedSession(owner, dispatcher.wrap(session)));
+            String uri = session.getUri() == null ? "" : session.getUri().toString();
+            send(owner, new BusMessage(BusMessage.Type.OPEN, endpoint, nodeId, session.getId(), 0, false,
+                    uri.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            ForwardedSession target = forwarded.get(session.getId());
+            if (target == null) {
+                super.handleMessage(session, message);
+                return;
+            }
+            BusMessage frame = BusMessage.frame(BusMessage.Type.INBOUND, endpoint, nodeId, session.getId(), message);
+            if (frame != null) {
+                send(target.owner, frame);
+            }
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+            // 中継しているセッションは、続く afterConnectionClosed で担当ノードに知らせる
+            if (!forwarded.containsKey(session.getId())) {
+                super.handleTransportError(session, exception);
+            }
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            ForwardedSession target = forwarded.remove(session.getId());
+            if (target == null) {
+                super.afterConnectionClosed(session, closeStatus);
+                return;
+            }
+            target.outbound.discard();
+            send(target.owner, new BusMessage(BusMessage.Type.CLOSE, endpoint, nodeId, session.getId(),
+                    closeStatus.getCode(), false, null));
+        }
+    }
+}
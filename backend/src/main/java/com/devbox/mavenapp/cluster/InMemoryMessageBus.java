@@ -0,0 +1,115 @@
+package com.devbox.mavenapp.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 同じ JVM の中の複数ノードをつなぐバス。試験や1台での動作確認用。
+ * 宛先ノードごとに1本の配送スレッドで順に届けるので、送った順序が保たれる。
+ */
+public class InMemoryMessageBus implements MessageBus {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryMessageBus.class);
+
+    private final Network network;
+    private final String nodeId;
+    private final ExecutorService delivery;
+    private final LongAdder dropped = new LongAdder();
+    private volatile Listener listener;
+
+    private InMemoryMessageBus(Network network, String nodeId) {
+        this.network = network;
+        this.nodeId = nodeId;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bus-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void send(String target, BusMessage message) {
+        InMemoryMessageBus bus = network.nodes.get(target);
+        if (bus == null) {
+            dropped.increment();
+            return;
+        }
+        bus.deliver(message);
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        network.disconnect(nodeId);
+    }
+
+    private void deliver(BusMessage message) {
+        delivery.execute(() -> {
+            Listener current = listener;
+            if (current == null) {
+                dropped.increment();
+                return;
+            }
+            try {
+                current.onMessage(message);
+            } catch (RuntimeException e) {
+                logger.error("Error handling bus message {} on {}", message.getType(), nodeId, e);
+            }
+        });
+    }
+
+    private void peerLost(String peer) {
+        delivery.execute(() -> {
+            Listener current = listener;
+            if (current != null) {
+                current.onPeerLost(peer);
+            }
+        });
+    }
+
+    /**
+     * ノードの集まり。{@link #join(String)} でノードごとのバスを作る。
+     */
+    public static final class Network {
+        private final Map<String, InMemoryMessageBus> nodes = new ConcurrentHashMap<>();
+
+        public InMemoryMessageBus join(String nodeId) {
+            InMemoryMessageBus bus = new InMemoryMessageBus(this, nodeId);
+            if (nodes.putIfAbsent(nodeId, bus) != null) {
+                throw new IllegalArgumentException("Node already joined: " + nodeId);
+            }
+            return bus;
+        }
+
+        /**
+         * ノードを切り離す。残りのノードには onPeerLost を知らせる。
+         */
+        public void disconnect(String nodeId) {
+            InMemoryMessageBus removed = nodes.remove(nodeId);
+            if (removed == null) {
+                return;
+            }
+            removed.delivery.shutdown();
+            nodes.values().forEach(bus -> bus.peerLost(nodeId));
+        }
+    }
+}
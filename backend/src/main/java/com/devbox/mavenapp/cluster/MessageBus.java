@@ -0,0 +1,35 @@
+package com.devbox.mavenapp.cluster;
+
+/**
+ * ノード間のメッセージの配送路。同じ送信元から同じ宛先へのメッセージは送った順に届けること。
+ * 配送は保証しない（宛先が落ちていれば捨ててよい）。
+ */
+public interface MessageBus {
+
+    String getNodeId();
+
+    /**
+     * nodeId 宛てにメッセージを送る。配送を待たずに返る。
+     */
+    void send(String nodeId, BusMessage message);
+
+    /**
+     * このノード宛てのメッセージの受け取り先を登録する。
+     */
+    void subscribe(Listener listener);
+
+    /** 宛先に届けられずに捨てたメッセージの数 */
+    long getDroppedCount();
+
+    void close();
+
+    interface Listener {
+        void onMessage(BusMessage message);
+
+        /**
+         * nodeId との接続が切れた。そのノード経由のセッションは片付けてよい。
+         */
+        default void onPeerLost(String nodeId) {
+        }
+    }
+}
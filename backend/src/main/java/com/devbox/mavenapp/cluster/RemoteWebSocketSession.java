@@ -0,0 +1,154 @@
+package com.devbox.mavenapp.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * ほかのノードにつながっているクライアントの、担当ノード側での代理。
+ * 送ったフレームはバスで入口ノードに返し、入口ノードがクライアントに送る。
+ * ハンドラーからは普通のセッションと同じに見えるので、ルームの処理はそのまま使える。
+ */
+final class RemoteWebSocketSession implements WebSocketSession {
+    private final ClusterRouter router;
+    private final String gatewayNode;
+    private final String endpoint;
+    private final String gatewaySessionId;
+    private final String id;
+    private final URI uri;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    RemoteWebSocketSession(ClusterRouter router, String gatewayNode, String endpoint, String gatewaySessionId,
+            URI uri) {
+        this.router = router;
+        this.gatewayNode = gatewayNode;
+        this.endpoint = endpoint;
+        this.gatewaySessionId = gatewaySessionId;
+        // 入口ノードごとに採番されたセッション ID が重ならないよう、ノード ID を前に付ける
+        this.id = key(gatewayNode, gatewaySessionId);
+        this.uri = uri;
+    }
+
+    static String key(String gatewayNode, String gatewaySessionId) {
+        return gatewayNode + "/" + gatewaySessionId;
+    }
+
+    String getGatewayNode() {
+        return gatewayNode;
+    }
+
+    String getGatewaySessionId() {
+        return gatewaySessionId;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    void markClosed() {
+        open = false;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return HttpHeaders.EMPTY;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!open) {
+            throw new IOException("Session closed: " + id);
+        }
+        BusMessage frame = BusMessage.frame(BusMessage.Type.OUTBOUND, endpoint, router.getNodeId(), gatewaySessionId,
+                message);
+        if (frame != null) {
+            router.send(gatewayNode, frame);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        if (open) {
+            router.closeRemote(this, status);
+        }
+    }
+}
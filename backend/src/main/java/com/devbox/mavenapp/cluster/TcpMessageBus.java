@@ -0,0 +1,262 @@
+package com.devbox.mavenapp.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TCP でノード同士をつなぐバス。1台で複数の JVM を動かして試すときはループバックのポートを分けて使う。
+ *
+ * <ul>
+ * <li>宛先ごとに1本の接続と1本の書き込みスレッドを持ち、キューにたまった分を続けて書いてから flush する</li>
+ * <li>接続は最初の送信時に張り、切れたら次の送信で張り直す。つながらない間のメッセージは捨てる</li>
+ * <li>受信側は接続ごとに1本の読み込みスレッドで順に処理するので、送信元ごとの順序が保たれる</li>
+ * </ul>
+ */
+public class TcpMessageBus implements MessageBus {
+    private static final Logger logger = LoggerFactory.getLogger(TcpMessageBus.class);
+    private static final int MAX_PAYLOAD_BYTES = 4 * 1024 * 1024;
+    /** 宛先ごとの送信キューの上限。あふれた分は捨てる */
+    private static final int MAX_QUEUED_MESSAGES = 65_536;
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_BACKOFF_MILLIS = 200;
+
+    private final String nodeId;
+    private final ServerSocket server;
+    private final Map<String, InetSocketAddress> peers = new ConcurrentHashMap<>();
+    private final Map<String, Peer> outgoing = new ConcurrentHashMap<>();
+    private final Set<Socket> incoming = ConcurrentHashMap.newKeySet();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Listener listener;
+    private volatile boolean running = true;
+
+    /**
+     * @param bindAddress 待ち受けるアドレス。ポート 0 なら空いているポートを使う
+     * @param peers       ほかのノードの ID と待ち受けアドレス
+     */
+    public TcpMessageBus(String nodeId, InetSocketAddress bindAddress, Map<String, InetSocketAddress> peers)
+            throws IOException {
+        this.nodeId = nodeId;
+        this.server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(bindAddress);
+        peers.forEach(this::addPeer);
+        daemon(this::acceptLoop, "bus-accept-" + nodeId).start();
+        logger.info("Message bus {} listening on {}", nodeId, server.getLocalSocketAddress());
+    }
+
+    public void addPeer(String peerId, InetSocketAddress address) {
+        if (!peerId.equals(nodeId)) {
+            peers.put(peerId, address);
+        }
+    }
+
+    public int getLocalPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void send(String target, BusMessage message) {
+        InetSocketAddress address = peers.get(target);
+        if (address == null || !running) {
+            dropped.increment();
+            return;
+        }
+        Peer peer = outgoing.computeIfAbsent(target, id -> new Peer(id, address));
+        if (!peer.queue.offer(message)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(server);
+        outgoing.values().forEach(Peer::stop);
+        incoming.forEach(TcpMessageBus::closeQuietly);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                incoming.add(socket);
+                daemon(() -> readLoop(socket), "bus-read-" + nodeId).start();
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Error accepting bus connection on {}: {}", nodeId, e.toString());
+                }
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        String peerId = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024))) {
+            // 接続の最初に送信元のノード ID が来る
+            peerId = in.readUTF();
+            logger.info("Bus connection from {} to {}", peerId, nodeId);
+            while (running) {
+                BusMessage message = BusMessage.readFrom(in, MAX_PAYLOAD_BYTES);
+                Listener current = listener;
+                if (current == null) {
+                    dropped.increment();
+                    continue;
+                }
+                try {
+                    current.onMessage(message);
+                } catch (RuntimeException e) {
+                    logger.error("Error handling bus message {} on {}", message.getType(), nodeId, e);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // 相手が接続を閉じた
+        } catch (IOException e) {
+            logger.warn("Bus connection from {} to {} failed: {}", peerId, nodeId, e.toString());
+        } finally {
+            incoming.remove(socket);
+            closeQuietly(socket);
+            if (running && peerId != null) {
+                notifyPeerLost(peerId);
+            }
+        }
+    }
+
+    private void notifyPeerLost(String peerId) {
+        Listener current = listener;
+        if (current != null) {
+            current.onPeerLost(peerId);
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // 閉じるときのエラーは無視する
+        }
+    }
+
+    /**
+     * 1つの宛先への送信キューと、それを書き出すスレッド。
+     */
+    private final class Peer {
+        private final String peerId;
+        private final InetSocketAddress address;
+        private final BlockingQueue<BusMessage> queue = new ArrayBlockingQueue<>(MAX_QUEUED_MESSAGES);
+        private final Thread writer;
+        private Socket socket;
+        private DataOutputStream out;
+
+        private Peer(String peerId, InetSocketAddress address) {
+            this.peerId = peerId;
+            this.address = address;
+            this.writer = daemon(this::writeLoop, "bus-write-" + nodeId + "-" + peerId);
+            writer.start();
+        }
+
+        private void writeLoop() {
+            while (running) {
+                BusMessage message;
+                try {
+                    message = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (message == null) {
+                    continue;
+                }
+                if (out == null && !connect()) {
+                    dropped.increment();
+                    continue;
+                }
+                try {
+                    message.writeTo(out);
+                    // 続けて送るものがあれば、まとめて flush する
+                    while ((message = queue.poll()) != null) {
+                        message.writeTo(out);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    logger.warn("Bus connection from {} to {} lost: {}", nodeId, peerId, e.toString());
+                    dropped.increment();
+                    disconnect();
+                    notifyPeerLost(peerId);
+                }
+            }
+            disconnect();
+        }
+
+        private boolean connect() {
+            try {
+                Socket connected = new Socket();
+                connected.setTcpNoDelay(true);
+                connected.connect(address, CONNECT_TIMEOUT_MILLIS);
+                socket = connected;
+                out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream(), 64 * 1024));
+                out.writeUTF(nodeId);
+                return true;
+            } catch (IOException e) {
+                logger.debug("Cannot connect bus from {} to {} at {}: {}", nodeId, peerId, address, e.toString());
+                disconnect();
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+            socket = null;
+            out = null;
+        }
+
+        private void stop() {
+            writer.interrupt();
+        }
+    }
+}
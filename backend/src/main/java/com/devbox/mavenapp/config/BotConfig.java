@@ -0,0 +1,36 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.game.HeadCharacterIndex;
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+
+@Configuration
+public class BotConfig {
+    private static final Logger logger = LoggerFactory.getLogger(BotConfig.class);
+
+    @Bean
+    public RoomBot roomBot(LocalDictionary localDictionary, GameMetrics gameMetrics,
+            @Value("${game.bot.enabled:false}") boolean enabled,
+            @Value("${game.bot.join-timeout-ms:15000}") long joinTimeoutMillis,
+            @Value("${game.bot.think-ms:1500}") long thinkMillis) {
+        if (!enabled) {
+            return RoomBot.NONE;
+        }
+        long start = System.nanoTime();
+        HeadCharacterIndex index = HeadCharacterIndex.build(localDictionary);
+        logger.info("Bot word index built: {} words, {} bytes in {} ms", index.size(), index.getIndexBytes(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        RoomBot bot = new RoomBot(index, Duration.ofMillis(joinTimeoutMillis), Duration.ofMillis(thinkMillis));
+        gameMetrics.bindBot(bot);
+        return bot;
+    }
+}
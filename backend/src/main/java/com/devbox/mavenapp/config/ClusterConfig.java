@@ -0,0 +1,54 @@
+package com.devbox.mavenapp.config;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.cluster.ClusterRouter;
+import com.devbox.mavenapp.cluster.ConsistentHashRing;
+import com.devbox.mavenapp.cluster.TcpMessageBus;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+
+@Configuration
+public class ClusterConfig {
+
+    @Bean(destroyMethod = "close")
+    public ClusterRouter clusterRouter(OutboundDispatcher outboundDispatcher, GameMetrics gameMetrics,
+            @Value("${game.cluster.enabled:false}") boolean enabled,
+            @Value("${game.cluster.node-id:node-1}") String nodeId,
+            @Value("${game.cluster.nodes:}") List<String> nodeSpecs,
+            @Value("${game.cluster.virtual-nodes:" + ConsistentHashRing.DEFAULT_VIRTUAL_NODES + "}") int virtualNodes)
+            throws IOException {
+        if (!enabled) {
+            return ClusterRouter.standalone();
+        }
+        // node-1=127.0.0.1:9701 の形で、自分を含む全ノードを並べる
+        Map<String, InetSocketAddress> nodes = new LinkedHashMap<>();
+        for (String spec : nodeSpecs) {
+            String[] idAndAddress = spec.strip().split("=", 2);
+            int colon = idAndAddress.length == 2 ? idAndAddress[1].lastIndexOf(':') : -1;
+            if (colon < 0) {
+                throw new IllegalArgumentException("Cluster node must be id=host:port: " + spec);
+            }
+            nodes.put(idAndAddress[0], new InetSocketAddress(idAndAddress[1].substring(0, colon),
+                    Integer.parseInt(idAndAddress[1].substring(colon + 1))));
+        }
+        InetSocketAddress self = nodes.get(nodeId);
+        if (self == null) {
+            throw new IllegalArgumentException("Node " + nodeId + " is not listed in game.cluster.nodes");
+        }
+        TcpMessageBus bus = new TcpMessageBus(nodeId, new InetSocketAddress(self.getPort()), nodes);
+        ClusterRouter router = new ClusterRouter(bus, new ConsistentHashRing(new ArrayList<>(nodes.keySet()),
+                virtualNodes), outboundDispatcher);
+        gameMetrics.bindCluster(router);
+        return router;
+    }
+}
@@ -0,0 +1,48 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.websocket.IngressControl;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OverloadPolicy;
+
+@Configuration
+public class IngressConfig {
+
+    @Bean
+    public IngressControl ingressControl(GameMetrics gameMetrics,
+            @Value("${game.ingress.max-connections:10000}") int maxConnections,
+            @Value("${game.ingress.max-handshakes:256}") int maxHandshakes,
+            @Value("${game.ingress.session-rate:40/80}") String sessionRate,
+            @Value("${game.ingress.type-rates:}") List<String> typeRateSpecs,
+            @Value("${game.ingress.overload-policy:REJECT}") OverloadPolicy overloadPolicy,
+            @Value("${game.ingress.max-delay-ms:200}") long maxDelayMillis,
+            @Value("${game.ingress.max-delayed:32}") int maxDelayed) {
+        // inputWord=20/40 の形で並べる。書かなかった種類は既定の制限のまま
+        Map<MessageType, IngressControl.Rate> typeRates = new EnumMap<>(IngressControl.DEFAULT_TYPE_RATES);
+        for (String spec : typeRateSpecs) {
+            if (spec.isBlank()) {
+                continue;
+            }
+            String[] typeAndRate = spec.strip().split("=", 2);
+            MessageType type = MessageType.fromWireName(typeAndRate[0]);
+            if (typeAndRate.length != 2 || (type == MessageType.UNKNOWN && !"unknown".equals(typeAndRate[0]))) {
+                throw new IllegalArgumentException("Type rate must be type=rate/burst: " + spec);
+            }
+            typeRates.put(type, IngressControl.Rate.parse(typeAndRate[1]));
+        }
+        IngressControl ingress = new IngressControl(maxConnections, maxHandshakes,
+                IngressControl.Rate.parse(sessionRate), typeRates, overloadPolicy,
+                Duration.ofMillis(maxDelayMillis), maxDelayed);
+        gameMetrics.bindIngress(ingress);
+        return ingress;
+    }
+}
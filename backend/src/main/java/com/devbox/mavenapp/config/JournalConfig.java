@@ -0,0 +1,43 @@
+package com.devbox.mavenapp.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.journal.FileEventJournal;
+import com.devbox.mavenapp.metrics.GameMetrics;
+
+/**
+ * ジャーナルは game.journal.enabled=true のときだけ書く。書き先の game.journal.directory は既定値を持たない。
+ */
+@Configuration
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public EventJournal eventJournal(GameMetrics gameMetrics,
+            @Value("${game.journal.enabled:false}") boolean enabled,
+            @Value("${game.journal.directory:}") String directory,
+            @Value("${game.journal.fsync:true}") boolean fsync,
+            @Value("${game.journal.segment-bytes:67108864}") long segmentBytes,
+            @Value("${game.journal.snapshot-interval-ms:60000}") long snapshotIntervalMillis,
+            @Value("${game.journal.retention-hours:24}") long retentionHours,
+            @Value("${game.journal.recovery-budget-ms:5000}") long recoveryBudgetMillis,
+            @Value("${game.journal.replay.max-segments:60}") int replayMaxSegments) throws IOException {
+        if (!enabled) {
+            return EventJournal.NONE;
+        }
+        if (directory.isBlank()) {
+            throw new IllegalArgumentException("game.journal.directory is required when game.journal.enabled=true");
+        }
+        FileEventJournal journal = FileEventJournal.open(Path.of(directory), fsync, segmentBytes,
+                Duration.ofMillis(snapshotIntervalMillis), Duration.ofHours(retentionHours),
+                Duration.ofMillis(recoveryBudgetMillis), replayMaxSegments);
+        gameMetrics.bindJournal(journal);
+        return journal;
+    }
+}
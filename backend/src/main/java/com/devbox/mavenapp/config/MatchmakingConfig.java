@@ -0,0 +1,27 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.handler.MatchmakingHandler;
+import com.devbox.mavenapp.service.matchmaking.MatchmakingQueue;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+
+/**
+ * マッチングの待ち行列。停止時は待ちすぎたプレイヤーをボットと組ませる定期処理を止める。
+ */
+@Configuration
+public class MatchmakingConfig {
+    private static final int MAX_PLAYERS = 2;
+
+    @Bean(destroyMethod = "shutdown")
+    public MatchmakingHandler matchmakingHandler(OutboundDispatcher outboundDispatcher, RoomBot roomBot,
+            @Value("${game.bot.match-timeout-ms:10000}") long botMatchTimeoutMillis) {
+        Duration botMatchTimeout = roomBot.isEnabled() ? Duration.ofMillis(botMatchTimeoutMillis) : Duration.ZERO;
+        return new MatchmakingHandler(new MatchmakingQueue(MAX_PLAYERS), outboundDispatcher, botMatchTimeout);
+    }
+}
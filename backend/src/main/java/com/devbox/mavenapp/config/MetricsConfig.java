@@ -0,0 +1,23 @@
+package com.devbox.mavenapp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.metrics.MetricsRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MetricsRegistry metricsRegistry() {
+        return new MetricsRegistry();
+    }
+
+    @Bean
+    public GameMetrics gameMetrics(MetricsRegistry metricsRegistry) {
+        GameMetrics gameMetrics = new GameMetrics(metricsRegistry);
+        gameMetrics.bindJvm();
+        return gameMetrics;
+    }
+}
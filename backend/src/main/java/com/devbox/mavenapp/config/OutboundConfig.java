@@ -0,0 +1,24 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+
+@Configuration
+public class OutboundConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public OutboundDispatcher outboundDispatcher(
+            @Value("${game.outbound.send-time-limit-ms:5000}") long sendTimeLimitMillis,
+            @Value("${game.outbound.buffer-size-limit:524288}") int bufferSizeLimit,
+            @Value("${game.outbound.max-queued-messages:256}") int maxQueuedMessages,
+            @Value("${game.outbound.overflow-policy:COALESCE}") OverflowPolicy overflowPolicy) {
+        return new OutboundDispatcher(Duration.ofMillis(sendTimeLimitMillis), bufferSizeLimit,
+                maxQueuedMessages, overflowPolicy);
+    }
+}
@@ -0,0 +1,46 @@
+package com.devbox.mavenapp.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.results.FileResultStore;
+import com.devbox.mavenapp.results.Leaderboard;
+import com.devbox.mavenapp.results.ResultRecorder;
+import com.devbox.mavenapp.results.WriteBehindResultRecorder;
+
+/**
+ * 対戦結果は game.results.enabled=true のときだけ保存する。保存先の game.results.directory は既定値を持たない。
+ */
+@Configuration
+public class ResultsConfig {
+
+    @Bean
+    public Leaderboard leaderboard(@Value("${game.results.initial-rating:1500}") double initialRating,
+            @Value("${game.results.k-factor:32}") double kFactor) {
+        return new Leaderboard(initialRating, kFactor);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ResultRecorder resultRecorder(Leaderboard leaderboard, GameMetrics gameMetrics,
+            @Value("${game.results.enabled:false}") boolean enabled,
+            @Value("${game.results.directory:}") String directory,
+            @Value("${game.results.fsync:true}") boolean fsync,
+            @Value("${game.results.queue-capacity:10000}") int queueCapacity,
+            @Value("${game.results.max-batch:512}") int maxBatch) throws IOException {
+        if (!enabled) {
+            return ResultRecorder.NONE;
+        }
+        if (directory.isBlank()) {
+            throw new IllegalArgumentException("game.results.directory is required when game.results.enabled=true");
+        }
+        WriteBehindResultRecorder recorder = new WriteBehindResultRecorder(
+                FileResultStore.open(Path.of(directory), fsync), leaderboard, queueCapacity, maxBatch);
+        gameMetrics.bindResults(recorder);
+        return recorder;
+    }
+}
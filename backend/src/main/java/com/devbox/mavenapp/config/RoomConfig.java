@@ -0,0 +1,41 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.game.SpectatorFanout;
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.results.ResultRecorder;
+import com.devbox.mavenapp.service.validation.WordValidator;
+
+/**
+ * ルームの管理。停止時はジャーナルと対戦結果の書き込みを閉じる前に、ルームのタイマーとスレッドを止める。
+ */
+@Configuration
+public class RoomConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public RoomRegistry roomRegistry(WordValidator wordValidator, GameMetrics gameMetrics, EventJournal eventJournal,
+            SpectatorFanout spectatorFanout, ResultRecorder resultRecorder, RoomBot roomBot,
+            @Value("${game.turn.time-limit-ms:35000}") long turnTimeLimitMillis,
+            @Value("${game.input-relay.rate-hz:15}") int inputRelayRateHz,
+            @Value("${game.resume.grace-ms:30000}") long resumeGraceMillis,
+            @Value("${game.resume.history-size:256}") int resumeHistorySize) {
+        return new RoomRegistry(wordValidator, new RoomRegistry.Options()
+                .metrics(gameMetrics)
+                .turnTimeLimit(Duration.ofMillis(turnTimeLimitMillis))
+                .inputRelayInterval(Duration.ofMillis(1000 / Math.max(inputRelayRateHz, 1)))
+                .journal(eventJournal)
+                .spectatorFanout(spectatorFanout)
+                .resumeGrace(Duration.ofMillis(resumeGraceMillis))
+                .resumeHistorySize(resumeHistorySize)
+                .resultRecorder(resultRecorder)
+                .bot(roomBot));
+    }
+}
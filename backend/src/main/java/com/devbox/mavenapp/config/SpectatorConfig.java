@@ -0,0 +1,32 @@
+package com.devbox.mavenapp.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.devbox.mavenapp.game.SpectatorFanout;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+
+@Configuration
+public class SpectatorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public SpectatorFanout spectatorFanout(GameMetrics gameMetrics,
+            @Value("${game.spectator.batch-interval-ms:100}") long batchIntervalMillis,
+            @Value("${game.spectator.lag-threshold:16}") int lagThreshold,
+            @Value("${game.spectator.max-lag-ms:10000}") long maxLagMillis,
+            @Value("${game.outbound.send-time-limit-ms:5000}") long sendTimeLimitMillis,
+            @Value("${game.outbound.buffer-size-limit:524288}") int bufferSizeLimit) {
+        // 観戦者のキューは対戦者と分け、あふれたら古いバッチから捨てる（遅れはスナップショットで取り戻す）
+        OutboundDispatcher dispatcher = new OutboundDispatcher(Duration.ofMillis(sendTimeLimitMillis),
+                bufferSizeLimit, lagThreshold * 2, OverflowPolicy.DROP_OLDEST);
+        SpectatorFanout fanout = new SpectatorFanout(dispatcher, Duration.ofMillis(batchIntervalMillis),
+                lagThreshold, Duration.ofMillis(maxLagMillis));
+        gameMetrics.bindSpectators(fanout);
+        return fanout;
+    }
+}
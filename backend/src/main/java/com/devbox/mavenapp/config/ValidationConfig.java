@@ -0,0 +1,97 @@
+package com.devbox.mavenapp.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.service.validation.CachingWordValidator;
+import com.devbox.mavenapp.service.validation.FallbackWordValidator;
+import com.devbox.mavenapp.service.validation.HedgedWordValidator;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+import com.devbox.mavenapp.service.validation.LocalDictionaryWordValidator;
+import com.devbox.mavenapp.service.validation.StubWordValidator;
+import com.devbox.mavenapp.service.validation.TimedWordValidator;
+import com.devbox.mavenapp.service.validation.WordValidationCache;
+import com.devbox.mavenapp.service.validation.WeblioWordValidator;
+import com.devbox.mavenapp.service.validation.WordValidator;
+
+@Configuration
+public class ValidationConfig {
+    private static final String DEFAULT_DICTIONARY = "dictionary/words.txt";
+    private static final String MODE_HEDGED = "hedged";
+
+    @Bean
+    public LocalDictionary localDictionary(
+            @Value("${game.validation.dictionary-path:}") String dictionaryPath) throws IOException {
+        if (dictionaryPath.isBlank()) {
+            return LocalDictionary.loadFromClasspath(DEFAULT_DICTIONARY);
+        }
+        Path path = Path.of(dictionaryPath);
+        return dictionaryPath.endsWith(".idx") ? LocalDictionary.mapIndex(path) : LocalDictionary.load(path);
+    }
+
+    @Bean
+    public WordValidator wordValidator(LocalDictionary localDictionary, GameMetrics gameMetrics,
+            @Value("${game.validation.mode:fallback}") String mode,
+            @Value("${game.validation.weblio-fallback:true}") boolean weblioFallback,
+            @Value("${game.validation.stub:false}") boolean stub,
+            @Value("${game.validation.stub-delay-ms:0}") long stubDelayMillis,
+            @Value("${game.validation.weblio.base-url:" + WeblioWordValidator.DEFAULT_BASE_URL + "}") String weblioBaseUrl,
+            @Value("${game.validation.weblio.max-concurrent-requests:16}") int weblioMaxConcurrentRequests,
+            @Value("${game.validation.weblio.max-queued-requests:256}") int weblioMaxQueuedRequests,
+            @Value("${game.validation.weblio.timeout-ms:3000}") long weblioTimeoutMillis,
+            @Value("${game.validation.weblio.max-body-bytes:524288}") long weblioMaxBodyBytes,
+            @Value("${game.validation.hedged.sources:local,weblio}") List<String> hedgedSources,
+            @Value("${game.validation.hedged.delay-ms:150}") long hedgeDelayMillis,
+            @Value("${game.validation.hedged.timeout-ms:2000}") long hedgedTimeoutMillis) {
+        if (stub) {
+            // 負荷試験用: 外部サービスにも辞書にも問い合わせない
+            return new StubWordValidator(stubDelayMillis);
+        }
+        LocalDictionaryWordValidator local = new LocalDictionaryWordValidator(localDictionary);
+        WeblioWordValidator remote = new WeblioWordValidator(weblioBaseUrl, weblioMaxConcurrentRequests,
+                weblioMaxQueuedRequests, Duration.ofMillis(weblioTimeoutMillis), weblioMaxBodyBytes);
+        gameMetrics.bindRemoteValidation(remote);
+
+        WordValidator validator;
+        if (MODE_HEDGED.equals(mode)) {
+            List<HedgedWordValidator.Source> sources = new ArrayList<>();
+            for (String name : hedgedSources) {
+                switch (name.strip()) {
+                    // ローカル辞書は収録語が限られるので、載っていないことは不正解の根拠にしない
+                    case "local" -> sources.add(new HedgedWordValidator.Source(local, false));
+                    case "weblio" -> sources.add(new HedgedWordValidator.Source(remote, true));
+                    default -> throw new IllegalArgumentException("Unknown validation source: " + name);
+                }
+            }
+            HedgedWordValidator hedged = new HedgedWordValidator(sources, Duration.ofMillis(hedgeDelayMillis),
+                    Duration.ofMillis(hedgedTimeoutMillis), Executors.newCachedThreadPool(daemonThreads()));
+            gameMetrics.bindHedgedValidation(hedged);
+            validator = hedged;
+        } else if (weblioFallback) {
+            WordValidator weblio = new TimedWordValidator(remote,
+                    gameMetrics.validationLatency(GameMetrics.VALIDATION_REMOTE));
+            validator = new FallbackWordValidator(local, weblio);
+        } else {
+            validator = local;
+        }
+        return new CachingWordValidator(validator, new WordValidationCache(),
+                gameMetrics.validationLatency(GameMetrics.VALIDATION_CACHE_HIT),
+                gameMetrics.validationLatency(GameMetrics.VALIDATION_CACHE_MISS));
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("validation-source-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+}
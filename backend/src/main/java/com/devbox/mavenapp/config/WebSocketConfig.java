@@ -5,16 +5,74 @@ import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.support.HttpSessionHandshakeInterceptor;
+import com.devbox.mavenapp.cluster.ClusterRouter;
+import com.devbox.mavenapp.game.RoomRegistry;
 import com.devbox.mavenapp.handler.ExampleHandler;
+import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.handler.MatchmakingHandler;
+import com.devbox.mavenapp.handler.SpectatorWebSocketHandler;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.websocket.IngressControl;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
 
 @Configuration
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private static final String MATCHMAKING_KEY = "matchmaking";
+
+    private final RoomRegistry roomRegistry;
+    private final OutboundDispatcher outboundDispatcher;
+    private final GameMetrics gameMetrics;
+    private final ClusterRouter clusterRouter;
+    private final IngressControl ingressControl;
+    private final MatchmakingHandler matchmakingHandler;
+
+    public WebSocketConfig(RoomRegistry roomRegistry, OutboundDispatcher outboundDispatcher,
+            GameMetrics gameMetrics, ClusterRouter clusterRouter, IngressControl ingressControl,
+            MatchmakingHandler matchmakingHandler) {
+        this.roomRegistry = roomRegistry;
+        this.outboundDispatcher = outboundDispatcher;
+        this.gameMetrics = gameMetrics;
+        this.clusterRouter = clusterRouter;
+        this.ingressControl = ingressControl;
+        this.matchmakingHandler = matchmakingHandler;
+    }
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
         registry.addHandler(new ExampleHandler(), "/example")
                 .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .setAllowedOrigins("*");
+        // 流量制限はクライアントがつないだノードでかけるため、ルーティングの外側に置く。
+        // マッチングの待ち行列は1つにまとめるため、全ノードで同じキーの担当ノードに集める
+        registry.addHandler(ingressControl.guard(
+                        clusterRouter.route("waiting", matchmakingHandler, session -> MATCHMAKING_KEY)), "/waiting")
+                .addInterceptors(ingressControl.handshakeInterceptor())
+                .setAllowedOrigins("*");
+        GameWebSocketHandler gameHandler = new GameWebSocketHandler(roomRegistry, outboundDispatcher);
+        registry.addHandler(ingressControl.guard(
+                        clusterRouter.route("game", gameHandler, GameWebSocketHandler::roomIdOf)), "/game")
+                .addInterceptors(ingressControl.handshakeInterceptor())
+                .setAllowedOrigins("*");
+        SpectatorWebSocketHandler spectatorHandler = new SpectatorWebSocketHandler(roomRegistry);
+        registry.addHandler(ingressControl.guard(
+                        clusterRouter.route("watch", spectatorHandler, GameWebSocketHandler::roomIdOf)), "/watch")
+                .addInterceptors(ingressControl.handshakeInterceptor())
+                .setAllowedOrigins("*");
+
+        gameMetrics.bindOutbound(outboundDispatcher.getMetrics());
+        gameMetrics.gauge("sessions", "Open WebSocket sessions", gameHandler::getSessionCount, "endpoint", "game");
+        gameMetrics.gauge("sessions", "Open WebSocket sessions", matchmakingHandler::getSessionCount,
+                "endpoint", "waiting");
+        gameMetrics.gauge("sessions", "Open WebSocket sessions", spectatorHandler::getSessionCount,
+                "endpoint", "watch");
+        gameMetrics.gauge("rooms", "Active game rooms", roomRegistry::getRoomCount);
+        gameMetrics.gauge("timers_pending", "Turn deadlines and delayed room tasks waiting to fire",
+                roomRegistry::getPendingTimerCount);
+        gameMetrics.gauge("matchmaking_waiting", "Players waiting in the matchmaking queue",
+                matchmakingHandler.getQueue()::getWaitingCount);
+        gameMetrics.gauge("matchmaking_bot_matches", "Waiting players matched with the bot after the timeout",
+                matchmakingHandler.getQueue()::getBotMatchCount);
     }
 }
@@ -0,0 +1,44 @@
+package com.devbox.mavenapp.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devbox.mavenapp.results.Leaderboard;
+import com.devbox.mavenapp.results.Standing;
+
+/**
+ * レーティングの順位表。/leaderboard は上位から（offset で続きを）、/leaderboard/{userId} は1人の順位を返す。
+ */
+@RestController
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 100;
+
+    private final Leaderboard leaderboard;
+
+    public LeaderboardController(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<Standing>> page(@RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(leaderboard.page(offset, limit));
+    }
+
+    @GetMapping("/leaderboard/{userId}")
+    public ResponseEntity<Standing> standing(@PathVariable String userId) {
+        Standing standing = leaderboard.standing(userId);
+        if (standing == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(standing);
+    }
+}
@@ -0,0 +1,45 @@
+package com.devbox.mavenapp.controller;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devbox.mavenapp.metrics.MetricsRegistry;
+
+/**
+ * Prometheus 形式のメトリクス。既定ではローカルホストからのアクセスだけに応答する。
+ */
+@RestController
+public class MetricsController {
+    private final MetricsRegistry metricsRegistry;
+    private final boolean localOnly;
+
+    public MetricsController(MetricsRegistry metricsRegistry,
+            @Value("${game.metrics.local-only:true}") boolean localOnly) {
+        this.metricsRegistry = metricsRegistry;
+        this.localOnly = localOnly;
+    }
+
+    @GetMapping(value = "/metrics", produces = MetricsRegistry.CONTENT_TYPE)
+    public ResponseEntity<String> metrics(HttpServletRequest request) {
+        if (localOnly && !isLoopback(request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(metricsRegistry.scrape());
+    }
+
+    private static boolean isLoopback(String address) {
+        try {
+            return InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.devbox.mavenapp.controller;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.journal.GameEvent;
+
+/**
+ * ジャーナルに残っている対戦の出来事を古い順に返す。終わった対戦の再生に使う。
+ *
+ * <p>認証はないので、game.journal.replay.enabled=true のときだけ公開する。
+ * 再生はジャーナルのファイルを読むので、同時に受けるのは1件だけにして、ほかは 429 を返す。
+ */
+@RestController
+@ConditionalOnProperty(name = "game.journal.replay.enabled", havingValue = "true")
+public class ReplayController {
+    private static final int MAX_ROOM_ID_LENGTH = 128;
+
+    private final EventJournal journal;
+    private final Semaphore inFlight = new Semaphore(1);
+
+    public ReplayController(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    @GetMapping("/replay/{roomId}")
+    public ResponseEntity<List<GameEvent>> replay(@PathVariable String roomId) {
+        if (roomId.length() > MAX_ROOM_ID_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!inFlight.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        try {
+            List<GameEvent> events = journal.replay(roomId);
+            if (events.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(events);
+        } finally {
+            inFlight.release();
+        }
+    }
+}
@@ -0,0 +1,971 @@
+package com.devbox.mavenapp.game;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.devbox.mavenapp.journal.GameEvent;
+import com.devbox.mavenapp.journal.RoomState;
+import com.devbox.mavenapp.model.CheckResultMessage;
+import com.devbox.mavenapp.model.GameMessage;
+import com.devbox.mavenapp.model.GameState;
+import com.devbox.mavenapp.model.GameStateMessage;
+import com.devbox.mavenapp.model.OverwriteWordMessage;
+import com.devbox.mavenapp.model.Player;
+import com.devbox.mavenapp.model.ResultMessage;
+import com.devbox.mavenapp.model.ResumeResultMessage;
+import com.devbox.mavenapp.model.ResumeTokenMessage;
+import com.devbox.mavenapp.model.RouletteResultMessage;
+import com.devbox.mavenapp.model.StartTurnMessage;
+import com.devbox.mavenapp.model.StateDeltaMessage;
+import com.devbox.mavenapp.results.MatchResult;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+import com.devbox.mavenapp.websocket.OutboundSession;
+
+/**
+ * 1つの対戦ルームの状態とルール進行。
+ * 状態を触る処理はすべて {@link #execute(Runnable)} 経由でルームのメールボックス上で動くため、
+ * メソッド内ではロックを取らない。
+ *
+ * <p>盤面の同期は、参加時に送る全体のスナップショット（updateGameState）と、
+ * 以後の変更だけを運ぶ差分（stateDelta）で行う。どちらも seq を持ち、
+ * クライアントは seq が飛んだら resync を送ってスナップショットを取り直す。
+ *
+ * <p>対戦者に送るメッセージにはルーム内の通し番号 mseq を付け、最近の分を {@link OutboundHistory} に残す。
+ * 接続が切れたプレイヤー（正常なクローズを除く）の席は resumeGrace の間残し、再開トークン付きで
+ * つなぎ直したセッションに、切れていた間のメッセージだけを送り直す。
+ *
+ * <p>観戦者には、対戦者に送ったメッセージを {@link SpectatorChannel} でまとめて後から送る。
+ * 観戦者は盤面に参加せず、メンバー枠も使わない。
+ *
+ * <p>{@link RoomBot} が有効なら、相手が来ないまま joinTimeout が過ぎたルームの空き席にボットを座らせる。
+ * ボットの手番もメールボックス上で、人と同じルーレットと単語の判定を通して進める。
+ *
+ * <p>数万ルームを持てるよう、ルームごとの状態は小さく保つ。単語の履歴は {@link WordPool} の番号の配列で持ち、
+ * 単語の String は全ルームで共有する。送り直し用の履歴なども、使った分だけ広げる。
+ *
+ * <p>盤面を変える出来事はジャーナルにも追記する。ジャーナルから復元したルームのプレイヤーは
+ * セッションを持たず、同じ順番で参加し直したセッションに割り当てられる。
+ */
+public class GameRoom {
+    private static final Logger logger = LoggerFactory.getLogger(GameRoom.class);
+    private static final int MAX_PLAYERS = 2;
+    private static final int GOAL = 100;
+    private static final long RESULT_DISPLAY_MILLIS = 3000;
+    private static final long NEXT_TURN_DELAY_MILLIS = 1000;
+    private static final int CLOSED = -1;
+    /** 単語の履歴と使用済みの集合を最初に用意しておく語数。足りなくなったら倍にする */
+    private static final int INITIAL_WORDS = 8;
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
+    private static final Map<MessageType, MessageHandler> HANDLERS = new EnumMap<>(MessageType.class);
+
+    static {
+        HANDLERS.put(MessageType.START_ROULETTE, (room, session, message) -> room.handleStartRoulette());
+        HANDLERS.put(MessageType.JOIN, GameRoom::handleJoin);
+        HANDLERS.put(MessageType.CHECK_WORD, GameRoom::handleCheckWord);
+        HANDLERS.put(MessageType.TIME_IS_UP, GameRoom::handleTimeIsUp);
+        HANDLERS.put(MessageType.INPUT_WORD, GameRoom::handleInputWord);
+        HANDLERS.put(MessageType.RESYNC, (room, session, message) -> room.sendSnapshot(session.getId()));
+    }
+
+    private final String roomId;
+    private final RoomRegistry registry;
+    private final SerialExecutor mailbox;
+    private final MessageCodec codec;
+    private final AtomicInteger members = new AtomicInteger();
+
+    private final Map<String, OutboundSession> sessions = new LinkedHashMap<>();
+    private final OutboundHistory history;
+    /** 対戦者に送ったメッセージの通し番号 */
+    private long messageSeq;
+    private final Map<String, Player> resumeTokens = new HashMap<>();
+    /** 接続が切れて再開を待っている席。値は猶予のタイマーを見分けるためのもの */
+    private final Map<Player, Object> detachedSeats = new HashMap<>();
+    /** 最初の観戦者が来たときに作る */
+    private SpectatorChannel spectators;
+    private boolean spectatorFlushScheduled;
+    private final List<Player> players = new ArrayList<>(MAX_PLAYERS);
+    private final WordPool wordPool;
+    /** 出た単語の {@link WordPool} での番号。先頭 wordCount 個が使われている */
+    private int[] wordIds = new int[INITIAL_WORDS];
+    private int wordCount;
+    private final UsedWordSet usedWords = new UsedWordSet(INITIAL_WORDS);
+    private char lastCharacter = ShiritoriRules.FIRST_CHARACTER;
+    private int currentPlayerIndex = 0;
+    private final SplittableRandom random = new SplittableRandom();
+    private boolean turnInProgress = false;
+    private HashedWheelTimer.Timeout turnDeadline;
+    /** 期限切れの通知が古いタイマーのものでないかを見分ける番号 */
+    private long turnDeadlineSerial;
+    private long stateSeq = 0;
+    private final List<Map<String, Object>> pendingOps = new ArrayList<>();
+    // 入力中の文字の中継。間隔内に来た入力は最新のものだけを残す
+    private String pendingInput;
+    private String pendingInputSessionId;
+    private boolean inputFlushScheduled;
+    private long lastInputFlushNanos;
+    /** このルームがジャーナルに追記した最後の出来事の lsn */
+    private long lastEventLsn;
+    private boolean closed;
+    private boolean resultRecorded;
+    /** 手番を始めるたびに進める番号。ボットの操作が古い手番のものでないかを見分ける */
+    private long turnSerial;
+    private boolean botScheduled;
+    /** ボットが座ったときに作る */
+    private SplittableRandom botRandom;
+
+    GameRoom(String roomId, RoomRegistry registry) {
+        this.roomId = roomId;
+        this.registry = registry;
+        this.mailbox = new SerialExecutor(registry.getRoomExecutor());
+        this.codec = registry.getCodec();
+        this.history = new OutboundHistory(registry.getResumeHistorySize());
+        this.wordPool = registry.getWordPool();
+        record(GameEvent.Type.ROOM_CREATED, -1, 0, null);
+    }
+
+    /**
+     * ジャーナルから復元したルームを作る。
+     */
+    GameRoom(RoomState state, RoomRegistry registry) {
+        this.roomId = state.getRoomId();
+        this.registry = registry;
+        this.mailbox = new SerialExecutor(registry.getRoomExecutor());
+        this.codec = registry.getCodec();
+        this.history = new OutboundHistory(registry.getResumeHistorySize());
+        this.wordPool = registry.getWordPool();
+        for (RoomState.PlayerState restored : state.getPlayers()) {
+            Player player = new Player(restored.getId(), restored.getOrder(), null);
+            player.setPosition(restored.getPosition());
+            players.add(player);
+        }
+        for (String word : state.getWords()) {
+            usedWords.add(appendWord(word));
+            lastCharacter = ShiritoriRules.lastCharacter(word);
+        }
+        this.currentPlayerIndex = state.getCurrentPlayerIndex();
+        this.lastEventLsn = state.getLastLsn();
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public void execute(Runnable task) {
+        mailbox.execute(task);
+    }
+
+    /**
+     * メンバー枠を1つ確保する。すでに閉じられたルームなら false を返す。
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = members.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (members.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 誰もメンバー枠を確保していなければルームを閉じて true を返す。
+     */
+    boolean closeIfUnused() {
+        return members.compareAndSet(0, CLOSED);
+    }
+
+    /**
+     * メンバー枠を返す。最後の1人だった場合はルームを閉じて true を返す。
+     */
+    boolean release() {
+        while (true) {
+            int current = members.get();
+            int next = current == 1 ? CLOSED : current - 1;
+            if (members.compareAndSet(current, next)) {
+                return next == CLOSED;
+            }
+        }
+    }
+
+    public void addSession(OutboundSession session) {
+        sessions.put(session.getId(), session);
+    }
+
+    /**
+     * 接続が切れたときに呼ぶ。プレイヤーの接続が正常なクローズ以外で切れた場合は、
+     * 席とメンバー枠を resumeGrace の間残して true を返す。それ以外は false で、呼び出し側がメンバー枠を返す。
+     */
+    public boolean removeSession(WebSocketSession session, CloseStatus status) {
+        OutboundSession outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            outbound.discard();
+        }
+        Player player = playerOf(session.getId());
+        if (player == null) {
+            return false;
+        }
+        long graceMillis = registry.getResumeGrace().toMillis();
+        if (!closed && graceMillis > 0 && status.getCode() != CloseStatus.NORMAL.getCode()) {
+            player.setSessionId(null);
+            Object seat = new Object();
+            detachedSeats.put(player, seat);
+            logger.info("Player {} disconnected from room {}, holding the seat for {} ms",
+                    player.getId(), roomId, graceMillis);
+            schedule(() -> {
+                if (detachedSeats.remove(player, seat)) {
+                    logger.info("Player {} did not come back to room {}", player.getId(), roomId);
+                    removePlayer(player);
+                    registry.leave(this);
+                }
+            }, graceMillis);
+            return true;
+        }
+        removePlayer(player);
+        return false;
+    }
+
+    /**
+     * 再開トークン付きでつないだセッションを、トークンの席に戻す。
+     * 切れていた間のメッセージが履歴に残っていればそれだけを、なければスナップショットを送る。
+     *
+     * @param lastSeq クライアントが最後に受け取った mseq
+     */
+    public void resume(WebSocketSession session, String token, long lastSeq) {
+        OutboundSession outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
+        Player player = resumeTokens.get(token);
+        if (player == null || closed) {
+            logger.info("Resume rejected in room {}: sessionId={}", roomId, session.getId());
+            registry.getMetrics().recordResume(false);
+            outbound.send(codec.encode(new ResumeResultMessage(false, 0)));
+            return;
+        }
+        String previous = player.getSessionId();
+        if (previous != null) {
+            // 古い接続が切れたことにまだ気づいていない。古い方は閉じ、そちらのクローズでメンバー枠を返す
+            OutboundSession stale = sessions.remove(previous);
+            if (stale != null) {
+                stale.discard();
+                closeQuietly(stale.getSession());
+            }
+        }
+        attach(player, session.getId());
+        List<OutboundFrame> missed = lastSeq <= messageSeq ? history.since(lastSeq, player) : null;
+        logger.info("Player {} resumed room {}: sessionId={}, replayed={}", player.getId(), roomId, session.getId(),
+                missed == null ? "snapshot" : missed.size());
+        registry.getMetrics().recordResume(true);
+        outbound.send(codec.encode(new ResumeResultMessage(true, missed == null ? -1 : missed.size())));
+        if (missed == null) {
+            sendSnapshot(session.getId());
+        } else {
+            missed.forEach(outbound::send);
+        }
+    }
+
+    /**
+     * 観戦者を加える。最初のスナップショットは次のバッチの配信時に送る。
+     */
+    public void addSpectator(OutboundSession session) {
+        if (closed) {
+            SpectatorChannel.close(session, SpectatorChannel.ROOM_CLOSED);
+            return;
+        }
+        if (spectators == null) {
+            spectators = new SpectatorChannel(roomId, registry.getSpectatorFanout());
+        }
+        spectators.add(session);
+        if (!spectatorFlushScheduled) {
+            spectatorFlushScheduled = true;
+            schedule(this::flushSpectators, registry.getSpectatorFanout().getBatchInterval().toMillis());
+        }
+    }
+
+    public void removeSpectator(String sessionId) {
+        if (!closed && spectators != null) {
+            spectators.remove(sessionId);
+        }
+    }
+
+    /**
+     * 観戦者にスナップショットを送り直す。
+     */
+    public void resyncSpectator(String sessionId) {
+        if (!closed && spectators != null) {
+            spectators.requestSnapshot(sessionId);
+        }
+    }
+
+    public int getSpectatorCount() {
+        SpectatorChannel channel = spectators;
+        return channel == null ? 0 : channel.size();
+    }
+
+    /**
+     * ルームが破棄されたときに呼ぶ。残っているタイマーを取り消し、観戦者を切断する。
+     */
+    void close() {
+        execute(() -> {
+            cancelTurnDeadline();
+            if (spectators != null) {
+                spectators.closeAll();
+            }
+            closed = true;
+            record(GameEvent.Type.ROOM_CLOSED, -1, 0, null);
+        });
+    }
+
+    /**
+     * ジャーナルのスナップショット用に、メールボックス上で現在の状態を写し取る。閉じたルームは null。
+     */
+    CompletableFuture<RoomState> captureState() {
+        CompletableFuture<RoomState> result = new CompletableFuture<>();
+        execute(() -> {
+            if (closed) {
+                result.complete(null);
+                return;
+            }
+            List<RoomState.PlayerState> playerStates = new ArrayList<>(players.size());
+            for (Player player : players) {
+                playerStates.add(new RoomState.PlayerState(player.getId(), player.getOrder(), player.getPosition()));
+            }
+            result.complete(new RoomState(roomId, lastEventLsn, playerStates, wordHistory(),
+                    currentPlayerIndex));
+        });
+        return result;
+    }
+
+    public void handleMessage(WebSocketSession session, MessageType type, GameMessage gameMessage) {
+        MessageHandler handler = HANDLERS.get(type);
+        if (handler == null) {
+            logger.warn("Unknown message type received: {}", gameMessage.getType());
+            return;
+        }
+        handler.handle(this, session, gameMessage);
+    }
+
+    /**
+     * @return ルーレットの目。ボットはこの文字数の単語を出す
+     */
+    private int handleStartRoulette() {
+        int result = random.nextInt(7) + 2; // ランダムなルーレット結果を生成（2〜8）
+        logger.info("Roulette started in room {}, result={}", roomId, result);
+        record(GameEvent.Type.ROULETTE, -1, result, null);
+        // クライアントの持ち時間はルーレットが止まってから数え始めるので、期限もここから数え直す
+        if (!turnInProgress) {
+            startTurnDeadline();
+        }
+
+        broadcast(new RouletteResultMessage(result));
+        return result;
+    }
+
+    private void handleJoin(WebSocketSession session, GameMessage message) {
+        // 既存のプレイヤーが同じセッションIDの場合は追加しない
+        boolean alreadyExists = players.stream()
+            .anyMatch(player -> session.getId().equals(player.getSessionId()));
+
+        if (alreadyExists) {
+            logger.warn("Player already joined: sessionId={}", session.getId());
+            return;
+        }
+
+        // 復元したルームでは、同じ順番のプレイヤーを引き継ぐ
+        Player detached = players.stream()
+            .filter(player -> player.getSessionId() == null && player.getOrder() == message.getOrder())
+            .findFirst()
+            .orElse(null);
+        if (detached != null) {
+            if (detached.getUserId() == null) {
+                detached.setUser(message.getUserId(), message.getUserName());
+            }
+            attach(detached, session.getId());
+            logger.info("Player {} rejoined room {}", detached.getId(), roomId);
+            sendSnapshot(session.getId());
+            sendResumeToken(detached);
+            boolean allAttached = players.stream().allMatch(player -> player.getSessionId() != null);
+            if (players.size() == MAX_PLAYERS && allAttached) {
+                broadcastStartTurn();
+            }
+            return;
+        }
+
+        int playerId = players.size();
+        Player player = new Player(playerId, message.getOrder(), session.getId());
+        player.setUser(message.getUserId(), message.getUserName());
+        players.add(player);
+        record(GameEvent.Type.PLAYER_JOINED, playerId, player.getOrder(), null);
+        logger.info("Player {} added to room {}. Total players: {}", playerId, roomId, players.size());
+
+        addOp("playerJoined", "player", player);
+        publishDelta(session.getId());
+        sendSnapshot(session.getId());
+        sendResumeToken(player);
+
+        if (players.size() == MAX_PLAYERS) {
+            broadcastStartTurn();
+        } else {
+            scheduleBot();
+        }
+    }
+
+    /**
+     * 相手が来ないまま joinTimeout が過ぎたら、空いている席にボットを座らせる。
+     * マッチングの待ち切れで作ったルーム（{@link RoomBot#ROOM_PREFIX}）ではすぐに座らせる。
+     */
+    private void scheduleBot() {
+        RoomBot bot = registry.getBot();
+        if (!bot.isEnabled() || botScheduled) {
+            return;
+        }
+        botScheduled = true;
+        schedule(this::seatBot, roomId.startsWith(RoomBot.ROOM_PREFIX) ? 0 : bot.getJoinTimeout().toMillis());
+    }
+
+    private void seatBot() {
+        botScheduled = false;
+        if (closed || players.size() >= MAX_PLAYERS || players.stream().anyMatch(Player::isBot)) {
+            return;
+        }
+        int order = 0;
+        while (isOrderTaken(order)) {
+            order++;
+        }
+        int playerId = players.size();
+        Player bot = Player.bot(playerId, order, RoomBot.USER_NAME);
+        if (botRandom == null) {
+            botRandom = new SplittableRandom(roomId.hashCode());
+        }
+        players.add(bot);
+        registry.getBot().recordSeat();
+        record(GameEvent.Type.PLAYER_JOINED, playerId, order, null);
+        logger.info("Bot took seat {} in room {}", order, roomId);
+
+        addOp("playerJoined", "player", bot);
+        publishDelta();
+        if (players.size() == MAX_PLAYERS) {
+            broadcastStartTurn();
+        }
+    }
+
+    private boolean isOrderTaken(int order) {
+        for (Player player : players) {
+            if (player.getOrder() == order) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ボットの手番。人と同じように間を置いてルーレットを回す。
+     */
+    private void spinForBot(long serial) {
+        if (!isBotTurn(serial)) {
+            return;
+        }
+        int length = handleStartRoulette();
+        schedule(() -> answerForBot(serial, length), registry.getBot().getThinkTime().toMillis());
+    }
+
+    /**
+     * つなげる文字とルーレットの目に合う、まだ使われていない単語を出す。なければ時間切れと同じ扱いにする。
+     */
+    private void answerForBot(long serial, int length) {
+        if (!isBotTurn(serial)) {
+            return;
+        }
+        String word = registry.getBot().pick(lastCharacter, length, usedWords, botRandom);
+        if (word == null) {
+            logger.info("Bot found no word in room {}: head={}, length={}", roomId, lastCharacter, length);
+            expireTurn();
+            return;
+        }
+        checkWord(word, currentPlayer().getId());
+    }
+
+    private boolean isBotTurn(long serial) {
+        Player current = currentPlayer();
+        return !closed && !turnInProgress && serial == turnSerial && current != null && current.isBot();
+    }
+
+    private void handleCheckWord(WebSocketSession session, GameMessage message) {
+        if (turnInProgress) {
+            logger.warn("Word check ignored while a turn is in progress: sessionId={}", session.getId());
+            return;
+        }
+        // メッセージの playerId は信用せず、送ってきたセッションの席で手番を確かめる
+        Player player = playerOf(session.getId());
+        if (player == null || player.getOrder() != currentPlayerIndex) {
+            logger.warn("Word check ignored from a player who does not have the turn: sessionId={}", session.getId());
+            return;
+        }
+        checkWord(message.getWord(), player.getId());
+    }
+
+    private void checkWord(String word, int playerId) {
+        turnInProgress = true;
+        cancelTurnDeadline();
+
+        // ルール違反の単語は辞書を引かずに失敗にする
+        RuleViolation violation = ShiritoriRules.check(word, lastCharacter, usedWords);
+        if (violation.isViolation()) {
+            logger.info("Player {} broke a rule in room {}: word={}, violation={}", playerId, roomId, word, violation);
+            registry.getMetrics().recordRuleViolation(violation);
+            applyCheckResult(word, playerId, false, violation.getMessage());
+            return;
+        }
+        logger.info("Player {} validating word in room {}: {}", playerId, roomId, word);
+
+        // 判定はメールボックスを止めずに待ち、結果をメールボックスに戻してから状態を更新する。
+        // キャッシュやローカル辞書で決まればその場で、Weblio への問い合わせは応答が来たときに完了する
+        validateAsync(word)
+                .exceptionally(e -> {
+                    logger.error("Error validating word '{}'", word, e);
+                    return WordVerdict.UNKNOWN;
+                })
+                .thenAcceptAsync(verdict -> {
+                    if (closed) {
+                        return;
+                    }
+                    registry.getMetrics().recordVerdict(verdict);
+                    if (verdict == WordVerdict.UNKNOWN) {
+                        retryTurn(word, playerId);
+                    } else {
+                        applyCheckResult(word, playerId, verdict == WordVerdict.VALID, null);
+                    }
+                }, mailbox);
+    }
+
+    /**
+     * 非同期に判定できない validator だけが、共有のルーム用スレッドプールで判定する。
+     */
+    private CompletableFuture<WordVerdict> validateAsync(String word) {
+        try {
+            return registry.getWordValidator().validateAsync(word, registry.getRoomExecutor());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 判定できなかった単語はプレイヤーの失敗にせず、同じプレイヤーのターンをやり直す。
+     */
+    private void retryTurn(String word, int playerId) {
+        logger.warn("Word could not be validated, retrying turn: word={}", word);
+        broadcast(new CheckResultMessage(false, playerId, false));
+        broadcastResultMessage("「%s」\n判定できませんでした\nもう一度どうぞ".formatted(word));
+        schedule(() -> {
+            turnInProgress = false;
+            broadcastStartTurn();
+        }, RESULT_DISPLAY_MILLIS);
+    }
+
+    /**
+     * @param reason 失敗の理由として表示する文言。なければ null
+     */
+    private void applyCheckResult(String word, int playerId, boolean isValid, String reason) {
+        if (isValid && playerId >= 0 && playerId < players.size()) {
+            Player currentPlayer = players.get(playerId);
+            currentPlayer.setPosition(Math.min(currentPlayer.getPosition() + word.length(), GOAL));
+            usedWords.add(appendWord(word));
+            lastCharacter = ShiritoriRules.lastCharacter(word);
+            record(GameEvent.Type.WORD_ACCEPTED, playerId, currentPlayer.getPosition(), word);
+            logger.info("Player {} position updated to {}", playerId, currentPlayer.getPosition());
+            // 盤面への反映は結果表示のあと、ターン交代と同じ差分でまとめて送る
+            addOp("playerMoved", "playerId", currentPlayer.getId(), "position", currentPlayer.getPosition());
+            addOp("wordAppended", "index", wordCount - 1, "word", word);
+
+            boolean gameOver = currentPlayer.getPosition() >= GOAL;
+            if (gameOver) {
+                logger.info("Game over in room {}! Winner: Player {}", roomId, playerId);
+                recordResult(currentPlayer);
+            }
+            broadcast(new CheckResultMessage(true, playerId, gameOver));
+            broadcastResultMessage("「%s」\n正解！".formatted(word));
+        } else {
+            logger.warn("Word validation failed: {}", word);
+            record(GameEvent.Type.WORD_REJECTED, playerId, 0, word);
+            broadcast(new CheckResultMessage(false, playerId, false));
+            broadcastResultMessage(reason == null
+                    ? "「%s」\n失敗！".formatted(word)
+                    : "「%s」\n%s\n失敗！".formatted(word, reason));
+        }
+
+        // 結果表示 → 盤面更新 → 次のターン開始 をタイマーで順に進める
+        schedule(() -> {
+            advanceTurn();
+            publishDelta();
+            schedule(() -> {
+                turnInProgress = false;
+                broadcastStartTurn();
+            }, NEXT_TURN_DELAY_MILLIS);
+        }, RESULT_DISPLAY_MILLIS);
+    }
+
+    /**
+     * 結果はキューに積むだけで、書き込みとレーティングの更新はメールボックスの外で行う。
+     * ゴール後も続けて遊べるので、記録するのは最初にゴールしたときだけ。
+     */
+    private void recordResult(Player winner) {
+        if (resultRecorded) {
+            return;
+        }
+        resultRecorded = true;
+        List<MatchResult.Participant> participants = new ArrayList<>(players.size());
+        for (Player player : players) {
+            participants.add(new MatchResult.Participant(player.getUserId(), player.getUserName(),
+                    player.getPosition()));
+        }
+        registry.getResultRecorder().record(
+                new MatchResult(roomId, System.currentTimeMillis(), winner.getUserId(), participants));
+    }
+
+    /**
+     * 手番のプレイヤー自身が時間切れを申告した場合だけ受け付ける。
+     * 申告がなくても、制限時間を過ぎればサーバー側で {@link #expireTurn()} する。
+     */
+    private void handleTimeIsUp(WebSocketSession session, GameMessage message) {
+        boolean fromCurrentPlayer = players.stream()
+            .anyMatch(player -> player.getOrder() == currentPlayerIndex
+                    && session.getId().equals(player.getSessionId()));
+        if (!turnInProgress && fromCurrentPlayer) {
+            expireTurn();
+        }
+    }
+
+    private void expireTurn() {
+        logger.debug("Time's up for player {} in room {}", currentPlayerIndex, roomId);
+        cancelTurnDeadline();
+        registry.getMetrics().recordTurnTimeout();
+        broadcastResultMessage("時間切れ！失敗！");
+
+        advanceTurn();
+        publishDelta();
+        broadcastStartTurn();
+    }
+
+    private void startTurnDeadline() {
+        cancelTurnDeadline();
+        if (closed) {
+            return;
+        }
+        long serial = turnDeadlineSerial;
+        turnDeadline = registry.getTimer().schedule(() -> mailbox.execute(() -> {
+            // 取り消しと発火が行き違った場合は、新しいターンを時間切れにしない
+            if (!closed && serial == turnDeadlineSerial && !turnInProgress) {
+                expireTurn();
+            }
+        }), registry.getTurnTimeLimit().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelTurnDeadline() {
+        turnDeadlineSerial++;
+        if (turnDeadline != null) {
+            turnDeadline.cancel();
+            turnDeadline = null;
+        }
+    }
+
+    /**
+     * 入力中の文字は打鍵ごとには送らず、inputRelayInterval ごとに最新の値だけを相手に送る。
+     * しばらく入力がなかった後の最初の打鍵はすぐに送る。
+     */
+    private void handleInputWord(WebSocketSession session, GameMessage message) {
+        if (pendingInput != null) {
+            registry.getMetrics().recordInputCoalesced();
+        }
+        pendingInput = message.getWord();
+        pendingInputSessionId = session.getId();
+        if (inputFlushScheduled) {
+            return;
+        }
+        long waitNanos = lastInputFlushNanos + registry.getInputRelayInterval().toNanos() - System.nanoTime();
+        if (waitNanos <= 0) {
+            flushInput();
+        } else {
+            inputFlushScheduled = true;
+            schedule(this::flushInput, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        }
+    }
+
+    private void flushInput() {
+        inputFlushScheduled = false;
+        if (pendingInput == null) {
+            return;
+        }
+        long seq = ++messageSeq;
+        OutboundFrame frame = codec.encode(new OverwriteWordMessage(pendingInput), seq);
+        history.add(seq, frame, null, playerOf(pendingInputSessionId));
+        int recipients = 0;
+        for (OutboundSession s : sessions.values()) {
+            if (!s.getId().equals(pendingInputSessionId)) {
+                s.send(frame, "overwriteWord");
+                recipients++;
+            }
+        }
+        publishToSpectators(frame);
+        registry.getMetrics().recordInputRelayed(recipients);
+        pendingInput = null;
+        pendingInputSessionId = null;
+        lastInputFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * 単語を履歴の末尾に足す。
+     *
+     * @return 全ルームで共有している同じ単語の String
+     */
+    private String appendWord(String word) {
+        int id = wordPool.intern(word);
+        if (wordCount == wordIds.length) {
+            wordIds = Arrays.copyOf(wordIds, wordCount * 2);
+        }
+        wordIds[wordCount++] = id;
+        return wordPool.word(id);
+    }
+
+    /** 単語の履歴。写しではないので、メールボックスの上で使い終えること */
+    private List<String> wordHistory() {
+        return wordPool.view(wordIds, wordCount);
+    }
+
+    private void advanceTurn() {
+        if (players.isEmpty()) {
+            currentPlayerIndex = 0;
+        } else {
+            currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        }
+        record(GameEvent.Type.TURN_CHANGED, -1, currentPlayerIndex, null);
+        addOp("turnChanged", "currentPlayerIndex", currentPlayerIndex, "lastCharacter", lastCharacter);
+    }
+
+    private void record(GameEvent.Type type, int playerId, int value, String text) {
+        lastEventLsn = registry.getJournal().append(roomId, type, playerId, value, text);
+    }
+
+    private void addOp(String op, Object... fields) {
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("op", op);
+        for (int i = 0; i < fields.length; i += 2) {
+            delta.put((String) fields[i], fields[i + 1]);
+        }
+        pendingOps.add(delta);
+    }
+
+    private void publishDelta() {
+        publishDelta(null);
+    }
+
+    /**
+     * たまっている変更を1つの差分として送る。excludedSessionId にはスナップショットを別に送る。
+     */
+    private void publishDelta(String excludedSessionId) {
+        if (pendingOps.isEmpty()) {
+            return;
+        }
+        long seq = ++messageSeq;
+        OutboundFrame frame = codec.encode(new StateDeltaMessage(++stateSeq, new ArrayList<>(pendingOps)), seq);
+        pendingOps.clear();
+        history.add(seq, frame, null, playerOf(excludedSessionId));
+
+        publishToSpectators(frame);
+        sessions.values().forEach(session -> {
+            if (!session.getId().equals(excludedSessionId)) {
+                session.send(frame);
+            }
+        });
+    }
+
+    /**
+     * delayMillis 後にメールボックス上で task を実行する。その時点でルームが閉じていれば何もしない。
+     */
+    private void schedule(Runnable task, long delayMillis) {
+        registry.getTimer().schedule(() -> mailbox.execute(() -> {
+            if (!closed) {
+                task.run();
+            }
+        }), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void sendSnapshot(String sessionId) {
+        OutboundSession session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        long seq = ++messageSeq;
+        GameState state = new GameState(players, currentPlayerIndex, wordHistory());
+        OutboundFrame frame = codec.encode(new GameStateMessage(stateSeq, state, lastCharacter), seq);
+        Player player = playerOf(sessionId);
+        if (player != null) {
+            history.add(seq, frame, player, null);
+        }
+        session.send(frame, "updateGameState");
+    }
+
+    /**
+     * 観戦者向けのスナップショット。観戦者は再開しないので mseq は付けない。
+     */
+    private OutboundFrame encodeSnapshot() {
+        GameState state = new GameState(players, currentPlayerIndex, wordHistory());
+        return codec.encode(new GameStateMessage(stateSeq, state, lastCharacter));
+    }
+
+    /**
+     * 観戦者がいる間は batchInterval ごとに、たまったメッセージを観戦者に送る。
+     */
+    private void flushSpectators() {
+        spectatorFlushScheduled = false;
+        if (closed || spectators == null || spectators.size() == 0) {
+            return;
+        }
+        spectators.flush(this::encodeSnapshot);
+        spectatorFlushScheduled = true;
+        schedule(this::flushSpectators, registry.getSpectatorFanout().getBatchInterval().toMillis());
+    }
+
+    private void publishToSpectators(OutboundFrame frame) {
+        if (spectators != null) {
+            spectators.publish(frame);
+        }
+    }
+
+    private void broadcastResultMessage(String body) {
+        broadcast(new ResultMessage(body));
+    }
+
+    private void broadcastStartTurn() {
+        // 手番かどうかの2通りだけなので、セッションごとではなく2回だけシリアライズする
+        long seq = ++messageSeq;
+        OutboundFrame currentTurn = codec.encode(new StartTurnMessage(true), seq);
+        OutboundFrame otherTurn = codec.encode(new StartTurnMessage(false), seq);
+        Player current = currentPlayer();
+        if (current != null) {
+            history.add(seq, currentTurn, current, null);
+        }
+        history.add(seq, otherTurn, null, current);
+
+        sessions.values().forEach(session -> {
+            boolean isCurrentTurn = players.stream()
+                .anyMatch(player -> player.getOrder() == currentPlayerIndex
+                        && session.getId().equals(player.getSessionId()));
+            session.send(isCurrentTurn ? currentTurn : otherTurn);
+        });
+        publishToSpectators(otherTurn);
+        startTurnDeadline();
+
+        long serial = ++turnSerial;
+        if (current != null && current.isBot()) {
+            schedule(() -> spinForBot(serial), registry.getBot().getThinkTime().toMillis());
+        }
+    }
+
+    private Player currentPlayer() {
+        for (Player player : players) {
+            if (player.getOrder() == currentPlayerIndex) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private void broadcast(Object message) {
+        long seq = ++messageSeq;
+        OutboundFrame frame = codec.encode(message, seq);
+        history.add(seq, frame, null, null);
+        sessions.values().forEach(session -> session.send(frame));
+        publishToSpectators(frame);
+    }
+
+    private void removePlayer(Player player) {
+        players.remove(player);
+        resumeTokens.values().remove(player);
+        record(GameEvent.Type.PLAYER_LEFT, player.getId(), 0, null);
+        addOp("playerLeft", "playerId", player.getId());
+        publishDelta();
+    }
+
+    /**
+     * 席にセッションを割り当てる。再開待ちの席だった場合は、席が持っていたメンバー枠を返す
+     * （割り当てるセッションが自分の枠を持っている）。
+     */
+    private void attach(Player player, String sessionId) {
+        player.setSessionId(sessionId);
+        if (detachedSeats.remove(player) != null) {
+            registry.leave(this);
+        }
+    }
+
+    private void sendResumeToken(Player player) {
+        OutboundSession session = sessions.get(player.getSessionId());
+        if (session == null) {
+            return;
+        }
+        String token = resumeTokens.entrySet().stream()
+            .filter(entry -> entry.getValue() == player)
+            .map(Map.Entry::getKey)
+            .findFirst()
+            .orElseGet(() -> {
+                String created = newResumeToken();
+                resumeTokens.put(created, player);
+                return created;
+            });
+        session.send(codec.encode(
+                new ResumeTokenMessage(token, player.getId(), registry.getResumeGrace().toMillis())));
+    }
+
+    private Player playerOf(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        for (Player player : players) {
+            if (sessionId.equals(player.getSessionId())) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private static String newResumeToken() {
+        byte[] bytes = new byte[16];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void closeQuietly(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Resumed on another connection"));
+        } catch (IOException e) {
+            logger.warn("Error closing replaced sessionId={}", session.getId(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MessageHandler {
+        void handle(GameRoom room, WebSocketSession session, GameMessage message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.devbox.mavenapp.game;
+
+import java.util.SplittableRandom;
+
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+
+/**
+ * 辞書の単語を「最初の文字 × 文字数」で引ける索引。ボットの単語選びに使う。
+ *
+ * <p>単語そのものは {@link LocalDictionary} に1本で詰まっているので、索引は辞書での番号だけを
+ * 1つの int 配列にバケットの順に並べ、バケットの開始位置を別の int 配列に持つ（1語 4 バイト）。
+ * 「ん」で終わる単語や、かな以外を含む単語は最初から入れない。
+ *
+ * <p>選ぶときはバケット内の乱数の位置から順に見て、使われていない最初の単語を返す。
+ * ルームで使われる単語はわずかなので、たいてい最初の1語で決まる。
+ */
+public final class HeadCharacterIndex {
+    /** これより長い単語は索引に入れない。ルーレットの目は 2〜8 */
+    public static final int MAX_LENGTH = 16;
+    private static final char FIRST_HEAD = 'ぁ';
+    private static final char LAST_HEAD = 'ゖ';
+    private static final int LENGTH_SLOTS = MAX_LENGTH + 1;
+
+    private final LocalDictionary dictionary;
+    /** バケット順に並べた辞書の番号 */
+    private final int[] entries;
+    /** バケット b の単語は entries[starts[b]] から entries[starts[b + 1] - 1] */
+    private final int[] starts;
+
+    private HeadCharacterIndex(LocalDictionary dictionary, int[] entries, int[] starts) {
+        this.dictionary = dictionary;
+        this.entries = entries;
+        this.starts = starts;
+    }
+
+    public static HeadCharacterIndex build(LocalDictionary dictionary) {
+        int size = dictionary.size();
+        int[] buckets = new int[size];
+        int[] starts = new int[(LAST_HEAD - FIRST_HEAD + 1) * LENGTH_SLOTS + 1];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int bucket = bucketOf(dictionary.wordAt(i));
+            buckets[i] = bucket;
+            if (bucket >= 0) {
+                starts[bucket + 1]++;
+                count++;
+            }
+        }
+        for (int b = 1; b < starts.length; b++) {
+            starts[b] += starts[b - 1];
+        }
+        // 辞書の順（五十音順）のまま、バケットごとに詰める
+        int[] entries = new int[count];
+        int[] next = starts.clone();
+        for (int i = 0; i < size; i++) {
+            if (buckets[i] >= 0) {
+                entries[next[buckets[i]]++] = i;
+            }
+        }
+        return new HeadCharacterIndex(dictionary, entries, starts);
+    }
+
+    /**
+     * head で始まる length 文字の単語のうち、used にないものを1つ選ぶ。
+     *
+     * @param head {@link ShiritoriRules#lastCharacter} で求めた、つなげる文字
+     * @return 候補がなければ null
+     */
+    public String pick(char head, int length, UsedWordSet used, SplittableRandom random) {
+        if (head < FIRST_HEAD || head > LAST_HEAD || length < 1 || length > MAX_LENGTH) {
+            return null;
+        }
+        int bucket = (head - FIRST_HEAD) * LENGTH_SLOTS + length;
+        int start = starts[bucket];
+        int n = starts[bucket + 1] - start;
+        if (n == 0) {
+            return null;
+        }
+        int offset = random.nextInt(n);
+        for (int i = 0; i < n; i++) {
+            String word = dictionary.wordAt(entries[start + (offset + i) % n]);
+            if (!used.contains(word)) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    /** head で始まる length 文字の単語の数 */
+    public int count(char head, int length) {
+        if (head < FIRST_HEAD || head > LAST_HEAD || length < 1 || length > MAX_LENGTH) {
+            return 0;
+        }
+        int bucket = (head - FIRST_HEAD) * LENGTH_SLOTS + length;
+        return starts[bucket + 1] - starts[bucket];
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /** 索引のバイト数（辞書そのものは含まない） */
+    public long getIndexBytes() {
+        return (long) (entries.length + starts.length) * Integer.BYTES;
+    }
+
+    /**
+     * @return ボットが出してはいけない単語なら -1
+     */
+    private static int bucketOf(String word) {
+        int length = word.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (ShiritoriRules.normalize(word.charAt(i)) == 0) {
+                return -1;
+            }
+        }
+        char head = ShiritoriRules.normalize(word.charAt(0));
+        char last = ShiritoriRules.lastCharacter(word);
+        if (head < FIRST_HEAD || head > LAST_HEAD || last == 0 || last == 'ん') {
+            return -1;
+        }
+        return (head - FIRST_HEAD) * LENGTH_SLOTS + length;
+    }
+}
@@ -0,0 +1,88 @@
+package com.devbox.mavenapp.game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.devbox.mavenapp.model.Player;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+
+/**
+ * ルームが対戦者に送った最近のメッセージのリングバッファ。再接続したプレイヤーに、
+ * 切れていた間に送られた分だけを送り直すのに使う。容量を超えたら古いものから上書きする。
+ *
+ * <p>1つの mseq に、宛先の違うメッセージが複数入ることがある（手番の通知など）。
+ * ルームのメールボックスからだけ触る。
+ *
+ * <p>配列は最初のメッセージで小さく作り、埋まるたびに capacity まで倍に広げる。対戦が始まらずに終わるルームや、
+ * 復元しただけのルームは、容量分の配列を持たない。
+ */
+final class OutboundHistory {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long[] NO_SEQS = {};
+    private static final OutboundFrame[] NO_FRAMES = {};
+    private static final Player[] NO_PLAYERS = {};
+
+    private final int capacity;
+    private long[] seqs;
+    private OutboundFrame[] frames;
+    /** この人にだけ送ったもの。null なら全員 */
+    private Player[] targets;
+    /** この人以外に送ったもの。null ならだれも除かない */
+    private Player[] excluded;
+    private int next;
+    private int size;
+    /** 上書きで失った中で一番新しい mseq */
+    private long evictedSeq;
+
+    OutboundHistory(int capacity) {
+        this.capacity = capacity;
+        this.seqs = NO_SEQS;
+        this.frames = NO_FRAMES;
+        this.targets = NO_PLAYERS;
+        this.excluded = NO_PLAYERS;
+    }
+
+    void add(long seq, OutboundFrame frame, Player target, Player excludedPlayer) {
+        if (size == seqs.length && size < capacity) {
+            // capacity に達するまでは上書きしないので、まだ先頭から順に並んでいる。次はすぐ後ろの空きに入れる
+            int grown = Math.min(Math.max(size * 2, INITIAL_CAPACITY), capacity);
+            seqs = Arrays.copyOf(seqs, grown);
+            frames = Arrays.copyOf(frames, grown);
+            targets = Arrays.copyOf(targets, grown);
+            excluded = Arrays.copyOf(excluded, grown);
+            next = size;
+        }
+        if (size == seqs.length) {
+            evictedSeq = Math.max(evictedSeq, seqs[next]);
+        } else {
+            size++;
+        }
+        seqs[next] = seq;
+        frames[next] = frame;
+        targets[next] = target;
+        excluded[next] = excludedPlayer;
+        next = (next + 1) % seqs.length;
+    }
+
+    /**
+     * afterSeq より後に player 宛てに送ったメッセージを古い順に返す。
+     * その間のメッセージがもう残っていなければ null。
+     */
+    List<OutboundFrame> since(long afterSeq, Player player) {
+        if (afterSeq < evictedSeq) {
+            return null;
+        }
+        List<OutboundFrame> missed = new ArrayList<>();
+        int start = (next - size + seqs.length) % seqs.length;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % seqs.length;
+            if (seqs[index] > afterSeq
+                    && (targets[index] == null || targets[index] == player)
+                    && excluded[index] != player) {
+                missed.add(frames[index]);
+            }
+        }
+        return missed;
+    }
+}
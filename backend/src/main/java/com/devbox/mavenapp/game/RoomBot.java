@@ -0,0 +1,106 @@
+package com.devbox.mavenapp.game;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+
+/**
+ * 相手が来ないルームに座るボットの設定と、全ルームで共有する単語の索引。
+ *
+ * <p>ボットの手番はルームのメールボックス上で、人と同じ順（ルーレット → 単語の判定）で進める。
+ * 単語は {@link HeadCharacterIndex} から、つなげる文字とルーレットの目に合うものを選ぶ。
+ * 乱数の種は roomId から作るので、同じルームで同じ手を打てば同じ単語が出る（負荷試験で再現できる）。
+ *
+ * <p>ボットはメンバー枠を使わないので、人が全員抜ければルームはふつうに破棄される。
+ * userId を持たないので、ボットとの対戦はレーティングに反映されない。
+ */
+public class RoomBot {
+    /** ボットを使わない */
+    public static final RoomBot NONE = new RoomBot(null, Duration.ZERO, Duration.ZERO);
+    /** この接頭辞の roomId のルームには、最初の人が入ったらすぐにボットを座らせる（マッチングの待ち切れ用） */
+    public static final String ROOM_PREFIX = "bot-";
+    public static final String USER_NAME = "ボット";
+    /** 相手を待つ時間。過ぎたらボットが座る */
+    public static final Duration DEFAULT_JOIN_TIMEOUT = Duration.ofSeconds(15);
+    /** ルーレットを回すまでと、単語を出すまでにそれぞれ置く間 */
+    public static final Duration DEFAULT_THINK_TIME = Duration.ofMillis(1500);
+
+    private final HeadCharacterIndex index;
+    private final Duration joinTimeout;
+    private final Duration thinkTime;
+    private final LongAdder seats = new LongAdder();
+    private final LongAdder words = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+    private final LatencyHistogram pickLatency = new LatencyHistogram();
+
+    public RoomBot(HeadCharacterIndex index) {
+        this(index, DEFAULT_JOIN_TIMEOUT, DEFAULT_THINK_TIME);
+    }
+
+    /**
+     * @param joinTimeout 最初の人が入ってから相手を待つ時間
+     * @param thinkTime   ボットの操作の間に置く時間。0 なら待たずに進める
+     */
+    public RoomBot(HeadCharacterIndex index, Duration joinTimeout, Duration thinkTime) {
+        this.index = index;
+        this.joinTimeout = joinTimeout;
+        this.thinkTime = thinkTime;
+    }
+
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    public Duration getJoinTimeout() {
+        return joinTimeout;
+    }
+
+    public Duration getThinkTime() {
+        return thinkTime;
+    }
+
+    /** ボットが座ったルームの数 */
+    public long getSeatCount() {
+        return seats.sum();
+    }
+
+    /** ボットが出した単語の数 */
+    public long getWordCount() {
+        return words.sum();
+    }
+
+    /** 出せる単語がなくて手番を飛ばした数 */
+    public long getGaveUpCount() {
+        return gaveUp.sum();
+    }
+
+    /** 索引から単語を選ぶのにかかった時間 */
+    public LatencyHistogram getPickLatency() {
+        return pickLatency;
+    }
+
+    public HeadCharacterIndex getIndex() {
+        return index;
+    }
+
+    void recordSeat() {
+        seats.increment();
+    }
+
+    /**
+     * @return 出せる単語がなければ null
+     */
+    String pick(char head, int length, UsedWordSet used, SplittableRandom random) {
+        long start = System.nanoTime();
+        String word = index.pick(head, length, used, random);
+        pickLatency.recordSince(start);
+        if (word == null) {
+            gaveUp.increment();
+        } else {
+            words.increment();
+        }
+        return word;
+    }
+}
@@ -0,0 +1,311 @@
+package com.devbox.mavenapp.game;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.journal.RoomState;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.results.ResultRecorder;
+import com.devbox.mavenapp.service.validation.WordValidator;
+import com.devbox.mavenapp.websocket.MessageCodec;
+
+/**
+ * roomId ごとの {@link GameRoom} を管理する。
+ * ルームは最初のメンバーが入ったときに作られ、最後のメンバーが抜けたときに破棄される。
+ * 各ルームの処理は共有のスレッドプール上でルームごとに直列化して実行される。
+ *
+ * <p>起動時にはジャーナルから復元したルームを登録する。復元したルームに
+ * {@link #RECOVERED_ROOM_GRACE} の間だれも戻らなければ破棄する。
+ */
+public class RoomRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RoomRegistry.class);
+    /** クライアントの持ち時間 30 秒に、ルーレットの演出と通信の遅れの分を足したもの */
+    public static final Duration DEFAULT_TURN_TIME_LIMIT = Duration.ofSeconds(35);
+    /** 入力中の文字を相手に中継する間隔（15 Hz） */
+    public static final Duration DEFAULT_INPUT_RELAY_INTERVAL = Duration.ofMillis(1000 / 15);
+    private static final Duration TIMER_TICK = Duration.ofMillis(10);
+    private static final int TIMER_WHEEL_SIZE = 512;
+    public static final Duration RECOVERED_ROOM_GRACE = Duration.ofMinutes(2);
+    /** 接続が切れたプレイヤーの席を残しておく時間 */
+    public static final Duration DEFAULT_RESUME_GRACE = Duration.ofSeconds(30);
+    /** 再開したプレイヤーに送り直せるよう、ルームごとに残しておくメッセージの数 */
+    public static final int DEFAULT_RESUME_HISTORY_SIZE = 256;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Map<String, GameRoom> rooms = new ConcurrentHashMap<>();
+    private final WordValidator wordValidator;
+    private final MessageCodec codec;
+    private final GameMetrics metrics;
+    private final ExecutorService roomExecutor;
+    private final HashedWheelTimer timer;
+    private final Duration turnTimeLimit;
+    private final Duration inputRelayInterval;
+    private final EventJournal journal;
+    private final SpectatorFanout spectatorFanout;
+    private final Duration resumeGrace;
+    private final int resumeHistorySize;
+    private final ResultRecorder resultRecorder;
+    private final RoomBot bot;
+    private final WordPool wordPool = new WordPool();
+
+    public RoomRegistry(WordValidator wordValidator) {
+        this(wordValidator, new Options());
+    }
+
+    public RoomRegistry(WordValidator wordValidator, Options options) {
+        this.wordValidator = wordValidator;
+        this.codec = options.codec != null ? options.codec : new MessageCodec();
+        this.metrics = options.metrics != null ? options.metrics : new GameMetrics();
+        this.turnTimeLimit = options.turnTimeLimit;
+        this.inputRelayInterval = options.inputRelayInterval;
+        this.journal = options.journal;
+        this.spectatorFanout = options.spectatorFanout != null ? options.spectatorFanout : new SpectatorFanout();
+        this.resumeGrace = options.resumeGrace;
+        this.resumeHistorySize = options.resumeHistorySize;
+        this.resultRecorder = options.resultRecorder;
+        this.bot = options.bot;
+        this.roomExecutor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors() * 2, daemonThreads("game-room-"));
+        this.timer = new HashedWheelTimer(daemonThreads("turn-timer-"), TIMER_TICK, TIMER_WHEEL_SIZE);
+        restore(journal.takeRecoveredRooms());
+        journal.setSnapshotSource(this::captureRooms);
+    }
+
+    private void restore(List<RoomState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        List<GameRoom> restored = new ArrayList<>(states.size());
+        for (RoomState state : states) {
+            GameRoom room = new GameRoom(state, this);
+            rooms.put(room.getRoomId(), room);
+            restored.add(room);
+        }
+        logger.info("Restored {} rooms from the journal", restored.size());
+        timer.schedule(() -> restored.forEach(room -> {
+            if (room.closeIfUnused()) {
+                rooms.remove(room.getRoomId(), room);
+                room.close();
+                logger.info("Recovered room abandoned: roomId={}", room.getRoomId());
+            }
+        }), RECOVERED_ROOM_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 全ルームの状態をそれぞれのメールボックス上で写し取る。
+     */
+    private CompletableFuture<List<RoomState>> captureRooms() {
+        List<CompletableFuture<RoomState>> captures = new ArrayList<>();
+        rooms.values().forEach(room -> captures.add(room.captureState()));
+        return CompletableFuture.allOf(captures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> captures.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * 指定ルームのメンバー枠を確保して返す。ルームがなければ作成する。
+     */
+    public GameRoom join(String roomId) {
+        while (true) {
+            GameRoom room = rooms.computeIfAbsent(roomId, id -> {
+                logger.info("Room created: roomId={}", id);
+                return new GameRoom(id, this);
+            });
+            if (room.tryAcquire()) {
+                return room;
+            }
+            // 閉じる途中のルームを掴んだ場合は、取り除かれるのを待って作り直す
+            rooms.remove(roomId, room);
+        }
+    }
+
+    /**
+     * メンバー枠を返す。最後のメンバーだった場合はルームを破棄する。
+     */
+    public void leave(GameRoom room) {
+        if (room.release()) {
+            rooms.remove(room.getRoomId(), room);
+            room.close();
+            logger.info("Room closed: roomId={}", room.getRoomId());
+        }
+    }
+
+    public GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /** 登録中のタイマー（ターンの制限時間と演出の待ち時間）の数 */
+    public int getPendingTimerCount() {
+        return timer.getPendingCount();
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    public SpectatorFanout getSpectatorFanout() {
+        return spectatorFanout;
+    }
+
+    /**
+     * タイマーを止め、メールボックスに積まれている処理が終わるのを {@link #SHUTDOWN_TIMEOUT} まで待つ。
+     * そのあとでジャーナルと対戦結果を閉じれば、ルームが最後に書いた出来事まで残る。
+     */
+    public void shutdown() {
+        timer.stop();
+        spectatorFanout.shutdown();
+        roomExecutor.shutdown();
+        try {
+            if (!roomExecutor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Room tasks still running after {} ms", SHUTDOWN_TIMEOUT.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Room registry stopped: rooms={}", rooms.size());
+    }
+
+    WordValidator getWordValidator() {
+        return wordValidator;
+    }
+
+    ExecutorService getRoomExecutor() {
+        return roomExecutor;
+    }
+
+    HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    Duration getTurnTimeLimit() {
+        return turnTimeLimit;
+    }
+
+    Duration getInputRelayInterval() {
+        return inputRelayInterval;
+    }
+
+    Duration getResumeGrace() {
+        return resumeGrace;
+    }
+
+    int getResumeHistorySize() {
+        return resumeHistorySize;
+    }
+
+    EventJournal getJournal() {
+        return journal;
+    }
+
+    ResultRecorder getResultRecorder() {
+        return resultRecorder;
+    }
+
+    RoomBot getBot() {
+        return bot;
+    }
+
+    WordPool getWordPool() {
+        return wordPool;
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * {@link RoomRegistry} の設定。指定しなかった項目は既定値を使う。
+     */
+    public static final class Options {
+        private MessageCodec codec;
+        private GameMetrics metrics;
+        private Duration turnTimeLimit = DEFAULT_TURN_TIME_LIMIT;
+        private Duration inputRelayInterval = DEFAULT_INPUT_RELAY_INTERVAL;
+        private EventJournal journal = EventJournal.NONE;
+        private SpectatorFanout spectatorFanout;
+        private Duration resumeGrace = DEFAULT_RESUME_GRACE;
+        private int resumeHistorySize = DEFAULT_RESUME_HISTORY_SIZE;
+        private ResultRecorder resultRecorder = ResultRecorder.NONE;
+        private RoomBot bot = RoomBot.NONE;
+
+        public Options codec(MessageCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        public Options metrics(GameMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /** ターンの制限時間。過ぎたらサーバー側で時間切れにする */
+        public Options turnTimeLimit(Duration turnTimeLimit) {
+            this.turnTimeLimit = turnTimeLimit;
+            return this;
+        }
+
+        /** 入力中の文字を中継する間隔。間に来た入力は最新のものだけを送る */
+        public Options inputRelayInterval(Duration inputRelayInterval) {
+            this.inputRelayInterval = inputRelayInterval;
+            return this;
+        }
+
+        /** ルームの出来事の記録先。復元したルームがあれば作るときに登録する */
+        public Options journal(EventJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /** 観戦者への配信。{@link RoomRegistry#shutdown} でいっしょに止める */
+        public Options spectatorFanout(SpectatorFanout spectatorFanout) {
+            this.spectatorFanout = spectatorFanout;
+            return this;
+        }
+
+        /** 接続が切れたプレイヤーの席を残しておく時間。0 なら残さない */
+        public Options resumeGrace(Duration resumeGrace) {
+            this.resumeGrace = resumeGrace;
+            return this;
+        }
+
+        /** 再開したプレイヤーに送り直せるよう、ルームごとに残しておくメッセージの数 */
+        public Options resumeHistorySize(int resumeHistorySize) {
+            this.resumeHistorySize = resumeHistorySize;
+            return this;
+        }
+
+        /** 終わった対戦の結果の渡し先 */
+        public Options resultRecorder(ResultRecorder resultRecorder) {
+            this.resultRecorder = resultRecorder;
+            return this;
+        }
+
+        /** 相手が来ないルームに座るボット。{@link RoomBot#NONE} なら座らせない */
+        public Options bot(RoomBot bot) {
+            this.bot = bot;
+            return this;
+        }
+    }
+}
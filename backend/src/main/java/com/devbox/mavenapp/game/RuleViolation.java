@@ -0,0 +1,27 @@
+package com.devbox.mavenapp.game;
+
+/**
+ * {@link ShiritoriRules#check} の結果。NONE 以外はルール違反で、辞書は引かずに失敗にする。
+ */
+public enum RuleViolation {
+    NONE(null),
+    NOT_KANA("ひらがなで入力してください"),
+    BROKEN_CHAIN("前の単語とつながっていません"),
+    ENDS_WITH_N("「ん」で終わっています"),
+    REPEATED("すでに使われた単語です");
+
+    private final String message;
+
+    RuleViolation(String message) {
+        this.message = message;
+    }
+
+    public boolean isViolation() {
+        return this != NONE;
+    }
+
+    /** プレイヤーに表示する理由 */
+    public String getMessage() {
+        return message;
+    }
+}
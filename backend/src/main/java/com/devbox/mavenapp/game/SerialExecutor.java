@@ -0,0 +1,79 @@
+package com.devbox.mavenapp.game;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 共有スレッドプールの上で、投入されたタスクを1つずつ順番に実行するメールボックス。
+ * ルームごとに1つ持たせることで、ロックなしでルームの状態を単一スレッド的に扱える。
+ * 他のルームを待たせないよう、1回の実行で処理するタスク数には上限を設けている。
+ */
+public final class SerialExecutor implements Executor {
+    private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Executor executor;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @throws RejectedExecutionException 共有スレッドプールが受け付けなかったとき。task は実行しない
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        try {
+            scheduleIfNeeded();
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task);
+            throw e;
+        }
+    }
+
+    public int pendingTasks() {
+        return tasks.size();
+    }
+
+    private void scheduleIfNeeded() {
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 戻しておかないと、以後のタスクがどれも投入されずに溜まり続ける
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            int processed = 0;
+            while (processed++ < MAX_TASKS_PER_RUN && (task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Error running serialized task", e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            try {
+                scheduleIfNeeded();
+            } catch (RejectedExecutionException e) {
+                logger.warn("Serialized tasks left unrun after the executor rejected them: pending={}", tasks.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.devbox.mavenapp.game;
+
+/**
+ * しりとりのルール判定。辞書を引く前に、つながり・「ん」終わり・使用済みの単語を弾く。
+ * 文字の正規化は起動時に作った表を引くだけで、判定中にオブジェクトは作らない。
+ *
+ * <ul>
+ * <li>カタカナはひらがなとして扱う</li>
+ * <li>語末の長音「ー」は読み飛ばし、その前の文字を最後の文字とする（「コーヒー」→「ひ」）</li>
+ * <li>語末の小書き文字は大きい文字に直す（「しゃ」→「や」）</li>
+ * </ul>
+ */
+public final class ShiritoriRules {
+    /** 最初の単語がつながる文字（「しりとり」の「り」） */
+    public static final char FIRST_CHARACTER = 'り';
+
+    private static final char LONG_VOWEL = 'ー';
+    private static final char BASE = '\u3040';
+    private static final char END = '\u30FF';
+
+    /** ひらがなへの変換表。使えない文字は 0 */
+    private static final char[] NORMALIZED = new char[END - BASE + 1];
+    /** 小書き文字を大きい文字にした表（ひらがなのみ） */
+    private static final char[] LARGE = new char[END - BASE + 1];
+
+    static {
+        for (char c = 'ぁ'; c <= 'ゖ'; c++) {
+            NORMALIZED[c - BASE] = c;
+            LARGE[c - BASE] = c;
+        }
+        for (char c = 'ァ'; c <= 'ヶ'; c++) {
+            char hiragana = (char) (c - 0x60);
+            NORMALIZED[c - BASE] = hiragana;
+        }
+        NORMALIZED[LONG_VOWEL - BASE] = LONG_VOWEL;
+
+        String small = "ぁぃぅぇぉっゃゅょゎゕゖ";
+        String large = "あいうえおつやゆよわかけ";
+        for (int i = 0; i < small.length(); i++) {
+            LARGE[small.charAt(i) - BASE] = large.charAt(i);
+        }
+    }
+
+    private ShiritoriRules() {
+    }
+
+    /**
+     * ひらがなに正規化した文字。しりとりで使えない文字なら 0。
+     */
+    public static char normalize(char c) {
+        return c < BASE || c > END ? 0 : NORMALIZED[c - BASE];
+    }
+
+    /**
+     * 次の単語がつながる文字。語末の「ー」を飛ばし、小書き文字は大きくする。使える文字がなければ 0。
+     */
+    public static char lastCharacter(CharSequence word) {
+        for (int i = word.length() - 1; i >= 0; i--) {
+            char c = normalize(word.charAt(i));
+            if (c != LONG_VOWEL) {
+                return c == 0 ? 0 : LARGE[c - BASE];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 単語を出してよいかを判定する。
+     *
+     * @param previousLastCharacter 直前の単語の {@link #lastCharacter}（最初の単語なら {@link #FIRST_CHARACTER}）
+     */
+    public static RuleViolation check(CharSequence word, char previousLastCharacter, UsedWordSet usedWords) {
+        if (word == null || word.length() == 0) {
+            return RuleViolation.NOT_KANA;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (normalize(word.charAt(i)) == 0) {
+                return RuleViolation.NOT_KANA;
+            }
+        }
+        char last = lastCharacter(word);
+        if (last == 0) {
+            return RuleViolation.NOT_KANA;
+        }
+        if (normalize(word.charAt(0)) != previousLastCharacter) {
+            return RuleViolation.BROKEN_CHAIN;
+        }
+        if (last == 'ん') {
+            return RuleViolation.ENDS_WITH_N;
+        }
+        if (usedWords.contains(word)) {
+            return RuleViolation.REPEATED;
+        }
+        return RuleViolation.NONE;
+    }
+}
@@ -0,0 +1,216 @@
+package com.devbox.mavenapp.game;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+
+import com.devbox.mavenapp.websocket.OutboundFrame;
+import com.devbox.mavenapp.websocket.OutboundSession;
+
+/**
+ * 1つのルームの観戦者。ルームが送ったフレームをためておき、{@link #flush} のたびに
+ * 1つの spectatorBatch にまとめて、全観戦者に同じ TextMessage を送る。
+ *
+ * <p>add・remove・publish・flush はルームのメールボックスから呼ぶ。メールボックスでするのは
+ * フレームをためることとバッチの受け渡しだけで、観戦者ごとの処理は {@link SpectatorFanout} の
+ * スレッド上で、ルームごとに順番に行う。観戦者の一覧はそちらのスレッドだけが触る。
+ *
+ * <p>送信キューが lagThreshold に達した観戦者にはバッチを送らず、キューがはけたところで
+ * スナップショットを1通送って追いつかせる。maxLag を過ぎても追いつかなければ切断する。
+ */
+final class SpectatorChannel {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorChannel.class);
+    static final CloseStatus ROOM_CLOSED = CloseStatus.NORMAL.withReason("Room closed");
+
+    private final String roomId;
+    private final SpectatorFanout fanout;
+    private final SerialExecutor delivery;
+    /** スナップショットを待っている観戦者の数。次の flush でスナップショットを作るかどうかに使う */
+    private final AtomicInteger awaitingSnapshot = new AtomicInteger();
+    // 配信スレッドだけが触る
+    private final List<Spectator> spectators = new ArrayList<>();
+    // メールボックスだけが触る
+    private List<OutboundFrame> pending = new ArrayList<>();
+    private int count;
+
+    SpectatorChannel(String roomId, SpectatorFanout fanout) {
+        this.roomId = roomId;
+        this.fanout = fanout;
+        this.delivery = new SerialExecutor(fanout.getExecutor());
+    }
+
+    int size() {
+        return count;
+    }
+
+    void add(OutboundSession session) {
+        count++;
+        awaitingSnapshot.incrementAndGet();
+        Spectator spectator = new Spectator(session, System.nanoTime());
+        delivery.execute(() -> spectators.add(spectator));
+    }
+
+    void remove(String sessionId) {
+        count = Math.max(count - 1, 0);
+        if (count == 0) {
+            pending.clear();
+        }
+        delivery.execute(() -> {
+            for (Iterator<Spectator> it = spectators.iterator(); it.hasNext();) {
+                Spectator spectator = it.next();
+                if (spectator.session.getId().equals(sessionId)) {
+                    it.remove();
+                    spectator.session.discard();
+                    if (spectator.awaiting) {
+                        awaitingSnapshot.decrementAndGet();
+                    }
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * 次のスナップショットを送り直す。観戦者が seq の飛びに気づいたときに使う。
+     */
+    void requestSnapshot(String sessionId) {
+        delivery.execute(() -> spectators.stream()
+                .filter(spectator -> spectator.session.getId().equals(sessionId) && !spectator.awaiting)
+                .findFirst()
+                .ifPresent(spectator -> spectator.await(System.nanoTime())));
+    }
+
+    /**
+     * 観戦者がいれば、次のバッチに入れる。
+     */
+    void publish(OutboundFrame frame) {
+        if (count > 0) {
+            pending.add(frame);
+        }
+    }
+
+    /**
+     * たまっているフレームをバッチとして配信スレッドに渡す。
+     *
+     * @param snapshot スナップショットを待っている観戦者がいるときだけ呼ぶ。
+     *                 バッチと同じ時点の状態になるよう、メールボックス上で作る
+     */
+    void flush(Supplier<OutboundFrame> snapshot) {
+        if (count == 0) {
+            return;
+        }
+        OutboundFrame snapshotFrame = awaitingSnapshot.get() > 0 ? snapshot.get() : null;
+        if (pending.isEmpty() && snapshotFrame == null) {
+            return;
+        }
+        List<OutboundFrame> frames = pending;
+        pending = new ArrayList<>();
+        delivery.execute(() -> deliver(frames, snapshotFrame));
+    }
+
+    /**
+     * ルームが破棄されたときに、残っている観戦者を切断する。
+     */
+    void closeAll() {
+        count = 0;
+        pending.clear();
+        delivery.execute(() -> {
+            spectators.forEach(spectator -> close(spectator.session, ROOM_CLOSED));
+            spectators.clear();
+            awaitingSnapshot.set(0);
+        });
+    }
+
+    private void deliver(List<OutboundFrame> frames, OutboundFrame snapshot) {
+        TextMessage batch = frames.isEmpty() ? null : encodeBatch(frames);
+        long now = System.nanoTime();
+        int recipients = 0;
+        for (Iterator<Spectator> it = spectators.iterator(); it.hasNext();) {
+            Spectator spectator = it.next();
+            OutboundSession session = spectator.session;
+            if (spectator.awaiting) {
+                // スナップショットはバッチより新しいので、待っていた観戦者にはバッチを送らない
+                if (snapshot != null && session.getQueueDepth() == 0) {
+                    session.send(snapshot, "updateGameState");
+                    spectator.awaiting = false;
+                    awaitingSnapshot.decrementAndGet();
+                    fanout.recordSnapshot();
+                } else if (now - spectator.awaitingSince > fanout.getMaxLagNanos()) {
+                    logger.warn("Dropping spectator that cannot keep up: sessionId={}, roomId={}",
+                            session.getId(), roomId);
+                    it.remove();
+                    awaitingSnapshot.decrementAndGet();
+                    fanout.recordDrop();
+                    close(spectator.session, CloseStatus.SESSION_NOT_RELIABLE);
+                }
+                continue;
+            }
+            if (batch == null) {
+                continue;
+            }
+            if (session.getQueueDepth() >= fanout.getLagThreshold()) {
+                logger.debug("Spectator fell behind, switching to snapshots: sessionId={}", session.getId());
+                spectator.await(now);
+                fanout.recordDowngrade();
+                continue;
+            }
+            session.send(batch);
+            recipients++;
+        }
+        if (batch != null) {
+            fanout.recordBatch(frames.size(), recipients);
+        }
+    }
+
+    /**
+     * 各フレームの JSON をそのまま並べて1つのメッセージにする。シリアライズし直さない。
+     */
+    private static TextMessage encodeBatch(List<OutboundFrame> frames) {
+        int length = 48;
+        for (OutboundFrame frame : frames) {
+            length += frame.getText().getPayloadLength() + 1;
+        }
+        StringBuilder json = new StringBuilder(length).append("{\"type\":\"spectatorBatch\",\"messages\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(frames.get(i).getText().getPayload());
+        }
+        return new TextMessage(json.append("]}"));
+    }
+
+    static void close(OutboundSession session, CloseStatus status) {
+        session.discard();
+        try {
+            session.getSession().close(status);
+        } catch (IOException e) {
+            logger.warn("Error closing spectator sessionId={}", session.getId(), e);
+        }
+    }
+
+    private final class Spectator {
+        private final OutboundSession session;
+        private boolean awaiting = true;
+        private long awaitingSince;
+
+        private Spectator(OutboundSession session, long joinedAt) {
+            this.session = session;
+            this.awaitingSince = joinedAt;
+        }
+
+        private void await(long now) {
+            awaiting = true;
+            awaitingSince = now;
+            awaitingSnapshot.incrementAndGet();
+        }
+    }
+}
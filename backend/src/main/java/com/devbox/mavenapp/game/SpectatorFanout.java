@@ -0,0 +1,129 @@
+package com.devbox.mavenapp.game;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+
+/**
+ * 観戦者への配信の設定と、全ルームで共有する配信スレッド。
+ *
+ * <p>観戦者の送信キューは対戦者とは別の {@link OutboundDispatcher} に持たせ、
+ * バッチを観戦者ごとのキューに積む処理もこのクラスのスレッドで行う。
+ * 観戦者が何人いても、ルームのメールボックスと対戦者への送信は待たされない。
+ */
+public class SpectatorFanout {
+    /** ルームのメッセージをまとめて観戦者に送る間隔 */
+    public static final Duration DEFAULT_BATCH_INTERVAL = Duration.ofMillis(100);
+    /** 送信キューにこれだけたまった観戦者には、バッチをやめてスナップショットに切り替える */
+    public static final int DEFAULT_LAG_THRESHOLD = 16;
+    /** スナップショットに切り替えてからこれだけ経っても追いつかない観戦者は切断する */
+    public static final Duration DEFAULT_MAX_LAG = Duration.ofSeconds(10);
+    private static final int FANOUT_THREADS = 2;
+
+    private final OutboundDispatcher dispatcher;
+    private final Duration batchInterval;
+    private final int lagThreshold;
+    private final long maxLagNanos;
+    private final ExecutorService executor;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder downgrades = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+
+    public SpectatorFanout() {
+        this(new OutboundDispatcher(OutboundDispatcher.DEFAULT_SEND_TIME_LIMIT,
+                OutboundDispatcher.DEFAULT_BUFFER_SIZE_LIMIT, DEFAULT_LAG_THRESHOLD * 2, OverflowPolicy.DROP_OLDEST),
+                DEFAULT_BATCH_INTERVAL, DEFAULT_LAG_THRESHOLD, DEFAULT_MAX_LAG);
+    }
+
+    /**
+     * @param dispatcher   観戦者専用の送信キュー。{@link #shutdown} でいっしょに止める
+     * @param lagThreshold 送信キューにたまったメッセージがこの数以上の観戦者を遅れているとみなす
+     * @param maxLag       遅れている観戦者が追いつくのを待つ時間
+     */
+    public SpectatorFanout(OutboundDispatcher dispatcher, Duration batchInterval, int lagThreshold, Duration maxLag) {
+        this.dispatcher = dispatcher;
+        this.batchInterval = batchInterval;
+        this.lagThreshold = lagThreshold;
+        this.maxLagNanos = maxLag.toNanos();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spectator-fanout-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(FANOUT_THREADS, threadFactory);
+    }
+
+    public OutboundDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public Duration getBatchInterval() {
+        return batchInterval;
+    }
+
+    /** 観戦者向けに作ったバッチの数（ルームごとに1回ずつ） */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /** バッチに詰めたルームのメッセージの数 */
+    public long getFrameCount() {
+        return frames.sum();
+    }
+
+    /** 観戦者の送信キューに積んだバッチとスナップショットの数 */
+    public long getDeliveryCount() {
+        return deliveries.sum();
+    }
+
+    /** 遅れてスナップショットに切り替えた回数 */
+    public long getDowngradeCount() {
+        return downgrades.sum();
+    }
+
+    /** 追いつけずに切断した観戦者の数 */
+    public long getDropCount() {
+        return drops.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        dispatcher.shutdown();
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    int getLagThreshold() {
+        return lagThreshold;
+    }
+
+    long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    void recordBatch(int frameCount, int recipients) {
+        batches.increment();
+        frames.add(frameCount);
+        deliveries.add(recipients);
+    }
+
+    void recordSnapshot() {
+        deliveries.increment();
+    }
+
+    void recordDowngrade() {
+        downgrades.increment();
+    }
+
+    void recordDrop() {
+        drops.increment();
+    }
+}
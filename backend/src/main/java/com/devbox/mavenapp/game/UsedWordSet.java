@@ -0,0 +1,113 @@
+package com.devbox.mavenapp.game;
+
+import java.util.Arrays;
+
+/**
+ * ルームで使われた単語の集合。オープンアドレス法のハッシュ表で、contains は O(1)。
+ * ハッシュと比較は {@link ShiritoriRules#normalize} した文字で行うので、
+ * 「リンゴ」と「りんご」は同じ単語として扱う。参照を持つだけなので、判定でも追加でも文字列は作らない。
+ * ルームのメールボックスからしか触らない前提で、スレッドセーフではない。
+ */
+public class UsedWordSet {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private String[] words;
+    private int[] hashes;
+    private int size;
+
+    public UsedWordSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public UsedWordSet(int expectedWords) {
+        int capacity = Integer.highestOneBit(Math.max(expectedWords, 4) * 2 - 1) << 1;
+        this.words = new String[capacity];
+        this.hashes = new int[capacity];
+    }
+
+    public boolean contains(CharSequence word) {
+        int hash = hash(word);
+        int mask = words.length - 1;
+        for (int i = hash & mask; words[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && sameWord(words[i], word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 追加した場合は true、すでに使われていた場合は false
+     */
+    public boolean add(String word) {
+        int hash = hash(word);
+        int mask = words.length - 1;
+        int i = hash & mask;
+        for (; words[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && sameWord(words[i], word)) {
+                return false;
+            }
+        }
+        words[i] = word;
+        hashes[i] = hash;
+        // 使用率 1/2 を超えたら広げる。広げるのは倍々なので、1手あたりでは償却 O(1)
+        if (++size * 2 > words.length) {
+            resize(words.length * 2);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(words, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        String[] oldWords = words;
+        int[] oldHashes = hashes;
+        words = new String[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldWords.length; j++) {
+            if (oldWords[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (words[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                words[i] = oldWords[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    private static int hash(CharSequence word) {
+        int h = 0;
+        for (int i = 0; i < word.length(); i++) {
+            h = 31 * h + key(word.charAt(i));
+        }
+        // 下位ビットだけで位置を決めるので、上位ビットを混ぜておく
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameWord(String stored, CharSequence word) {
+        if (stored.length() != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < stored.length(); i++) {
+            if (key(stored.charAt(i)) != key(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** かな以外の文字はそのまま比べる（正規化すると全部 0 になってしまうため） */
+    private static char key(char c) {
+        char normalized = ShiritoriRules.normalize(c);
+        return normalized == 0 ? c : normalized;
+    }
+}
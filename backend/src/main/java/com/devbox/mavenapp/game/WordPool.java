@@ -0,0 +1,75 @@
+package com.devbox.mavenapp.game;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全ルームで共有する単語の表。同じ単語は1つの String にまとめ、ルームは単語を int の番号で持つ。
+ * クライアントから届く単語はメッセージごとに別の String なので、ルームごとに持つと同じ単語が何万個も残る。
+ *
+ * <p>入れるのは正解になった単語だけなので、大きさは実際に出た語彙の数で頭打ちになる。
+ * 登録はロックを取るが、番号から単語を引くのはロックなしでできる。番号を知っているスレッドは、
+ * 登録より後に {@link #ids} を通っているので、その単語を入れた配列かそれより新しい配列が見える。
+ */
+public final class WordPool {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] words = new String[INITIAL_CAPACITY];
+    // 登録のロックの中だけで触る
+    private int size;
+
+    /**
+     * @return word の番号。初めての単語なら新しく割り当てる
+     */
+    public int intern(String word) {
+        Integer id = ids.get(word);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(word);
+            if (id != null) {
+                return id;
+            }
+            String[] current = words;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = word;
+            words = current;
+            ids.put(word, size);
+            return size++;
+        }
+    }
+
+    public String word(int id) {
+        return words[id];
+    }
+
+    /**
+     * ids の先頭 count 個を単語の列として見せる。写しは作らないので、ids を書き換える側のスレッドで使う。
+     */
+    public List<String> view(int[] ids, int count) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return word(ids[Objects.checkIndex(index, count)]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /** 登録された単語の数 */
+    public int size() {
+        return ids.size();
+    }
+}
@@ -1,285 +1,170 @@
 package com.devbox.mavenapp.handler;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
-import org.jsoup.Jsoup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import com.devbox.mavenapp.game.GameRoom;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.metrics.GameMetrics;
 import com.devbox.mavenapp.model.GameMessage;
-import com.devbox.mavenapp.model.GameState;
-import com.devbox.mavenapp.model.Player;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-public class GameWebSocketHandler extends TextWebSocketHandler {
+import com.devbox.mavenapp.service.validation.CachingWordValidator;
+import com.devbox.mavenapp.service.validation.WeblioWordValidator;
+import com.devbox.mavenapp.service.validation.WordValidator;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OutboundSession;
+import com.devbox.mavenapp.websocket.WireEncoding;
+
+/**
+ * /game の WebSocket。JSON のテキストフレームと CBOR のバイナリフレームの両方を受け付ける。
+ * 再開トークンを持つクライアントは ?resumeToken=...&lastSeq=... を付けてつなぎ直す。
+ */
+public class GameWebSocketHandler extends AbstractWebSocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketHandler.class);
-    private static final int MAX_PLAYERS = 2;
-    private static final int GOAL = 100;
+    private static final String DEFAULT_ROOM_ID = "default";
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final List<Player> players = new ArrayList<>();
-    private final List<String> wordHistory = new ArrayList<>();
-    private int currentPlayerIndex = 0;
-    private final Random random = new Random();
+    private final Map<String, GameRoom> sessionRooms = new ConcurrentHashMap<>();
+    private final RoomRegistry roomRegistry;
+    private final OutboundDispatcher outboundDispatcher;
+    private final MessageCodec codec;
+    private final GameMetrics metrics;
 
-    @Override
-    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        logger.info("New connection established: sessionId={}", session.getId());
-        sessions.put(session.getId(), session);
+    public GameWebSocketHandler() {
+        this(new CachingWordValidator(new WeblioWordValidator()));
     }
 
-    @Override
-    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        logger.info("Message received: sessionId={}, payload={}", session.getId(), message.getPayload());
-        try {
-            GameMessage gameMessage = objectMapper.readValue(message.getPayload(), GameMessage.class);
-
-            synchronized (players) {
-                switch (gameMessage.getType()) {
-                    case "startRoulette":
-                        handleStartRoulette();
-                        break;
-                    case "join":
-                        handleJoin(session, gameMessage);
-                        break;
-                    case "checkWord":
-                        handleCheckWord(session, gameMessage);
-                        break;
-                    case "timeIsUp":
-                        handleTimeIsUp(session, gameMessage);
-                        break;
-                    case "inputWord":
-                        handleInputWord(session, gameMessage);
-                        break;
-                    default:
-                        logger.warn("Unknown message type received: {}", gameMessage.getType());
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error processing message: {}", message.getPayload(), e);
-        }
+    public GameWebSocketHandler(WordValidator wordValidator) {
+        this(new RoomRegistry(wordValidator), new OutboundDispatcher());
     }
 
-    private void handleStartRoulette() {
-        int result = random.nextInt(7) + 2; // ランダムなルーレット結果を生成（2〜8）
-        logger.info("Roulette started, result={}", result);
-
-        GameMessage response = new GameMessage();
-        response.setType("rouletteResult");
-        response.setResult(result);
-
-        broadcastMessage(response);
+    public GameWebSocketHandler(RoomRegistry roomRegistry, OutboundDispatcher outboundDispatcher) {
+        this.roomRegistry = roomRegistry;
+        this.outboundDispatcher = outboundDispatcher;
+        this.codec = roomRegistry.getCodec();
+        this.metrics = roomRegistry.getMetrics();
     }
 
-    private void handleJoin(WebSocketSession session, GameMessage message) {
-        synchronized (players) {
-            // 既存のプレイヤーが同じセッションIDまたは同じ順序番号の場合は追加しない
-            boolean alreadyExists = players.stream()
-                .anyMatch(player -> player.getSessionId().equals(session.getId()));
-
-            if (alreadyExists) {
-                logger.warn("Player already joined: sessionId={}", session.getId());
-                return;
-            }
-
-            int playerId = players.size();
-            players.add(new Player(playerId, message.getOrder(), session.getId()));
-            logger.info("Player {} added. Total players: {}", playerId, players.size());
-
-            broadcastState();
-
-            if (players.size() == MAX_PLAYERS) {
-                broadcastStartTurn();
-            }
-        }
-    }
-
-    private void handleCheckWord(WebSocketSession session, GameMessage message) throws Exception {
-        String word = message.getWord();
-        int playerId = message.getPlayerId();
-        logger.info("Player {} validating word: {}", playerId, word);
-
-        boolean isValid = validateWordWithWeblio(word);
-
-        GameMessage response = new GameMessage();
-        response.setType("checkResult");
-        response.setValid(isValid);
-        response.setPlayerId(playerId);
-
-        broadcastMessage(response);
-
-        if (isValid) {
-            Player currentPlayer = players.get(playerId);
-            currentPlayer.setPosition(Math.min(currentPlayer.getPosition() + word.length(), GOAL));
-            wordHistory.add(word);
-            logger.info("Player {} position updated to {}", playerId, currentPlayer.getPosition());
-
-            broadcastResultMessage("「%s」\n正解！".formatted(word));
-
-            if (currentPlayer.getPosition() >= GOAL) {
-                response.setGameOver(true);
-                response.setWinner(playerId);
-                logger.info("Game over! Winner: Player {}", playerId);
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        MultiValueMap<String, String> params = queryParams(session);
+        String roomId = roomIdOf(params);
+        WireEncoding encoding = WireEncoding.fromQueryValue(params.getFirst("encoding"));
+        logger.info("New connection established: sessionId={}, roomId={}, encoding={}", session.getId(), roomId, encoding);
+
+        GameRoom room = roomRegistry.join(roomId);
+        sessionRooms.put(session.getId(), room);
+        OutboundSession outbound = outboundDispatcher.wrap(session, encoding);
+        // 再開は参加と同じタスクで行い、送り直す前に新しいメッセージが届かないようにする
+        String resumeToken = params.getFirst("resumeToken");
+        long lastSeq = parseLong(params.getFirst("lastSeq"));
+        room.execute(() -> {
+            room.addSession(outbound);
+            if (resumeToken != null && !resumeToken.isBlank()) {
+                room.resume(session, resumeToken, lastSeq);
             }
-        } else {
-            logger.warn("Word validation failed: {}", word);
-            broadcastResultMessage("「%s」\n失敗！".formatted(word));
-        }
-
-        Thread.sleep(3000);
-
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
-        broadcastState();
-        Thread.sleep(1000);
-
-        broadcastStartTurn();
-    }
-
-    private void handleTimeIsUp(WebSocketSession session, GameMessage message) {
-        if (message.getOrder() == currentPlayerIndex) {
-            logger.debug("Time's up for player {}", currentPlayerIndex);
-            broadcastResultMessage("時間切れ！失敗！");
-
-            currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
-            broadcastState();
-            broadcastStartTurn();
-        }
+        });
     }
 
-    private void handleInputWord(WebSocketSession session, GameMessage message) throws Exception {
-        synchronized(sessions) {
-            GameMessage gm = new GameMessage();
-            gm.setType("overwriteWord");
-            gm.setWord(message.getWord());
-
-            sessions.values().forEach(s -> {
-                if (s.getId() != session.getId()) {
-                    try {
-                        s.sendMessage(new TextMessage(objectMapper.writeValueAsString(gm)));
-                    } catch (IOException e) {
-                        logger.error("Error sending message to sessionId={}", session.getId(), e);
-                    }   
-                }
-            });
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        logger.debug("Message received: sessionId={}, payload={}", session.getId(), message.getPayload());
+        try {
+            dispatch(session, codec.decode(message.getPayload()));
+        } catch (Exception e) {
+            logger.warn("Error processing message: sessionId={}", session.getId(), e);
         }
     }
 
-    private boolean validateWordWithWeblio(String word) {
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        ByteBuffer payload = message.getPayload();
+        logger.debug("Binary message received: sessionId={}, bytes={}", session.getId(), payload.remaining());
         try {
-            String url = "https://www.weblio.jp/content/" + word;
-            String html = Jsoup.connect(url).get().html();
-            return !html.contains("該当する単語が見つかりません");
-        } catch (IOException e) {
-            logger.error("Error connecting to Weblio for word '{}'", word, e);
-            return false;
+            dispatch(session, codec.decode(payload));
+        } catch (Exception e) {
+            logger.error("Error processing binary message: sessionId={}", session.getId(), e);
         }
     }
 
-    private void broadcastMessage(GameMessage message) {
-        try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            sessions.values().forEach(session -> {
-                try {
-                    session.sendMessage(new TextMessage(jsonMessage));
-                } catch (IOException e) {
-                    logger.error("Error sending message to sessionId={}", session.getId(), e);
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        logger.info("Connection closed: sessionId={}, status={}", session.getId(), status);
+        GameRoom room = sessionRooms.remove(session.getId());
+        if (room != null) {
+            room.execute(() -> {
+                // 席を残した場合、メンバー枠はルームが猶予の後に返す
+                if (!room.removeSession(session, status)) {
+                    roomRegistry.leave(room);
                 }
             });
-        } catch (IOException e) {
-            logger.error("Error serializing message for broadcast", e);
         }
     }
 
-    private void broadcastState() {
-        GameState state = new GameState(players, currentPlayerIndex, wordHistory);
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "updateGameState");
-        message.put("players", state.getPlayers());
-        message.put("currentPlayerIndex", state.getCurrentPlayerIndex());
-        message.put("wordHistory", state.getWordHistory());
-        message.put("lastCharacter", getLastCharacter(wordHistory));
-
-        broadcastToAll(message);
+    public int getSessionCount() {
+        return sessionRooms.size();
     }
 
-    private void broadcastResultMessage(String body) {
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "resultMessage");
-        message.put("body", body);
-
-        broadcastToAll(message);
+    public RoomRegistry getRoomRegistry() {
+        return roomRegistry;
     }
 
-    private void broadcastStartTurn() {
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "startTurn");
-
-        sessions.values().forEach(session -> {
-            try {
-                boolean isCurrentTurn = players.stream()
-                    .anyMatch(player -> player.getOrder() == currentPlayerIndex
-                            && player.getSessionId().equals(session.getId()));
-                message.put("isCurrentUserTurn", isCurrentTurn);
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
-            } catch (Exception e) {
-                logger.error("Error broadcasting start turn to sessionId={}", session.getId(), e);
-            }
+    private void dispatch(WebSocketSession session, GameMessage gameMessage) {
+        GameRoom room = sessionRooms.get(session.getId());
+        if (room == null) {
+            logger.warn("Message from session without a room: sessionId={}", session.getId());
+            return;
+        }
+        // type の文字列比較は受信スレッドで一度だけ行い、ルーム側は enum で振り分ける
+        MessageType type = MessageType.fromWireName(gameMessage.getType());
+        long receivedAt = System.nanoTime();
+        room.execute(() -> {
+            room.handleMessage(session, type, gameMessage);
+            metrics.recordMessage(type, System.nanoTime() - receivedAt);
         });
     }
 
-    private void broadcastToAll(Map<String, Object> message) {
-        try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            sessions.values().forEach(session -> {
-                try {
-                    session.sendMessage(new TextMessage(jsonMessage));
-                } catch (IOException e) {
-                    logger.error("Error sending message to sessionId={}", session.getId(), e);
-                }
-            });
-        } catch (IOException e) {
-            logger.error("Error serializing message for broadcast", e);
-        }
+    /**
+     * 接続 URI の roomId。なければ既定のルーム。
+     */
+    public static String roomIdOf(WebSocketSession session) {
+        return roomIdOf(queryParams(session));
     }
 
-    private char getLastCharacter(List<String> wordHistory) {
-        if (wordHistory.isEmpty()) {
-            return 'り';
-        } else {
-            String lastWord = wordHistory.get(wordHistory.size() - 1);
-            return getNormalHiragana(lastWord.charAt(lastWord.length() - 1));
-        }
+    private static String roomIdOf(MultiValueMap<String, String> params) {
+        String roomId = params.getFirst("roomId");
+        return roomId == null || roomId.isBlank() ? DEFAULT_ROOM_ID : roomId;
     }
 
-    private char getNormalHiragana(char c) {
-        switch (c) {
-            case 'ぁ': case 'ぃ': case 'ぅ': case 'ぇ': case 'ぉ':
-            case 'っ': case 'ゃ': case 'ゅ': case 'ょ':
-                return (char) (c + 1);
-            default:
-                return c;
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
-    @Override
-    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        logger.info("Connection closed: sessionId={}, status={}", session.getId());
-        sessions.remove(session.getId());
-        synchronized (players) {
-            players.removeIf(player -> player.getSessionId().equals(session.getId()));
+    private static MultiValueMap<String, String> queryParams(WebSocketSession session) {
+        URI uri = session.getUri();
+        if (uri == null) {
+            return new LinkedMultiValueMap<>();
         }
-        broadcastState();
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams();
     }
 }
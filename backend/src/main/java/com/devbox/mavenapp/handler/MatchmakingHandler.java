@@ -5,124 +5,189 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.model.GameMessage;
+import com.devbox.mavenapp.model.Player;
+import com.devbox.mavenapp.service.matchmaking.JoinResult;
+import com.devbox.mavenapp.service.matchmaking.MatchmakingQueue;
+import com.devbox.mavenapp.service.matchmaking.WaitingPlayer;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+import com.devbox.mavenapp.websocket.OutboundSession;
+
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 public class MatchmakingHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(MatchmakingHandler.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, String>> sessionToPlayer = new ConcurrentHashMap<>(); // sessionId -> {username, userid}
+    private final MessageCodec codec = new MessageCodec();
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
     private static final int MAX_PLAYERS = 2;
-    private final List<Map<String, String>> players = Collections.synchronizedList(new ArrayList<>());
-    private String roomId = UUID.randomUUID().toString(); // 固定のRoom IDを生成
+    /** 待ちすぎたプレイヤーの相手。クライアントには対戦相手の1人として見せる */
+    private static final WaitingPlayer BOT = new WaitingPlayer(Player.BOT_SESSION_ID, "bot", RoomBot.USER_NAME);
+    private static final long BOT_SWEEP_INTERVAL_MILLIS = 500;
+    private final MatchmakingQueue queue;
+    private final OutboundDispatcher outboundDispatcher;
+    /** ボットと組ませない設定なら null */
+    private final ScheduledExecutorService sweeper;
+
+    public MatchmakingHandler() {
+        this(new MatchmakingQueue(MAX_PLAYERS), new OutboundDispatcher());
+    }
+
+    public MatchmakingHandler(MatchmakingQueue queue, OutboundDispatcher outboundDispatcher) {
+        this(queue, outboundDispatcher, Duration.ZERO);
+    }
+
+    /**
+     * @param botMatchTimeout これより長く待ったプレイヤーはボットと組ませる。0 なら組ませない
+     */
+    public MatchmakingHandler(MatchmakingQueue queue, OutboundDispatcher outboundDispatcher,
+            Duration botMatchTimeout) {
+        this.queue = queue;
+        this.outboundDispatcher = outboundDispatcher;
+        if (botMatchTimeout.isZero()) {
+            this.sweeper = null;
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("matchmaking-bot-");
+        threadFactory.setDaemon(true);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long maxWaitNanos = botMatchTimeout.toNanos();
+        sweeper.scheduleWithFixedDelay(() -> matchExpired(maxWaitNanos),
+                BOT_SWEEP_INTERVAL_MILLIS, BOT_SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 待ちすぎたプレイヤーをボットと組ませる定期処理を止める。
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         logger.info("New player connected: sessionId={}", session.getId());
-        sessions.put(session.getId(), session);
+        sessions.put(session.getId(), outboundDispatcher.wrap(session));
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        logger.info("Message received: sessionId={}, payload={}", session.getId(), message.getPayload());
+        logger.debug("Message received: sessionId={}, payload={}", session.getId(), message.getPayload());
 
         try {
-            Map<String, Object> payload = objectMapper.readValue(message.getPayload(), Map.class);
-
-            if ("join".equals(payload.get("type"))) {
-                String userName = (String) payload.get("userName");
-                String userId = String.valueOf(payload.get("userId")); // userIdを文字列に変換
-
-                if (sessionToPlayer.containsKey(session.getId())) {
-                    logger.warn("Session {} already has a player associated.", session.getId());
-                    return;
-                }
-
-                // 重複チェック
-                boolean isDuplicate = players.stream()
-                        .anyMatch(player -> player.get("userid").equals(userId) || player.get("username").equals(userName));
-                if (!isDuplicate) {
-                    Map<String, String> player = new HashMap<>();
-                    player.put("username", userName);
-                    player.put("userid", userId);
-
-                    players.add(player);
-                    sessionToPlayer.put(session.getId(), player);
-
-                    logger.info("Player joined: {} ({}) in room {}", userName, userId, roomId);
-
-                    broadcastPlayerUpdate();
-
-                    if (players.size() == MAX_PLAYERS) {
-                        startGame();
-                    }
-                } else {
-                    logger.warn("Duplicate player attempt: {} ({})", userName, userId);
-                    session.sendMessage(new TextMessage(
-                            objectMapper.writeValueAsString(Collections.singletonMap("error", "Username or ID already taken."))));
+            GameMessage payload = codec.decode(message.getPayload());
+
+            if (MessageType.fromWireName(payload.getType()) == MessageType.JOIN) {
+                String userName = payload.getUserName();
+                String userId = payload.getUserId(); // 数値で送られてきても文字列として読む
+
+                JoinResult result = queue.join(new WaitingPlayer(session.getId(), userId, userName));
+                switch (result.getStatus()) {
+                    case WAITING:
+                        logger.info("Player joined: {} ({}) in room {}", userName, userId, result.getRoomId());
+                        sendPlayerUpdate(result);
+                        break;
+                    case MATCHED:
+                        logger.info("Player joined: {} ({}) in room {}", userName, userId, result.getRoomId());
+                        sendPlayerUpdate(result);
+                        startGame(result);
+                        break;
+                    case DUPLICATE:
+                        logger.warn("Duplicate player attempt: {} ({})", userName, userId);
+                        sessions.get(session.getId()).send(
+                                codec.encode(Collections.singletonMap("error", "Username or ID already taken.")));
+                        break;
                 }
             }
         } catch (Exception e) {
-            logger.error("Error handling message: {}", message.getPayload(), e);
+            logger.warn("Error processing message: sessionId={}", session.getId(), e);
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
-        logger.info("Player disconnected: sessionId={}, status={}", session.getId());
-        sessions.remove(session.getId());
+        logger.info("Player disconnected: sessionId={}, status={}", session.getId(), status);
+        OutboundSession outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            outbound.discard();
+        }
 
-        Map<String, String> player = sessionToPlayer.remove(session.getId());
-        if (player != null) {
-            players.remove(player);
-            logger.info("Removed player: {} ({})", player.get("username"), player.get("userid"));
+        JoinResult remaining = queue.leave(session.getId());
+        if (remaining != null) {
+            sendPlayerUpdate(remaining);
         }
+    }
 
-        broadcastPlayerUpdate();
+    private void matchExpired(long maxWaitNanos) {
+        try {
+            JoinResult result = queue.matchExpired(System.nanoTime(), maxWaitNanos, BOT, RoomBot.ROOM_PREFIX);
+            if (result != null) {
+                logger.info("Matching waiting players with a bot in room {}", result.getRoomId());
+                sendPlayerUpdate(result);
+                startGame(result);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error matching waiting players with a bot", e);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
     }
 
-    private void broadcastPlayerUpdate() {
-        logger.info("Broadcasting player update. Current players: {}", players);
+    public MatchmakingQueue getQueue() {
+        return queue;
+    }
+
+    private void sendPlayerUpdate(JoinResult result) {
+        logger.debug("Sending player update for room {}: {}", result.getRoomId(), result.getPlayers());
 
         Map<String, Object> message = new HashMap<>();
         message.put("type", "playerUpdate");
-        message.put("roomId", roomId);
-        message.put("playerCount", players.size());
-        message.put("players", players);
+        message.put("roomId", result.getRoomId());
+        message.put("playerCount", result.getPlayers().size());
+        message.put("players", result.getPlayers());
 
-        broadcastMessage(message);
+        sendToPlayers(result.getPlayers(), message);
     }
 
-    private void startGame() {
+    private void startGame(JoinResult result) {
         Map<String, Object> message = new HashMap<>();
         message.put("type", "startGame");
-        message.put("roomId", roomId);
-        message.put("players", players); // ゲーム開始時にプレイヤーリストを送信
+        message.put("roomId", result.getRoomId());
+        message.put("players", result.getPlayers()); // ゲーム開始時にプレイヤーリストを送信
 
-        logger.info("Starting game with players: {}", players);
-        broadcastMessage(message);
+        logger.info("Starting game in room {} with players: {}", result.getRoomId(), result.getPlayers());
+        sendToPlayers(result.getPlayers(), message);
     }
 
-    private void broadcastMessage(Map<String, Object> message) {
-        String jsonMessage;
+    private void sendToPlayers(List<WaitingPlayer> players, Map<String, Object> message) {
+        OutboundFrame frame;
         try {
-            jsonMessage = objectMapper.writeValueAsString(message);
-        } catch (Exception e) {
+            frame = codec.encode(message);
+        } catch (RuntimeException e) {
             logger.error("Error serializing message: {}", message, e);
             return;
         }
 
-        sessions.values().forEach(session -> {
-            try {
-                session.sendMessage(new TextMessage(jsonMessage));
-                logger.info("Message sent to sessionId={}: {}", session.getId(), jsonMessage);
-            } catch (Exception e) {
-                logger.error("Error sending message to sessionId={}", session.getId(), e);
+        for (WaitingPlayer player : players) {
+            OutboundSession session = sessions.get(player.getSessionId());
+            if (session != null) {
+                session.send(frame);
             }
-        });
+        }
     }
 }
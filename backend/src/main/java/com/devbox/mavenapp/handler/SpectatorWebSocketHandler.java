@@ -0,0 +1,85 @@
+package com.devbox.mavenapp.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.devbox.mavenapp.game.GameRoom;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundSession;
+
+/**
+ * /watch の WebSocket。?roomId= のルームを観戦する。
+ *
+ * <p>観戦者には最初に updateGameState を1通、以後は対戦者に送ったメッセージを
+ * spectatorBatch（{"type":"spectatorBatch","messages":[...]}）にまとめて送る。
+ * 受け付けるのは resync だけで、それ以外のメッセージは無視する。JSON のみに対応する。
+ */
+public class SpectatorWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorWebSocketHandler.class);
+    private static final CloseStatus ROOM_NOT_FOUND = CloseStatus.POLICY_VIOLATION.withReason("Room not found");
+
+    private final Map<String, GameRoom> sessionRooms = new ConcurrentHashMap<>();
+    private final RoomRegistry roomRegistry;
+    private final MessageCodec codec;
+
+    public SpectatorWebSocketHandler(RoomRegistry roomRegistry) {
+        this.roomRegistry = roomRegistry;
+        this.codec = roomRegistry.getCodec();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String roomId = GameWebSocketHandler.roomIdOf(session);
+        // 観戦者はルームを作らない。対戦中のルームがなければ断る
+        GameRoom room = roomRegistry.getRoom(roomId);
+        if (room == null) {
+            logger.info("Spectator rejected, no such room: sessionId={}, roomId={}", session.getId(), roomId);
+            session.close(ROOM_NOT_FOUND);
+            return;
+        }
+        logger.info("Spectator connected: sessionId={}, roomId={}", session.getId(), roomId);
+        sessionRooms.put(session.getId(), room);
+        OutboundSession outbound = roomRegistry.getSpectatorFanout().getDispatcher().wrap(session);
+        room.execute(() -> room.addSpectator(outbound));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        GameRoom room = sessionRooms.get(session.getId());
+        if (room == null) {
+            return;
+        }
+        try {
+            MessageType type = MessageType.fromWireName(codec.decode(message.getPayload()).getType());
+            if (type == MessageType.RESYNC) {
+                room.execute(() -> room.resyncSpectator(session.getId()));
+            } else {
+                logger.debug("Ignoring spectator message: sessionId={}, type={}", session.getId(), type);
+            }
+        } catch (Exception e) {
+            logger.warn("Error processing spectator message: sessionId={}", session.getId(), e);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        GameRoom room = sessionRooms.remove(session.getId());
+        if (room != null) {
+            logger.info("Spectator disconnected: sessionId={}, status={}", session.getId(), status);
+            room.execute(() -> room.removeSpectator(session.getId()));
+        }
+    }
+
+    public int getSessionCount() {
+        return sessionRooms.size();
+    }
+}
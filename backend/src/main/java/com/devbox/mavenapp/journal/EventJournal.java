@@ -0,0 +1,64 @@
+package com.devbox.mavenapp.journal;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * ルームで起きた出来事の追記専用の記録。クラッシュ後のルームの復元と、終わった対戦の再生に使う。
+ */
+public interface EventJournal {
+
+    /** 何も記録しないジャーナル */
+    EventJournal NONE = new EventJournal() {
+        @Override
+        public long append(String roomId, GameEvent.Type type, int playerId, int value, String text) {
+            return 0;
+        }
+
+        @Override
+        public List<RoomState> takeRecoveredRooms() {
+            return List.of();
+        }
+
+        @Override
+        public void setSnapshotSource(Supplier<CompletableFuture<List<RoomState>>> source) {
+        }
+
+        @Override
+        public List<GameEvent> replay(String roomId) {
+            return List.of();
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * 出来事を追記する。書き込みを待たずに返る。
+     *
+     * @return 割り当てた lsn
+     */
+    long append(String roomId, GameEvent.Type type, int playerId, int value, String text);
+
+    /**
+     * 起動時にジャーナルから復元したルームを返す。2回目以降は空。
+     */
+    List<RoomState> takeRecoveredRooms();
+
+    /**
+     * スナップショットを取るときに、その時点の全ルームの状態を集める処理を登録する。
+     */
+    void setSnapshotSource(Supplier<CompletableFuture<List<RoomState>>> source);
+
+    /**
+     * roomId の最後のルームの出来事を古い順に返す。残っていなければ空。
+     */
+    List<GameEvent> replay(String roomId);
+
+    /**
+     * たまっている出来事を書き出してから閉じる。
+     */
+    void close();
+}
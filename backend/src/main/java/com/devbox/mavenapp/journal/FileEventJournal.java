@@ -0,0 +1,639 @@
+package com.devbox.mavenapp.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ディレクトリ内のセグメントファイルに出来事を追記するジャーナル。
+ *
+ * <ul>
+ * <li>追記はキューに積むだけで、書き込み用のスレッドがたまった分をまとめて書き、まとめて fsync する
+ *     （グループコミット）。混んでいるほど1回の fsync で書ける件数が増える</li>
+ * <li>各レコードは長さと CRC32 を持つ。クラッシュで途中まで書かれた末尾は読み飛ばす。
+ *     起動のたびに新しいセグメントに書き始めるので、壊れた末尾の後ろに追記することはない</li>
+ * <li>snapshotInterval ごとに新しいセグメントに切り替えてから全ルームの状態を書き出す。
+ *     復元はスナップショットと、それ以降のセグメントだけを読めばよい</li>
+ * <li>スナップショットより前のセグメントは retention を過ぎたら消す。残っている間は対戦の再生に使える。
+ *     再生は新しいセグメントから読み、読むのは replayMaxSegments 個まで</li>
+ * </ul>
+ *
+ * 全ルームの出来事を1本のログに混ぜて書き、roomId と lsn でルームごとの流れを見分ける。
+ */
+public class FileEventJournal implements EventJournal {
+    private static final Logger logger = LoggerFactory.getLogger(FileEventJournal.class);
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_RETENTION = Duration.ofHours(24);
+    public static final Duration DEFAULT_RECOVERY_BUDGET = Duration.ofSeconds(5);
+    /** 既定のスナップショット間隔なら、直近1時間分のセグメント */
+    public static final int DEFAULT_REPLAY_MAX_SEGMENTS = 60;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    /** レコードの長さと CRC32 */
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int MAX_BATCH = 4096;
+    private static final long POLL_MILLIS = 100;
+    /** 全ルームの状態が集まるまで待つ時間 */
+    private static final Duration SNAPSHOT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long segmentBytes;
+    private final Duration snapshotInterval;
+    private final Duration retention;
+    private final int replayMaxSegments;
+    private final BlockingQueue<GameEvent> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong nextLsn;
+    private final AtomicReference<CompletableFuture<Void>> snapshotRequest = new AtomicReference<>();
+    private final ExecutorService snapshotExecutor;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile Supplier<CompletableFuture<List<RoomState>>> snapshotSource;
+    private List<RoomState> recoveredRooms;
+    private final long recoveryMillis;
+    private final int recoveredRoomCount;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    // 以下は書き込み用のスレッドだけが触る
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+    private FileChannel segment;
+    private long segmentIndex;
+    private long segmentSize;
+    private long writtenSinceSnapshot;
+    private long lastSnapshotNanos = System.nanoTime();
+    private volatile boolean snapshotInProgress;
+
+    private FileEventJournal(Path directory, boolean fsync, long segmentBytes, Duration snapshotInterval,
+            Duration retention, Duration recoveryBudget, int replayMaxSegments) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.segmentBytes = segmentBytes;
+        this.snapshotInterval = snapshotInterval;
+        this.retention = retention;
+        this.replayMaxSegments = replayMaxSegments;
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        Recovery recovery = recover();
+        this.recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        this.recoveredRooms = new ArrayList<>(recovery.rooms.values());
+        this.recoveredRoomCount = recoveredRooms.size();
+        this.nextLsn = new AtomicLong(recovery.nextLsn);
+        logger.info("Journal recovered {} rooms from {} events in {} ms (snapshot segment {})",
+                recoveredRoomCount, recovery.replayedEvents, recoveryMillis, recovery.snapshotIndex);
+        if (recoveryMillis > recoveryBudget.toMillis()) {
+            logger.warn("Journal recovery took {} ms, over the budget of {} ms; consider a shorter snapshot interval",
+                    recoveryMillis, recoveryBudget.toMillis());
+        }
+        if (recovery.replayedEvents > 0) {
+            // 次の起動で同じ出来事を読み直さないよう、ルームが揃ったらすぐにスナップショットを取る
+            snapshotRequest.set(new CompletableFuture<>());
+        }
+
+        this.segmentIndex = recovery.lastSegmentIndex + 1;
+        openSegment();
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "journal-snapshot"));
+        this.writer = daemon(this::runWriter, "journal-writer");
+        writer.start();
+    }
+
+    public static FileEventJournal open(Path directory) throws IOException {
+        return open(directory, true, DEFAULT_SEGMENT_BYTES, DEFAULT_SNAPSHOT_INTERVAL, DEFAULT_RETENTION,
+                DEFAULT_RECOVERY_BUDGET, DEFAULT_REPLAY_MAX_SEGMENTS);
+    }
+
+    /**
+     * directory のジャーナルを読んでルームを復元し、新しいセグメントに書き始める。
+     *
+     * @param fsync            書くたびに fsync するか。false なら OS に任せる（プロセスのクラッシュには耐える）
+     * @param segmentBytes     セグメントを切り替える大きさ
+     * @param snapshotInterval スナップショットを取る間隔。短いほど復元が速い
+     * @param retention        スナップショットより前のセグメントを再生用に残しておく期間
+     * @param recoveryBudget   復元にかかってよい時間。超えたら警告する
+     * @param replayMaxSegments 1回の再生で読むセグメントの数の上限
+     */
+    public static FileEventJournal open(Path directory, boolean fsync, long segmentBytes, Duration snapshotInterval,
+            Duration retention, Duration recoveryBudget, int replayMaxSegments) throws IOException {
+        return new FileEventJournal(directory, fsync, segmentBytes, snapshotInterval, retention, recoveryBudget,
+                replayMaxSegments);
+    }
+
+    @Override
+    public long append(String roomId, GameEvent.Type type, int playerId, int value, String text) {
+        long lsn = nextLsn.getAndIncrement();
+        queue.add(new GameEvent(lsn, System.currentTimeMillis(), type, roomId, playerId, value, text));
+        return lsn;
+    }
+
+    @Override
+    public synchronized List<RoomState> takeRecoveredRooms() {
+        List<RoomState> rooms = recoveredRooms;
+        recoveredRooms = List.of();
+        return rooms;
+    }
+
+    @Override
+    public void setSnapshotSource(Supplier<CompletableFuture<List<RoomState>>> source) {
+        this.snapshotSource = source;
+    }
+
+    /**
+     * すぐにスナップショットを取る。書き終わったら完了する。
+     */
+    public CompletableFuture<Void> snapshot() {
+        return snapshotRequest.updateAndGet(current -> current != null ? current : new CompletableFuture<>());
+    }
+
+    /**
+     * 新しいセグメントから順に読み、ルームが作られたところまでさかのぼったら止める。
+     * 読むのは replayMaxSegments 個までで、それより前に作られたルームは途中からの出来事だけを返す。
+     * ほかのルームのレコードは roomId だけを見て読み飛ばす。
+     */
+    @Override
+    public List<GameEvent> replay(String roomId) {
+        byte[] key = roomId.getBytes(StandardCharsets.UTF_8);
+        List<List<GameEvent>> newestFirst = new ArrayList<>();
+        int total = 0;
+        try {
+            int scanned = 0;
+            for (Path path : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).descendingMap().values()) {
+                if (scanned++ >= replayMaxSegments) {
+                    logger.debug("Replay of roomId={} stopped after {} segments", roomId, replayMaxSegments);
+                    break;
+                }
+                List<GameEvent> events = new ArrayList<>();
+                readSegment(path, key, events::add);
+                int created = lastRoomCreated(events);
+                newestFirst.add(created < 0 ? events : events.subList(created, events.size()));
+                total += events.size();
+                if (created >= 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read journal " + directory, e);
+        }
+        List<GameEvent> events = new ArrayList<>(total);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            events.addAll(newestFirst.get(i));
+        }
+        return events;
+    }
+
+    private static int lastRoomCreated(List<GameEvent> events) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (events.get(i).getType() == GameEvent.Type.ROOM_CREATED) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotExecutor.shutdown();
+    }
+
+    /** 追記されてまだ書いていない出来事の数 */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    public long getFsyncCount() {
+        return fsyncs.sum();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    /** 書き込みやスナップショットに失敗した回数 */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /** 起動時の復元にかかった時間 */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    public int getRecoveredRoomCount() {
+        return recoveredRoomCount;
+    }
+
+    private void runWriter() {
+        List<GameEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                GameEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    write(batch);
+                } else if (!running) {
+                    break;
+                }
+                maybeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                buffer.clear();
+                logger.error("Failed to write {} journal events", batch.size(), e);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            segment.force(true);
+            segment.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close journal segment", e);
+        }
+    }
+
+    private void write(List<GameEvent> batch) throws IOException {
+        for (GameEvent event : batch) {
+            int maxSize = RECORD_HEADER_BYTES + event.maxEncodedSize();
+            if (buffer.remaining() < maxSize) {
+                flushBuffer();
+                if (buffer.capacity() < maxSize) {
+                    buffer = ByteBuffer.allocate(maxSize);
+                }
+            }
+            int start = buffer.position();
+            buffer.position(start + RECORD_HEADER_BYTES);
+            try {
+                event.writeTo(buffer);
+            } catch (IllegalArgumentException e) {
+                buffer.position(start);
+                failures.increment();
+                logger.warn("Dropping journal event that cannot be written: {}", e.getMessage());
+                continue;
+            }
+            int length = buffer.position() - start - RECORD_HEADER_BYTES;
+            crc.reset();
+            crc.update(buffer.array(), start + RECORD_HEADER_BYTES, length);
+            buffer.putInt(start, length);
+            buffer.putInt(start + 4, (int) crc.getValue());
+        }
+        flushBuffer();
+        if (fsync) {
+            segment.force(false);
+            fsyncs.increment();
+        }
+        written.add(batch.size());
+        writtenSinceSnapshot += batch.size();
+        if (segmentSize >= segmentBytes) {
+            rollSegment();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            int bytes = segment.write(buffer);
+            segmentSize += bytes;
+            writtenBytes.add(bytes);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment() throws IOException {
+        segment = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        segmentSize = 0;
+    }
+
+    private void rollSegment() throws IOException {
+        segment.force(true);
+        segment.close();
+        segmentIndex++;
+        openSegment();
+    }
+
+    private void maybeSnapshot() throws IOException {
+        Supplier<CompletableFuture<List<RoomState>>> source = snapshotSource;
+        if (source == null || snapshotInProgress) {
+            return;
+        }
+        boolean due = writtenSinceSnapshot > 0 && System.nanoTime() - lastSnapshotNanos >= snapshotInterval.toNanos();
+        if (!due && snapshotRequest.get() == null) {
+            return;
+        }
+        CompletableFuture<Void> request = snapshotRequest.getAndSet(null);
+        // 切り替えた後に集めた状態は、切り替え前の出来事をすべて含む。
+        // 切り替え後のセグメントにある出来事のうち状態に含まれるものは、復元時に lsn で読み飛ばす
+        rollSegment();
+        long fromSegment = segmentIndex;
+        writtenSinceSnapshot = 0;
+        lastSnapshotNanos = System.nanoTime();
+        long lsnAtRoll = nextLsn.get();
+        snapshotInProgress = true;
+        source.get()
+                .orTimeout(SNAPSHOT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .thenAcceptAsync(rooms -> {
+                    try {
+                        writeSnapshot(fromSegment, lsnAtRoll, rooms);
+                        compact(fromSegment);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, snapshotExecutor)
+                .whenComplete((ignored, error) -> {
+                    snapshotInProgress = false;
+                    if (error != null) {
+                        failures.increment();
+                        logger.error("Failed to write journal snapshot", error);
+                    }
+                    if (request != null) {
+                        if (error != null) {
+                            request.completeExceptionally(error);
+                        } else {
+                            request.complete(null);
+                        }
+                    }
+                });
+    }
+
+    private void writeSnapshot(long fromSegment, long lsnAtRoll, List<RoomState> rooms) throws IOException {
+        int size = 4 + 8 + 4 + 4;
+        for (RoomState room : rooms) {
+            size += room.maxEncodedSize();
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+        snapshot.putInt(SNAPSHOT_MAGIC);
+        snapshot.putLong(lsnAtRoll);
+        snapshot.putInt(rooms.size());
+        for (RoomState room : rooms) {
+            room.writeTo(snapshot);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(snapshot.array(), 0, snapshot.position());
+        snapshot.putInt((int) checksum.getValue());
+        snapshot.flip();
+
+        Path target = snapshotPath(fromSegment);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        snapshots.increment();
+        logger.debug("Journal snapshot written: {} rooms, segment {}", rooms.size(), fromSegment);
+    }
+
+    /**
+     * 新しいスナップショットより前のスナップショットと、保持期間を過ぎたセグメントを消す。
+     */
+    private void compact(long fromSegment) throws IOException {
+        for (Map.Entry<Long, Path> entry : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).entrySet()) {
+            if (entry.getKey() < fromSegment) {
+                Files.deleteIfExists(entry.getValue());
+            }
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(retention));
+        for (Map.Entry<Long, Path> entry : listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX).entrySet()) {
+            if (entry.getKey() >= fromSegment) {
+                break;
+            }
+            try {
+                if (Files.getLastModifiedTime(entry.getValue()).compareTo(cutoff) <= 0) {
+                    Files.delete(entry.getValue());
+                }
+            } catch (NoSuchFileException e) {
+                // 別の compact が先に消した
+            }
+        }
+    }
+
+    private Recovery recover() throws IOException {
+        Recovery recovery = new Recovery();
+        TreeMap<Long, Path> segments = listFiles(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        recovery.lastSegmentIndex = segments.isEmpty() ? 0 : segments.lastKey();
+
+        // 壊れたスナップショットは飛ばして、1つ前のものを使う
+        for (Map.Entry<Long, Path> entry : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).descendingMap().entrySet()) {
+            try {
+                readSnapshot(entry.getValue(), recovery);
+                recovery.snapshotIndex = entry.getKey();
+                recovery.lastSegmentIndex = Math.max(recovery.lastSegmentIndex, entry.getKey());
+                break;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Ignoring unreadable journal snapshot {}: {}", entry.getValue(), e.toString());
+                recovery.rooms.clear();
+                recovery.nextLsn = 1;
+            }
+        }
+
+        for (Map.Entry<Long, Path> entry : segments.tailMap(recovery.snapshotIndex, true).entrySet()) {
+            boolean complete = readSegment(entry.getValue(), event -> {
+                recovery.replayedEvents++;
+                recovery.nextLsn = Math.max(recovery.nextLsn, event.getLsn() + 1);
+                apply(recovery.rooms, event);
+            });
+            if (!complete) {
+                logger.warn("Journal segment {} ends with a partial record; ignoring the rest", entry.getValue());
+            }
+        }
+        return recovery;
+    }
+
+    private static void apply(Map<String, RoomState> rooms, GameEvent event) {
+        RoomState state = rooms.get(event.getRoomId());
+        // スナップショットにすでに含まれている出来事
+        if (state != null && event.getLsn() <= state.getLastLsn()) {
+            return;
+        }
+        switch (event.getType()) {
+            case ROOM_CREATED -> {
+                RoomState created = new RoomState(event.getRoomId());
+                created.apply(event);
+                rooms.put(event.getRoomId(), created);
+            }
+            case ROOM_CLOSED -> rooms.remove(event.getRoomId());
+            default -> {
+                // スナップショットの後に閉じたルームの出来事は、作成から読めないので捨てる
+                if (state != null) {
+                    state.apply(event);
+                }
+            }
+        }
+    }
+
+    private void readSnapshot(Path path, Recovery recovery) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 4 + 8 + 4 + 4) {
+            throw new IOException("Snapshot too short");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, bytes.length - 4);
+        ByteBuffer snapshot = ByteBuffer.wrap(bytes);
+        if (snapshot.getInt(bytes.length - 4) != (int) checksum.getValue()) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        if (snapshot.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a journal snapshot");
+        }
+        recovery.nextLsn = Math.max(recovery.nextLsn, snapshot.getLong());
+        int roomCount = snapshot.getInt();
+        for (int i = 0; i < roomCount; i++) {
+            RoomState room = RoomState.readFrom(snapshot);
+            recovery.rooms.put(room.getRoomId(), room);
+            recovery.nextLsn = Math.max(recovery.nextLsn, room.getLastLsn() + 1);
+        }
+    }
+
+    /**
+     * @return 最後まで読めた場合は true。途中までしか書かれていないレコードや壊れたレコードで止まった場合は false
+     */
+    private static boolean readSegment(Path path, Consumer<GameEvent> consumer) throws IOException {
+        return readSegment(path, null, consumer);
+    }
+
+    /**
+     * @param roomId UTF-8 にした roomId。null でなければ、このルームのレコードだけを読み込む
+     */
+    private static boolean readSegment(Path path, byte[] roomId, Consumer<GameEvent> consumer) throws IOException {
+        CRC32 checksum = new CRC32();
+        byte[] record = new byte[256];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return true;
+                }
+                int expected = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return false;
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                in.readFully(record, 0, length);
+                checksum.reset();
+                checksum.update(record, 0, length);
+                if ((int) checksum.getValue() != expected) {
+                    return false;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(record, 0, length);
+                if (roomId == null || GameEvent.isForRoom(buffer, roomId)) {
+                    consumer.accept(GameEvent.readFrom(buffer));
+                }
+            }
+        } catch (EOFException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** prefix と suffix に合う名前のファイルを、名前の番号順に返す */
+    private TreeMap<Long, Path> listFiles(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())),
+                                path);
+                    } catch (NumberFormatException e) {
+                        // 関係ないファイル
+                    }
+                }
+            });
+        }
+        return files;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long index) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, index, SNAPSHOT_SUFFIX));
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Recovery {
+        private final Map<String, RoomState> rooms = new LinkedHashMap<>();
+        private long nextLsn = 1;
+        private long snapshotIndex;
+        private long lastSegmentIndex;
+        private long replayedEvents;
+    }
+}
@@ -0,0 +1,163 @@
+package com.devbox.mavenapp.journal;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ジャーナルに残す1件の出来事。どのルームの出来事も同じ形で、
+ * 種類ごとに playerId・value・text のどれを使うかが決まっている。
+ *
+ * <p>lsn はジャーナル全体で単調増加する番号で、追記したときに割り当てられる。
+ */
+public final class GameEvent {
+
+    public enum Type {
+        /** ルームが作られた（同じ roomId の以前のルームとは別物として扱う） */
+        ROOM_CREATED,
+        /** playerId が value の順番で参加した */
+        PLAYER_JOINED,
+        /** ルーレットの結果が value だった */
+        ROULETTE,
+        /** playerId の単語 text が正解になり、位置が value になった */
+        WORD_ACCEPTED,
+        /** playerId の単語 text が失敗になった */
+        WORD_REJECTED,
+        /** 手番が value に移った */
+        TURN_CHANGED,
+        /** playerId が抜けた */
+        PLAYER_LEFT,
+        /** ルームが破棄された */
+        ROOM_CLOSED;
+
+        private static final Type[] VALUES = values();
+    }
+
+    private final long lsn;
+    private final long timestamp;
+    private final Type type;
+    private final String roomId;
+    private final int playerId;
+    private final int value;
+    private final String text;
+
+    public GameEvent(long lsn, long timestamp, Type type, String roomId, int playerId, int value, String text) {
+        this.lsn = lsn;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.roomId = roomId;
+        this.playerId = playerId;
+        this.value = value;
+        this.text = text == null ? "" : text;
+    }
+
+    public long getLsn() {
+        return lsn;
+    }
+
+    /** 追記した時刻（エポックミリ秒） */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /** 書き出したときのおおよそのバイト数（バッファの確保用） */
+    int maxEncodedSize() {
+        return 8 + 8 + 1 + 4 + 4 + 2 * 2 + (roomId.length() + text.length()) * 3;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(lsn);
+        buffer.putLong(timestamp);
+        buffer.put((byte) type.ordinal());
+        putString(buffer, roomId);
+        buffer.putInt(playerId);
+        buffer.putInt(value);
+        putString(buffer, text);
+    }
+
+    /**
+     * @throws IllegalArgumentException 中身が壊れている場合
+     */
+    static GameEvent readFrom(ByteBuffer buffer) {
+        try {
+            long lsn = buffer.getLong();
+            long timestamp = buffer.getLong();
+            int ordinal = buffer.get();
+            if (ordinal < 0 || ordinal >= Type.VALUES.length) {
+                throw new IllegalArgumentException("Unknown event type: " + ordinal);
+            }
+            String roomId = getString(buffer);
+            int playerId = buffer.getInt();
+            int value = buffer.getInt();
+            String text = getString(buffer);
+            return new GameEvent(lsn, timestamp, Type.VALUES[ordinal], roomId, playerId, value, text);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated event", e);
+        }
+    }
+
+    /**
+     * 読み込む前に、buffer の先頭のレコードが roomId のものかだけを見る。buffer の位置は動かさない。
+     *
+     * @param roomId UTF-8 にした roomId
+     */
+    static boolean isForRoom(ByteBuffer buffer, byte[] roomId) {
+        int offset = buffer.position() + 8 + 8 + 1;
+        if (buffer.limit() - offset < 2) {
+            return false;
+        }
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length != roomId.length || buffer.limit() - offset - 2 < length) {
+            return false;
+        }
+        int from = buffer.arrayOffset() + offset + 2;
+        return Arrays.equals(buffer.array(), from, from + length, roomId, 0, length);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the journal: " + bytes.length + " bytes");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length out of range: " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "GameEvent{lsn=" + lsn + ", type=" + type + ", roomId=" + roomId + ", playerId=" + playerId
+                + ", value=" + value + ", text=" + text + "}";
+    }
+}
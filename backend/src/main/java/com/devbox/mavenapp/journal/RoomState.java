@@ -0,0 +1,145 @@
+package com.devbox.mavenapp.journal;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ルームを作り直すのに必要な状態。スナップショットに書き出すほか、
+ * 復元時にはジャーナルの出来事を {@link #apply(GameEvent)} で順に当てて組み立てる。
+ *
+ * <p>接続中のセッションや演出の途中経過は持たない。復元したルームのプレイヤーは、
+ * 同じ順番で参加し直したセッションに割り当てられる。
+ */
+public final class RoomState {
+    private final String roomId;
+    private long lastLsn;
+    private final List<PlayerState> players = new ArrayList<>();
+    private final List<String> words = new ArrayList<>();
+    private int currentPlayerIndex;
+
+    public RoomState(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public RoomState(String roomId, long lastLsn, List<PlayerState> players, List<String> words,
+            int currentPlayerIndex) {
+        this.roomId = roomId;
+        this.lastLsn = lastLsn;
+        this.players.addAll(players);
+        this.words.addAll(words);
+        this.currentPlayerIndex = currentPlayerIndex;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /** この状態に反映済みの最後の出来事の lsn */
+    public long getLastLsn() {
+        return lastLsn;
+    }
+
+    public List<PlayerState> getPlayers() {
+        return players;
+    }
+
+    /** 正解になった単語（出た順） */
+    public List<String> getWords() {
+        return words;
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    /**
+     * 出来事を1件反映する。{@link com.devbox.mavenapp.game.GameRoom} と同じ手順で状態を変える。
+     */
+    public void apply(GameEvent event) {
+        switch (event.getType()) {
+            case PLAYER_JOINED -> players.add(new PlayerState(event.getPlayerId(), event.getValue(), 0));
+            case WORD_ACCEPTED -> {
+                // GameRoom と同じく playerId は参加順の添字として扱う
+                if (event.getPlayerId() >= 0 && event.getPlayerId() < players.size()) {
+                    players.get(event.getPlayerId()).position = event.getValue();
+                }
+                words.add(event.getText());
+            }
+            case TURN_CHANGED -> currentPlayerIndex = event.getValue();
+            case PLAYER_LEFT -> players.removeIf(player -> player.id == event.getPlayerId());
+            default -> {
+                // ルーレットの結果や失敗した単語は盤面を変えない
+            }
+        }
+        lastLsn = event.getLsn();
+    }
+
+    int maxEncodedSize() {
+        int size = 2 + roomId.length() * 3 + 8 + 4 + 4 + players.size() * 12 + 4;
+        for (String word : words) {
+            size += 2 + word.length() * 3;
+        }
+        return size;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        GameEvent.putString(buffer, roomId);
+        buffer.putLong(lastLsn);
+        buffer.putInt(currentPlayerIndex);
+        buffer.putInt(players.size());
+        for (PlayerState player : players) {
+            buffer.putInt(player.id);
+            buffer.putInt(player.order);
+            buffer.putInt(player.position);
+        }
+        buffer.putInt(words.size());
+        for (String word : words) {
+            GameEvent.putString(buffer, word);
+        }
+    }
+
+    static RoomState readFrom(ByteBuffer buffer) {
+        String roomId = GameEvent.getString(buffer);
+        long lastLsn = buffer.getLong();
+        int currentPlayerIndex = buffer.getInt();
+        int playerCount = buffer.getInt();
+        List<PlayerState> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(new PlayerState(buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        }
+        int wordCount = buffer.getInt();
+        List<String> words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(GameEvent.getString(buffer));
+        }
+        return new RoomState(roomId, lastLsn, players, words, currentPlayerIndex);
+    }
+
+    /**
+     * プレイヤー1人分の状態。
+     */
+    public static final class PlayerState {
+        private final int id;
+        private final int order;
+        private int position;
+
+        public PlayerState(int id, int order, int position) {
+            this.id = id;
+            this.order = order;
+            this.position = position;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+    }
+}
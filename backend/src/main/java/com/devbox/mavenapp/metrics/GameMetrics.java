@@ -0,0 +1,295 @@
+package com.devbox.mavenapp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import com.devbox.mavenapp.cluster.ClusterRouter;
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.game.RuleViolation;
+import com.devbox.mavenapp.game.SpectatorFanout;
+import com.devbox.mavenapp.journal.FileEventJournal;
+import com.devbox.mavenapp.results.WriteBehindResultRecorder;
+import com.devbox.mavenapp.service.validation.HedgedWordValidator;
+import com.devbox.mavenapp.service.validation.WeblioWordValidator;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.IngressControl;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundMetrics;
+import com.devbox.mavenapp.websocket.OverloadPolicy;
+
+/**
+ * ゲームサーバーのメトリクス。各コンポーネントはここから記録先を受け取り、
+ * 値は {@link MetricsRegistry} から /metrics に出力される。
+ */
+public class GameMetrics {
+    public static final String VALIDATION_CACHE_HIT = "cache_hit";
+    public static final String VALIDATION_CACHE_MISS = "cache_miss";
+    public static final String VALIDATION_REMOTE = "remote";
+
+    private static final String PREFIX = "shiritori_";
+
+    private final MetricsRegistry registry;
+    private final Map<MessageType, LatencyHistogram> messageHandling = new EnumMap<>(MessageType.class);
+    private final Map<WordVerdict, Counter> words = new EnumMap<>(WordVerdict.class);
+    private final Map<RuleViolation, Counter> ruleViolations = new EnumMap<>(RuleViolation.class);
+    private final Counter turnTimeouts;
+    private final Counter inputRelayed;
+    private final Counter inputCoalesced;
+    private final Counter resumed;
+    private final Counter resumeRejected;
+
+    public GameMetrics() {
+        this(new MetricsRegistry());
+    }
+
+    public GameMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+        for (MessageType type : MessageType.values()) {
+            String label = type == MessageType.UNKNOWN ? "unknown" : type.getWireName();
+            messageHandling.put(type, registry.histogram(PREFIX + "message_handling_seconds",
+                    "Time from receiving a message to finishing it on the room thread", "type", label));
+        }
+        for (WordVerdict verdict : WordVerdict.values()) {
+            words.put(verdict, registry.counter(PREFIX + "words_total",
+                    "Checked words by verdict", "result", verdict.name().toLowerCase(Locale.ROOT)));
+        }
+        for (RuleViolation violation : RuleViolation.values()) {
+            if (violation.isViolation()) {
+                ruleViolations.put(violation, registry.counter(PREFIX + "rule_violations_total",
+                        "Words rejected by the shiritori rules before validation",
+                        "rule", violation.name().toLowerCase(Locale.ROOT)));
+            }
+        }
+        this.turnTimeouts = registry.counter(PREFIX + "turn_timeouts_total", "Turns that ended because time was up");
+        this.inputRelayed = registry.counter(PREFIX + "input_relay_total", "Typing updates relayed to other players",
+                "outcome", "sent");
+        this.inputCoalesced = registry.counter(PREFIX + "input_relay_total", "Typing updates relayed to other players",
+                "outcome", "coalesced");
+        this.resumed = registry.counter(PREFIX + "resumes_total", "Reconnects carrying a resume token",
+                "outcome", "resumed");
+        this.resumeRejected = registry.counter(PREFIX + "resumes_total", "Reconnects carrying a resume token",
+                "outcome", "rejected");
+    }
+
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordMessage(MessageType type, long nanos) {
+        messageHandling.get(type).record(nanos);
+    }
+
+    /**
+     * 単語判定のレイテンシ。source は {@link #VALIDATION_CACHE_HIT} などを渡す。
+     */
+    public LatencyHistogram validationLatency(String source) {
+        return registry.histogram(PREFIX + "word_validation_seconds", "Word validation latency by source",
+                "source", source);
+    }
+
+    public void recordVerdict(WordVerdict verdict) {
+        words.get(verdict).increment();
+    }
+
+    public void recordRuleViolation(RuleViolation violation) {
+        ruleViolations.get(violation).increment();
+    }
+
+    public void recordTurnTimeout() {
+        turnTimeouts.increment();
+    }
+
+    /** 入力中の文字を recipients 人に送った */
+    public void recordInputRelayed(int recipients) {
+        inputRelayed.add(recipients);
+    }
+
+    /** 送る前に次の入力で上書きされた */
+    public void recordInputCoalesced() {
+        inputCoalesced.increment();
+    }
+
+    /** 再開トークン付きの再接続。席に戻れなかったものは rejected */
+    public void recordResume(boolean success) {
+        (success ? resumed : resumeRejected).increment();
+    }
+
+    /**
+     * 送信キューの統計を登録する。
+     */
+    public void bindOutbound(OutboundMetrics outbound) {
+        registry.histogram(PREFIX + "ws_send_seconds", "Time spent in WebSocketSession.sendMessage",
+                outbound.getSendLatency());
+        registry.gauge(PREFIX + "outbound_queue_depth", "Messages waiting in outbound queues", outbound::getQueueDepth);
+        registry.counter(PREFIX + "outbound_messages_total", "Outbound messages by outcome",
+                outbound::getSentCount, "outcome", "sent");
+        registry.counter(PREFIX + "outbound_messages_total", "Outbound messages by outcome",
+                outbound::getDroppedCount, "outcome", "dropped");
+        registry.counter(PREFIX + "outbound_messages_total", "Outbound messages by outcome",
+                outbound::getCoalescedCount, "outcome", "coalesced");
+        registry.counter(PREFIX + "outbound_slow_disconnects_total", "Sessions closed because they could not keep up",
+                outbound::getDisconnectedCount);
+    }
+
+    /**
+     * Weblio への問い合わせ数。相乗りや待ち行列あふれで送らなかった分も outcome 別に数える。
+     */
+    public void bindRemoteValidation(WeblioWordValidator remote) {
+        String name = PREFIX + "remote_lookups_total";
+        String help = "Remote word lookups by outcome";
+        registry.counter(name, help, remote::getRequestCount, "outcome", "sent");
+        registry.counter(name, help, remote::getCoalescedCount, "outcome", "coalesced");
+        registry.counter(name, help, remote::getRejectedCount, "outcome", "rejected");
+        registry.counter(name, help, remote::getFailureCount, "outcome", "failed");
+        registry.counter(PREFIX + "remote_scanned_bytes_total", "Response body bytes scanned before a verdict",
+                remote::getScannedBytes);
+        registry.counter(PREFIX + "remote_truncated_total", "Responses cut off at the body size limit",
+                remote::getTruncatedCount);
+        registry.gauge(PREFIX + "remote_lookups_in_flight", "Remote lookups running or waiting for a slot",
+                remote::getInFlightCount);
+    }
+
+    /**
+     * 並行問い合わせの判定元ごとの応答時間と採用回数。
+     */
+    public void bindHedgedValidation(HedgedWordValidator hedged) {
+        for (HedgedWordValidator.Source source : hedged.getSources()) {
+            registry.histogram(PREFIX + "validation_source_seconds", "Response time of each validation source",
+                    source.getLatency(), "source", source.getName());
+            registry.counter(PREFIX + "validation_source_wins_total", "Verdicts taken from each validation source",
+                    source::getWinCount, "source", source.getName());
+        }
+        registry.counter(PREFIX + "validation_hedges_total", "Backup requests sent because a source was slow",
+                hedged::getHedgeCount);
+        registry.counter(PREFIX + "validation_undecided_total", "Words no source could decide in time",
+                hedged::getUndecidedCount);
+    }
+
+    /**
+     * ジャーナルの書き込み量とグループコミットの効き具合、起動時の復元にかかった時間。
+     */
+    public void bindJournal(FileEventJournal journal) {
+        registry.counter(PREFIX + "journal_events_total", "Events written to the journal", journal::getWrittenCount);
+        registry.counter(PREFIX + "journal_bytes_total", "Bytes written to the journal", journal::getWrittenBytes);
+        registry.counter(PREFIX + "journal_fsyncs_total", "Journal fsync calls (one per written batch)",
+                journal::getFsyncCount);
+        registry.counter(PREFIX + "journal_snapshots_total", "Journal snapshots written", journal::getSnapshotCount);
+        registry.counter(PREFIX + "journal_failures_total", "Journal writes or snapshots that failed",
+                journal::getFailureCount);
+        registry.gauge(PREFIX + "journal_queue_depth", "Events waiting to be written to the journal",
+                journal::getQueueDepth);
+        registry.gauge(PREFIX + "journal_recovery_millis", "Time spent rebuilding rooms from the journal at startup",
+                journal::getRecoveryMillis);
+        registry.gauge(PREFIX + "journal_recovered_rooms", "Rooms rebuilt from the journal at startup",
+                journal::getRecoveredRoomCount);
+    }
+
+    /**
+     * ノード間で中継しているセッションとメッセージ。
+     */
+    public void bindCluster(ClusterRouter router) {
+        String name = PREFIX + "cluster_messages_total";
+        String help = "Messages exchanged with other nodes";
+        registry.counter(name, help, router::getSentCount, "direction", "sent");
+        registry.counter(name, help, router::getReceivedCount, "direction", "received");
+        registry.counter(name, help, router::getDroppedCount, "direction", "dropped");
+        registry.gauge(PREFIX + "cluster_sessions", "Sessions relayed between nodes", router::getForwardedSessionCount,
+                "side", "gateway");
+        registry.gauge(PREFIX + "cluster_sessions", "Sessions relayed between nodes", router::getRemoteSessionCount,
+                "side", "owner");
+    }
+
+    /**
+     * 観戦者向けのバッチと、遅れた観戦者の扱い。
+     */
+    public void bindSpectators(SpectatorFanout fanout) {
+        registry.counter(PREFIX + "spectator_batches_total", "Batches encoded for spectators (once per room)",
+                fanout::getBatchCount);
+        registry.counter(PREFIX + "spectator_frames_total", "Room messages packed into spectator batches",
+                fanout::getFrameCount);
+        registry.counter(PREFIX + "spectator_deliveries_total", "Batches and snapshots queued to spectators",
+                fanout::getDeliveryCount);
+        registry.counter(PREFIX + "spectator_downgrades_total", "Spectators switched to snapshots after falling behind",
+                fanout::getDowngradeCount);
+        registry.counter(PREFIX + "spectator_drops_total", "Spectators disconnected because they could not catch up",
+                fanout::getDropCount);
+    }
+
+    /**
+     * 対戦結果の書き込みとリーダーボード。
+     */
+    public void bindResults(WriteBehindResultRecorder results) {
+        String name = PREFIX + "match_results_total";
+        String help = "Finished matches by outcome of the write-behind queue";
+        registry.counter(name, help, results::getQueuedCount, "outcome", "queued");
+        registry.counter(name, help, results::getWrittenCount, "outcome", "written");
+        registry.counter(name, help, results::getDroppedCount, "outcome", "dropped");
+        registry.counter(name, help, results::getFailedCount, "outcome", "failed");
+        registry.counter(PREFIX + "match_result_batches_total", "Result writes (one fsync each)",
+                results::getBatchCount);
+        registry.counter(PREFIX + "match_result_bytes_total", "Bytes written to the result store",
+                results::getWrittenBytes);
+        registry.gauge(PREFIX + "match_result_queue_depth", "Results waiting to be written",
+                results::getQueueDepth);
+        registry.gauge(PREFIX + "leaderboard_players", "Players with a rating", results.getLeaderboard()::size);
+    }
+
+    /**
+     * 受信口の入場制限と流量制限。制限に引っかかったメッセージは、種類と実際にした扱いごとに数える。
+     */
+    public void bindIngress(IngressControl ingress) {
+        registry.gauge(PREFIX + "ingress_connections", "WebSocket connections counted against the cap",
+                ingress::getConnectionCount);
+        registry.gauge(PREFIX + "ingress_handshakes_in_flight", "WebSocket handshakes in progress",
+                ingress::getHandshakesInFlight);
+        registry.counter(PREFIX + "ingress_rejected_connections_total", "Connections refused by admission control",
+                ingress::getRejectedConnectionCount, "reason", "connections");
+        registry.counter(PREFIX + "ingress_rejected_connections_total", "Connections refused by admission control",
+                ingress::getRejectedHandshakeCount, "reason", "handshakes");
+        Map<OverloadPolicy, String> actions = Map.of(OverloadPolicy.REJECT, "rejected",
+                OverloadPolicy.DELAY, "delayed", OverloadPolicy.DISCONNECT, "disconnected");
+        for (MessageType type : MessageType.values()) {
+            String label = type == MessageType.UNKNOWN ? "unknown" : type.getWireName();
+            for (OverloadPolicy action : OverloadPolicy.values()) {
+                registry.counter(PREFIX + "ingress_throttled_total", "Inbound messages over the rate limit",
+                        () -> ingress.getThrottledCount(type, action), "type", label, "action", actions.get(action));
+            }
+        }
+    }
+
+    /**
+     * 相手の来ないルームに座るボット。pick は索引から単語を選ぶのにかかった時間。
+     */
+    public void bindBot(RoomBot bot) {
+        registry.counter(PREFIX + "bot_seats_total", "Rooms where the bot took a seat", bot::getSeatCount);
+        registry.counter(PREFIX + "bot_words_total", "Bot turns by outcome", bot::getWordCount, "outcome", "word");
+        registry.counter(PREFIX + "bot_words_total", "Bot turns by outcome", bot::getGaveUpCount,
+                "outcome", "gave_up");
+        registry.histogram(PREFIX + "bot_pick_seconds", "Time to pick a word from the head-character index",
+                bot.getPickLatency());
+        registry.gauge(PREFIX + "bot_index_bytes", "Heap used by the head-character index",
+                bot.getIndex()::getIndexBytes);
+    }
+
+    /**
+     * ヒープとスレッド数。長時間の負荷試験でリークを見つけるために使う。
+     */
+    public void bindJvm() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_memory_heap_used_bytes", "Used heap memory", () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("jvm_memory_heap_committed_bytes", "Committed heap memory",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        registry.gauge("jvm_threads_live", "Live threads", threads::getThreadCount);
+        registry.gauge("jvm_threads_peak", "Peak live threads", threads::getPeakThreadCount);
+    }
+
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        registry.gauge(PREFIX + name, help, value, labels);
+    }
+}
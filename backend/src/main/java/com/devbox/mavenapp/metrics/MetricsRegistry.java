@@ -0,0 +1,131 @@
+package com.devbox.mavenapp.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * メトリクスの登録先。{@link #scrape()} で Prometheus のテキスト形式（0.0.4）に書き出す。
+ * ラベルは "key", "value" の順に並べた可変長引数で渡す。
+ * 登録は起動時とルーム作成時くらいしか起きないので synchronized で守り、記録側は各メトリクスがロックなしで行う。
+ */
+public class MetricsRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    public synchronized Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labelString(labels), k -> new Counter());
+    }
+
+    /**
+     * 既存の統計値をカウンターとして公開する。
+     */
+    public synchronized void counter(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.COUNTER).metrics.put(labelString(labels), value);
+    }
+
+    public synchronized void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).metrics.put(labelString(labels), value);
+    }
+
+    public synchronized LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, Type.HISTOGRAM).metrics
+                .computeIfAbsent(labelString(labels), k -> new LatencyHistogram());
+    }
+
+    /**
+     * 作成済みのヒストグラムを登録する。
+     */
+    public synchronized void histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+        family(name, help, Type.HISTOGRAM).metrics.put(labelString(labels), histogram);
+    }
+
+    public synchronized String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(family.help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                if (family.type == Type.HISTOGRAM) {
+                    writeHistogram(out, name, metric.getKey(), (LatencyHistogram) metric.getValue());
+                } else {
+                    out.append(name).append(braces(metric.getKey())).append(' ')
+                            .append(valueOf(metric.getValue())).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, k -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + family.type);
+        }
+        return family;
+    }
+
+    private static long valueOf(Object metric) {
+        return metric instanceof Counter ? ((Counter) metric).get() : ((LongSupplier) metric).getAsLong();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] cumulative = histogram.getCumulativeCounts();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < cumulative.length; i++) {
+            String le = i < LatencyHistogram.BUCKET_SECONDS.length
+                    ? Double.toString(LatencyHistogram.BUCKET_SECONDS[i]) : "+Inf";
+            out.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ")
+                    .append(cumulative[i]).append('\n');
+        }
+        // バケットとの整合性のため、合計件数は +Inf の累積値を使う
+        out.append(name).append("_sum").append(braces(labels)).append(' ').append(histogram.getSumSeconds()).append('\n');
+        out.append(name).append("_count").append(braces(labels)).append(' ')
+                .append(cumulative[cumulative.length - 1]).append('\n');
+    }
+
+    private static String labelString(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be key/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escapeLabel(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    private static final class Family {
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> metrics = new LinkedHashMap<>();
+
+        private Family(String help, Type type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
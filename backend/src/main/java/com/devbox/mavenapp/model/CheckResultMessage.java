@@ -0,0 +1,33 @@
+package com.devbox.mavenapp.model;
+
+public class CheckResultMessage {
+    private final boolean valid;
+    private final int playerId;
+    private final boolean gameOver;
+
+    public CheckResultMessage(boolean valid, int playerId, boolean gameOver) {
+        this.valid = valid;
+        this.playerId = playerId;
+        this.gameOver = gameOver;
+    }
+
+    public String getType() {
+        return "checkResult";
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public Integer getWinner() {
+        return gameOver ? playerId : null;
+    }
+}
@@ -9,6 +9,7 @@ public class GameMessage {
     private int winner;
     private int playerId; // プレイヤーID
     private String userName; // ユーザー名を追加
+    private String userId; // マッチング時のユーザーID
     private int result; 
 
     // Getter と Setter
@@ -68,6 +69,14 @@ public class GameMessage {
         this.userName = userName;
     }
 
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
     public int getOrder() {
         return order;
     }
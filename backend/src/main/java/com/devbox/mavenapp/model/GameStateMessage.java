@@ -0,0 +1,42 @@
+package com.devbox.mavenapp.model;
+
+import java.util.List;
+
+/**
+ * 盤面全体のスナップショット（updateGameState）。
+ */
+public class GameStateMessage {
+    private final long seq;
+    private final GameState state;
+    private final char lastCharacter;
+
+    public GameStateMessage(long seq, GameState state, char lastCharacter) {
+        this.seq = seq;
+        this.state = state;
+        this.lastCharacter = lastCharacter;
+    }
+
+    public String getType() {
+        return "updateGameState";
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public List<Player> getPlayers() {
+        return state.getPlayers();
+    }
+
+    public int getCurrentPlayerIndex() {
+        return state.getCurrentPlayerIndex();
+    }
+
+    public List<String> getWordHistory() {
+        return state.getWordHistory();
+    }
+
+    public String getLastCharacter() {
+        return String.valueOf(lastCharacter);
+    }
+}
@@ -0,0 +1,17 @@
+package com.devbox.mavenapp.model;
+
+public class OverwriteWordMessage {
+    private final String word;
+
+    public OverwriteWordMessage(String word) {
+        this.word = word;
+    }
+
+    public String getType() {
+        return "overwriteWord";
+    }
+
+    public String getWord() {
+        return word;
+    }
+}
@@ -1,10 +1,16 @@
 package com.devbox.mavenapp.model;
 
 public class Player {
+    /** ボットの席に入れるセッションID。実際のセッションにはつながっていない */
+    public static final String BOT_SESSION_ID = "bot";
+
     private final int id;
     private final int order;
-    private final String sessionId;
+    private String sessionId;
     private int position;
+    private String userId;
+    private String userName;
+    private boolean bot;
 
     public Player(int id, int order, String sessionId) {
         this.id = id;
@@ -13,6 +19,16 @@ public class Player {
         this.sessionId = sessionId;
     }
 
+    /**
+     * ルームに座るボット。userId は持たない。
+     */
+    public static Player bot(int id, int order, String userName) {
+        Player player = new Player(id, order, BOT_SESSION_ID);
+        player.setUser(null, userName);
+        player.bot = true;
+        return player;
+    }
+
     public int getId() {
         return id;
     }
@@ -29,7 +45,30 @@ public class Player {
         return order;
     }
 
+    /** ジャーナルから復元して誰も参加し直していないプレイヤーと、接続が切れて再開を待っているプレイヤーは null */
     public String getSessionId() {
         return sessionId;
     }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /** 参加時にクライアントが送ってきたユーザー。送らなかったプレイヤー（ゲスト）は null */
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUser(String userId, String userName) {
+        this.userId = userId;
+        this.userName = userName;
+    }
+
+    public boolean isBot() {
+        return bot;
+    }
 }
@@ -0,0 +1,17 @@
+package com.devbox.mavenapp.model;
+
+public class ResultMessage {
+    private final String body;
+
+    public ResultMessage(String body) {
+        this.body = body;
+    }
+
+    public String getType() {
+        return "resultMessage";
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
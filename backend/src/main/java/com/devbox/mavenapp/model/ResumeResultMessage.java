@@ -0,0 +1,30 @@
+package com.devbox.mavenapp.model;
+
+/**
+ * 再開トークン付きの接続への返事（resumeResult）。
+ * 再開できなければ resumed は false で、クライアントは join からやり直す。
+ */
+public class ResumeResultMessage {
+    private final boolean resumed;
+    private final int replayed;
+
+    /**
+     * @param replayed 送り直したメッセージの数。取りこぼしが古すぎてスナップショットを送った場合は -1
+     */
+    public ResumeResultMessage(boolean resumed, int replayed) {
+        this.resumed = resumed;
+        this.replayed = replayed;
+    }
+
+    public String getType() {
+        return "resumeResult";
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public int getReplayed() {
+        return replayed;
+    }
+}
@@ -0,0 +1,34 @@
+package com.devbox.mavenapp.model;
+
+/**
+ * 参加したプレイヤーだけに送る再開トークン（resumeToken）。接続が切れたら
+ * /game?roomId=...&resumeToken=...&lastSeq=（最後に受け取った mseq）でつなぎ直すと同じ席に戻れる。
+ */
+public class ResumeTokenMessage {
+    private final String resumeToken;
+    private final int playerId;
+    private final long graceMillis;
+
+    public ResumeTokenMessage(String resumeToken, int playerId, long graceMillis) {
+        this.resumeToken = resumeToken;
+        this.playerId = playerId;
+        this.graceMillis = graceMillis;
+    }
+
+    public String getType() {
+        return "resumeToken";
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    /** 切れてから席を残しておく時間 */
+    public long getGraceMillis() {
+        return graceMillis;
+    }
+}
@@ -0,0 +1,17 @@
+package com.devbox.mavenapp.model;
+
+public class RouletteResultMessage {
+    private final int result;
+
+    public RouletteResultMessage(int result) {
+        this.result = result;
+    }
+
+    public String getType() {
+        return "rouletteResult";
+    }
+
+    public int getResult() {
+        return result;
+    }
+}
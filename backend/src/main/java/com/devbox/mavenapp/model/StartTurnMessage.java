@@ -0,0 +1,20 @@
+package com.devbox.mavenapp.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class StartTurnMessage {
+    private final boolean currentUserTurn;
+
+    public StartTurnMessage(boolean currentUserTurn) {
+        this.currentUserTurn = currentUserTurn;
+    }
+
+    public String getType() {
+        return "startTurn";
+    }
+
+    @JsonProperty("isCurrentUserTurn")
+    public boolean isCurrentUserTurn() {
+        return currentUserTurn;
+    }
+}
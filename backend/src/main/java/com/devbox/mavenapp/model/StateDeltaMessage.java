@@ -0,0 +1,29 @@
+package com.devbox.mavenapp.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 前回の seq からの盤面の変更（stateDelta）。ops は適用順に並ぶ。
+ */
+public class StateDeltaMessage {
+    private final long seq;
+    private final List<Map<String, Object>> ops;
+
+    public StateDeltaMessage(long seq, List<Map<String, Object>> ops) {
+        this.seq = seq;
+        this.ops = ops;
+    }
+
+    public String getType() {
+        return "stateDelta";
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public List<Map<String, Object>> getOps() {
+        return ops;
+    }
+}
@@ -0,0 +1,122 @@
+package com.devbox.mavenapp.results;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * 対戦結果を1行1件の JSON で追記するファイル。追記はまとめて1回で書き、1回だけ fsync する。
+ *
+ * <p>クラッシュで途中まで書かれた最後の行は、読むときに読み飛ばす。開くときに最後の行が
+ * 改行で終わっていなければ改行を足してから追記するので、壊れた行に次の結果がつながることはない。
+ */
+public class FileResultStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(FileResultStore.class);
+    private static final String FILE_NAME = "results.jsonl";
+
+    private final Path file;
+    private final boolean fsync;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final FileChannel channel;
+
+    private FileResultStore(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(FILE_NAME);
+        this.fsync = fsync;
+        ObjectMapper mapper = new ObjectMapper();
+        this.reader = mapper.readerFor(MatchResult.class);
+        this.writer = mapper.writerFor(MatchResult.class);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (channel.size() > 0 && !endsWithNewline()) {
+            channel.write(ByteBuffer.wrap(new byte[] { '\n' }));
+        }
+    }
+
+    /**
+     * @param fsync 書くたびに fsync するか。false なら OS に任せる（プロセスのクラッシュには耐える）
+     */
+    public static FileResultStore open(Path directory, boolean fsync) throws IOException {
+        return new FileResultStore(directory, fsync);
+    }
+
+    /**
+     * 保存されている結果を古い順に読む。読めない行は飛ばす。
+     *
+     * @return 読めた件数
+     */
+    public int readAll(Consumer<MatchResult> consumer) throws IOException {
+        int count = 0;
+        int skipped = 0;
+        try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                MatchResult result;
+                try {
+                    result = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    skipped++;
+                    continue;
+                }
+                consumer.accept(result);
+                count++;
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("Skipped {} unreadable match results in {}", skipped, file);
+        }
+        return count;
+    }
+
+    /**
+     * @return 書いたバイト数
+     */
+    public long append(List<MatchResult> results) throws IOException {
+        StringBuilder lines = new StringBuilder(results.size() * 256);
+        for (MatchResult result : results) {
+            lines.append(writer.writeValueAsString(result)).append('\n');
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(lines.toString());
+        long written = bytes.remaining();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel read = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            read.read(last, read.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+}
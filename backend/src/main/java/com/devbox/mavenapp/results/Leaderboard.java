@@ -0,0 +1,301 @@
+package com.devbox.mavenapp.results;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * プレイヤーのレーティング（Elo）と順位表。
+ *
+ * <p>結果が来るたびに、その対戦のプレイヤーのレーティングだけを更新する。順位は
+ * 部分木の大きさを持つトリープ（レーティングの高い順、同じなら userId の順）で管理するので、
+ * 更新・順位の取得は O(log n)、上位 N 人の取得は O(log n + N) で済む。
+ *
+ * <p>更新は結果の書き込みスレッドから、参照は HTTP のスレッドから来るので読み書きロックで守る。
+ */
+public class Leaderboard {
+    public static final double DEFAULT_INITIAL_RATING = 1500;
+    public static final double DEFAULT_K_FACTOR = 32;
+
+    private final double initialRating;
+    private final double kFactor;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom(0x5EED);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    public Leaderboard() {
+        this(DEFAULT_INITIAL_RATING, DEFAULT_K_FACTOR);
+    }
+
+    /**
+     * @param kFactor 1局で動くレーティングの最大幅
+     */
+    public Leaderboard(double initialRating, double kFactor) {
+        this.initialRating = initialRating;
+        this.kFactor = kFactor;
+    }
+
+    /**
+     * 対戦の結果をレーティングに反映する。勝者を、ほかの参加者それぞれに勝ったものとして計算する。
+     * 勝者がわからない結果と、userId のない参加者は無視する。
+     */
+    public void apply(MatchResult result) {
+        String winnerId = result.getWinnerUserId();
+        if (winnerId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            MatchResult.Participant winnerInfo = result.getParticipants().stream()
+                    .filter(participant -> winnerId.equals(participant.getUserId()))
+                    .findFirst()
+                    .orElse(null);
+            if (winnerInfo == null) {
+                return;
+            }
+            List<Entry> losers = new ArrayList<>();
+            for (MatchResult.Participant participant : result.getParticipants()) {
+                String userId = participant.getUserId();
+                if (userId != null && !userId.equals(winnerId)) {
+                    losers.add(entry(userId, participant.getUserName()));
+                }
+            }
+            if (losers.isEmpty()) {
+                return;
+            }
+            Entry winner = entry(winnerId, winnerInfo.getUserName());
+            // 変わる前のレーティングで期待勝率を出してから、まとめて入れ替える
+            double winnerDelta = 0;
+            double[] loserDeltas = new double[losers.size()];
+            for (int i = 0; i < losers.size(); i++) {
+                double expected = expectedScore(winner.rating, losers.get(i).rating);
+                winnerDelta += kFactor * (1 - expected);
+                loserDeltas[i] = -kFactor * (1 - expected);
+            }
+            rerate(winner, winner.rating + winnerDelta);
+            winner.wins++;
+            for (int i = 0; i < losers.size(); i++) {
+                Entry loser = losers.get(i);
+                rerate(loser, loser.rating + loserDeltas[i]);
+                loser.losses++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * offset 番目（0 から）から limit 人ぶんの順位を返す。
+     */
+    public List<Standing> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Standing> standings = new ArrayList<>(Math.max(Math.min(limit, entries.size() - offset), 0));
+            collect(root, offset, offset + limit, 0, standings);
+            return standings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Standing> top(int limit) {
+        return page(0, limit);
+    }
+
+    /**
+     * @return まだ対戦したことのないプレイヤーなら null
+     */
+    public Standing standing(String userId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(userId);
+            return entry == null ? null : entry.toStanding(rankOf(entry));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double expectedScore(double rating, double opponentRating) {
+        return 1 / (1 + Math.pow(10, (opponentRating - rating) / 400));
+    }
+
+    private Entry entry(String userId, String userName) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            entry = new Entry(userId, initialRating);
+            entries.put(userId, entry);
+            root = insert(root, new Node(entry, priorities.nextInt()));
+        }
+        if (userName != null) {
+            entry.userName = userName;
+        }
+        return entry;
+    }
+
+    /**
+     * 並び順のキーが変わるので、いったん木から外して入れ直す。
+     */
+    private void rerate(Entry entry, double rating) {
+        root = remove(root, entry);
+        entry.rating = rating;
+        root = insert(root, new Node(entry, priorities.nextInt()));
+    }
+
+    private int rankOf(Entry entry) {
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(entry, node.entry);
+            if (c == 0) {
+                return before + size(node.left) + 1;
+            }
+            if (c < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Entry is not in the tree: " + entry.userId);
+    }
+
+    /**
+     * node の部分木のうち、順位（0 から）が [from, to) のものを順に out に入れる。
+     *
+     * @param base node の部分木より前にある人数
+     */
+    private static void collect(Node node, int from, int to, int base, List<Standing> out) {
+        if (node == null || base >= to || base + node.size <= from) {
+            return;
+        }
+        collect(node.left, from, to, base, out);
+        int index = base + size(node.left);
+        if (index >= from && index < to) {
+            out.add(node.entry.toStanding(index + 1));
+        }
+        collect(node.right, from, to, index + 1, out);
+    }
+
+    /** レーティングの高い順、同じなら userId の順 */
+    private static int compare(Entry a, Entry b) {
+        int byRating = Double.compare(b.rating, a.rating);
+        return byRating != 0 ? byRating : a.userId.compareTo(b.userId);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            split(tree, node.entry, node);
+            return node.update();
+        }
+        if (compare(node.entry, tree.entry) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return tree.update();
+    }
+
+    /**
+     * tree を key より前と後に分けて、into の左右の子にする。
+     */
+    private static void split(Node tree, Entry key, Node into) {
+        if (tree == null) {
+            into.left = null;
+            into.right = null;
+            return;
+        }
+        if (compare(tree.entry, key) < 0) {
+            split(tree.right, key, into);
+            tree.right = into.left;
+            into.left = tree.update();
+        } else {
+            split(tree.left, key, into);
+            tree.left = into.right;
+            into.right = tree.update();
+        }
+    }
+
+    private static Node remove(Node tree, Entry entry) {
+        int c = compare(entry, tree.entry);
+        if (c == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (c < 0) {
+            tree.left = remove(tree.left, entry);
+        } else {
+            tree.right = remove(tree.right, entry);
+        }
+        return tree.update();
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static final class Entry {
+        private final String userId;
+        private String userName;
+        private double rating;
+        private int wins;
+        private int losses;
+
+        private Entry(String userId, double rating) {
+            this.userId = userId;
+            this.rating = rating;
+        }
+
+        private Standing toStanding(int rank) {
+            return new Standing(rank, userId, userName, (int) Math.round(rating), wins, losses);
+        }
+    }
+
+    private static final class Node {
+        private final Entry entry;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Entry entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+        }
+
+        private Node update() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.devbox.mavenapp.results;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 終わった対戦の結果。ルームのメールボックスで作り、{@link ResultRecorder} に渡す。
+ */
+public final class MatchResult {
+    private final String roomId;
+    private final long finishedAt;
+    private final String winnerUserId;
+    private final List<Participant> participants;
+
+    /**
+     * @param winnerUserId 勝ったプレイヤーの userId。ユーザーがわからなければ null
+     */
+    @JsonCreator
+    public MatchResult(@JsonProperty("roomId") String roomId, @JsonProperty("finishedAt") long finishedAt,
+            @JsonProperty("winnerUserId") String winnerUserId,
+            @JsonProperty("participants") List<Participant> participants) {
+        this.roomId = roomId;
+        this.finishedAt = finishedAt;
+        this.winnerUserId = winnerUserId;
+        this.participants = List.copyOf(participants);
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /** エポックミリ秒 */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getWinnerUserId() {
+        return winnerUserId;
+    }
+
+    public List<Participant> getParticipants() {
+        return participants;
+    }
+
+    /**
+     * 対戦に参加したプレイヤー。userId のないプレイヤー（ゲスト）はレーティングの対象にしない。
+     */
+    public static final class Participant {
+        private final String userId;
+        private final String userName;
+        private final int position;
+
+        @JsonCreator
+        public Participant(@JsonProperty("userId") String userId, @JsonProperty("userName") String userName,
+                @JsonProperty("position") int position) {
+            this.userId = userId;
+            this.userName = userName;
+            this.position = position;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getUserName() {
+            return userName;
+        }
+
+        /** 対戦が終わったときのすごろくの位置 */
+        public int getPosition() {
+            return position;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.devbox.mavenapp.results;
+
+/**
+ * 終わった対戦の結果の受け取り先。
+ */
+public interface ResultRecorder {
+
+    /** 何も記録しない受け取り先 */
+    ResultRecorder NONE = result -> {
+    };
+
+    /**
+     * 結果を記録する。ルームのメールボックスから呼ぶので、書き込みやレーティングの更新を待たずに返ること。
+     */
+    void record(MatchResult result);
+
+    /**
+     * たまっている結果を書き出してから閉じる。
+     */
+    default void close() {
+    }
+}
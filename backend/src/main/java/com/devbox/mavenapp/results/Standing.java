@@ -0,0 +1,47 @@
+package com.devbox.mavenapp.results;
+
+/**
+ * リーダーボードでのプレイヤーの順位とレーティング。
+ */
+public final class Standing {
+    private final int rank;
+    private final String userId;
+    private final String userName;
+    private final int rating;
+    private final int wins;
+    private final int losses;
+
+    public Standing(int rank, String userId, String userName, int rating, int wins, int losses) {
+        this.rank = rank;
+        this.userId = userId;
+        this.userName = userName;
+        this.rating = rating;
+        this.wins = wins;
+        this.losses = losses;
+    }
+
+    /** 1 から。レーティングが同じなら userId の順 */
+    public int getRank() {
+        return rank;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+}
@@ -0,0 +1,166 @@
+package com.devbox.mavenapp.results;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 対戦結果をキューに積むだけで返し、専用のスレッドがまとめてファイルに書いてから
+ * レーティングに反映する（ライトビハインド）。ルームのメールボックスは書き込みを待たない。
+ *
+ * <p>キューは有限で、あふれた結果は捨てて数える。起動時には保存済みの結果を古い順に読み直して
+ * レーティングを組み立て直す。
+ */
+public class WriteBehindResultRecorder implements ResultRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindResultRecorder.class);
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_BATCH = 512;
+    private static final long POLL_MILLIS = 100;
+
+    private final FileResultStore store;
+    private final Leaderboard leaderboard;
+    private final BlockingQueue<MatchResult> queue;
+    private final int maxBatch;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private final int loadedCount;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public WriteBehindResultRecorder(FileResultStore store, Leaderboard leaderboard) throws IOException {
+        this(store, leaderboard, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param store       書き込み先。{@link #close} でいっしょに閉じる
+     * @param leaderboard 保存済みの結果をここで反映してから書き始める
+     * @param maxBatch    1回の書き込みと fsync でまとめる件数の上限
+     */
+    public WriteBehindResultRecorder(FileResultStore store, Leaderboard leaderboard, int queueCapacity,
+            int maxBatch) throws IOException {
+        this.store = store;
+        this.leaderboard = leaderboard;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        long start = System.nanoTime();
+        this.loadedCount = store.readAll(leaderboard::apply);
+        logger.info("Loaded {} match results for {} players in {} ms", loadedCount, leaderboard.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        this.writer = new Thread(this::runWriter, "result-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void record(MatchResult result) {
+        if (queue.offer(result)) {
+            queued.increment();
+        } else {
+            dropped.increment();
+            logger.warn("Result queue is full, dropping result of room {}", result.getRoomId());
+        }
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /** 起動時に読み直した結果の数 */
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getQueuedCount() {
+        return queued.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes.sum();
+    }
+
+    /** 書き込みの回数（1回に1度 fsync する） */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /** キューがあふれて捨てた結果の数 */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /** 書き込みに失敗した結果の数。レーティングには反映している */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        // FileChannel は割り込まれると閉じてしまうので、interrupt せずに次の poll で気づかせる
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the result store", e);
+        }
+    }
+
+    private void runWriter() {
+        List<MatchResult> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                MatchResult first = running ? queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    if (!running) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+                batch.forEach(leaderboard::apply);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<MatchResult> batch) {
+        try {
+            writtenBytes.add(store.append(batch));
+            written.add(batch.size());
+            batches.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.add(batch.size());
+            logger.error("Failed to write {} match results", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.devbox.mavenapp.service.matchmaking;
+
+import java.util.List;
+
+/**
+ * {@link MatchmakingQueue#join} の結果。players には通知が必要なプレイヤーだけが入る。
+ */
+public class JoinResult {
+    public enum Status {
+        /** まだ人数が揃っていない。players は同じグループで待っているプレイヤー */
+        WAITING,
+        /** 人数が揃ってルームが決まった。players は対戦するプレイヤー */
+        MATCHED,
+        /** userId か userName がすでに使われている */
+        DUPLICATE
+    }
+
+    private static final JoinResult DUPLICATE = new JoinResult(Status.DUPLICATE, null, List.of());
+
+    private final Status status;
+    private final String roomId;
+    private final List<WaitingPlayer> players;
+
+    JoinResult(Status status, String roomId, List<WaitingPlayer> players) {
+        this.status = status;
+        this.roomId = roomId;
+        this.players = players;
+    }
+
+    static JoinResult duplicate() {
+        return DUPLICATE;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public List<WaitingPlayer> getPlayers() {
+        return players;
+    }
+}
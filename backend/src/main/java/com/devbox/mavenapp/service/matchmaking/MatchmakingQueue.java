@@ -0,0 +1,144 @@
+package com.devbox.mavenapp.service.matchmaking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 参加したプレイヤーを到着順に groupSize 人ずつまとめ、組ごとに新しい roomId を払い出す。
+ *
+ * <p>重複チェックは userId / userName をキーにした ConcurrentHashMap で O(1) に行う。
+ * 待ち行列はマッチが成立するたびに取り出されるため常に groupSize 未満で、
+ * ロックを取るのはその短い出し入れの間だけなので参加1件あたりの処理は O(1) になる。
+ *
+ * <p>{@link #matchExpired} を定期的に呼べば、待ちすぎたプレイヤーをボットと組ませて待ち行列から出せる。
+ */
+public class MatchmakingQueue {
+    private final int groupSize;
+    private final Map<String, WaitingPlayer> bySession = new ConcurrentHashMap<>();
+    private final Map<String, WaitingPlayer> byUserId = new ConcurrentHashMap<>();
+    private final Map<String, WaitingPlayer> byUserName = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private final ArrayDeque<WaitingPlayer> waiting = new ArrayDeque<>();
+    private String pendingRoomId = newRoomId();
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder botMatches = new LongAdder();
+
+    public MatchmakingQueue(int groupSize) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize must be positive: " + groupSize);
+        }
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * @throws IllegalArgumentException sessionId / userId / userName のどれかが null のとき。どの索引にも登録しない
+     */
+    public JoinResult join(WaitingPlayer player) {
+        // ConcurrentHashMap は null のキーで例外になるので、途中まで登録したまま抜けないよう先に確かめる
+        if (player.getSessionId() == null || player.getUserid() == null || player.getUsername() == null) {
+            throw new IllegalArgumentException("sessionId, userId and userName are required: " + player);
+        }
+        if (bySession.putIfAbsent(player.getSessionId(), player) != null) {
+            duplicates.increment();
+            return JoinResult.duplicate();
+        }
+        if (byUserId.putIfAbsent(player.getUserid(), player) != null) {
+            bySession.remove(player.getSessionId(), player);
+            duplicates.increment();
+            return JoinResult.duplicate();
+        }
+        if (byUserName.putIfAbsent(player.getUsername(), player) != null) {
+            byUserId.remove(player.getUserid(), player);
+            bySession.remove(player.getSessionId(), player);
+            duplicates.increment();
+            return JoinResult.duplicate();
+        }
+
+        synchronized (lock) {
+            waiting.addLast(player);
+            if (waiting.size() < groupSize) {
+                return new JoinResult(JoinResult.Status.WAITING, pendingRoomId, new ArrayList<>(waiting));
+            }
+            List<WaitingPlayer> group = new ArrayList<>(groupSize);
+            for (int i = 0; i < groupSize; i++) {
+                group.add(waiting.pollFirst());
+            }
+            String roomId = pendingRoomId;
+            pendingRoomId = newRoomId();
+            matches.increment();
+            return new JoinResult(JoinResult.Status.MATCHED, roomId, group);
+        }
+    }
+
+    /**
+     * セッションの切断を反映する。まだ待っていた場合は、同じグループに残ったプレイヤーを返す。
+     * すでにマッチ済み、または参加していなかった場合は null を返す。
+     */
+    public JoinResult leave(String sessionId) {
+        WaitingPlayer player = bySession.remove(sessionId);
+        if (player == null) {
+            return null;
+        }
+        byUserId.remove(player.getUserid(), player);
+        byUserName.remove(player.getUsername(), player);
+
+        synchronized (lock) {
+            if (!waiting.remove(player)) {
+                return null;
+            }
+            return new JoinResult(JoinResult.Status.WAITING, pendingRoomId, new ArrayList<>(waiting));
+        }
+    }
+
+    /**
+     * 先頭のプレイヤーが maxWaitNanos より長く待っていたら、待っている全員に bot を加えて
+     * {@code roomIdPrefix + 新しい roomId} のルームに割り当てる。ボットは1人だけ加える。
+     *
+     * @return 割り当てた組。待ちすぎたプレイヤーがいなければ null
+     */
+    public JoinResult matchExpired(long nowNanos, long maxWaitNanos, WaitingPlayer bot, String roomIdPrefix) {
+        List<WaitingPlayer> group;
+        synchronized (lock) {
+            WaitingPlayer oldest = waiting.peekFirst();
+            if (oldest == null || nowNanos - oldest.getJoinedAtNanos() < maxWaitNanos) {
+                return null;
+            }
+            group = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        group.add(bot);
+        botMatches.increment();
+        return new JoinResult(JoinResult.Status.MATCHED, roomIdPrefix + newRoomId(), group);
+    }
+
+    public int getWaitingCount() {
+        synchronized (lock) {
+            return waiting.size();
+        }
+    }
+
+    public long getMatchCount() {
+        return matches.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /** 待ちすぎてボットと組ませた数 */
+    public long getBotMatchCount() {
+        return botMatches.sum();
+    }
+
+    private static String newRoomId() {
+        return UUID.randomUUID().toString();
+    }
+}
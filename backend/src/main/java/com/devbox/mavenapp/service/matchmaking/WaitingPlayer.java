@@ -0,0 +1,50 @@
+package com.devbox.mavenapp.service.matchmaking;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * マッチング待ちのプレイヤー。JSON ではクライアントが参照する username / userid だけを出す。
+ */
+public class WaitingPlayer {
+    private final String sessionId;
+    private final String userid;
+    private final String username;
+    private final long joinedAtNanos;
+
+    public WaitingPlayer(String sessionId, String userid, String username) {
+        this(sessionId, userid, username, System.nanoTime());
+    }
+
+    /**
+     * @param joinedAtNanos 待ち始めた時刻（System.nanoTime() の値）
+     */
+    public WaitingPlayer(String sessionId, String userid, String username, long joinedAtNanos) {
+        this.sessionId = sessionId;
+        this.userid = userid;
+        this.username = username;
+        this.joinedAtNanos = joinedAtNanos;
+    }
+
+    @JsonIgnore
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    @JsonIgnore
+    public long getJoinedAtNanos() {
+        return joinedAtNanos;
+    }
+
+    public String getUserid() {
+        return userid;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username + "(" + userid + ")";
+    }
+}
@@ -0,0 +1,83 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+
+/**
+ * {@link WordValidationCache} を前段に置いた WordValidator。
+ * 判定できなかった結果（UNKNOWN）はキャッシュしない。
+ * {@link #validateAsync} はキャッシュに当たればその場で完了した future を返し、スレッドを使わない。
+ */
+public class CachingWordValidator implements WordValidator {
+    private static final Logger logger = LoggerFactory.getLogger(CachingWordValidator.class);
+
+    private final WordValidator delegate;
+    private final WordValidationCache cache;
+    private final LatencyHistogram hitLatency;
+    private final LatencyHistogram missLatency;
+
+    public CachingWordValidator(WordValidator delegate) {
+        this(delegate, new WordValidationCache());
+    }
+
+    public CachingWordValidator(WordValidator delegate, WordValidationCache cache) {
+        this(delegate, cache, new LatencyHistogram(), new LatencyHistogram());
+    }
+
+    public CachingWordValidator(WordValidator delegate, WordValidationCache cache,
+            LatencyHistogram hitLatency, LatencyHistogram missLatency) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.hitLatency = hitLatency;
+        this.missLatency = missLatency;
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        long start = System.nanoTime();
+        Boolean cached = cache.get(word);
+        if (cached != null) {
+            logger.debug("Validation cache hit: word={}, valid={}", word, cached);
+            hitLatency.recordSince(start);
+            return cached ? WordVerdict.VALID : WordVerdict.INVALID;
+        }
+        WordVerdict verdict = delegate.validate(word);
+        if (verdict.isDecided()) {
+            cache.put(word, verdict == WordVerdict.VALID);
+        }
+        missLatency.recordSince(start);
+        return verdict;
+    }
+
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        long start = System.nanoTime();
+        Boolean cached = cache.get(word);
+        if (cached != null) {
+            logger.debug("Validation cache hit: word={}, valid={}", word, cached);
+            hitLatency.recordSince(start);
+            return CompletableFuture.completedFuture(cached ? WordVerdict.VALID : WordVerdict.INVALID);
+        }
+        return delegate.validateAsync(word, executor).thenApply(verdict -> {
+            if (verdict.isDecided()) {
+                cache.put(word, verdict == WordVerdict.VALID);
+            }
+            missLatency.recordSince(start);
+            return verdict;
+        });
+    }
+
+    public WordValidationCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String getName() {
+        return "cache(" + delegate.getName() + ")";
+    }
+}
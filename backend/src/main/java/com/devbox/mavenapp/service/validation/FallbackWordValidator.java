@@ -0,0 +1,48 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * primary が正解と判定できなかった単語だけを fallback に問い合わせる。
+ * ローカル辞書に載っていない単語を Weblio で補うために使う。
+ *
+ * <p>primary の INVALID は「載っていない」という意味でしかないので、結果は fallback の判定に従う。
+ * fallback が判定できなければ（Weblio の障害やタイムアウト）UNKNOWN を返し、プレイヤーの失敗にもキャッシュにもしない。
+ */
+public class FallbackWordValidator implements WordValidator {
+    private final WordValidator primary;
+    private final WordValidator fallback;
+
+    public FallbackWordValidator(WordValidator primary, WordValidator fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        WordVerdict verdict = primary.validate(word);
+        if (verdict == WordVerdict.VALID) {
+            return verdict;
+        }
+        return fallback.validate(word);
+    }
+
+    /**
+     * primary が正解にした単語は、fallback を待たずにその場で返す。
+     */
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        return primary.validateAsync(word, executor).thenCompose(verdict -> {
+            if (verdict == WordVerdict.VALID) {
+                return CompletableFuture.completedFuture(verdict);
+            }
+            return fallback.validateAsync(word, executor);
+        });
+    }
+
+    @Override
+    public String getName() {
+        return primary.getName() + "+" + fallback.getName();
+    }
+}
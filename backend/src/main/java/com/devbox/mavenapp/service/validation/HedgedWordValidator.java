@@ -0,0 +1,221 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+
+/**
+ * 複数の判定元に優先順で問い合わせ、最初に得られた信頼できる結果を採用する。
+ *
+ * <ul>
+ * <li>先頭の判定元から問い合わせ、hedgeDelay 以内に結果が出なければ次の判定元にも並行して問い合わせる</li>
+ * <li>判定元が決められなかった場合（UNKNOWN、または信頼できない INVALID）は待たずに次へ進む</li>
+ * <li>VALID はどの判定元でも採用する。INVALID は authoritative な判定元のものだけ採用する
+ *     （ローカル辞書に載っていないだけの単語を不正解にしないため）</li>
+ * <li>timeout までに決まらなければ UNKNOWN。authoritative な判定元が1つもない構成なら INVALID の結果を採用する</li>
+ * </ul>
+ *
+ * 1つの判定元が遅くても、判定にかかる時間はおおむね hedgeDelay と次の判定元の応答時間の和で抑えられる。
+ */
+public class HedgedWordValidator implements WordValidator {
+    private static final Logger logger = LoggerFactory.getLogger(HedgedWordValidator.class);
+
+    private final List<Source> sources;
+    private final Duration hedgeDelay;
+    private final Duration timeout;
+    private final Executor executor;
+    private final boolean hasAuthoritativeSource;
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder undecided = new LongAdder();
+
+    /**
+     * @param sources  優先順に並べた判定元
+     * @param executor 同期的な判定元を呼び出すスレッド
+     */
+    public HedgedWordValidator(List<Source> sources, Duration hedgeDelay, Duration timeout, Executor executor) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source is required");
+        }
+        this.sources = List.copyOf(sources);
+        this.hedgeDelay = hedgeDelay;
+        this.timeout = timeout;
+        this.executor = executor;
+        this.hasAuthoritativeSource = sources.stream().anyMatch(Source::isAuthoritative);
+    }
+
+    /**
+     * 結果が出るまで呼び出し元のスレッドを止める。ルームは {@link #validateAsync} を使う。
+     */
+    @Override
+    public WordVerdict validate(String word) {
+        return validateAsync(word, executor).join();
+    }
+
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor callerExecutor) {
+        Attempt attempt = new Attempt(word);
+        attempt.startNext(false);
+        return attempt.result.completeOnTimeout(WordVerdict.UNKNOWN, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((verdict, error) -> {
+                    if (verdict == WordVerdict.UNKNOWN) {
+                        undecided.increment();
+                    }
+                });
+    }
+
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    /** 遅い判定元の代わりに次の判定元へ問い合わせた回数 */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /** timeout までに決まらず UNKNOWN になった回数 */
+    public long getUndecidedCount() {
+        return undecided.sum();
+    }
+
+    @Override
+    public String getName() {
+        StringBuilder name = new StringBuilder("hedged(");
+        for (int i = 0; i < sources.size(); i++) {
+            name.append(i == 0 ? "" : ",").append(sources.get(i).getName());
+        }
+        return name.append(')').toString();
+    }
+
+    /**
+     * 1単語分の問い合わせ。判定元の結果は別々のスレッドから届くので、状態は this で守る。
+     */
+    private final class Attempt {
+        private final String word;
+        private final CompletableFuture<WordVerdict> result = new CompletableFuture<>();
+        private int started;
+        private int outstanding;
+        private boolean sawInvalid;
+        private boolean decided;
+
+        private Attempt(String word) {
+            this.word = word;
+        }
+
+        private void startNext(boolean hedge) {
+            Source source;
+            int launched;
+            synchronized (this) {
+                if (result.isDone() || started >= sources.size()) {
+                    return;
+                }
+                source = sources.get(started++);
+                outstanding++;
+                launched = started;
+            }
+            if (hedge) {
+                hedges.increment();
+                logger.debug("Hedging word '{}' to {}", word, source.getName());
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture<WordVerdict> call;
+            try {
+                call = source.validator.validateAsync(word, executor);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((verdict, error) -> {
+                source.latency.recordSince(start);
+                if (error != null) {
+                    logger.warn("Source {} failed for word '{}': {}", source.getName(), word, error.toString());
+                    onResult(source, WordVerdict.UNKNOWN);
+                } else {
+                    onResult(source, verdict);
+                }
+            });
+
+            if (launched < sources.size()) {
+                // hedgeDelay の間に次の判定元が始まっていなければ、こちらから始める
+                CompletableFuture.delayedExecutor(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS, executor).execute(() -> {
+                    synchronized (this) {
+                        if (started != launched) {
+                            return;
+                        }
+                    }
+                    startNext(true);
+                });
+            }
+        }
+
+        private void onResult(Source source, WordVerdict verdict) {
+            boolean decisive = verdict == WordVerdict.VALID || (verdict == WordVerdict.INVALID && source.authoritative);
+            if (decisive) {
+                synchronized (this) {
+                    if (decided || result.isDone()) {
+                        return;
+                    }
+                    decided = true;
+                }
+                // 呼び出し元が結果を受け取る前に数えておく
+                source.wins.increment();
+                result.complete(verdict);
+                return;
+            }
+            boolean finished;
+            synchronized (this) {
+                outstanding--;
+                sawInvalid |= verdict == WordVerdict.INVALID;
+                finished = outstanding == 0 && started >= sources.size();
+            }
+            if (finished) {
+                result.complete(sawInvalid && !hasAuthoritativeSource ? WordVerdict.INVALID : WordVerdict.UNKNOWN);
+            } else {
+                startNext(false);
+            }
+        }
+    }
+
+    /**
+     * 判定元と、その応答時間・採用回数。
+     */
+    public static final class Source {
+        private final WordValidator validator;
+        private final boolean authoritative;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder wins = new LongAdder();
+
+        /**
+         * @param authoritative INVALID を信頼してよいか（辞書の網羅性が十分か）
+         */
+        public Source(WordValidator validator, boolean authoritative) {
+            this.validator = validator;
+            this.authoritative = authoritative;
+        }
+
+        public String getName() {
+            return validator.getName();
+        }
+
+        public boolean isAuthoritative() {
+            return authoritative;
+        }
+
+        /** 問い合わせから結果が出るまでの時間（採用されなかった結果も含む） */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        /** この判定元の結果が採用された回数 */
+        public long getWinCount() {
+            return wins.sum();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ひらがなに正規化した単語をソート済みで1本の char 列に詰めた辞書。
+ * 単語ごとの String を持たないため、件数に対してヒープ消費が小さい。
+ * 検索は二分探索で、入力のカタカナはその場でひらがなとして比較する。
+ *
+ * <p>{@link #writeIndex(Path)} で書き出したバイナリ索引は {@link #mapIndex(Path)} で
+ * メモリマップして読み込めるので、大きな辞書でもヒープを使わずに起動できる。
+ */
+public final class LocalDictionary {
+    private static final Logger logger = LoggerFactory.getLogger(LocalDictionary.class);
+
+    private static final int INDEX_MAGIC = 0x53485254; // "SHRT"
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final CharBuffer chars;
+    private final IntBuffer offsets;
+    private final int size;
+    private final boolean mapped;
+    private long loadNanos;
+
+    private LocalDictionary(CharBuffer chars, IntBuffer offsets, boolean mapped) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.size = offsets.limit() - 1;
+        this.mapped = mapped;
+    }
+
+    public static LocalDictionary fromWords(Collection<String> words) {
+        long start = System.nanoTime();
+        List<String> normalized = new ArrayList<>(words.size());
+        int totalChars = 0;
+        for (String word : words) {
+            String w = normalize(word.strip());
+            if (!w.isEmpty() && w.charAt(0) != '#') {
+                normalized.add(w);
+            }
+        }
+        normalized.sort(null);
+
+        int[] offsetArray = new int[normalized.size() + 1];
+        List<String> unique = new ArrayList<>(normalized.size());
+        String previous = null;
+        for (String w : normalized) {
+            if (!w.equals(previous)) {
+                unique.add(w);
+                totalChars += w.length();
+                previous = w;
+            }
+        }
+        char[] charArray = new char[totalChars];
+        int pos = 0;
+        for (int i = 0; i < unique.size(); i++) {
+            String w = unique.get(i);
+            offsetArray[i] = pos;
+            w.getChars(0, w.length(), charArray, pos);
+            pos += w.length();
+        }
+        offsetArray[unique.size()] = pos;
+
+        LocalDictionary dictionary = new LocalDictionary(
+                CharBuffer.wrap(charArray), IntBuffer.wrap(offsetArray, 0, unique.size() + 1), false);
+        dictionary.loadNanos = System.nanoTime() - start;
+        return dictionary;
+    }
+
+    /**
+     * 1行1単語のテキスト（UTF-8）から辞書を作る。空行と # で始まる行は無視する。
+     */
+    public static LocalDictionary load(Path wordList) throws IOException {
+        long start = System.nanoTime();
+        LocalDictionary dictionary = fromWords(Files.readAllLines(wordList, StandardCharsets.UTF_8));
+        dictionary.loadNanos = System.nanoTime() - start;
+        dictionary.logLoaded(wordList.toString());
+        return dictionary;
+    }
+
+    public static LocalDictionary loadFromClasspath(String resource) throws IOException {
+        long start = System.nanoTime();
+        InputStream in = LocalDictionary.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Dictionary resource not found: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        LocalDictionary dictionary = fromWords(lines);
+        dictionary.loadNanos = System.nanoTime() - start;
+        dictionary.logLoaded("classpath:" + resource);
+        return dictionary;
+    }
+
+    /**
+     * {@link #writeIndex(Path)} で作った索引ファイルをメモリマップして開く。
+     */
+    public static LocalDictionary mapIndex(Path indexFile) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != INDEX_MAGIC || buffer.getInt(4) != INDEX_VERSION) {
+                throw new IOException("Not a dictionary index: " + indexFile);
+            }
+            int count = buffer.getInt(8);
+            int charCount = buffer.getInt(12);
+            int offsetsBytes = (count + 1) * Integer.BYTES;
+
+            IntBuffer offsets = buffer.slice(HEADER_BYTES, offsetsBytes).asIntBuffer();
+            CharBuffer chars = buffer.slice(HEADER_BYTES + offsetsBytes, charCount * Character.BYTES).asCharBuffer();
+
+            LocalDictionary dictionary = new LocalDictionary(chars, offsets, true);
+            dictionary.loadNanos = System.nanoTime() - start;
+            dictionary.logLoaded(indexFile.toString());
+            return dictionary;
+        }
+    }
+
+    public void writeIndex(Path indexFile) throws IOException {
+        int charCount = offsets.get(size);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (size + 1) * Integer.BYTES + charCount * Character.BYTES);
+        buffer.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putInt(size).putInt(charCount);
+        for (int i = 0; i <= size; i++) {
+            buffer.putInt(offsets.get(i));
+        }
+        for (int i = 0; i < charCount; i++) {
+            buffer.putChar(chars.get(i));
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public boolean contains(CharSequence word) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareEntry(mid, word);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String wordAt(int index) {
+        int start = offsets.get(index);
+        int end = offsets.get(index + 1);
+        char[] word = new char[end - start];
+        for (int i = start; i < end; i++) {
+            word[i - start] = chars.get(i);
+        }
+        return new String(word);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    public long getLoadMillis() {
+        return loadNanos / 1_000_000;
+    }
+
+    /**
+     * 索引本体（offsets と chars）のバイト数。メモリマップ時はヒープではなくページキャッシュ上にある。
+     */
+    public long getIndexBytes() {
+        return (long) (size + 1) * Integer.BYTES + (long) offsets.get(size) * Character.BYTES;
+    }
+
+    private int compareEntry(int index, CharSequence word) {
+        int start = offsets.get(index);
+        int end = offsets.get(index + 1);
+        int length = end - start;
+        int n = Math.min(length, word.length());
+        for (int i = 0; i < n; i++) {
+            char a = chars.get(start + i);
+            char b = toHiragana(word.charAt(i));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - word.length();
+    }
+
+    private void logLoaded(String source) {
+        logger.info("Dictionary loaded from {}: words={}, indexBytes={}, mapped={}, loadMillis={}",
+                source, size, getIndexBytes(), mapped, getLoadMillis());
+    }
+
+    static String normalize(String word) {
+        char[] normalized = new char[word.length()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = toHiragana(word.charAt(i));
+        }
+        return new String(normalized);
+    }
+
+    private static char toHiragana(char c) {
+        return c >= 'ァ' && c <= 'ヶ' ? (char) (c - 0x60) : c;
+    }
+}
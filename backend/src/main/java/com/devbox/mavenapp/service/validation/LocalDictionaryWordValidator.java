@@ -0,0 +1,37 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link LocalDictionary} に載っているかどうかだけで判定する。外部通信は行わない。
+ */
+public class LocalDictionaryWordValidator implements WordValidator {
+    private final LocalDictionary dictionary;
+
+    public LocalDictionaryWordValidator(LocalDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        return dictionary.contains(word) ? WordVerdict.VALID : WordVerdict.INVALID;
+    }
+
+    /**
+     * メモリ上の辞書を引くだけなので、別のスレッドには渡さずにその場で判定する。
+     */
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        return CompletableFuture.completedFuture(validate(word));
+    }
+
+    public LocalDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+}
@@ -0,0 +1,187 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 応答本文のバイト列から決まった文字列（UTF-8）を探す。
+ * 本文を文字列や DOM にせず、届いたバッファを KMP 法から作った状態遷移表でそのまま走査するので、
+ * 1リクエストあたりの割り当ては本文の大きさによらない。
+ */
+public final class MarkerScanner {
+
+    public enum Result {
+        /** 文字列が見つかった（見つかった時点で受信を打ち切る） */
+        FOUND,
+        /** 本文の最後まで見つからなかった */
+        NOT_FOUND,
+        /** 見つからないまま上限のバイト数に達した */
+        LIMIT_REACHED
+    }
+
+    private final byte[] pattern;
+    /** 状態（一致長）と次のバイトから次の状態を引く表。KMP の失敗関数から作る */
+    private final byte[] transitions;
+
+    private MarkerScanner(byte[] pattern) {
+        if (pattern.length == 0 || pattern.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Marker must be 1 to 127 bytes: " + pattern.length);
+        }
+        this.pattern = pattern;
+        int[] failure = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = failure[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        this.transitions = new byte[pattern.length * 256];
+        for (int state = 0; state < pattern.length; state++) {
+            for (int b = 0; b < 256; b++) {
+                int next = state;
+                while (next > 0 && (pattern[next] & 0xFF) != b) {
+                    next = failure[next - 1];
+                }
+                if ((pattern[next] & 0xFF) == b) {
+                    next++;
+                }
+                transitions[state << 8 | b] = (byte) next;
+            }
+        }
+    }
+
+    public static MarkerScanner utf8(String marker) {
+        return new MarkerScanner(marker.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * buffer を走査し、新しい一致長を返す。戻り値が {@link #length()} なら見つかっていて、
+     * buffer の位置は一致の直後になる。それ以外は buffer を読み切る。
+     *
+     * @param state 前のバッファまでの一致長（最初は 0）
+     */
+    public int scan(int state, ByteBuffer buffer) {
+        if (!buffer.hasArray()) {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            while (position < limit && state != pattern.length) {
+                state = transitions[state << 8 | (buffer.get(position++) & 0xFF)];
+            }
+            buffer.position(position);
+            return state;
+        }
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int position = offset + buffer.position();
+        int limit = offset + buffer.limit();
+        byte first = pattern[0];
+        while (position < limit) {
+            if (state == 0) {
+                // 大半のバイトは先頭の1バイトとも一致しないので、表を引かずに読み飛ばす
+                while (position < limit && array[position] != first) {
+                    position++;
+                }
+                if (position == limit) {
+                    break;
+                }
+            }
+            state = transitions[state << 8 | (array[position++] & 0xFF)];
+            if (state == pattern.length) {
+                break;
+            }
+        }
+        buffer.position(position - offset);
+        return state;
+    }
+
+    /** 探している文字列のバイト数 */
+    public int length() {
+        return pattern.length;
+    }
+
+    /**
+     * HTTP 応答の本文を受け取りながら走査する BodySubscriber。
+     * 見つかるか maxBytes に達した時点で購読を取り消し、残りは受信しない。
+     *
+     * @param scannedBytes 走査したバイト数を足し込む先
+     */
+    public HttpResponse.BodySubscriber<Result> bodySubscriber(long maxBytes, LongAdder scannedBytes) {
+        return new ScanningSubscriber(maxBytes, scannedBytes);
+    }
+
+    private final class ScanningSubscriber implements HttpResponse.BodySubscriber<Result> {
+        private final long maxBytes;
+        private final LongAdder scannedBytes;
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private int state;
+        private long scanned;
+
+        private ScanningSubscriber(long maxBytes, LongAdder scannedBytes) {
+            this.maxBytes = maxBytes;
+            this.scannedBytes = scannedBytes;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (result.isDone()) {
+                return;
+            }
+            for (ByteBuffer buffer : buffers) {
+                int start = buffer.position();
+                long allowed = maxBytes - scanned;
+                if (buffer.remaining() > allowed) {
+                    buffer.limit(start + (int) allowed);
+                }
+                state = scan(state, buffer);
+                int consumed = buffer.position() - start;
+                scanned += consumed;
+                scannedBytes.add(consumed);
+                if (state == pattern.length) {
+                    finish(Result.FOUND);
+                    return;
+                }
+                if (scanned >= maxBytes) {
+                    finish(Result.LIMIT_REACHED);
+                    return;
+                }
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(Result.NOT_FOUND);
+        }
+
+        @Override
+        public CompletionStage<Result> getBody() {
+            return result;
+        }
+
+        private void finish(Result value) {
+            result.complete(value);
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 同じキーへの問い合わせが同時に来たとき、実行中の1件の結果を全員で共有する。
+ * 結果はキャッシュしない（完了したらすぐに取り除く）ので、前段にキャッシュを置いて使う。
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * key の問い合わせが実行中ならその結果を、なければ call を実行してその結果を返す。
+     */
+    public CompletableFuture<V> execute(K key, Function<? super K, CompletableFuture<V>> call) {
+        CompletableFuture<V> running = calls.get(key);
+        if (running != null) {
+            shared.increment();
+            return running;
+        }
+        CompletableFuture<V> result = new CompletableFuture<>();
+        running = calls.putIfAbsent(key, result);
+        if (running != null) {
+            shared.increment();
+            return running;
+        }
+        try {
+            call.apply(key).whenComplete((value, error) -> {
+                // 完了後に来た問い合わせは新しく実行させるため、結果を渡す前に取り除く
+                calls.remove(key, result);
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            calls.remove(key, result);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /** 実行中の問い合わせの数 */
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /** 実行中の問い合わせに相乗りした回数 */
+    public long getSharedCount() {
+        return shared.sum();
+    }
+}
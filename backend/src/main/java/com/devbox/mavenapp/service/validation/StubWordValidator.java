@@ -0,0 +1,51 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * どんな単語でも正解にする。負荷試験で外部サービスや辞書の影響を除くために使う。
+ * delayMillis を指定すると、その時間だけ待ってから返す。
+ */
+public class StubWordValidator implements WordValidator {
+    private final long delayMillis;
+
+    public StubWordValidator() {
+        this(0);
+    }
+
+    public StubWordValidator(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        if (delayMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return WordVerdict.UNKNOWN;
+            }
+        }
+        return WordVerdict.VALID;
+    }
+
+    /**
+     * 待つ場合もスレッドは止めず、delayMillis 後に完了する future を返す。
+     */
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        if (delayMillis <= 0) {
+            return CompletableFuture.completedFuture(WordVerdict.VALID);
+        }
+        return CompletableFuture.supplyAsync(() -> WordVerdict.VALID,
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor));
+    }
+
+    @Override
+    public String getName() {
+        return "stub";
+    }
+}
@@ -0,0 +1,40 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+
+/**
+ * delegate の判定にかかった時間を記録する。外部サービスへの問い合わせを計測するために使う。
+ */
+public class TimedWordValidator implements WordValidator {
+    private final WordValidator delegate;
+    private final LatencyHistogram latency;
+
+    public TimedWordValidator(WordValidator delegate, LatencyHistogram latency) {
+        this.delegate = delegate;
+        this.latency = latency;
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        long start = System.nanoTime();
+        try {
+            return delegate.validate(word);
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        long start = System.nanoTime();
+        return delegate.validateAsync(word, executor).whenComplete((verdict, error) -> latency.recordSince(start));
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
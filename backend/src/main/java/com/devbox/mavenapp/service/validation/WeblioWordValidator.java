@@ -0,0 +1,233 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * weblio.jp の検索結果ページを取得して単語の有無を判定する。
+ *
+ * <p>HTTP クライアントは1つを使い回し、接続は keep-alive で再利用する。
+ * 同じ単語の問い合わせが重なった場合は {@link SingleFlight} で1回の通信にまとめる。
+ * 同時に送るリクエストは maxConcurrentRequests までで、超えた分は待ち行列に入れ、
+ * 待ち行列もあふれたら問い合わせずに UNKNOWN を返す。待ち時間を含めて timeout を過ぎた場合も UNKNOWN。
+ *
+ * <p>本文は {@link MarkerScanner} で受信しながら走査し、「見つかりません」の文言が出た時点で打ち切る。
+ * 文言が出ないまま maxBodyBytes に達した場合は、見つからなかったページ（短い）ではないとみなして正解にする。
+ */
+public class WeblioWordValidator implements WordValidator {
+    private static final Logger logger = LoggerFactory.getLogger(WeblioWordValidator.class);
+
+    public static final String DEFAULT_BASE_URL = "https://www.weblio.jp/content/";
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 16;
+    public static final int DEFAULT_MAX_QUEUED_REQUESTS = 256;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(3);
+    public static final long DEFAULT_MAX_BODY_BYTES = 512 * 1024;
+
+    private static final MarkerScanner NOT_FOUND_MARKER = MarkerScanner.utf8("該当する単語が見つかりません");
+    // 以前使っていた Jsoup と同じ User-Agent。既定の Java-http-client だと弾かれることがある
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/53.0.2785.143 Safari/537.36";
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final int maxConcurrentRequests;
+    private final int maxQueuedRequests;
+    private final Duration timeout;
+    private final long maxBodyBytes;
+    private final SingleFlight<String, WordVerdict> inFlight = new SingleFlight<>();
+
+    private final ArrayDeque<PendingRequest> waiting = new ArrayDeque<>();
+    private int running;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder scannedBytes = new LongAdder();
+    private final LongAdder truncated = new LongAdder();
+
+    public WeblioWordValidator() {
+        this(DEFAULT_BASE_URL, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_QUEUED_REQUESTS, DEFAULT_TIMEOUT);
+    }
+
+    public WeblioWordValidator(String baseUrl, int maxConcurrentRequests, int maxQueuedRequests, Duration timeout) {
+        this(baseUrl, maxConcurrentRequests, maxQueuedRequests, timeout, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param baseUrl 単語を末尾に付けて問い合わせる URL（テストではローカルのスタブサーバーを指す）
+     */
+    public WeblioWordValidator(String baseUrl, int maxConcurrentRequests, int maxQueuedRequests, Duration timeout,
+            long maxBodyBytes) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maxConcurrentRequests must be positive: " + maxConcurrentRequests);
+        }
+        this.baseUrl = baseUrl;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueuedRequests = maxQueuedRequests;
+        this.timeout = timeout;
+        this.maxBodyBytes = maxBodyBytes;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public WordVerdict validate(String word) {
+        // lookup は例外では完了しない
+        return lookup(word).join();
+    }
+
+    @Override
+    public CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        return lookup(word);
+    }
+
+    /**
+     * 呼び出し元のスレッドを止めずに問い合わせる。
+     */
+    public CompletableFuture<WordVerdict> lookup(String word) {
+        return inFlight.execute(word, this::fetch);
+    }
+
+    private CompletableFuture<WordVerdict> fetch(String word) {
+        PendingRequest request = new PendingRequest(word);
+        boolean sendNow;
+        synchronized (waiting) {
+            sendNow = running < maxConcurrentRequests;
+            if (sendNow) {
+                running++;
+            } else if (waiting.size() < maxQueuedRequests) {
+                waiting.add(request);
+            } else {
+                rejected.increment();
+                logger.warn("Weblio request queue is full, skipping word '{}'", word);
+                return CompletableFuture.completedFuture(WordVerdict.UNKNOWN);
+            }
+        }
+        if (sendNow) {
+            send(request);
+        }
+        return request.result.completeOnTimeout(WordVerdict.UNKNOWN, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void send(PendingRequest pending) {
+        requests.increment();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + encode(pending.word)))
+                .timeout(timeout)
+                .header("User-Agent", USER_AGENT)
+                .GET()
+                .build();
+        HttpResponse.BodyHandler<MarkerScanner.Result> bodyHandler = info -> info.statusCode() == 200
+                ? NOT_FOUND_MARKER.bodySubscriber(maxBodyBytes, scannedBytes)
+                : HttpResponse.BodySubscribers.replacing(null);
+        httpClient.sendAsync(request, bodyHandler)
+                .whenComplete((response, error) -> {
+                    release();
+                    if (error != null) {
+                        failures.increment();
+                        logger.error("Error connecting to Weblio for word '{}': {}", pending.word, error.toString());
+                        pending.result.complete(WordVerdict.UNKNOWN);
+                    } else if (response.statusCode() != 200) {
+                        failures.increment();
+                        logger.error("Unexpected Weblio response for word '{}': status={}", pending.word,
+                                response.statusCode());
+                        pending.result.complete(WordVerdict.UNKNOWN);
+                    } else {
+                        if (response.body() == MarkerScanner.Result.LIMIT_REACHED) {
+                            truncated.increment();
+                        }
+                        pending.result.complete(response.body() == MarkerScanner.Result.FOUND
+                                ? WordVerdict.INVALID
+                                : WordVerdict.VALID);
+                    }
+                });
+    }
+
+    /**
+     * 空いた枠で待ち行列の次のリクエストを送る。待っている間に期限切れになったものは飛ばす。
+     */
+    private void release() {
+        while (true) {
+            PendingRequest next;
+            synchronized (waiting) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            if (!next.result.isDone()) {
+                send(next);
+                return;
+            }
+        }
+    }
+
+    private static String encode(String word) {
+        return URLEncoder.encode(word, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /** 実際に送ったリクエストの数 */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /** 実行中の問い合わせに相乗りして、送らずに済んだ数 */
+    public long getCoalescedCount() {
+        return inFlight.getSharedCount();
+    }
+
+    /** 待ち行列があふれて送らなかった数 */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /** 通信エラーや想定外の応答の数 */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /** 走査した本文のバイト数（打ち切った残りは含まない） */
+    public long getScannedBytes() {
+        return scannedBytes.sum();
+    }
+
+    /** maxBodyBytes で走査を打ち切った数 */
+    public long getTruncatedCount() {
+        return truncated.sum();
+    }
+
+    public int getInFlightCount() {
+        synchronized (waiting) {
+            return running + waiting.size();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "weblio";
+    }
+
+    private static final class PendingRequest {
+        private final String word;
+        private final CompletableFuture<WordVerdict> result = new CompletableFuture<>();
+
+        private PendingRequest(String word) {
+            this.word = word;
+        }
+    }
+}
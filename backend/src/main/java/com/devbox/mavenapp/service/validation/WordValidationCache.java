@@ -0,0 +1,135 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 単語の判定結果（正解・不正解の両方）を保持する LRU キャッシュ。
+ * 件数上限を超えると最も長く参照されていない単語から追い出す。
+ * 正解と不正解で別々の TTL を持ち、辞書側の更新に追従できるようにしている。
+ */
+public class WordValidationCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final Duration DEFAULT_VALID_TTL = Duration.ofHours(24);
+    public static final Duration DEFAULT_INVALID_TTL = Duration.ofMinutes(10);
+
+    private final int maxEntries;
+    private final long validTtlNanos;
+    private final long invalidTtlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public WordValidationCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_VALID_TTL, DEFAULT_INVALID_TTL);
+    }
+
+    public WordValidationCache(int maxEntries, Duration validTtl, Duration invalidTtl) {
+        this(maxEntries, validTtl, invalidTtl, System::nanoTime);
+    }
+
+    WordValidationCache(int maxEntries, Duration validTtl, Duration invalidTtl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.validTtlNanos = validTtl.toNanos();
+        this.invalidTtlNanos = invalidTtl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > WordValidationCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * キャッシュされた判定結果を返す。未登録または期限切れの場合は null。
+     */
+    public Boolean get(String word) {
+        long now = nanoClock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(word);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (now - entry.expiresAt >= 0) {
+                entries.remove(word);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.valid;
+        }
+    }
+
+    public void put(String word, boolean valid) {
+        long expiresAt = nanoClock.getAsLong() + (valid ? validTtlNanos : invalidTtlNanos);
+        synchronized (entries) {
+            entries.put(word, new Entry(valid, expiresAt));
+        }
+    }
+
+    public void invalidate(String word) {
+        synchronized (entries) {
+            entries.remove(word);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "WordValidationCache{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                ", expirations=" + getExpirationCount() +
+                '}';
+    }
+
+    private static final class Entry {
+        private final boolean valid;
+        private final long expiresAt;
+
+        private Entry(boolean valid, long expiresAt) {
+            this.valid = valid;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
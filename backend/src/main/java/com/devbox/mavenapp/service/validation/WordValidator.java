@@ -0,0 +1,24 @@
+package com.devbox.mavenapp.service.validation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * しりとりで使われた単語が辞書に存在するかを判定する。
+ */
+public interface WordValidator {
+
+    WordVerdict validate(String word);
+
+    /**
+     * 呼び出し元を止めずに判定する。既定では executor 上で {@link #validate} を呼ぶ。
+     * 非同期で問い合わせられる実装はオーバーライドする。
+     */
+    default CompletableFuture<WordVerdict> validateAsync(String word, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> validate(word), executor);
+    }
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
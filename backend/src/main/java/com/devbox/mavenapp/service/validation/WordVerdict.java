@@ -0,0 +1,15 @@
+package com.devbox.mavenapp.service.validation;
+
+/**
+ * 単語判定の結果。UNKNOWN は通信エラーなどで判定できなかったことを表し、
+ * キャッシュしたり不正解扱いしたりしてはいけない。
+ */
+public enum WordVerdict {
+    VALID,
+    INVALID,
+    UNKNOWN;
+
+    public boolean isDecided() {
+        return this != UNKNOWN;
+    }
+}
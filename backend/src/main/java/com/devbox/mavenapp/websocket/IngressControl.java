@@ -0,0 +1,325 @@
+package com.devbox.mavenapp.websocket;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+/**
+ * WebSocket の受信口での入場制限と流量制限。全エンドポイントで1つを共有する。
+ *
+ * <p>同時接続数とハンドシェイクの同時実行数に上限を設け、超えたら 503 で断る。
+ * 接続後はセッション全体とメッセージの種類ごとに {@link TokenBucket} を持ち、制限を超えた
+ * メッセージは {@link OverloadPolicy} に従って捨てる・待たせる・切断する。種類はメッセージを
+ * デコードする前に {@link MessageCodec#peekType} で調べるので、あふれた分はハンドラーに届かない。
+ *
+ * <p>クラスタでは入口ノードで効かせるため、{@link #guard} はルーティングより外側に置く。
+ */
+public class IngressControl {
+    private static final Logger logger = LoggerFactory.getLogger(IngressControl.class);
+    public static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+    public static final int DEFAULT_MAX_HANDSHAKES = 256;
+    /** 種類を問わず、1セッションから受け付けるメッセージ */
+    public static final Rate DEFAULT_SESSION_RATE = new Rate(40, 80);
+    public static final Map<MessageType, Rate> DEFAULT_TYPE_RATES = defaultTypeRates();
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(200);
+    /** DELAY で同時に受信を止めておけるセッションの数。止めている間は受信スレッドを1つ使う */
+    public static final int DEFAULT_MAX_DELAYED = 32;
+    static final CloseStatus RATE_LIMITED = CloseStatus.POLICY_VIOLATION.withReason("Rate limit exceeded");
+    static final CloseStatus OVERLOADED = CloseStatus.SERVICE_OVERLOAD.withReason("Too many connections");
+
+    private final int maxConnections;
+    private final int maxHandshakes;
+    private final Rate sessionRate;
+    private final Rate[] typeRates = new Rate[MessageType.values().length];
+    private final OverloadPolicy policy;
+    private final long maxDelayNanos;
+    private final Semaphore delaySlots;
+    private final MessageCodec codec = new MessageCodec();
+    private final Map<String, SessionLimiter> limiters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger handshakes = new AtomicInteger();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final LongAdder rejectedHandshakes = new LongAdder();
+    /** [種類][実際にした扱い] ごとの、制限に引っかかったメッセージの数 */
+    private final LongAdder[][] throttled = new LongAdder[MessageType.values().length][OverloadPolicy.values().length];
+
+    public IngressControl() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_HANDSHAKES, DEFAULT_SESSION_RATE, DEFAULT_TYPE_RATES,
+                OverloadPolicy.REJECT, DEFAULT_MAX_DELAY, DEFAULT_MAX_DELAYED);
+    }
+
+    /**
+     * @param typeRates  種類ごとの制限。ない種類はセッション全体の制限だけを受ける
+     * @param maxDelay   DELAY のとき、1通を待たせてよい時間
+     * @param maxDelayed DELAY のとき、同時に待たせておけるセッションの数
+     */
+    public IngressControl(int maxConnections, int maxHandshakes, Rate sessionRate, Map<MessageType, Rate> typeRates,
+            OverloadPolicy policy, Duration maxDelay, int maxDelayed) {
+        this.maxConnections = maxConnections;
+        this.maxHandshakes = maxHandshakes;
+        this.sessionRate = sessionRate;
+        typeRates.forEach((type, rate) -> this.typeRates[type.ordinal()] = rate);
+        this.policy = policy;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.delaySlots = new Semaphore(maxDelayed);
+        for (LongAdder[] byAction : throttled) {
+            for (int i = 0; i < byAction.length; i++) {
+                byAction[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * 接続数とハンドシェイクの同時実行数を見て、上限を超えていればアップグレードせずに 503 を返す。
+     */
+    public HandshakeInterceptor handshakeInterceptor() {
+        return new AdmissionInterceptor();
+    }
+
+    /**
+     * handler を、接続数の上限と受信の流量制限をかけたハンドラーで包む。
+     */
+    public WebSocketHandler guard(WebSocketHandler handler) {
+        return new GuardedHandler(handler);
+    }
+
+    public OverloadPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public int getHandshakesInFlight() {
+        return handshakes.get();
+    }
+
+    /** 接続数の上限で断った接続の数 */
+    public long getRejectedConnectionCount() {
+        return rejectedConnections.sum();
+    }
+
+    /** ハンドシェイクの同時実行数の上限で断った接続の数 */
+    public long getRejectedHandshakeCount() {
+        return rejectedHandshakes.sum();
+    }
+
+    /**
+     * @param action 制限に引っかかったメッセージに実際にした扱い。DELAY でも待ちきれない分は REJECT に数える
+     */
+    public long getThrottledCount(MessageType type, OverloadPolicy action) {
+        return throttled[type.ordinal()][action.ordinal()].sum();
+    }
+
+    private void throttle(WebSocketSession session, MessageType type, OverloadPolicy action) {
+        throttled[type.ordinal()][action.ordinal()].increment();
+        if (action != OverloadPolicy.DISCONNECT) {
+            logger.debug("Message throttled: sessionId={}, type={}, action={}", session.getId(), type, action);
+            return;
+        }
+        logger.warn("Disconnecting session over its rate limit: sessionId={}, type={}", session.getId(), type);
+        try {
+            session.close(RATE_LIMITED);
+        } catch (IOException e) {
+            logger.warn("Error closing sessionId={}", session.getId(), e);
+        }
+    }
+
+    private static Map<MessageType, Rate> defaultTypeRates() {
+        Map<MessageType, Rate> rates = new EnumMap<>(MessageType.class);
+        rates.put(MessageType.JOIN, new Rate(1, 5));
+        rates.put(MessageType.START_ROULETTE, new Rate(2, 4));
+        rates.put(MessageType.CHECK_WORD, new Rate(2, 4));
+        rates.put(MessageType.TIME_IS_UP, new Rate(2, 4));
+        // 打鍵ごとに届くが、相手への中継はルームで間引くので多めに通す
+        rates.put(MessageType.INPUT_WORD, new Rate(20, 40));
+        rates.put(MessageType.RESYNC, new Rate(1, 3));
+        rates.put(MessageType.UNKNOWN, new Rate(2, 4));
+        return Map.copyOf(rates);
+    }
+
+    /**
+     * 1秒あたりの補充量と、ためておける上限。設定では "rate/burst" と書く。
+     */
+    public record Rate(double perSecond, int burst) {
+
+        public static Rate parse(String spec) {
+            String[] parts = spec.strip().split("/", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate must be rate/burst: " + spec);
+            }
+            return new Rate(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]));
+        }
+
+        TokenBucket newBucket(long nowNanos) {
+            return new TokenBucket(perSecond, burst, nowNanos);
+        }
+    }
+
+    /**
+     * 1セッションのバケット。受信はセッションごとに1スレッドずつ届くが、
+     * 中継経由の受信と重なってもよいようにバケットは CAS で更新する。
+     */
+    private final class SessionLimiter {
+        private final TokenBucket session;
+        private final TokenBucket[] byType = new TokenBucket[typeRates.length];
+
+        private SessionLimiter(long nowNanos) {
+            this.session = sessionRate.newBucket(nowNanos);
+            for (int i = 0; i < typeRates.length; i++) {
+                if (typeRates[i] != null) {
+                    byType[i] = typeRates[i].newBucket(nowNanos);
+                }
+            }
+        }
+
+        /**
+         * @return {@link TokenBucket#acquire} と同じ。種類とセッション全体の両方を取れたときだけ通す。
+         *         セッション全体で断ったときは、種類の方で取ったトークンを返す
+         */
+        private long acquire(MessageType type, long nowNanos, long maxWaitNanos) {
+            TokenBucket bucket = byType[type.ordinal()];
+            long typeWait = bucket == null ? 0 : bucket.acquire(nowNanos, maxWaitNanos);
+            if (typeWait < 0) {
+                return -1;
+            }
+            long sessionWait = session.acquire(nowNanos, maxWaitNanos);
+            if (sessionWait < 0) {
+                if (bucket != null) {
+                    bucket.refund();
+                }
+                return -1;
+            }
+            return Math.max(typeWait, sessionWait);
+        }
+    }
+
+    private final class AdmissionInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            if (connections.get() >= maxConnections) {
+                rejectedConnections.increment();
+                return reject(request, response, "connections");
+            }
+            if (handshakes.incrementAndGet() > maxHandshakes) {
+                handshakes.decrementAndGet();
+                rejectedHandshakes.increment();
+                return reject(request, response, "handshakes");
+            }
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                WebSocketHandler wsHandler, Exception exception) {
+            // beforeHandshake が true を返したときだけ呼ばれる
+            handshakes.decrementAndGet();
+        }
+
+        private boolean reject(ServerHttpRequest request, ServerHttpResponse response, String reason) {
+            logger.warn("Handshake rejected, too many {}: uri={}", reason, request.getURI());
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+    }
+
+    private final class GuardedHandler extends WebSocketHandlerDecorator {
+
+        private GuardedHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            // ハンドシェイクの確認と接続の確立の間に追い越されることがあるので、ここでも数える
+            if (connections.incrementAndGet() > maxConnections) {
+                connections.decrementAndGet();
+                rejectedConnections.increment();
+                logger.warn("Connection rejected, too many connections: sessionId={}", session.getId());
+                session.close(OVERLOADED);
+                return;
+            }
+            limiters.put(session.getId(), new SessionLimiter(System.nanoTime()));
+            super.afterConnectionEstablished(session);
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            SessionLimiter limiter = limiters.get(session.getId());
+            MessageType type;
+            if (message instanceof TextMessage text) {
+                type = codec.peekType(text.getPayload());
+            } else if (message instanceof BinaryMessage binary) {
+                type = codec.peekType(binary.getPayload());
+            } else {
+                super.handleMessage(session, message);
+                return;
+            }
+            if (limiter == null) {
+                // 上限で断った接続の、閉じる前に届いたメッセージ
+                return;
+            }
+            long wait = limiter.acquire(type, System.nanoTime(), policy == OverloadPolicy.DELAY ? maxDelayNanos : 0);
+            if (wait == 0) {
+                super.handleMessage(session, message);
+            } else if (wait > 0 && delay(wait)) {
+                throttled[type.ordinal()][OverloadPolicy.DELAY.ordinal()].increment();
+                super.handleMessage(session, message);
+            } else {
+                throttle(session, type, policy == OverloadPolicy.DELAY ? OverloadPolicy.REJECT : policy);
+            }
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            if (limiters.remove(session.getId()) == null) {
+                return;
+            }
+            connections.decrementAndGet();
+            super.afterConnectionClosed(session, closeStatus);
+        }
+
+        /**
+         * 受信スレッドを止めて、このセッションの読み込みを遅らせる。止めておける数を超えたら待たずに断る。
+         */
+        private boolean delay(long nanos) {
+            if (!delaySlots.tryAcquire()) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                delaySlots.release();
+            }
+        }
+    }
+}
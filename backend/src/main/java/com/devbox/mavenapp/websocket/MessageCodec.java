@@ -0,0 +1,123 @@
+package com.devbox.mavenapp.websocket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import com.devbox.mavenapp.model.GameMessage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * WebSocket メッセージの読み書き。ObjectReader / ObjectWriter は生成済みのものを使い回す。
+ * 送信メッセージは {@link OutboundFrame} として一度だけシリアライズする。
+ */
+public class MessageCodec {
+    private final ObjectMapper jsonMapper;
+    private final JsonFactory cborFactory;
+    private final ObjectReader jsonReader;
+    private final ObjectReader cborReader;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter cborWriter;
+
+    public MessageCodec() {
+        this.jsonMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory()).setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.cborFactory = cborMapper.getFactory();
+        this.jsonReader = jsonMapper.readerFor(GameMessage.class);
+        this.cborReader = cborMapper.readerFor(GameMessage.class);
+        this.jsonWriter = jsonMapper.writer();
+        this.cborWriter = cborMapper.writer();
+    }
+
+    public GameMessage decode(String payload) throws IOException {
+        return jsonReader.readValue(payload);
+    }
+
+    public GameMessage decode(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return cborReader.readValue(bytes);
+    }
+
+    /**
+     * メッセージ全体は読まずに、先頭から type だけを探して返す。受信の流量制限で使う。
+     * 読めないメッセージや type のないメッセージは {@link MessageType#UNKNOWN}。
+     */
+    public MessageType peekType(String payload) {
+        try (JsonParser parser = jsonMapper.getFactory().createParser(payload)) {
+            return peekType(parser);
+        } catch (IOException e) {
+            return MessageType.UNKNOWN;
+        }
+    }
+
+    /**
+     * CBOR 版の {@link #peekType(String)}。payload の position は動かさない。
+     */
+    public MessageType peekType(ByteBuffer payload) {
+        byte[] bytes;
+        int offset;
+        if (payload.hasArray()) {
+            bytes = payload.array();
+            offset = payload.arrayOffset() + payload.position();
+        } else {
+            bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            offset = 0;
+        }
+        try (JsonParser parser = cborFactory.createParser(bytes, offset, payload.remaining())) {
+            return peekType(parser);
+        } catch (IOException e) {
+            return MessageType.UNKNOWN;
+        }
+    }
+
+    private static MessageType peekType(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return MessageType.UNKNOWN;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("type".equals(name)) {
+                return value == JsonToken.VALUE_STRING ? MessageType.fromWireName(parser.getText()) : MessageType.UNKNOWN;
+            }
+            parser.skipChildren();
+        }
+        return MessageType.UNKNOWN;
+    }
+
+    /**
+     * 対戦者に送るメッセージ。ルーム内の通し番号 mseq を付ける。
+     * クライアントは最後に受け取った mseq を覚えておき、再接続のときに送る。
+     */
+    public OutboundFrame encode(Object message, long mseq) {
+        ObjectNode node = jsonMapper.valueToTree(message);
+        node.put("mseq", mseq);
+        return encode(node);
+    }
+
+    public OutboundFrame encode(Object message) {
+        try {
+            return new OutboundFrame(message, this, jsonWriter.writeValueAsString(message));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error serializing message " + message.getClass().getSimpleName(), e);
+        }
+    }
+
+    byte[] encodeBinary(Object message) {
+        try {
+            return cborWriter.writeValueAsBytes(message);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error serializing message " + message.getClass().getSimpleName(), e);
+        }
+    }
+}
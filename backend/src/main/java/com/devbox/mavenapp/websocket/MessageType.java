@@ -0,0 +1,44 @@
+package com.devbox.mavenapp.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * クライアントから届くメッセージの種類。ワイヤー上の type 文字列との対応を持つ。
+ */
+public enum MessageType {
+    JOIN("join"),
+    START_ROULETTE("startRoulette"),
+    CHECK_WORD("checkWord"),
+    TIME_IS_UP("timeIsUp"),
+    INPUT_WORD("inputWord"),
+    RESYNC("resync"),
+    UNKNOWN(null);
+
+    private static final Map<String, MessageType> BY_WIRE_NAME = new HashMap<>();
+
+    static {
+        for (MessageType type : values()) {
+            if (type.wireName != null) {
+                BY_WIRE_NAME.put(type.wireName, type);
+            }
+        }
+    }
+
+    private final String wireName;
+
+    MessageType(String wireName) {
+        this.wireName = wireName;
+    }
+
+    public String getWireName() {
+        return wireName;
+    }
+
+    public static MessageType fromWireName(String wireName) {
+        if (wireName == null) {
+            return UNKNOWN;
+        }
+        return BY_WIRE_NAME.getOrDefault(wireName, UNKNOWN);
+    }
+}
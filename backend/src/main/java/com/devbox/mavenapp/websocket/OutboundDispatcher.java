@@ -0,0 +1,109 @@
+package com.devbox.mavenapp.websocket;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * {@link OutboundSession} を作り、共有の送信スレッドでそれらのキューを送り出す。
+ * 送信時間・バッファサイズの上限とあふれたときの扱いはここでまとめて設定する。
+ *
+ * <p>送信中のセッションは監視スレッドが定期的に見回り、1通の送信が送信時間の上限を超えたものは切断する。
+ * 次のメッセージが来なくても、止まった送信が送信スレッドを握り続けないようにするため。
+ */
+public class OutboundDispatcher {
+    public static final Duration DEFAULT_SEND_TIME_LIMIT = Duration.ofSeconds(5);
+    public static final int DEFAULT_BUFFER_SIZE_LIMIT = 512 * 1024;
+    public static final int DEFAULT_MAX_QUEUED_MESSAGES = 256;
+    /** 監視の間隔の下限。送信時間の上限の 1/4 ごとに見回る */
+    private static final long MIN_WATCHDOG_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final int maxQueuedMessages;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService watchdog;
+    private final Set<OutboundSession> sending = ConcurrentHashMap.newKeySet();
+    private final OutboundMetrics metrics = new OutboundMetrics();
+
+    public OutboundDispatcher() {
+        this(DEFAULT_SEND_TIME_LIMIT, DEFAULT_BUFFER_SIZE_LIMIT, DEFAULT_MAX_QUEUED_MESSAGES, OverflowPolicy.COALESCE);
+    }
+
+    public OutboundDispatcher(Duration sendTimeLimit, int bufferSizeLimit, int maxQueuedMessages,
+            OverflowPolicy overflowPolicy) {
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.overflowPolicy = overflowPolicy;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ws-outbound-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, threadFactory);
+        CustomizableThreadFactory watchdogThreadFactory = new CustomizableThreadFactory("ws-send-watchdog-");
+        watchdogThreadFactory.setDaemon(true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(watchdogThreadFactory);
+        long interval = Math.max(sendTimeLimitNanos / 4, MIN_WATCHDOG_INTERVAL_NANOS);
+        watchdog.scheduleWithFixedDelay(this::closeStalledSessions, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public OutboundSession wrap(WebSocketSession session) {
+        return wrap(session, WireEncoding.JSON);
+    }
+
+    public OutboundSession wrap(WebSocketSession session, WireEncoding encoding) {
+        return new OutboundSession(session, this, encoding);
+    }
+
+    public OutboundMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void shutdown() {
+        watchdog.shutdownNow();
+        executor.shutdown();
+    }
+
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    void sendStarted(OutboundSession session) {
+        sending.add(session);
+    }
+
+    void sendFinished(OutboundSession session) {
+        sending.remove(session);
+    }
+
+    private void closeStalledSessions() {
+        for (OutboundSession session : sending) {
+            if (session.isSendStalled() && sending.remove(session)) {
+                session.closeStalled();
+            }
+        }
+    }
+
+    long getSendTimeLimitNanos() {
+        return sendTimeLimitNanos;
+    }
+
+    int getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    int getMaxQueuedMessages() {
+        return maxQueuedMessages;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+}
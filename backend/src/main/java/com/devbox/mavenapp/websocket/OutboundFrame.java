@@ -0,0 +1,39 @@
+package com.devbox.mavenapp.websocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * 1回だけシリアライズした送信メッセージ。同じフレームを複数のセッションで使い回す。
+ * CBOR 版は CBOR のクライアントに初めて送るときに作る。
+ */
+public final class OutboundFrame {
+    private final Object message;
+    private final MessageCodec codec;
+    private final TextMessage text;
+    private volatile byte[] binary;
+
+    OutboundFrame(Object message, MessageCodec codec, String json) {
+        this.message = message;
+        this.codec = codec;
+        this.text = new TextMessage(json);
+    }
+
+    public TextMessage getText() {
+        return text;
+    }
+
+    public WebSocketMessage<?> forEncoding(WireEncoding encoding) {
+        if (encoding == WireEncoding.JSON) {
+            return text;
+        }
+        byte[] bytes = binary;
+        if (bytes == null) {
+            bytes = codec.encodeBinary(message);
+            binary = bytes;
+        }
+        // BinaryMessage の ByteBuffer は送信時に読み進められるため、セッションごとに包み直す
+        return new BinaryMessage(bytes);
+    }
+}
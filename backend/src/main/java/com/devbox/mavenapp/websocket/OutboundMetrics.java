@@ -0,0 +1,83 @@
+package com.devbox.mavenapp.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+
+/**
+ * 送信キュー全体の統計。
+ */
+public class OutboundMetrics {
+    private final AtomicLong queued = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+
+    void enqueued() {
+        queued.incrementAndGet();
+    }
+
+    void dequeued(int count) {
+        queued.addAndGet(-count);
+    }
+
+    void recordSent() {
+        sent.increment();
+    }
+
+    void recordSendLatency(long nanos) {
+        sendLatency.record(nanos);
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    void recordDisconnected() {
+        disconnected.increment();
+    }
+
+    /** 全セッションのキューに積まれている未送信メッセージの合計 */
+    public long getQueueDepth() {
+        return queued.get();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDisconnectedCount() {
+        return disconnected.sum();
+    }
+
+    /** WebSocketSession.sendMessage にかかった時間 */
+    public LatencyHistogram getSendLatency() {
+        return sendLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundMetrics{" +
+                "queueDepth=" + getQueueDepth() +
+                ", sent=" + getSentCount() +
+                ", dropped=" + getDroppedCount() +
+                ", coalesced=" + getCoalescedCount() +
+                ", disconnected=" + getDisconnectedCount() +
+                '}';
+    }
+}
@@ -0,0 +1,251 @@
+package com.devbox.mavenapp.websocket;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * セッションごとの送信キュー。{@link #send} は呼び出し元をブロックせずにキューへ積むだけで、
+ * 実際の送信は {@link OutboundDispatcher} のスレッドがセッションごとに1通ずつ順番に行う。
+ * 回線の遅いクライアントがいても、ブロードキャストする側やほかのクライアントは待たされない。
+ */
+public class OutboundSession {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSession.class);
+
+    private final WebSocketSession session;
+    private final OutboundDispatcher dispatcher;
+    private final WireEncoding encoding;
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+    private volatile long sendStartedAt;
+
+    OutboundSession(WebSocketSession session, OutboundDispatcher dispatcher, WireEncoding encoding) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+        this.encoding = encoding;
+    }
+
+    public String getId() {
+        return session.getId();
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public WireEncoding getEncoding() {
+        return encoding;
+    }
+
+    public void send(OutboundFrame frame) {
+        send(frame.forEncoding(encoding), null);
+    }
+
+    public void send(OutboundFrame frame, String coalesceKey) {
+        send(frame.forEncoding(encoding), coalesceKey);
+    }
+
+    public void send(WebSocketMessage<?> message) {
+        send(message, null);
+    }
+
+    /**
+     * coalesceKey が同じメッセージは、キューがあふれたときに新しいもので置き換えてよいものとして扱う。
+     */
+    public void send(WebSocketMessage<?> message, String coalesceKey) {
+        boolean disconnect = false;
+        boolean startDrain = false;
+        synchronized (queue) {
+            if (closed) {
+                dispatcher.getMetrics().recordDropped();
+                return;
+            }
+            if (isSendStalled()) {
+                disconnect = true;
+            } else {
+                Entry entry = new Entry(message, coalesceKey);
+                if (isFull(entry.size)) {
+                    disconnect = !handleOverflow(entry);
+                } else {
+                    enqueue(entry);
+                }
+                if (!disconnect && !draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            }
+        }
+        if (disconnect) {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        } else if (startDrain) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public long getQueuedBytes() {
+        synchronized (queue) {
+            return queuedBytes;
+        }
+    }
+
+    /**
+     * 未送信のメッセージを破棄して、以後の送信を受け付けないようにする。
+     */
+    public void discard() {
+        synchronized (queue) {
+            closed = true;
+            dispatcher.getMetrics().dequeued(queue.size());
+            queue.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    private boolean isFull(int incomingBytes) {
+        return queue.size() >= dispatcher.getMaxQueuedMessages()
+                || queuedBytes + incomingBytes > dispatcher.getBufferSizeLimit();
+    }
+
+    boolean isSendStalled() {
+        long started = sendStartedAt;
+        return started != 0 && System.nanoTime() - started > dispatcher.getSendTimeLimitNanos();
+    }
+
+    /**
+     * @return 切断が必要な場合は false
+     */
+    private boolean handleOverflow(Entry entry) {
+        OverflowPolicy policy = dispatcher.getOverflowPolicy();
+        if (policy == OverflowPolicy.DISCONNECT) {
+            return false;
+        }
+        if (policy == OverflowPolicy.COALESCE && entry.coalesceKey != null) {
+            for (Iterator<Entry> it = queue.iterator(); it.hasNext();) {
+                Entry queued = it.next();
+                if (Objects.equals(queued.coalesceKey, entry.coalesceKey)) {
+                    it.remove();
+                    queuedBytes -= queued.size;
+                    dispatcher.getMetrics().dequeued(1);
+                    dispatcher.getMetrics().recordCoalesced();
+                    enqueue(entry);
+                    return true;
+                }
+            }
+        }
+        while (!queue.isEmpty() && isFull(entry.size)) {
+            Entry dropped = queue.pollFirst();
+            queuedBytes -= dropped.size;
+            dispatcher.getMetrics().dequeued(1);
+            dispatcher.getMetrics().recordDropped();
+        }
+        if (isFull(entry.size)) {
+            // 1通だけで上限を超えるメッセージは送れない
+            dispatcher.getMetrics().recordDropped();
+            return true;
+        }
+        enqueue(entry);
+        return true;
+    }
+
+    private void enqueue(Entry entry) {
+        queue.addLast(entry);
+        queuedBytes += entry.size;
+        dispatcher.getMetrics().enqueued();
+    }
+
+    private void drain() {
+        while (true) {
+            Entry entry;
+            synchronized (queue) {
+                entry = queue.pollFirst();
+                if (entry == null || closed) {
+                    draining = false;
+                    return;
+                }
+                queuedBytes -= entry.size;
+                dispatcher.getMetrics().dequeued(1);
+            }
+            if (!session.isOpen()) {
+                discard();
+                continue;
+            }
+            long started = System.nanoTime();
+            sendStartedAt = started;
+            dispatcher.sendStarted(this);
+            try {
+                session.sendMessage(entry.message);
+                dispatcher.getMetrics().recordSent();
+            } catch (IOException | RuntimeException e) {
+                if (isClosed()) {
+                    // 監視スレッドが切断したので、止まっていた送信が失敗した
+                    logger.debug("Send aborted for closed sessionId={}: {}", session.getId(), e.toString());
+                } else {
+                    logger.error("Error sending message to sessionId={}", session.getId(), e);
+                }
+            } finally {
+                dispatcher.sendFinished(this);
+                sendStartedAt = 0;
+                dispatcher.getMetrics().recordSendLatency(System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * 送信が送信時間の上限を超えて止まっているセッションを、監視スレッドから切断する。
+     */
+    void closeStalled() {
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private boolean isClosed() {
+        synchronized (queue) {
+            return closed;
+        }
+    }
+
+    private void close(CloseStatus status) {
+        int queueDepth;
+        synchronized (queue) {
+            // 送信する側と監視スレッドが同時に切断しようとしても、切断は1回だけ
+            if (closed) {
+                return;
+            }
+            queueDepth = queue.size();
+            discard();
+        }
+        logger.warn("Disconnecting slow client: sessionId={}, queueDepth={}", session.getId(), queueDepth);
+        dispatcher.getMetrics().recordDisconnected();
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            logger.error("Error closing sessionId={}", session.getId(), e);
+        }
+    }
+
+    private static final class Entry {
+        private final WebSocketMessage<?> message;
+        private final String coalesceKey;
+        private final int size;
+
+        private Entry(WebSocketMessage<?> message, String coalesceKey) {
+            this.message = message;
+            this.coalesceKey = coalesceKey;
+            this.size = message.getPayloadLength();
+        }
+    }
+}
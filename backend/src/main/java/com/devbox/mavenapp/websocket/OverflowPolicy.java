@@ -0,0 +1,13 @@
+package com.devbox.mavenapp.websocket;
+
+/**
+ * 送信キューがあふれたときの扱い。
+ */
+public enum OverflowPolicy {
+    /** 一番古いメッセージから捨てる */
+    DROP_OLDEST,
+    /** 同じ種類のメッセージがキューにあれば新しい内容で置き換え、なければ一番古いものを捨てる */
+    COALESCE,
+    /** 受信が追いつかないクライアントとみなして切断する */
+    DISCONNECT
+}
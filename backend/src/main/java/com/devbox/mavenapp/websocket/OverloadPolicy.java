@@ -0,0 +1,13 @@
+package com.devbox.mavenapp.websocket;
+
+/**
+ * 受信がセッションの流量制限を超えたときの扱い。
+ */
+public enum OverloadPolicy {
+    /** 超えた分のメッセージを捨てる */
+    REJECT,
+    /** トークンがたまるまでそのセッションの受信を止めてから処理する。待ち時間が上限を超える分は捨てる */
+    DELAY,
+    /** 制限を守らないクライアントとみなして切断する */
+    DISCONNECT
+}
@@ -0,0 +1,62 @@
+package com.devbox.mavenapp.websocket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ロックを使わないトークンバケット。
+ *
+ * <p>トークンの数は持たず、「バケットが空になっている時刻」（GCRA の理論到着時刻）だけを
+ * AtomicLong に入れて CAS で進める。1回の取得で interval 進め、現在時刻より
+ * tolerance（burst - 1 個ぶんの時間）以上先になっていたら通さない。
+ * 時刻は呼び出し側が {@link System#nanoTime()} で渡す。
+ */
+public final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong emptyAt;
+
+    /**
+     * @param ratePerSecond 1秒あたりに補充するトークン
+     * @param burst         ためておけるトークンの上限。最初は満タン
+     */
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + ratePerSecond + "/" + burst);
+        }
+        this.intervalNanos = Math.max((long) (1_000_000_000L / ratePerSecond), 1);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.emptyAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * トークンを1つ取る。今なければ maxWaitNanos 以内にたまる分を予約する。
+     *
+     * @return 0 ならすぐ使える。正ならその時間待ってから使う。-1 なら maxWaitNanos 以内には
+     *         たまらないので、トークンは取っていない
+     */
+    public long acquire(long nowNanos, long maxWaitNanos) {
+        while (true) {
+            long current = emptyAt.get();
+            long base = current - nowNanos > 0 ? current : nowNanos;
+            long wait = base - nowNanos - toleranceNanos;
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (emptyAt.compareAndSet(current, base + intervalNanos)) {
+                return Math.max(wait, 0);
+            }
+        }
+    }
+
+    public boolean tryAcquire(long nowNanos) {
+        return acquire(nowNanos, 0) == 0;
+    }
+
+    /**
+     * {@link #acquire} で取ったトークンを1つ返す。ほかの制限に引っかかって使わなかったときに呼ぶ。
+     * 返しすぎても、空になる時刻が現在より前になるだけで burst より多くはたまらない。
+     */
+    public void refund() {
+        emptyAt.addAndGet(-intervalNanos);
+    }
+}
@@ -0,0 +1,13 @@
+package com.devbox.mavenapp.websocket;
+
+/**
+ * クライアントとのメッセージ形式。接続時に ?encoding=cbor を付けたクライアントには CBOR で送る。
+ */
+public enum WireEncoding {
+    JSON,
+    CBOR;
+
+    public static WireEncoding fromQueryValue(String value) {
+        return "cbor".equalsIgnoreCase(value) ? CBOR : JSON;
+    }
+}
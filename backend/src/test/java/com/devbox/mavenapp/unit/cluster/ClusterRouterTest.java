@@ -0,0 +1,173 @@
+package com.devbox.mavenapp.unit.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.devbox.mavenapp.cluster.BusMessage;
+import com.devbox.mavenapp.cluster.ClusterRouter;
+import com.devbox.mavenapp.cluster.ConsistentHashRing;
+import com.devbox.mavenapp.cluster.InMemoryMessageBus;
+import com.devbox.mavenapp.cluster.MessageBus;
+import com.devbox.mavenapp.cluster.TcpMessageBus;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ClusterRouterTest {
+    private static final TypeReference<Map<String, Object>> OBJECT = new TypeReference<>() {
+    };
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> cleanups = new ArrayList<>();
+
+    @AfterEach
+    public void afterEach() {
+        cleanups.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testSessionOnOtherNodeIsRelayedToRoomOwner() throws Exception {
+        InMemoryMessageBus.Network network = new InMemoryMessageBus.Network();
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b"), 64);
+        Node a = new Node(network.join("a"), ring);
+        Node b = new Node(network.join("b"), ring);
+        String roomId = keyOwnedBy(ring, "b");
+
+        List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+        WebSocketSession session = client("1", roomId, received);
+        a.handler.afterConnectionEstablished(session);
+        a.handler.handleMessage(session, new TextMessage("{\"type\":\"join\",\"order\":0}"));
+
+        awaitTrue(() -> received.stream().anyMatch(m -> "updateGameState".equals(m.get("type"))));
+        assertThat(b.registry.getRoomCount()).isEqualTo(1);
+        assertThat(a.registry.getRoomCount()).isZero();
+        assertThat(a.router.getForwardedSessionCount()).isEqualTo(1);
+        assertThat(b.router.getRemoteSessionCount()).isEqualTo(1);
+
+        a.handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+        awaitTrue(() -> b.registry.getRoomCount() == 0);
+        assertThat(b.router.getRemoteSessionCount()).isZero();
+    }
+
+    @Test
+    public void testOwnerDropsRelayedSessionsWhenGatewayIsLost() throws Exception {
+        InMemoryMessageBus.Network network = new InMemoryMessageBus.Network();
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b"), 64);
+        Node a = new Node(network.join("a"), ring);
+        Node b = new Node(network.join("b"), ring);
+        String roomId = keyOwnedBy(ring, "b");
+
+        WebSocketSession session = client("1", roomId, new CopyOnWriteArrayList<>());
+        a.handler.afterConnectionEstablished(session);
+        awaitTrue(() -> b.registry.getRoomCount() == 1);
+
+        network.disconnect("a");
+        awaitTrue(() -> b.registry.getRoomCount() == 0);
+        assertThat(b.router.getRemoteSessionCount()).isZero();
+    }
+
+    @Test
+    public void testTcpBusDeliversMessagesInOrderAndReportsLostPeer() throws Exception {
+        TcpMessageBus a = new TcpMessageBus("a", new InetSocketAddress("127.0.0.1", 0), Map.of());
+        TcpMessageBus b = new TcpMessageBus("b", new InetSocketAddress("127.0.0.1", 0), Map.of());
+        cleanups.add(b::close);
+        a.addPeer("b", new InetSocketAddress("127.0.0.1", b.getLocalPort()));
+        List<String> sessionIds = new CopyOnWriteArrayList<>();
+        List<String> lost = new CopyOnWriteArrayList<>();
+        b.subscribe(new MessageBus.Listener() {
+            @Override
+            public void onMessage(BusMessage message) {
+                sessionIds.add(message.getSessionId());
+            }
+
+            @Override
+            public void onPeerLost(String nodeId) {
+                lost.add(nodeId);
+            }
+        });
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add("s" + i);
+            a.send("b", new BusMessage(BusMessage.Type.INBOUND, "game", "a", "s" + i, 0, false, new byte[16]));
+        }
+        awaitTrue(() -> sessionIds.size() == expected.size());
+        assertThat(sessionIds).isEqualTo(expected);
+
+        a.close();
+        awaitTrue(() -> lost.contains("a"));
+    }
+
+    private static String keyOwnedBy(ConsistentHashRing ring, String node) {
+        for (int i = 0;; i++) {
+            if (ring.nodeFor("room-" + i).equals(node)) {
+                return "room-" + i;
+            }
+        }
+    }
+
+    private WebSocketSession client(String id, String roomId, List<Map<String, Object>> received) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/game?roomId=" + roomId));
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(0);
+            received.add(objectMapper.readValue(message.getPayload(), OBJECT));
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 1ノード分のルーム管理とハンドラー。
+     */
+    private final class Node {
+        private final RoomRegistry registry = new RoomRegistry(word -> WordVerdict.VALID);
+        private final OutboundDispatcher dispatcher = new OutboundDispatcher();
+        private final ClusterRouter router;
+        private final WebSocketHandler handler;
+
+        private Node(MessageBus bus, ConsistentHashRing ring) {
+            router = new ClusterRouter(bus, ring, dispatcher);
+            handler = router.route("game", new GameWebSocketHandler(registry, dispatcher),
+                    GameWebSocketHandler::roomIdOf);
+            cleanups.add(() -> {
+                router.close();
+                registry.shutdown();
+                dispatcher.shutdown();
+            });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.devbox.mavenapp.unit.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.cluster.ConsistentHashRing;
+
+public class ConsistentHashRingTest {
+    private static final int KEYS = 30_000;
+
+    @Test
+    public void testSpreadsKeysEvenlyAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("room-" + i), 1, Integer::sum);
+        }
+        assertThat(counts).containsOnlyKeys("a", "b", "c");
+        // 仮想ノードのおかげで、どのノードも平均（1/3）から大きく外れない
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 4, KEYS * 5 / 12));
+    }
+
+    @Test
+    public void testAddingNodeMovesOnlyKeysToNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "room-" + i;
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertThat(owner).isEqualTo("d");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(KEYS / 6, KEYS / 3);
+    }
+}
@@ -0,0 +1,440 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.devbox.mavenapp.game.HeadCharacterIndex;
+import com.devbox.mavenapp.game.RoomBot;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.journal.EventJournal;
+import com.devbox.mavenapp.journal.FileEventJournal;
+import com.devbox.mavenapp.metrics.Counter;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class GameRoomTest {
+    private static final TypeReference<Map<String, Object>> OBJECT = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> OBJECTS = new TypeReference<>() {
+    };
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    RoomRegistry registry;
+    OutboundDispatcher dispatcher;
+    GameWebSocketHandler handler;
+
+    @BeforeEach
+    public void beforeEach() {
+        startServer(EventJournal.NONE);
+    }
+
+    private void startServer(EventJournal journal) {
+        startServer(journal, RoomRegistry.DEFAULT_RESUME_HISTORY_SIZE);
+    }
+
+    private void startServer(EventJournal journal, int resumeHistorySize) {
+        registry = new RoomRegistry(word -> WordVerdict.VALID, new RoomRegistry.Options()
+                .turnTimeLimit(Duration.ofMillis(300))
+                .inputRelayInterval(Duration.ofMillis(100))
+                .journal(journal)
+                .resumeGrace(Duration.ofMillis(500))
+                .resumeHistorySize(resumeHistorySize));
+        dispatcher = new OutboundDispatcher();
+        handler = new GameWebSocketHandler(registry, dispatcher);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        registry.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testJoinSendsSnapshotToJoinerAndDeltaToOthers() throws Exception {
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", second);
+
+        send(s1, Map.of("type", "join", "order", 0));
+        Map<String, Object> snapshot1 = await(first, m -> "updateGameState".equals(m.get("type")));
+        assertThat(snapshot1.get("seq")).isEqualTo(1);
+
+        send(s2, Map.of("type", "join", "order", 1));
+        Map<String, Object> snapshot2 = await(second, m -> "updateGameState".equals(m.get("type")));
+        assertThat(snapshot2.get("seq")).isEqualTo(2);
+        assertThat((List<?>) snapshot2.get("players")).hasSize(2);
+
+        Map<String, Object> delta = await(first, m -> "stateDelta".equals(m.get("type")));
+        assertThat(delta.get("seq")).isEqualTo(2);
+        List<Map<String, Object>> ops = objects(delta.get("ops"));
+        assertThat(ops).extracting(op -> op.get("op")).containsExactly("playerJoined");
+    }
+
+    @Test
+    public void testClosedRoomDoesNotStartAnotherTurn() throws Exception {
+        Counter timeouts = registry.getMetrics().getRegistry().counter("shiritori_turn_timeouts_total",
+                "Turns that ended because time was up");
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", new CopyOnWriteArrayList<>());
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        await(first, m -> "startTurn".equals(m.get("type")));
+        send(s1, Map.of("type", "checkWord", "word", "りんご", "playerId", 0));
+        await(first, m -> "checkResult".equals(m.get("type")));
+
+        // 結果表示の間に全員が抜けてルームが閉じたら、待っていた次のターンは始めない
+        handler.afterConnectionClosed(s1, CloseStatus.NORMAL);
+        handler.afterConnectionClosed(s2, CloseStatus.NORMAL);
+        waitUntil(() -> registry.getRoomCount() == 0, Duration.ofSeconds(2));
+
+        waitUntil(() -> registry.getPendingTimerCount() == 0, Duration.ofSeconds(6));
+        Thread.sleep(1000);
+        assertThat(registry.getPendingTimerCount()).isZero();
+        assertThat(timeouts.get()).isZero();
+    }
+
+    @Test
+    public void testResyncReturnsCurrentSnapshot() throws Exception {
+        List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", received);
+        send(s1, Map.of("type", "join", "order", 0));
+        await(received, m -> "updateGameState".equals(m.get("type")));
+        received.clear();
+
+        send(s1, Map.of("type", "resync"));
+
+        Map<String, Object> snapshot = await(received, m -> "updateGameState".equals(m.get("type")));
+        assertThat(snapshot.get("seq")).isEqualTo(1);
+        assertThat(snapshot.get("lastCharacter")).isEqualTo("り");
+    }
+
+    @Test
+    public void testServerEndsTurnWhenTimeLimitPasses() throws Exception {
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", second);
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        await(first, m -> "startTurn".equals(m.get("type")));
+
+        // 手番でないプレイヤーの timeIsUp は無視する
+        send(s2, Map.of("type", "timeIsUp", "order", 0));
+        Thread.sleep(100);
+        assertThat(first).noneMatch(m -> "resultMessage".equals(m.get("type")));
+
+        // 誰も申告しなくても、制限時間が過ぎればサーバー側で次の手番に進める
+        Map<String, Object> result = await(first, m -> "resultMessage".equals(m.get("type")));
+        assertThat(result.get("body")).isEqualTo("時間切れ！失敗！");
+        Map<String, Object> delta = await(second, m -> "stateDelta".equals(m.get("type"))
+                && objects(m.get("ops")).stream().anyMatch(op -> "turnChanged".equals(op.get("op"))));
+        assertThat(objects(delta.get("ops")).get(0).get("currentPlayerIndex")).isEqualTo(1);
+    }
+
+    @Test
+    public void testCheckWordIsAcceptedOnlyFromCurrentPlayer() throws Exception {
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", new CopyOnWriteArrayList<>());
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        await(first, m -> "startTurn".equals(m.get("type")));
+
+        // 手番でないプレイヤーが手番のプレイヤーを名乗っても無視する
+        send(s2, Map.of("type", "checkWord", "word", "りんご", "playerId", 0));
+        Thread.sleep(100);
+        assertThat(first).noneMatch(m -> "checkResult".equals(m.get("type")));
+
+        // 結果はメッセージの playerId ではなく、送ってきたセッションのプレイヤーに付く
+        send(s1, Map.of("type", "checkWord", "word", "りんご", "playerId", 1));
+        Map<String, Object> result = await(first, m -> "checkResult".equals(m.get("type")));
+        assertThat(result.get("playerId")).isEqualTo(0);
+    }
+
+    @Test
+    public void testInputWordRelaysOnlyLatestValuePerInterval() throws Exception {
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        connect("s2", second);
+
+        send(s1, Map.of("type", "inputWord", "word", "り"));
+        send(s1, Map.of("type", "inputWord", "word", "りん"));
+        send(s1, Map.of("type", "inputWord", "word", "りんご"));
+
+        // 最初の打鍵はすぐ、途中の「りん」は捨てられて、間隔の後に最新の「りんご」が届く
+        await(second, m -> "りんご".equals(m.get("word")));
+        assertThat(second).filteredOn(m -> "overwriteWord".equals(m.get("type")))
+                .extracting(m -> m.get("word"))
+                .containsExactly("り", "りんご");
+        assertThat(first).noneMatch(m -> "overwriteWord".equals(m.get("type")));
+    }
+
+    @Test
+    public void testRoomIsRestoredFromJournalAfterRestart(@TempDir Path directory) throws Exception {
+        afterEach();
+        FileEventJournal journal = FileEventJournal.open(directory);
+        startServer(journal);
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", new CopyOnWriteArrayList<>());
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        await(first, m -> "startTurn".equals(m.get("type")));
+        send(s1, Map.of("type", "checkWord", "word", "りんご", "playerId", 0));
+        await(first, m -> "checkResult".equals(m.get("type")));
+
+        // ルームを閉じないまま止めて、同じジャーナルから起動し直す
+        journal.close();
+        afterEach();
+        FileEventJournal reopened = FileEventJournal.open(directory);
+        startServer(reopened);
+        assertThat(registry.getRoomCount()).isEqualTo(1);
+
+        List<Map<String, Object>> rejoined = new CopyOnWriteArrayList<>();
+        WebSocketSession s3 = connect("s3", rejoined);
+        send(s3, Map.of("type", "join", "order", 0));
+        Map<String, Object> snapshot = await(rejoined, m -> "updateGameState".equals(m.get("type")));
+        assertThat(snapshot.get("wordHistory")).isEqualTo(List.of("りんご"));
+        assertThat(objects(snapshot.get("players"))).extracting(p -> p.get("position"))
+                .containsExactly(3, 0);
+        assertThat(snapshot.get("lastCharacter")).isEqualTo("ご");
+        reopened.close();
+    }
+
+    @Test
+    public void testResumeReplaysOnlyMissedMessages() throws Exception {
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", second);
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        String token = (String) await(first, m -> "resumeToken".equals(m.get("type"))).get("resumeToken");
+        await(first, m -> "startTurn".equals(m.get("type")));
+        long lastSeq = lastSeq(first);
+
+        // 回線が切れている間に相手がルーレットを回す
+        handler.afterConnectionClosed(s1, CloseStatus.SESSION_NOT_RELIABLE);
+        second.clear();
+        send(s2, Map.of("type", "startRoulette"));
+        await(second, m -> "rouletteResult".equals(m.get("type")));
+
+        List<Map<String, Object>> resumed = new CopyOnWriteArrayList<>();
+        WebSocketSession s3 = connect("s3", resumed, "resumeToken=" + token + "&lastSeq=" + lastSeq);
+        Map<String, Object> result = await(resumed, m -> "resumeResult".equals(m.get("type")));
+        assertThat(result.get("resumed")).isEqualTo(true);
+        assertThat(result.get("replayed")).isEqualTo(1);
+        await(resumed, m -> "rouletteResult".equals(m.get("type")));
+        assertThat(resumed).noneMatch(m -> "updateGameState".equals(m.get("type")));
+        // 席は残っていたので、相手には抜けた差分も参加し直した差分も送らない
+        Thread.sleep(100);
+        assertThat(second).noneMatch(m -> hasOp(m, "playerLeft") || hasOp(m, "playerJoined"));
+
+        // 戻った席のセッションとして扱われる
+        send(s3, Map.of("type", "checkWord", "word", "りんご", "playerId", 0));
+        await(second, m -> "checkResult".equals(m.get("type")));
+    }
+
+    @Test
+    public void testResumeFallsBackToSnapshotWhenHistoryIsTooShort() throws Exception {
+        afterEach();
+        startServer(EventJournal.NONE, 2);
+        List<Map<String, Object>> first = new CopyOnWriteArrayList<>();
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", first);
+        WebSocketSession s2 = connect("s2", second);
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        String token = (String) await(first, m -> "resumeToken".equals(m.get("type"))).get("resumeToken");
+        await(first, m -> "startTurn".equals(m.get("type")));
+        long lastSeq = lastSeq(first);
+
+        handler.afterConnectionClosed(s1, CloseStatus.SESSION_NOT_RELIABLE);
+        for (int i = 0; i < 3; i++) {
+            send(s2, Map.of("type", "startRoulette"));
+        }
+        await(second, m -> "rouletteResult".equals(m.get("type")));
+        Thread.sleep(50);
+
+        List<Map<String, Object>> resumed = new CopyOnWriteArrayList<>();
+        connect("s3", resumed, "resumeToken=" + token + "&lastSeq=" + lastSeq);
+        Map<String, Object> result = await(resumed, m -> "resumeResult".equals(m.get("type")));
+        assertThat(result.get("replayed")).isEqualTo(-1);
+        await(resumed, m -> "updateGameState".equals(m.get("type")));
+        assertThat(resumed).noneMatch(m -> "rouletteResult".equals(m.get("type")));
+    }
+
+    @Test
+    public void testSeatIsReleasedWhenGraceExpires() throws Exception {
+        List<Map<String, Object>> second = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", new CopyOnWriteArrayList<>());
+        WebSocketSession s2 = connect("s2", second);
+        send(s1, Map.of("type", "join", "order", 0));
+        send(s2, Map.of("type", "join", "order", 1));
+        await(second, m -> "startTurn".equals(m.get("type")));
+
+        handler.afterConnectionClosed(s1, CloseStatus.SESSION_NOT_RELIABLE);
+        Thread.sleep(100);
+        assertThat(second).noneMatch(m -> hasOp(m, "playerLeft"));
+
+        // 猶予が過ぎたら抜けたことにする
+        await(second, m -> hasOp(m, "playerLeft"));
+
+        // 正常に閉じた場合は猶予なしで抜け、最後の1人ならルームも閉じる
+        handler.afterConnectionClosed(s2, CloseStatus.NORMAL);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (registry.getRoomCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(registry.getRoomCount()).isZero();
+    }
+
+    @Test
+    public void testResumeWithUnknownTokenIsRejected() throws Exception {
+        List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+        connect("s1", received, "resumeToken=unknown&lastSeq=3");
+
+        Map<String, Object> result = await(received, m -> "resumeResult".equals(m.get("type")));
+        assertThat(result.get("resumed")).isEqualTo(false);
+    }
+
+    @Test
+    public void testBotTakesSeatAfterTimeoutAndPlaysItsTurn() throws Exception {
+        registry.shutdown();
+        // ルーレットの目（2〜8）のどれが出ても、「り」から始まる単語がある辞書
+        List<String> words = new ArrayList<>();
+        for (int length = 2; length <= 8; length++) {
+            words.add("り" + "か".repeat(length - 1));
+        }
+        RoomBot bot = new RoomBot(HeadCharacterIndex.build(LocalDictionary.fromWords(words)),
+                Duration.ofMillis(50), Duration.ZERO);
+        registry = new RoomRegistry(word -> WordVerdict.VALID, new RoomRegistry.Options()
+                .turnTimeLimit(Duration.ofMillis(300))
+                .inputRelayInterval(Duration.ofMillis(100))
+                .resumeGrace(Duration.ofMillis(500))
+                .bot(bot));
+        handler = new GameWebSocketHandler(registry, dispatcher);
+        List<Map<String, Object>> received = new CopyOnWriteArrayList<>();
+        WebSocketSession s1 = connect("s1", received);
+        send(s1, Map.of("type", "join", "order", 0));
+
+        // 相手が来ないまま待ち時間が過ぎると、空いている席にボットが座って対戦が始まる
+        Map<String, Object> joined = await(received, m -> hasOp(m, "playerJoined"));
+        Map<String, Object> botPlayer = object(objects(joined.get("ops")).get(0).get("player"));
+        assertThat(botPlayer.get("userName")).isEqualTo(RoomBot.USER_NAME);
+        assertThat(botPlayer.get("order")).isEqualTo(1);
+        await(received, m -> "startTurn".equals(m.get("type")) && Boolean.TRUE.equals(m.get("isCurrentUserTurn")));
+
+        // 人の手番が時間切れになると、ボットがルーレットを回して目の数の単語を出す
+        Map<String, Object> roulette = await(received, m -> "rouletteResult".equals(m.get("type")));
+        Map<String, Object> result = await(received, m -> "checkResult".equals(m.get("type")));
+        assertThat(result.get("playerId")).isEqualTo(1);
+        assertThat(result.get("valid")).isEqualTo(true);
+        Map<String, Object> message = await(received, m -> "resultMessage".equals(m.get("type"))
+                && ((String) m.get("body")).contains("正解"));
+        String expected = "り" + "か".repeat((Integer) roulette.get("result") - 1);
+        assertThat(message.get("body")).isEqualTo("「%s」\n正解！".formatted(expected));
+        assertThat(bot.getSeatCount()).isEqualTo(1);
+        assertThat(bot.getWordCount()).isEqualTo(1);
+    }
+
+    private boolean hasOp(Map<String, Object> message, String op) {
+        return "stateDelta".equals(message.get("type"))
+                && objects(message.get("ops")).stream().anyMatch(o -> op.equals(o.get("op")));
+    }
+
+    private static long lastSeq(List<Map<String, Object>> received) {
+        return received.stream()
+                .filter(m -> m.get("mseq") != null)
+                .mapToLong(m -> ((Number) m.get("mseq")).longValue())
+                .max()
+                .orElse(0);
+    }
+
+    private static void waitUntil(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private WebSocketSession connect(String id, List<Map<String, Object>> received) throws Exception {
+        return connect(id, received, null);
+    }
+
+    private WebSocketSession connect(String id, List<Map<String, Object>> received, String query)
+            throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        if (query != null) {
+            when(session.getUri()).thenReturn(URI.create("ws://localhost/game?" + query));
+        }
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            TextMessage message = invocation.getArgument(0);
+            received.add(objectMapper.readValue(message.getPayload(), OBJECT));
+            return null;
+        }).when(session).sendMessage(any());
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    /** 受け取った JSON の中のオブジェクト */
+    private Map<String, Object> object(Object value) {
+        return objectMapper.convertValue(value, OBJECT);
+    }
+
+    /** 受け取った JSON の中のオブジェクトの配列 */
+    private List<Map<String, Object>> objects(Object value) {
+        return objectMapper.convertValue(value, OBJECTS);
+    }
+
+    private void send(WebSocketSession session, Map<String, Object> message) throws Exception {
+        handler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private Map<String, Object> await(List<Map<String, Object>> received, Predicate<Map<String, Object>> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            for (Map<String, Object> message : received) {
+                if (condition.test(message)) {
+                    return message;
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("message not received: " + received);
+    }
+}
@@ -0,0 +1,65 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.game.HashedWheelTimer;
+
+public class HashedWheelTimerTest {
+    // 輪を何周もするよう、バケットは少なくしておく
+    private final HashedWheelTimer timer = new HashedWheelTimer(Thread::new, Duration.ofMillis(5), 8);
+
+    @AfterEach
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testFiresInDeadlineOrderAfterDelay() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+
+        timer.schedule(() -> { fired.add(300); done.countDown(); }, 300, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { fired.add(20); done.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { fired.add(100); done.countDown(); }, 100, TimeUnit.MILLISECONDS);
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired).containsExactly(20, 100, 300);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(300);
+        assertThat(timer.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void testCancelledTimersNeverFire() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        List<HashedWheelTimer.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            timeouts.add(timer.schedule(fired::incrementAndGet, 500 + i % 100, TimeUnit.MILLISECONDS));
+        }
+        assertThat(timer.getPendingCount()).isEqualTo(100_000);
+
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            assertThat(timeouts.get(i).cancel()).isTrue();
+        }
+        assertThat(timeouts.get(0).cancel()).isFalse();
+        assertThat(timer.getPendingCount()).isEqualTo(50_000);
+
+        CountDownLatch last = new CountDownLatch(1);
+        timer.schedule(last::countDown, 800, TimeUnit.MILLISECONDS);
+        assertThat(last.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(fired.get()).isEqualTo(50_000);
+        assertThat(timeouts.get(1).isExpired()).isTrue();
+        assertThat(timeouts.get(0).isCancelled()).isTrue();
+    }
+}
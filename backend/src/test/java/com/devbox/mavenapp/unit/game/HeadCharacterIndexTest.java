@@ -0,0 +1,76 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.game.HeadCharacterIndex;
+import com.devbox.mavenapp.game.ShiritoriRules;
+import com.devbox.mavenapp.game.UsedWordSet;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+
+public class HeadCharacterIndexTest {
+
+    @Test
+    public void testPicksByHeadAndLengthSkippingUsedWords() {
+        HeadCharacterIndex index = HeadCharacterIndex.build(
+                LocalDictionary.fromWords(List.of("りす", "りか", "りかん", "りんか", "すいか", "カラス")));
+        UsedWordSet used = new UsedWordSet();
+        SplittableRandom random = new SplittableRandom(1);
+
+        assertThat(index.count('り', 2)).isEqualTo(2);
+        assertThat(index.pick('り', 2, used, random)).isIn("りす", "りか");
+        used.add("りす");
+        assertThat(index.pick('り', 2, used, random)).isEqualTo("りか");
+        used.add("りか");
+        assertThat(index.pick('り', 2, used, random)).isNull();
+
+        // 「ん」で終わる単語は入れず、カタカナはひらがなとして引ける
+        assertThat(index.pick('り', 3, used, random)).isEqualTo("りんか");
+        assertThat(index.pick('か', 3, used, random)).isEqualTo("からす");
+        assertThat(index.pick('あ', 3, used, random)).isNull();
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void testSameSeedPicksSameWords() {
+        LocalDictionary dictionary = LocalDictionary.fromWords(List.of("りす", "りか", "りく", "りき", "りさ"));
+        HeadCharacterIndex index = HeadCharacterIndex.build(dictionary);
+
+        SplittableRandom first = new SplittableRandom(42);
+        SplittableRandom second = new SplittableRandom(42);
+        for (int i = 0; i < 10; i++) {
+            assertThat(index.pick('り', 2, new UsedWordSet(), first))
+                    .isEqualTo(index.pick('り', 2, new UsedWordSet(), second));
+        }
+    }
+
+    @Test
+    public void testKeepsChainGoingOnBundledDictionary() throws Exception {
+        HeadCharacterIndex index = HeadCharacterIndex.build(LocalDictionary.loadFromClasspath("dictionary/words.txt"));
+        UsedWordSet used = new UsedWordSet();
+        SplittableRandom random = new SplittableRandom(7);
+        char head = ShiritoriRules.FIRST_CHARACTER;
+        int picks = 0;
+        // しりとりを続けられるだけ続ける。出した単語は必ずつながり、同じ単語は2度出ない
+        for (int turn = 0; turn < 10_000; turn++) {
+            String word = null;
+            for (int length = 2; length <= 8 && word == null; length++) {
+                word = index.pick(head, length, used, random);
+            }
+            if (word == null) {
+                break;
+            }
+            assertThat(ShiritoriRules.normalize(word.charAt(0))).isEqualTo(head);
+            assertThat(used.contains(word)).isFalse();
+            used.add(word);
+            head = ShiritoriRules.lastCharacter(word);
+            picks++;
+        }
+        assertThat(picks).isPositive();
+        assertThat(index.getIndexBytes()).isLessThan(16 * 1024);
+    }
+}
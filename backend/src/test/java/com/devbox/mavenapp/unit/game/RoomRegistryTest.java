@@ -0,0 +1,113 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.game.GameRoom;
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.game.SerialExecutor;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+
+public class RoomRegistryTest {
+    RoomRegistry registry;
+
+    @BeforeEach
+    public void beforeEach() {
+        registry = new RoomRegistry(word -> WordVerdict.VALID);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        registry.shutdown();
+    }
+
+    @Test
+    public void testRoomsAreKeyedByRoomId() {
+        GameRoom a1 = registry.join("a");
+        GameRoom a2 = registry.join("a");
+        GameRoom b = registry.join("b");
+
+        assertThat(a1).isSameAs(a2);
+        assertThat(b).isNotSameAs(a1);
+        assertThat(registry.getRoomCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRoomIsRemovedWhenLastMemberLeaves() {
+        GameRoom first = registry.join("a");
+        registry.join("a");
+
+        registry.leave(first);
+        assertThat(registry.getRoom("a")).isSameAs(first);
+
+        registry.leave(first);
+        assertThat(registry.getRoom("a")).isNull();
+        assertThat(registry.join("a")).isNotSameAs(first);
+    }
+
+    @Test
+    public void testSerialExecutorRunsTasksInOrderWithoutOverlap() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            SerialExecutor mailbox = new SerialExecutor(pool);
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            int[] running = {0};
+            boolean[] overlapped = {false};
+            CountDownLatch done = new CountDownLatch(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                int n = i;
+                mailbox.execute(() -> {
+                    if (++running[0] > 1) {
+                        overlapped[0] = true;
+                    }
+                    order.add(n);
+                    running[0]--;
+                    done.countDown();
+                });
+            }
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(overlapped[0]).isFalse();
+            for (int i = 0; i < 1000; i++) {
+                assertThat(order.get(i)).isEqualTo(i);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSerialExecutorAcceptsTasksAgainAfterRejection() {
+        boolean[] rejecting = {true};
+        SerialExecutor mailbox = new SerialExecutor(task -> {
+            if (rejecting[0]) {
+                throw new RejectedExecutionException("busy");
+            }
+            task.run();
+        });
+        List<String> ran = new ArrayList<>();
+
+        assertThatThrownBy(() -> mailbox.execute(() -> ran.add("rejected")))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(mailbox.pendingTasks()).isZero();
+
+        // 拒否されたあとも、プールが受け付けるようになれば次のタスクは実行される
+        rejecting[0] = false;
+        mailbox.execute(() -> ran.add("accepted"));
+        assertThat(ran).containsExactly("accepted");
+    }
+}
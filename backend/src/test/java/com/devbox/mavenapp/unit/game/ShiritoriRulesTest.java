@@ -0,0 +1,49 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.game.RuleViolation;
+import com.devbox.mavenapp.game.ShiritoriRules;
+import com.devbox.mavenapp.game.UsedWordSet;
+
+public class ShiritoriRulesTest {
+
+    @Test
+    public void testLastCharacterNormalizesKatakanaSmallKanaAndLongVowel() {
+        assertThat(ShiritoriRules.lastCharacter("りんご")).isEqualTo('ご');
+        assertThat(ShiritoriRules.lastCharacter("ゴリラ")).isEqualTo('ら');
+        assertThat(ShiritoriRules.lastCharacter("でんしゃ")).isEqualTo('や');
+        assertThat(ShiritoriRules.lastCharacter("コーヒー")).isEqualTo('ひ');
+        assertThat(ShiritoriRules.lastCharacter("ーー")).isEqualTo((char) 0);
+    }
+
+    @Test
+    public void testCheckRejectsRuleBreakingWords() {
+        UsedWordSet used = new UsedWordSet();
+        used.add("りんご");
+
+        assertThat(ShiritoriRules.check("りす", 'り', used)).isEqualTo(RuleViolation.NONE);
+        assertThat(ShiritoriRules.check("リス", 'り', used)).isEqualTo(RuleViolation.NONE);
+        assertThat(ShiritoriRules.check("ごりら", 'り', used)).isEqualTo(RuleViolation.BROKEN_CHAIN);
+        assertThat(ShiritoriRules.check("りかん", 'り', used)).isEqualTo(RuleViolation.ENDS_WITH_N);
+        assertThat(ShiritoriRules.check("リンゴ", 'り', used)).isEqualTo(RuleViolation.REPEATED);
+        assertThat(ShiritoriRules.check("ringo", 'り', used)).isEqualTo(RuleViolation.NOT_KANA);
+        assertThat(ShiritoriRules.check("", 'り', used)).isEqualTo(RuleViolation.NOT_KANA);
+    }
+
+    @Test
+    public void testUsedWordSetGrowsAndKeepsAllWords() {
+        UsedWordSet used = new UsedWordSet(4);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(used.add("ことば" + i)).isTrue();
+        }
+        assertThat(used.add("ことば10")).isFalse();
+        assertThat(used.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(used.contains("コトバ" + i)).isTrue();
+        }
+        assertThat(used.contains("ことば1000")).isFalse();
+    }
+}
@@ -0,0 +1,224 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.devbox.mavenapp.game.RoomRegistry;
+import com.devbox.mavenapp.game.SpectatorFanout;
+import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.handler.SpectatorWebSocketHandler;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SpectatorFanoutTest {
+    private static final URI ROOM_URI = URI.create("ws://localhost/game?roomId=r1");
+    private static final TypeReference<Map<String, Object>> OBJECT = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Map<String, Object>>> OBJECTS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    SpectatorFanout fanout;
+    RoomRegistry registry;
+    OutboundDispatcher dispatcher;
+    GameWebSocketHandler gameHandler;
+    SpectatorWebSocketHandler spectatorHandler;
+
+    @BeforeEach
+    public void beforeEach() {
+        fanout = new SpectatorFanout(new OutboundDispatcher(Duration.ofSeconds(5), 512 * 1024, 64,
+                OverflowPolicy.DROP_OLDEST), Duration.ofMillis(20), 2, Duration.ofMillis(300));
+        registry = new RoomRegistry(word -> WordVerdict.VALID, new RoomRegistry.Options()
+                .turnTimeLimit(Duration.ofSeconds(30))
+                .inputRelayInterval(Duration.ofMillis(100))
+                .spectatorFanout(fanout));
+        dispatcher = new OutboundDispatcher();
+        gameHandler = new GameWebSocketHandler(registry, dispatcher);
+        spectatorHandler = new SpectatorWebSocketHandler(registry);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        registry.shutdown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSpectatorsGetSnapshotThenSharedBatches() throws Exception {
+        WebSocketSession player = connect(gameHandler, "p1", new CopyOnWriteArrayList<>(), null);
+        send(player, Map.of("type", "join", "order", 0));
+        List<Object> first = new CopyOnWriteArrayList<>();
+        List<Object> second = new CopyOnWriteArrayList<>();
+        connect(spectatorHandler, "v1", first, null);
+        connect(spectatorHandler, "v2", second, null);
+        awaitMessage(first, m -> "updateGameState".equals(m.get("type")));
+        awaitMessage(second, m -> "updateGameState".equals(m.get("type")));
+
+        send(player, Map.of("type", "startRoulette"));
+        send(player, Map.of("type", "startRoulette"));
+
+        awaitCondition(() -> fanout.getFrameCount() == 2);
+        Map<String, Object> batch = awaitMessage(first, m -> "spectatorBatch".equals(m.get("type")));
+        assertThat(objects(batch.get("messages"))).extracting(m -> m.get("type"))
+                .containsOnly("rouletteResult");
+        // バッチはルームごとに1回だけ作り、全観戦者に同じメッセージを送る
+        awaitCondition(() -> batches(second).size() == batches(first).size());
+        assertThat(batches(first)).hasSize((int) fanout.getBatchCount());
+        for (int i = 0; i < batches(first).size(); i++) {
+            assertThat(batches(first).get(i)).isSameAs(batches(second).get(i));
+        }
+    }
+
+    @Test
+    public void testSlowSpectatorSwitchesToSnapshotWithoutDelayingPlayers() throws Exception {
+        List<Object> playerReceived = new CopyOnWriteArrayList<>();
+        WebSocketSession player = connect(gameHandler, "p1", playerReceived, null);
+        send(player, Map.of("type", "join", "order", 0));
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> slow = new CopyOnWriteArrayList<>();
+        connect(spectatorHandler, "v1", slow, release);
+        awaitMessage(slow, m -> "updateGameState".equals(m.get("type")));
+
+        // 観戦者の送信が止まっている間も、対戦者には届き続ける
+        for (int i = 0; i < 5; i++) {
+            send(player, Map.of("type", "startRoulette"));
+            Thread.sleep(30);
+        }
+        awaitCondition(() -> playerReceived.stream().filter(m -> m instanceof Map<?, ?> map
+                && "rouletteResult".equals(map.get("type"))).count() == 5);
+        awaitCondition(() -> fanout.getDowngradeCount() == 1);
+
+        // キューがはけたら、たまったバッチの続きではなくスナップショットから追いつく
+        release.countDown();
+        awaitCondition(() -> slow.stream().filter(m -> m instanceof Map<?, ?> map
+                && "updateGameState".equals(map.get("type"))).count() == 2);
+        int caughtUp = slow.size();
+        send(player, Map.of("type", "startRoulette"));
+        awaitCondition(() -> slow.size() > caughtUp + 1);
+        Map<String, Object> last = object(slow.get(caughtUp + 1));
+        assertThat(last.get("type")).isEqualTo("spectatorBatch");
+        assertThat(last.get("messages")).asList().hasSize(1);
+    }
+
+    @Test
+    public void testSpectatorThatNeverCatchesUpIsDropped() throws Exception {
+        WebSocketSession player = connect(gameHandler, "p1", new CopyOnWriteArrayList<>(), null);
+        send(player, Map.of("type", "join", "order", 0));
+        List<Object> stuck = new CopyOnWriteArrayList<>();
+        WebSocketSession spectator = connect(spectatorHandler, "v1", stuck, new CountDownLatch(1));
+        awaitMessage(stuck, m -> "updateGameState".equals(m.get("type")));
+
+        for (int i = 0; i < 5; i++) {
+            send(player, Map.of("type", "startRoulette"));
+            Thread.sleep(30);
+        }
+
+        verify(spectator, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(fanout.getDropCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSpectatorIsRejectedWithoutRoom() throws Exception {
+        WebSocketSession spectator = connect(spectatorHandler, "v1", new CopyOnWriteArrayList<>(), null);
+
+        verify(spectator).close(any(CloseStatus.class));
+        assertThat(spectatorHandler.getSessionCount()).isZero();
+        assertThat(registry.getRoomCount()).isZero();
+    }
+
+    /**
+     * received には受け取ったメッセージ（TextMessage）と、それを読んだ Map を続けて入れる。
+     * block を渡すと、最初のメッセージのあとはそれが開くまで送信を止める。
+     */
+    private WebSocketSession connect(WebSocketHandler handler, String id,
+            List<Object> received, CountDownLatch block) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUri()).thenReturn(ROOM_URI);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            received.add(message);
+            received.add(objectMapper.readValue(((TextMessage) message).getPayload(), OBJECT));
+            if (block != null && received.size() > 2) {
+                block.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+
+    private void send(WebSocketSession session, Map<String, Object> message) throws Exception {
+        gameHandler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(message)));
+    }
+
+    private static List<Object> batches(List<Object> received) {
+        return received.stream()
+                .filter(m -> m instanceof TextMessage text && text.getPayload().contains("\"spectatorBatch\""))
+                .toList();
+    }
+
+    /** received の中の、読んだ Map */
+    private Map<String, Object> object(Object value) {
+        return objectMapper.convertValue(value, OBJECT);
+    }
+
+    private List<Map<String, Object>> objects(Object value) {
+        return objectMapper.convertValue(value, OBJECTS);
+    }
+
+    private Map<String, Object> awaitMessage(List<Object> received, Predicate<Map<String, Object>> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            for (Object message : received) {
+                if (message instanceof Map) {
+                    Map<String, Object> map = object(message);
+                    if (condition.test(map)) {
+                        return map;
+                    }
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("message not received: " + received);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
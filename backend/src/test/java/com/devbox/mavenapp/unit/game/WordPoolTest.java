@@ -0,0 +1,42 @@
+package com.devbox.mavenapp.unit.game;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.game.WordPool;
+
+public class WordPoolTest {
+
+    @Test
+    public void testSameWordSharesIdAndString() {
+        WordPool pool = new WordPool();
+
+        int first = pool.intern(new String("りんご"));
+        int second = pool.intern(new String("りんご"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(pool.word(first)).isEqualTo("りんご");
+        assertThat(pool.intern("ごりら")).isNotEqualTo(first);
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testKeepsIdsWhileGrowing() {
+        WordPool pool = new WordPool();
+        int[] ids = new int[5000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = pool.intern("word" + i);
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(pool.word(ids[i])).isEqualTo("word" + i);
+        }
+        List<String> view = pool.view(ids, 3);
+        assertThat(view).containsExactly("word0", "word1", "word2");
+        assertThatThrownBy(() -> view.get(3)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -1,10 +1,17 @@
 package com.devbox.mavenapp.unit.handler;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +19,7 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import com.devbox.mavenapp.handler.GameWebSocketHandler;
+import com.devbox.mavenapp.service.validation.WordVerdict;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class GameWebSocketHandlerTest {
@@ -26,6 +34,7 @@ public class GameWebSocketHandlerTest {
         handler = new GameWebSocketHandler();
 
         when(session.getId()).thenReturn("0");
+        when(session.isOpen()).thenReturn(true);
     }
 
     @Test
@@ -42,4 +51,44 @@ public class GameWebSocketHandlerTest {
         handler.handleMessage(session, message);
     }
 
+    @Test
+    public void testCheckWordDoesNotBlockHandlerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = new GameWebSocketHandler(word -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return WordVerdict.VALID;
+        });
+        WebSocketSession other = mock(WebSocketSession.class);
+        when(other.getId()).thenReturn("1");
+        when(other.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+        handler.afterConnectionEstablished(other);
+        handler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(Map.of("type", "join", "order", 0))));
+        handler.handleMessage(other, new TextMessage(objectMapper.writeValueAsString(Map.of("type", "join", "order", 1))));
+        verify(session, timeout(1000)).sendMessage(argThat(m -> ((String) m.getPayload()).contains("startTurn")));
+
+        Map<String, Object> checkWord = new HashMap<>();
+        checkWord.put("type", "checkWord");
+        checkWord.put("word", "りんご");
+        checkWord.put("playerId", 0);
+        Map<String, Object> inputWord = new HashMap<>();
+        inputWord.put("type", "inputWord");
+        inputWord.put("word", "ごり");
+
+        long start = System.nanoTime();
+        handler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(checkWord)));
+        handler.handleMessage(session, new TextMessage(objectMapper.writeValueAsString(inputWord)));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isLessThan(1000);
+        verify(other, timeout(1000)).sendMessage(argThat(m -> ((String) m.getPayload()).contains("overwriteWord")));
+        verify(other, never()).sendMessage(argThat(m -> ((String) m.getPayload()).contains("checkResult")));
+
+        release.countDown();
+        verify(other, timeout(2000)).sendMessage(argThat(m -> ((String) m.getPayload()).contains("checkResult")));
+    }
 }
@@ -0,0 +1,44 @@
+package com.devbox.mavenapp.unit.handler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.handler.MatchmakingHandler;
+import com.devbox.mavenapp.service.matchmaking.MatchmakingQueue;
+import com.devbox.mavenapp.service.matchmaking.WaitingPlayer;
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+
+public class MatchmakingHandlerTest {
+
+    @Test
+    public void testWaitingPlayerIsMatchedWithBotUntilShutdown() throws Exception {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+        OutboundDispatcher outboundDispatcher = new OutboundDispatcher();
+        MatchmakingHandler handler = new MatchmakingHandler(queue, outboundDispatcher, Duration.ofMillis(1));
+        try {
+            queue.join(new WaitingPlayer("s1", "1", "alice", 0));
+            waitForWaitingCount(queue, 0);
+            assertThat(queue.getBotMatchCount()).isEqualTo(1);
+        } finally {
+            handler.shutdown();
+            outboundDispatcher.shutdown();
+        }
+
+        // 止めたあとは、待ちすぎたプレイヤーがいてもボットと組ませない
+        queue.join(new WaitingPlayer("s2", "2", "bob", 0));
+        Thread.sleep(1000);
+        assertThat(queue.getWaitingCount()).isEqualTo(1);
+        assertThat(queue.getBotMatchCount()).isEqualTo(1);
+    }
+
+    private static void waitForWaitingCount(MatchmakingQueue queue, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (queue.getWaitingCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(queue.getWaitingCount()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,154 @@
+package com.devbox.mavenapp.unit.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devbox.mavenapp.journal.FileEventJournal;
+import com.devbox.mavenapp.journal.GameEvent;
+import com.devbox.mavenapp.journal.GameEvent.Type;
+import com.devbox.mavenapp.journal.RoomState;
+
+public class FileEventJournalTest {
+    @TempDir
+    Path directory;
+
+    private FileEventJournal open() throws Exception {
+        return FileEventJournal.open(directory, true, FileEventJournal.DEFAULT_SEGMENT_BYTES, Duration.ofHours(1),
+                Duration.ZERO, FileEventJournal.DEFAULT_RECOVERY_BUDGET, FileEventJournal.DEFAULT_REPLAY_MAX_SEGMENTS);
+    }
+
+    private static void playOneWord(FileEventJournal journal, String roomId) {
+        journal.append(roomId, Type.ROOM_CREATED, -1, 0, null);
+        journal.append(roomId, Type.PLAYER_JOINED, 0, 0, null);
+        journal.append(roomId, Type.PLAYER_JOINED, 1, 1, null);
+        journal.append(roomId, Type.ROULETTE, -1, 5, null);
+        journal.append(roomId, Type.WORD_ACCEPTED, 0, 3, "りんご");
+        journal.append(roomId, Type.TURN_CHANGED, -1, 1, null);
+    }
+
+    @Test
+    public void testRecoversOpenRoomsAfterRestart() throws Exception {
+        FileEventJournal journal = open();
+        playOneWord(journal, "active");
+        playOneWord(journal, "finished");
+        long lastLsn = journal.append("finished", Type.ROOM_CLOSED, -1, 0, null);
+        journal.close();
+        // 書き込みはまとめて fsync する
+        assertThat(journal.getFsyncCount()).isLessThanOrEqualTo(journal.getWrittenCount());
+
+        FileEventJournal reopened = open();
+        List<RoomState> rooms = reopened.takeRecoveredRooms();
+        assertThat(rooms).extracting(RoomState::getRoomId).containsExactly("active");
+        RoomState room = rooms.get(0);
+        assertThat(room.getPlayers()).extracting(RoomState.PlayerState::getPosition).containsExactly(3, 0);
+        assertThat(room.getWords()).containsExactly("りんご");
+        assertThat(room.getCurrentPlayerIndex()).isEqualTo(1);
+        assertThat(reopened.takeRecoveredRooms()).isEmpty();
+        assertThat(reopened.append("active", Type.TURN_CHANGED, -1, 0, null)).isGreaterThan(lastLsn);
+        reopened.close();
+    }
+
+    @Test
+    public void testIgnoresPartialRecordAtEndOfSegment() throws Exception {
+        FileEventJournal journal = open();
+        playOneWord(journal, "room");
+        journal.close();
+        Path segment = segments().get(0);
+        // 長さだけ書かれて中身のないレコード（書き込み中のクラッシュ）
+        Files.write(segment, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+        FileEventJournal reopened = open();
+        assertThat(reopened.takeRecoveredRooms()).singleElement()
+                .satisfies(room -> assertThat(room.getWords()).containsExactly("りんご"));
+        reopened.close();
+    }
+
+    @Test
+    public void testSnapshotCompactsOldSegmentsAndRecoversWithLaterEvents() throws Exception {
+        FileEventJournal journal = open();
+        playOneWord(journal, "room");
+        long lastLsn = journal.append("room", Type.WORD_ACCEPTED, 1, 4, "ごりら");
+        RoomState captured = new RoomState("room", lastLsn,
+                List.of(new RoomState.PlayerState(0, 0, 3), new RoomState.PlayerState(1, 1, 4)),
+                List.of("りんご", "ごりら"), 1);
+        journal.setSnapshotSource(() -> CompletableFuture.completedFuture(List.of(captured)));
+        journal.snapshot().get(5, TimeUnit.SECONDS);
+        journal.append("room", Type.TURN_CHANGED, -1, 0, null);
+        journal.close();
+
+        // スナップショットより前のセグメントは保持期間（0）を過ぎているので消える
+        assertThat(segments()).hasSize(1);
+        assertThat(journal.getSnapshotCount()).isEqualTo(1);
+
+        FileEventJournal reopened = open();
+        RoomState room = reopened.takeRecoveredRooms().get(0);
+        assertThat(room.getWords()).containsExactly("りんご", "ごりら");
+        assertThat(room.getPlayers()).extracting(RoomState.PlayerState::getPosition).containsExactly(3, 4);
+        assertThat(room.getCurrentPlayerIndex()).isEqualTo(0);
+        reopened.close();
+    }
+
+    @Test
+    public void testReplayReturnsEventsOfLatestGameInRoom() throws Exception {
+        FileEventJournal journal = open();
+        playOneWord(journal, "room");
+        journal.append("room", Type.ROOM_CLOSED, -1, 0, null);
+        journal.append("room", Type.ROOM_CREATED, -1, 0, null);
+        journal.append("room", Type.PLAYER_JOINED, 0, 1, null);
+        journal.close();
+
+        assertThat(journal.replay("room")).extracting(GameEvent::getType)
+                .containsExactly(Type.ROOM_CREATED, Type.PLAYER_JOINED);
+        assertThat(journal.replay("other")).isEmpty();
+    }
+
+    @Test
+    public void testReplayReadsNewestSegmentsUpToLimit() throws Exception {
+        // 1 バイトで切り替えるので、書き込み1回ごとに別のセグメントになる
+        FileEventJournal journal = FileEventJournal.open(directory, false, 1, Duration.ofHours(1), Duration.ZERO,
+                FileEventJournal.DEFAULT_RECOVERY_BUDGET, 2);
+        appendAndWait(journal, "room", Type.ROOM_CREATED, 1);
+        appendAndWait(journal, "other", Type.ROOM_CREATED, 2);
+        appendAndWait(journal, "room", Type.PLAYER_JOINED, 3);
+        journal.close();
+
+        // 新しい方の2つしか読まないので、ルームが作られたところまで届かない
+        assertThat(journal.replay("room")).extracting(GameEvent::getType).containsExactly(Type.PLAYER_JOINED);
+
+        FileEventJournal reopened = FileEventJournal.open(directory, false, 1, Duration.ofHours(1), Duration.ZERO,
+                FileEventJournal.DEFAULT_RECOVERY_BUDGET, 10);
+        assertThat(reopened.replay("room")).extracting(GameEvent::getType)
+                .containsExactly(Type.ROOM_CREATED, Type.PLAYER_JOINED);
+        assertThat(reopened.replay("other")).extracting(GameEvent::getType).containsExactly(Type.ROOM_CREATED);
+        reopened.close();
+    }
+
+    private static void appendAndWait(FileEventJournal journal, String roomId, Type type, long written)
+            throws InterruptedException {
+        journal.append(roomId, type, -1, 0, null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (journal.getWrittenCount() < written) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("journal did not write in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
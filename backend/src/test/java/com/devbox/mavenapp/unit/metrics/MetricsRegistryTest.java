@@ -0,0 +1,68 @@
+package com.devbox.mavenapp.unit.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.metrics.Counter;
+import com.devbox.mavenapp.metrics.GameMetrics;
+import com.devbox.mavenapp.metrics.LatencyHistogram;
+import com.devbox.mavenapp.metrics.MetricsRegistry;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.devbox.mavenapp.websocket.MessageType;
+
+public class MetricsRegistryTest {
+    MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    public void testHistogramIsWrittenWithCumulativeBuckets() {
+        LatencyHistogram histogram = registry.histogram("latency_seconds", "Latency", "type", "join");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(30));
+
+        String text = registry.scrape();
+
+        assertThat(text).contains("# TYPE latency_seconds histogram\n");
+        assertThat(text).contains("latency_seconds_bucket{type=\"join\",le=\"1.0E-4\"} 1\n");
+        assertThat(text).contains("latency_seconds_bucket{type=\"join\",le=\"0.005\"} 2\n");
+        assertThat(text).contains("latency_seconds_bucket{type=\"join\",le=\"10.0\"} 2\n");
+        assertThat(text).contains("latency_seconds_bucket{type=\"join\",le=\"+Inf\"} 3\n");
+        assertThat(text).contains("latency_seconds_count{type=\"join\"} 3\n");
+        assertThat(text).contains("latency_seconds_sum{type=\"join\"} 30.00305");
+    }
+
+    @Test
+    public void testCountersAndGaugesShareOneFamilyHeader() {
+        Counter valid = registry.counter("words_total", "Words", "result", "valid");
+        registry.counter("words_total", "Words", "result", "invalid");
+        valid.increment();
+        valid.increment();
+        registry.gauge("rooms", "Rooms", () -> 7);
+
+        String text = registry.scrape();
+
+        assertThat(text.split("# TYPE words_total counter", -1)).hasSize(2);
+        assertThat(text).contains("words_total{result=\"valid\"} 2\n");
+        assertThat(text).contains("words_total{result=\"invalid\"} 0\n");
+        assertThat(text).contains("# TYPE rooms gauge\nrooms 7\n");
+        assertThat(registry.counter("words_total", "Words", "result", "valid")).isSameAs(valid);
+    }
+
+    @Test
+    public void testGameMetricsRecordsPerMessageTypeAndVerdict() {
+        GameMetrics metrics = new GameMetrics(registry);
+        metrics.recordMessage(MessageType.CHECK_WORD, TimeUnit.MILLISECONDS.toNanos(1));
+        metrics.recordVerdict(WordVerdict.INVALID);
+        metrics.recordTurnTimeout();
+
+        String text = registry.scrape();
+
+        assertThat(text).contains("shiritori_message_handling_seconds_count{type=\"checkWord\"} 1\n");
+        assertThat(text).contains("shiritori_message_handling_seconds_count{type=\"join\"} 0\n");
+        assertThat(text).contains("shiritori_words_total{result=\"invalid\"} 1\n");
+        assertThat(text).contains("shiritori_turn_timeouts_total 1\n");
+    }
+}
@@ -0,0 +1,88 @@
+package com.devbox.mavenapp.unit.results;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.results.Leaderboard;
+import com.devbox.mavenapp.results.MatchResult;
+import com.devbox.mavenapp.results.Standing;
+
+public class LeaderboardTest {
+
+    @Test
+    public void testWinnerGainsWhatLoserLoses() {
+        Leaderboard leaderboard = new Leaderboard();
+
+        leaderboard.apply(match("a", "a", "b"));
+
+        assertThat(leaderboard.standing("a").getRating()).isEqualTo(1516);
+        assertThat(leaderboard.standing("b").getRating()).isEqualTo(1484);
+        assertThat(leaderboard.standing("a").getRank()).isEqualTo(1);
+        assertThat(leaderboard.standing("b").getRank()).isEqualTo(2);
+        assertThat(leaderboard.standing("a").getWins()).isEqualTo(1);
+        assertThat(leaderboard.standing("b").getLosses()).isEqualTo(1);
+        // 格下に勝っても少ししか上がらない
+        leaderboard.apply(match("a", "a", "b"));
+        assertThat(leaderboard.standing("a").getRating()).isBetween(1530, 1531);
+    }
+
+    @Test
+    public void testGuestsAndUnknownWinnersAreIgnored() {
+        Leaderboard leaderboard = new Leaderboard();
+
+        leaderboard.apply(match("a", "a", null));
+        leaderboard.apply(match(null, "a", "b"));
+
+        assertThat(leaderboard.size()).isZero();
+        assertThat(leaderboard.standing("a")).isNull();
+    }
+
+    @Test
+    public void testRanksAndPagesMatchFullSort() {
+        Leaderboard leaderboard = new Leaderboard();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            String winner = "u" + random.nextInt(300);
+            String loser = "u" + random.nextInt(300);
+            if (!winner.equals(loser)) {
+                leaderboard.apply(match(winner, winner, loser));
+            }
+        }
+
+        List<Standing> all = leaderboard.page(0, leaderboard.size());
+        assertThat(all).hasSize(leaderboard.size());
+        // 毎回並べ直した場合と同じ順になる
+        Map<String, Standing> byUser = new HashMap<>();
+        all.forEach(standing -> byUser.put(standing.getUserId(), standing));
+        List<Standing> sorted = new ArrayList<>(all);
+        sorted.sort(Comparator.comparingInt(Standing::getRating).reversed());
+        assertThat(all).extracting(Standing::getRating).containsExactlyElementsOf(
+                sorted.stream().map(Standing::getRating).toList());
+        for (int i = 0; i < all.size(); i++) {
+            Standing standing = all.get(i);
+            assertThat(standing.getRank()).isEqualTo(i + 1);
+            assertThat(leaderboard.standing(standing.getUserId()).getRank()).isEqualTo(i + 1);
+        }
+        assertThat(leaderboard.top(10)).extracting(Standing::getUserId)
+                .containsExactlyElementsOf(all.subList(0, 10).stream().map(Standing::getUserId).toList());
+        assertThat(leaderboard.page(295, 10)).extracting(Standing::getRank).containsExactly(
+                all.subList(295, all.size()).stream().map(Standing::getRank).toArray(Integer[]::new));
+        assertThat(leaderboard.page(all.size() + 5, 10)).isEmpty();
+    }
+
+    static MatchResult match(String winner, String... userIds) {
+        List<MatchResult.Participant> participants = new ArrayList<>();
+        for (String userId : userIds) {
+            participants.add(new MatchResult.Participant(userId, userId == null ? null : "name-" + userId, 0));
+        }
+        return new MatchResult("room", 0, winner, participants);
+    }
+}
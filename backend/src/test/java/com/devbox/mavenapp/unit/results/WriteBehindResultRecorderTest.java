@@ -0,0 +1,94 @@
+package com.devbox.mavenapp.unit.results;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devbox.mavenapp.results.FileResultStore;
+import com.devbox.mavenapp.results.Leaderboard;
+import com.devbox.mavenapp.results.WriteBehindResultRecorder;
+
+public class WriteBehindResultRecorderTest {
+    @TempDir
+    Path directory;
+
+    private WriteBehindResultRecorder open(Leaderboard leaderboard, int queueCapacity) throws Exception {
+        return new WriteBehindResultRecorder(FileResultStore.open(directory, true), leaderboard, queueCapacity, 64);
+    }
+
+    @Test
+    public void testResultsAreBatchedAndRebuiltAfterRestart() throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        WriteBehindResultRecorder recorder = open(leaderboard, 1000);
+        for (int i = 0; i < 200; i++) {
+            recorder.record(LeaderboardTest.match(i % 3 == 0 ? "b" : "a", "a", "b"));
+        }
+        awaitCondition(() -> recorder.getWrittenCount() == 200);
+        awaitCondition(() -> leaderboard.standing("a").getWins() == 133);
+        recorder.close();
+        // 1件ずつではなく、まとめて書いている
+        assertThat(recorder.getBatchCount()).isLessThan(200);
+        assertThat(recorder.getDroppedCount()).isZero();
+
+        Leaderboard rebuilt = new Leaderboard();
+        WriteBehindResultRecorder reopened = open(rebuilt, 1000);
+        assertThat(reopened.getLoadedCount()).isEqualTo(200);
+        assertThat(rebuilt.standing("a").getRating()).isEqualTo(leaderboard.standing("a").getRating());
+        assertThat(rebuilt.standing("b").getLosses()).isEqualTo(133);
+        reopened.close();
+    }
+
+    @Test
+    public void testTornLastLineIsSkippedAndNotAppendedTo() throws Exception {
+        WriteBehindResultRecorder recorder = open(new Leaderboard(), 10);
+        recorder.record(LeaderboardTest.match("a", "a", "b"));
+        recorder.close();
+        Files.writeString(directory.resolve("results.jsonl"), "{\"roomId\":\"torn\",\"fin",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        WriteBehindResultRecorder reopened = open(new Leaderboard(), 10);
+        assertThat(reopened.getLoadedCount()).isEqualTo(1);
+        reopened.record(LeaderboardTest.match("b", "a", "b"));
+        reopened.close();
+
+        Leaderboard rebuilt = new Leaderboard();
+        WriteBehindResultRecorder third = open(rebuilt, 10);
+        assertThat(third.getLoadedCount()).isEqualTo(2);
+        assertThat(rebuilt.standing("b").getWins()).isEqualTo(1);
+        third.close();
+    }
+
+    @Test
+    public void testFullQueueDropsInsteadOfBlocking() throws Exception {
+        Leaderboard leaderboard = new Leaderboard();
+        WriteBehindResultRecorder recorder = open(leaderboard, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            recorder.record(LeaderboardTest.match("a", "a", "b"));
+        }
+        long elapsed = System.nanoTime() - start;
+        recorder.close();
+
+        assertThat(recorder.getDroppedCount()).isPositive();
+        assertThat(recorder.getWrittenCount() + recorder.getDroppedCount()).isEqualTo(10_000);
+        assertThat(elapsed).isLessThan(TimeUnit.SECONDS.toNanos(2));
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.devbox.mavenapp.unit.service.matchmaking;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.service.matchmaking.JoinResult;
+import com.devbox.mavenapp.service.matchmaking.MatchmakingQueue;
+import com.devbox.mavenapp.service.matchmaking.WaitingPlayer;
+
+public class MatchmakingQueueTest {
+
+    @Test
+    public void testPairsPlayersIntoNewRooms() {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+
+        JoinResult first = queue.join(new WaitingPlayer("s1", "1", "alice"));
+        JoinResult second = queue.join(new WaitingPlayer("s2", "2", "bob"));
+        JoinResult third = queue.join(new WaitingPlayer("s3", "3", "carol"));
+
+        assertThat(first.getStatus()).isEqualTo(JoinResult.Status.WAITING);
+        assertThat(second.getStatus()).isEqualTo(JoinResult.Status.MATCHED);
+        assertThat(second.getRoomId()).isEqualTo(first.getRoomId());
+        assertThat(second.getPlayers()).extracting(WaitingPlayer::getUsername).containsExactly("alice", "bob");
+        assertThat(third.getStatus()).isEqualTo(JoinResult.Status.WAITING);
+        assertThat(third.getRoomId()).isNotEqualTo(second.getRoomId());
+        assertThat(third.getPlayers()).extracting(WaitingPlayer::getUsername).containsExactly("carol");
+    }
+
+    @Test
+    public void testRejectsDuplicateUserIdOrName() {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+        queue.join(new WaitingPlayer("s1", "1", "alice"));
+
+        assertThat(queue.join(new WaitingPlayer("s2", "1", "bob")).getStatus()).isEqualTo(JoinResult.Status.DUPLICATE);
+        assertThat(queue.join(new WaitingPlayer("s3", "3", "alice")).getStatus()).isEqualTo(JoinResult.Status.DUPLICATE);
+        assertThat(queue.getDuplicateCount()).isEqualTo(2);
+
+        // 拒否されたプレイヤーの userName は予約されたままになっていない
+        assertThat(queue.join(new WaitingPlayer("s4", "4", "bob")).getStatus()).isEqualTo(JoinResult.Status.MATCHED);
+    }
+
+    @Test
+    public void testRejectsMissingUserIdOrNameWithoutRegisteringSession() {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+
+        assertThatThrownBy(() -> queue.join(new WaitingPlayer("s1", null, "alice")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queue.join(new WaitingPlayer("s2", "2", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // 拒否したセッションや userId は登録されたままになっていない
+        assertThat(queue.join(new WaitingPlayer("s1", "1", "alice")).getStatus()).isEqualTo(JoinResult.Status.WAITING);
+        assertThat(queue.join(new WaitingPlayer("s2", "2", "bob")).getStatus()).isEqualTo(JoinResult.Status.MATCHED);
+        assertThat(queue.getDuplicateCount()).isZero();
+    }
+
+    @Test
+    public void testLeaveNotifiesOnlyRemainingGroup() {
+        MatchmakingQueue queue = new MatchmakingQueue(3);
+        queue.join(new WaitingPlayer("s1", "1", "alice"));
+        queue.join(new WaitingPlayer("s2", "2", "bob"));
+
+        JoinResult remaining = queue.leave("s1");
+
+        assertThat(remaining.getPlayers()).extracting(WaitingPlayer::getUsername).containsExactly("bob");
+        assertThat(queue.leave("s1")).isNull();
+        assertThat(queue.join(new WaitingPlayer("s5", "1", "alice")).getStatus()).isEqualTo(JoinResult.Status.WAITING);
+    }
+
+    @Test
+    public void testMatchesPlayerWhoWaitedTooLongWithBot() {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+        WaitingPlayer bot = new WaitingPlayer("bot", "bot", "ボット");
+        long maxWait = TimeUnit.SECONDS.toNanos(10);
+        queue.join(new WaitingPlayer("s1", "1", "alice", 0));
+
+        assertThat(queue.matchExpired(maxWait - 1, maxWait, bot, "bot-")).isNull();
+        JoinResult matched = queue.matchExpired(maxWait, maxWait, bot, "bot-");
+
+        assertThat(matched.getStatus()).isEqualTo(JoinResult.Status.MATCHED);
+        assertThat(matched.getRoomId()).startsWith("bot-");
+        assertThat(matched.getPlayers()).extracting(WaitingPlayer::getUsername).containsExactly("alice", "ボット");
+        assertThat(queue.getWaitingCount()).isZero();
+        assertThat(queue.getBotMatchCount()).isEqualTo(1);
+        assertThat(queue.matchExpired(maxWait * 2, maxWait, bot, "bot-")).isNull();
+    }
+
+    @Test
+    public void testConcurrentJoinsPairEveryPlayerExactlyOnce() throws Exception {
+        MatchmakingQueue queue = new MatchmakingQueue(2);
+        int threads = 8;
+        int joinsPerThread = 2_000;
+        List<JoinResult> matches = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < joinsPerThread; i++) {
+                        String id = thread + "-" + i;
+                        JoinResult result = queue.join(new WaitingPlayer("s" + id, id, "user" + id));
+                        if (result.getStatus() == JoinResult.Status.MATCHED) {
+                            matches.add(result);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 全員がちょうど1回ずつ、2人組のどれかに入っている
+        int joins = threads * joinsPerThread;
+        assertThat(matches).hasSize(joins / 2);
+        assertThat(matches).allSatisfy(match -> assertThat(match.getPlayers()).hasSize(2));
+        assertThat(matches).extracting(JoinResult::getRoomId).doesNotHaveDuplicates();
+        assertThat(matches).flatExtracting(JoinResult::getPlayers)
+                .extracting(WaitingPlayer::getSessionId)
+                .hasSize(joins)
+                .doesNotHaveDuplicates();
+        assertThat(queue.getMatchCount()).isEqualTo(joins / 2);
+        assertThat(queue.getWaitingCount()).isZero();
+        assertThat(queue.getDuplicateCount()).isZero();
+    }
+}
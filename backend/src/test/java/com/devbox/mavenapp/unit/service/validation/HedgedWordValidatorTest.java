@@ -0,0 +1,117 @@
+package com.devbox.mavenapp.unit.service.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.service.validation.CachingWordValidator;
+import com.devbox.mavenapp.service.validation.HedgedWordValidator;
+import com.devbox.mavenapp.service.validation.HedgedWordValidator.Source;
+import com.devbox.mavenapp.service.validation.WordValidator;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+
+public class HedgedWordValidatorTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static WordValidator answering(WordVerdict verdict, long delayMillis, AtomicInteger calls) {
+        return word -> {
+            calls.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return verdict;
+        };
+    }
+
+    @Test
+    public void testSlowSourceIsHedgedByNextSource() {
+        AtomicInteger slowCalls = new AtomicInteger();
+        AtomicInteger backupCalls = new AtomicInteger();
+        Source slow = new Source(answering(WordVerdict.VALID, 2000, slowCalls), true);
+        Source backup = new Source(answering(WordVerdict.VALID, 0, backupCalls), true);
+        HedgedWordValidator validator = new HedgedWordValidator(List.of(slow, backup),
+                Duration.ofMillis(50), Duration.ofSeconds(5), executor);
+
+        long start = System.nanoTime();
+        assertThat(validator.validate("りんご")).isEqualTo(WordVerdict.VALID);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(backupCalls.get()).isEqualTo(1);
+        assertThat(backup.getWinCount()).isEqualTo(1);
+        assertThat(slow.getWinCount()).isZero();
+        assertThat(validator.getHedgeCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidFromNonAuthoritativeSourceMovesOnWithoutWaiting() {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        Source local = new Source(answering(WordVerdict.INVALID, 0, new AtomicInteger()), false);
+        Source remote = new Source(answering(WordVerdict.INVALID, 0, remoteCalls), true);
+        HedgedWordValidator validator = new HedgedWordValidator(List.of(local, remote),
+                Duration.ofSeconds(10), Duration.ofSeconds(5), executor);
+
+        assertThat(validator.validate("りんごん")).isEqualTo(WordVerdict.INVALID);
+        assertThat(remoteCalls.get()).isEqualTo(1);
+        assertThat(remote.getWinCount()).isEqualTo(1);
+        assertThat(validator.getHedgeCount()).isZero();
+    }
+
+    @Test
+    public void testUndecidedWhenNoTrustworthyAnswer() {
+        Source local = new Source(answering(WordVerdict.INVALID, 0, new AtomicInteger()), false);
+        Source failing = new Source(answering(WordVerdict.UNKNOWN, 0, new AtomicInteger()), true);
+        HedgedWordValidator validator = new HedgedWordValidator(List.of(local, failing),
+                Duration.ofMillis(50), Duration.ofSeconds(5), executor);
+
+        // ローカル辞書に載っていないだけでは不正解にしない
+        assertThat(validator.validate("ごりら")).isEqualTo(WordVerdict.UNKNOWN);
+
+        Source hanging = new Source(answering(WordVerdict.VALID, 2000, new AtomicInteger()), true);
+        HedgedWordValidator timingOut = new HedgedWordValidator(List.of(hanging),
+                Duration.ofMillis(50), Duration.ofMillis(200), executor);
+
+        assertThat(timingOut.validate("ごりら")).isEqualTo(WordVerdict.UNKNOWN);
+        assertThat(timingOut.getUndecidedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAsyncThroughCacheDoesNotBlockCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WordValidator remote = word -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return WordVerdict.VALID;
+        };
+        HedgedWordValidator hedged = new HedgedWordValidator(List.of(new Source(remote, true)),
+                Duration.ofMillis(50), Duration.ofSeconds(5), executor);
+        CachingWordValidator validator = new CachingWordValidator(hedged);
+
+        // ルームと同じ経路では、判定元の応答を待たずに戻る
+        CompletableFuture<WordVerdict> first = validator.validateAsync("りんご", Runnable::run);
+        assertThat(first).isNotDone();
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(WordVerdict.VALID);
+
+        assertThat(validator.validateAsync("りんご", Runnable::run)).isCompletedWithValue(WordVerdict.VALID);
+    }
+}
@@ -0,0 +1,76 @@
+package com.devbox.mavenapp.unit.service.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.devbox.mavenapp.service.validation.CachingWordValidator;
+import com.devbox.mavenapp.service.validation.FallbackWordValidator;
+import com.devbox.mavenapp.service.validation.LocalDictionary;
+import com.devbox.mavenapp.service.validation.LocalDictionaryWordValidator;
+import com.devbox.mavenapp.service.validation.WordValidationCache;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+
+public class LocalDictionaryTest {
+
+    @Test
+    public void testContainsNormalizesKatakana() {
+        LocalDictionary dictionary = LocalDictionary.fromWords(List.of("りんご", "ゴリラ", "らっぱ", "りんご", ""));
+
+        assertThat(dictionary.size()).isEqualTo(3);
+        assertThat(dictionary.contains("りんご")).isTrue();
+        assertThat(dictionary.contains("リンゴ")).isTrue();
+        assertThat(dictionary.contains("ごりら")).isTrue();
+        assertThat(dictionary.contains("りん")).isFalse();
+        assertThat(dictionary.contains("りんごあめ")).isFalse();
+    }
+
+    @Test
+    public void testMappedIndexMatchesHeapIndex(@TempDir Path dir) throws Exception {
+        LocalDictionary dictionary = LocalDictionary.loadFromClasspath("dictionary/words.txt");
+        Path index = dir.resolve("words.idx");
+        dictionary.writeIndex(index);
+
+        LocalDictionary mapped = LocalDictionary.mapIndex(index);
+
+        assertThat(mapped.isMapped()).isTrue();
+        assertThat(mapped.size()).isEqualTo(dictionary.size());
+        assertThat(mapped.getIndexBytes()).isEqualTo(dictionary.getIndexBytes());
+        for (int i = 0; i < dictionary.size(); i++) {
+            assertThat(mapped.contains(dictionary.wordAt(i))).isTrue();
+        }
+        assertThat(mapped.contains("そんなたんごはない")).isFalse();
+    }
+
+    @Test
+    public void testFallbackIsOnlyAskedForUnknownWords() {
+        LocalDictionaryWordValidator local = new LocalDictionaryWordValidator(LocalDictionary.fromWords(List.of("りんご")));
+        int[] fallbackCalls = {0};
+        FallbackWordValidator validator = new FallbackWordValidator(local, word -> {
+            fallbackCalls[0]++;
+            return WordVerdict.UNKNOWN;
+        });
+
+        assertThat(validator.validate("りんご")).isEqualTo(WordVerdict.VALID);
+        assertThat(fallbackCalls[0]).isZero();
+        assertThat(validator.validate("ごりら")).isEqualTo(WordVerdict.UNKNOWN);
+        assertThat(fallbackCalls[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void testNotInLocalDictionaryIsUnknownWhenFallbackCannotDecide() {
+        LocalDictionaryWordValidator local = new LocalDictionaryWordValidator(LocalDictionary.fromWords(List.of("りんご")));
+        WordValidationCache cache = new WordValidationCache();
+        CachingWordValidator validator = new CachingWordValidator(
+                new FallbackWordValidator(local, word -> WordVerdict.UNKNOWN), cache);
+
+        // Weblio が答えられないだけで、辞書に載っていない単語を不正解にしない
+        assertThat(validator.validate("ごりら")).isEqualTo(WordVerdict.UNKNOWN);
+        assertThat(validator.validateAsync("ごりら", Runnable::run)).isCompletedWithValue(WordVerdict.UNKNOWN);
+        assertThat(cache.get("ごりら")).isNull();
+    }
+}
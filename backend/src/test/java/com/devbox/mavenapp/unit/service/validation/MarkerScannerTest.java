@@ -0,0 +1,89 @@
+package com.devbox.mavenapp.unit.service.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.service.validation.MarkerScanner;
+import com.devbox.mavenapp.service.validation.MarkerScanner.Result;
+
+public class MarkerScannerTest {
+    private static final String MARKER = "該当する単語が見つかりません";
+    private final MarkerScanner scanner = MarkerScanner.utf8(MARKER);
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final LongAdder scannedBytes = new LongAdder();
+
+    private HttpResponse.BodySubscriber<Result> subscribe(long maxBytes) {
+        HttpResponse.BodySubscriber<Result> subscriber = scanner.bodySubscriber(maxBytes, scannedBytes);
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                requested.addAndGet(n);
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+        });
+        return subscriber;
+    }
+
+    private static List<ByteBuffer> chunk(String text) {
+        return List.of(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testFindsMarkerSplitAcrossBuffersAndStopsReading() {
+        byte[] page = ("<html>該当する単語が見つかりま" + MARKER + "</html>").getBytes(StandardCharsets.UTF_8);
+        int state = 0;
+        // 1バイトずつ渡しても、途中で一致が崩れたところから正しく探し直す
+        for (int i = 0; i < page.length && state != scanner.length(); i++) {
+            state = scanner.scan(state, ByteBuffer.wrap(page, i, 1));
+        }
+        assertThat(state).isEqualTo(scanner.length());
+
+        HttpResponse.BodySubscriber<Result> subscriber = subscribe(1 << 20);
+        int split = "<html>".length() + 7;
+        String text = "<html>" + MARKER + "</html>";
+        subscriber.onNext(chunk(text.substring(0, split)));
+        subscriber.onNext(chunk(text.substring(split)));
+
+        assertThat(subscriber.getBody().toCompletableFuture().join()).isEqualTo(Result.FOUND);
+        assertThat(cancelled).isTrue();
+        assertThat(requested.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNotFoundAtEndOfBody() {
+        HttpResponse.BodySubscriber<Result> subscriber = subscribe(1 << 20);
+        subscriber.onNext(chunk("<html>りんごの意味"));
+        subscriber.onNext(chunk("。該当する単語</html>"));
+        subscriber.onComplete();
+
+        assertThat(subscriber.getBody().toCompletableFuture().join()).isEqualTo(Result.NOT_FOUND);
+        assertThat(cancelled).isFalse();
+    }
+
+    @Test
+    public void testStopsAtByteLimit() {
+        HttpResponse.BodySubscriber<Result> subscriber = subscribe(100);
+        subscriber.onNext(chunk("a".repeat(60)));
+        subscriber.onNext(chunk("b".repeat(60) + MARKER));
+
+        assertThat(subscriber.getBody().toCompletableFuture().join()).isEqualTo(Result.LIMIT_REACHED);
+        assertThat(cancelled).isTrue();
+        assertThat(scannedBytes.sum()).isEqualTo(100);
+    }
+}
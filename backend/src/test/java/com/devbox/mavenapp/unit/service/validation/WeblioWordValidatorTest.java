@@ -0,0 +1,114 @@
+package com.devbox.mavenapp.unit.service.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.service.validation.WeblioWordValidator;
+import com.devbox.mavenapp.service.validation.WordVerdict;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class WeblioWordValidatorTest {
+    private HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean holdResponses;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/content/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        if (holdResponses) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String word = exchange.getRequestURI().getPath().substring("/content/".length());
+        String body = word.equals("りんごん")
+                ? "<html><body>該当する単語が見つかりませんでした</body></html>"
+                : "<html><body>" + word + "の意味</body></html>";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private WeblioWordValidator validator(int maxConcurrentRequests, int maxQueuedRequests, Duration timeout) {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/content/";
+        return new WeblioWordValidator(baseUrl, maxConcurrentRequests, maxQueuedRequests, timeout);
+    }
+
+    @Test
+    public void testDetectsNotFoundMarker() {
+        WeblioWordValidator validator = validator(4, 16, Duration.ofSeconds(5));
+
+        assertThat(validator.validate("りんご")).isEqualTo(WordVerdict.VALID);
+        assertThat(validator.validate("りんごん")).isEqualTo(WordVerdict.INVALID);
+        assertThat(validator.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testConcurrentLookupsOfSameWordShareOneRequest() {
+        WeblioWordValidator validator = validator(4, 16, Duration.ofSeconds(5));
+        holdResponses = true;
+
+        List<CompletableFuture<WordVerdict>> lookups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lookups.add(validator.lookup("ごりら"));
+        }
+        release.countDown();
+
+        assertThat(lookups).allSatisfy(lookup -> assertThat(lookup.join()).isEqualTo(WordVerdict.VALID));
+        assertThat(requestCount.get()).isEqualTo(1);
+        assertThat(validator.getCoalescedCount()).isEqualTo(9);
+        assertThat(validator.getInFlightCount()).isZero();
+    }
+
+    @Test
+    public void testLimitsConcurrentRequestsAndTimesOut() {
+        WeblioWordValidator validator = validator(1, 1, Duration.ofMillis(300));
+        holdResponses = true;
+
+        CompletableFuture<WordVerdict> first = validator.lookup("らっぱ");
+        CompletableFuture<WordVerdict> queued = validator.lookup("ぱんだ");
+        CompletableFuture<WordVerdict> rejected = validator.lookup("だちょう");
+
+        assertThat(rejected.join()).isEqualTo(WordVerdict.UNKNOWN);
+        assertThat(validator.getRejectedCount()).isEqualTo(1);
+        // 応答が返らないまま期限を過ぎたものは、待ち行列の分も含めて UNKNOWN になる
+        assertThat(first.join()).isEqualTo(WordVerdict.UNKNOWN);
+        assertThat(queued.join()).isEqualTo(WordVerdict.UNKNOWN);
+    }
+}
@@ -0,0 +1,55 @@
+package com.devbox.mavenapp.unit.service.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.devbox.mavenapp.service.validation.WordValidationCache;
+
+public class WordValidationCacheTest {
+
+    @Test
+    public void testStoresValidAndInvalidResults() {
+        WordValidationCache cache = new WordValidationCache();
+
+        cache.put("りんご", true);
+        cache.put("りんごん", false);
+
+        assertThat(cache.get("りんご")).isTrue();
+        assertThat(cache.get("りんごん")).isFalse();
+        assertThat(cache.get("ごりら")).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        WordValidationCache cache = new WordValidationCache(2, Duration.ofHours(1), Duration.ofHours(1));
+
+        cache.put("りんご", true);
+        cache.put("ごりら", true);
+        cache.get("りんご");
+        cache.put("らっぱ", true);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.get("ごりら")).isNull();
+        assertThat(cache.get("りんご")).isTrue();
+        assertThat(cache.get("らっぱ")).isTrue();
+    }
+
+    @Test
+    public void testInvalidResultsExpireWithTheirOwnTtl() throws Exception {
+        WordValidationCache cache = new WordValidationCache(10, Duration.ofHours(1), Duration.ofMillis(1));
+
+        cache.put("りんご", true);
+        cache.put("りんごん", false);
+        Thread.sleep(5);
+
+        assertThat(cache.get("りんご")).isTrue();
+        assertThat(cache.get("りんごん")).isNull();
+        assertThat(cache.getExpirationCount()).isEqualTo(1);
+    }
+}
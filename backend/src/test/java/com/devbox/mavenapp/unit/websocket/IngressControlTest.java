@@ -0,0 +1,221 @@
+package com.devbox.mavenapp.unit.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import com.devbox.mavenapp.websocket.IngressControl;
+import com.devbox.mavenapp.websocket.IngressControl.Rate;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OverloadPolicy;
+import com.devbox.mavenapp.websocket.TokenBucket;
+
+public class IngressControlTest {
+    private static final TextMessage ROULETTE = new TextMessage("{\"type\":\"startRoulette\"}");
+    private static final TextMessage INPUT = new TextMessage("{\"type\":\"inputWord\",\"word\":\"り\"}");
+    /** 補充を待たないテスト用。burst を使い切ったら戻らない */
+    private static final Rate TWO_ONLY = new Rate(0.001, 2);
+
+    @Test
+    public void testTokenBucketAllowsBurstThenRefillsAtRate() {
+        long start = 1_000_000_000L;
+        TokenBucket bucket = new TokenBucket(10, 3, start);
+
+        assertThat(bucket.tryAcquire(start)).isTrue();
+        assertThat(bucket.tryAcquire(start)).isTrue();
+        assertThat(bucket.tryAcquire(start)).isTrue();
+        assertThat(bucket.tryAcquire(start)).isFalse();
+        // 100ms で1つ戻る
+        assertThat(bucket.acquire(start + TimeUnit.MILLISECONDS.toNanos(40), 0)).isEqualTo(-1);
+        assertThat(bucket.tryAcquire(start + TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+        assertThat(bucket.tryAcquire(start + TimeUnit.MILLISECONDS.toNanos(100))).isFalse();
+        // 待てるなら予約して、待つ時間を返す
+        assertThat(bucket.acquire(start + TimeUnit.MILLISECONDS.toNanos(150), TimeUnit.MILLISECONDS.toNanos(60)))
+                .isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        // 長く使わなくても burst より多くはたまらない
+        long later = start + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(later)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(later)).isFalse();
+        // 返したトークンはすぐ使える
+        bucket.refund();
+        assertThat(bucket.tryAcquire(later)).isTrue();
+    }
+
+    @Test
+    public void testRejectDropsOnlyTheFloodedType() throws Exception {
+        IngressControl ingress = ingress(OverloadPolicy.REJECT, 10);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler guarded = ingress.guard(handler);
+        WebSocketSession session = session("s1");
+        guarded.afterConnectionEstablished(session);
+
+        for (int i = 0; i < 5; i++) {
+            guarded.handleMessage(session, ROULETTE);
+        }
+        guarded.handleMessage(session, INPUT);
+
+        verify(handler, times(2)).handleMessage(session, ROULETTE);
+        verify(handler).handleMessage(session, INPUT);
+        verify(session, never()).close(any(CloseStatus.class));
+        assertThat(ingress.getThrottledCount(MessageType.START_ROULETTE, OverloadPolicy.REJECT)).isEqualTo(3);
+        assertThat(ingress.getThrottledCount(MessageType.INPUT_WORD, OverloadPolicy.REJECT)).isZero();
+    }
+
+    @Test
+    public void testSessionLimitDoesNotSpendTypeTokens() throws Exception {
+        // セッション全体は 1 通ためられて 50ms ごとに戻る。先に断られた分で種類のトークンを減らさない
+        IngressControl ingress = new IngressControl(10, 10, new Rate(20, 1),
+                Map.of(MessageType.START_ROULETTE, TWO_ONLY), OverloadPolicy.REJECT, Duration.ofMillis(50), 4);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler guarded = ingress.guard(handler);
+        WebSocketSession session = session("s1");
+        guarded.afterConnectionEstablished(session);
+
+        guarded.handleMessage(session, INPUT);
+        for (int i = 0; i < 3; i++) {
+            guarded.handleMessage(session, ROULETTE);
+        }
+        verify(handler, never()).handleMessage(session, ROULETTE);
+
+        Thread.sleep(80);
+        guarded.handleMessage(session, ROULETTE);
+        verify(handler).handleMessage(session, ROULETTE);
+    }
+
+    @Test
+    public void testDisconnectPolicyClosesFloodingSession() throws Exception {
+        IngressControl ingress = ingress(OverloadPolicy.DISCONNECT, 10);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler guarded = ingress.guard(handler);
+        WebSocketSession session = session("s1");
+        guarded.afterConnectionEstablished(session);
+
+        for (int i = 0; i < 3; i++) {
+            guarded.handleMessage(session, ROULETTE);
+        }
+
+        verify(handler, times(2)).handleMessage(session, ROULETTE);
+        verify(session).close(CloseStatus.POLICY_VIOLATION.withReason("Rate limit exceeded"));
+        assertThat(ingress.getThrottledCount(MessageType.START_ROULETTE, OverloadPolicy.DISCONNECT)).isEqualTo(1);
+    }
+
+    @Test
+    public void testDelayPolicyHoldsMessageUntilTokenIsBack() throws Exception {
+        TextMessage check = new TextMessage("{\"type\":\"checkWord\",\"word\":\"りんご\"}");
+        Map<MessageType, Rate> rates = Map.of(MessageType.START_ROULETTE, new Rate(20, 1),
+                MessageType.CHECK_WORD, new Rate(5, 1));
+        IngressControl ingress = new IngressControl(10, 10, new Rate(1000, 1000), rates, OverloadPolicy.DELAY,
+                Duration.ofMillis(80), 4);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler guarded = ingress.guard(handler);
+        WebSocketSession session = session("s1");
+        guarded.afterConnectionEstablished(session);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            guarded.handleMessage(session, ROULETTE);
+        }
+        long elapsed = System.nanoTime() - start;
+        // 次のトークンまで 200ms かかるので、80ms 以上は待たせずに捨てる
+        guarded.handleMessage(session, check);
+        guarded.handleMessage(session, check);
+
+        // 50ms ごとに1通ずつ通す
+        assertThat(elapsed).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(90));
+        verify(handler, times(3)).handleMessage(session, ROULETTE);
+        verify(handler).handleMessage(session, check);
+        assertThat(ingress.getThrottledCount(MessageType.START_ROULETTE, OverloadPolicy.DELAY)).isEqualTo(2);
+        assertThat(ingress.getThrottledCount(MessageType.CHECK_WORD, OverloadPolicy.REJECT)).isEqualTo(1);
+    }
+
+    @Test
+    public void testConnectionCapRejectsHandshakeAndLateConnection() throws Exception {
+        IngressControl ingress = ingress(OverloadPolicy.REJECT, 1);
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        WebSocketHandler guarded = ingress.guard(handler);
+        HandshakeInterceptor interceptor = ingress.handshakeInterceptor();
+        WebSocketSession first = session("s1");
+        WebSocketSession second = session("s2");
+
+        assertThat(handshake(interceptor, null)).isTrue();
+        // 両方のハンドシェイクが通ってから確立した場合も、あとの方を断る
+        guarded.afterConnectionEstablished(first);
+        guarded.afterConnectionEstablished(second);
+        ServerHttpResponse refused = response();
+        assertThat(handshake(interceptor, refused)).isFalse();
+
+        verify(handler).afterConnectionEstablished(first);
+        verify(handler, never()).afterConnectionEstablished(second);
+        verify(second).close(CloseStatus.SERVICE_OVERLOAD.withReason("Too many connections"));
+        verify(refused).setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(ingress.getRejectedConnectionCount()).isEqualTo(2);
+
+        // 断った接続が閉じても数は変わらず、先の接続が閉じれば次を受け付ける
+        guarded.afterConnectionClosed(second, CloseStatus.SERVICE_OVERLOAD);
+        verify(handler, never()).afterConnectionClosed(any(), any());
+        assertThat(ingress.getConnectionCount()).isEqualTo(1);
+        guarded.afterConnectionClosed(first, CloseStatus.NORMAL);
+        assertThat(ingress.getConnectionCount()).isZero();
+        assertThat(handshake(interceptor, null)).isTrue();
+    }
+
+    @Test
+    public void testHandshakesInFlightAreCapped() throws Exception {
+        IngressControl ingress = new IngressControl(10, 1, new Rate(10, 10), Map.of(), OverloadPolicy.REJECT,
+                Duration.ZERO, 1);
+        HandshakeInterceptor interceptor = ingress.handshakeInterceptor();
+
+        assertThat(handshake(interceptor, null)).isTrue();
+        assertThat(handshake(interceptor, null)).isFalse();
+        interceptor.afterHandshake(mock(ServerHttpRequest.class), response(), mock(WebSocketHandler.class), null);
+
+        assertThat(ingress.getHandshakesInFlight()).isZero();
+        assertThat(handshake(interceptor, null)).isTrue();
+        assertThat(ingress.getRejectedHandshakeCount()).isEqualTo(1);
+    }
+
+    private static IngressControl ingress(OverloadPolicy policy, int maxConnections) {
+        return new IngressControl(maxConnections, 10, new Rate(1000, 1000),
+                Map.of(MessageType.START_ROULETTE, TWO_ONLY), policy, Duration.ofMillis(50), 4);
+    }
+
+    private static boolean handshake(HandshakeInterceptor interceptor, ServerHttpResponse response) throws Exception {
+        return interceptor.beforeHandshake(mock(ServerHttpRequest.class), response == null ? response() : response,
+                mock(WebSocketHandler.class), new HashMap<>());
+    }
+
+    private static ServerHttpResponse response() {
+        ServerHttpResponse response = mock(ServerHttpResponse.class);
+        when(response.getHeaders()).thenReturn(new HttpHeaders());
+        return response;
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
@@ -0,0 +1,68 @@
+package com.devbox.mavenapp.unit.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import com.devbox.mavenapp.model.GameMessage;
+import com.devbox.mavenapp.model.StartTurnMessage;
+import com.devbox.mavenapp.websocket.MessageCodec;
+import com.devbox.mavenapp.websocket.MessageType;
+import com.devbox.mavenapp.websocket.OutboundFrame;
+import com.devbox.mavenapp.websocket.WireEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+public class MessageCodecTest {
+    MessageCodec codec = new MessageCodec();
+
+    @Test
+    public void testDecodeJsonAndCbor() throws Exception {
+        GameMessage fromJson = codec.decode("{\"type\":\"checkWord\",\"word\":\"りんご\",\"playerId\":1}");
+        byte[] cbor = new ObjectMapper(new CBORFactory())
+                .writeValueAsBytes(Map.of("type", "checkWord", "word", "りんご", "playerId", 1));
+        GameMessage fromCbor = codec.decode(ByteBuffer.wrap(cbor));
+
+        for (GameMessage message : new GameMessage[] { fromJson, fromCbor }) {
+            assertThat(MessageType.fromWireName(message.getType())).isEqualTo(MessageType.CHECK_WORD);
+            assertThat(message.getWord()).isEqualTo("りんご");
+            assertThat(message.getPlayerId()).isEqualTo(1);
+        }
+        assertThat(MessageType.fromWireName("somethingElse")).isEqualTo(MessageType.UNKNOWN);
+    }
+
+    @Test
+    public void testPeekTypeReadsOnlyTheTypeField() throws Exception {
+        assertThat(codec.peekType("{\"word\":{\"type\":\"join\"},\"type\":\"inputWord\",\"x\":")).isEqualTo(MessageType.INPUT_WORD);
+        assertThat(codec.peekType("{\"type\":1}")).isEqualTo(MessageType.UNKNOWN);
+        assertThat(codec.peekType("not json")).isEqualTo(MessageType.UNKNOWN);
+
+        ByteBuffer cbor = ByteBuffer.wrap(new ObjectMapper(new CBORFactory())
+                .writeValueAsBytes(Map.of("type", "startRoulette")));
+        assertThat(codec.peekType(cbor)).isEqualTo(MessageType.START_ROULETTE);
+        // 読んだあとでもデコードできる
+        assertThat(codec.decode(cbor).getType()).isEqualTo("startRoulette");
+    }
+
+    @Test
+    public void testFrameIsSerializedOnceAndSharedBetweenJsonSessions() throws Exception {
+        OutboundFrame frame = codec.encode(new StartTurnMessage(true));
+
+        WebSocketMessage<?> first = frame.forEncoding(WireEncoding.JSON);
+        WebSocketMessage<?> second = frame.forEncoding(WireEncoding.JSON);
+        assertThat(first).isSameAs(second);
+        assertThat(((TextMessage) first).getPayload())
+                .isEqualTo("{\"type\":\"startTurn\",\"isCurrentUserTurn\":true}");
+
+        BinaryMessage binary = (BinaryMessage) frame.forEncoding(WireEncoding.CBOR);
+        Map<?, ?> decoded = new ObjectMapper(new CBORFactory()).readValue(binary.getPayload().array(), Map.class);
+        assertThat(decoded.get("isCurrentUserTurn")).isEqualTo(true);
+        assertThat(frame.forEncoding(WireEncoding.CBOR)).isNotSameAs(binary);
+    }
+}
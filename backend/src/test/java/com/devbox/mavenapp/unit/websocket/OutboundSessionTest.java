@@ -0,0 +1,167 @@
+package com.devbox.mavenapp.unit.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.devbox.mavenapp.websocket.OutboundDispatcher;
+import com.devbox.mavenapp.websocket.OutboundSession;
+import com.devbox.mavenapp.websocket.OverflowPolicy;
+
+public class OutboundSessionTest {
+    OutboundDispatcher dispatcher;
+    CountDownLatch unblock = new CountDownLatch(1);
+
+    @AfterEach
+    public void afterEach() {
+        unblock.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSlowSessionDoesNotBlockOthers() throws Exception {
+        dispatcher = new OutboundDispatcher(Duration.ofSeconds(10), 1024, 16, OverflowPolicy.DROP_OLDEST);
+        OutboundSession slow = dispatcher.wrap(blockingSession("slow", new ArrayList<>()));
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        WebSocketSession fast = recordingSession("fast", received);
+        OutboundSession fastOutbound = dispatcher.wrap(fast);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            TextMessage message = new TextMessage("m" + i);
+            slow.send(message);
+            fastOutbound.send(message);
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+
+        verify(fast, timeout(1000).times(5)).sendMessage(any());
+        assertThat(received).containsExactly("m0", "m1", "m2", "m3", "m4");
+    }
+
+    @Test
+    public void testDropOldestWhenQueueIsFull() throws Exception {
+        dispatcher = new OutboundDispatcher(Duration.ofSeconds(10), 1024, 2, OverflowPolicy.DROP_OLDEST);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        OutboundSession outbound = dispatcher.wrap(blockingSession("s", received));
+
+        outbound.send(new TextMessage("first"));
+        awaitSending(received);
+        outbound.send(new TextMessage("a"));
+        outbound.send(new TextMessage("b"));
+        outbound.send(new TextMessage("c"));
+
+        assertThat(outbound.getQueueDepth()).isEqualTo(2);
+        assertThat(dispatcher.getMetrics().getDroppedCount()).isEqualTo(1);
+        unblock.countDown();
+        waitFor(() -> received.size() == 3);
+        assertThat(received).containsExactly("first", "b", "c");
+    }
+
+    @Test
+    public void testCoalesceReplacesQueuedMessageWithSameKey() throws Exception {
+        dispatcher = new OutboundDispatcher(Duration.ofSeconds(10), 1024, 2, OverflowPolicy.COALESCE);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        OutboundSession outbound = dispatcher.wrap(blockingSession("s", received));
+
+        outbound.send(new TextMessage("first"));
+        awaitSending(received);
+        outbound.send(new TextMessage("state1"), "state");
+        outbound.send(new TextMessage("event"));
+        outbound.send(new TextMessage("state2"), "state");
+
+        assertThat(dispatcher.getMetrics().getCoalescedCount()).isEqualTo(1);
+        unblock.countDown();
+        waitFor(() -> received.size() == 3);
+        assertThat(received).containsExactly("first", "event", "state2");
+    }
+
+    @Test
+    public void testDisconnectPolicyClosesSession() throws Exception {
+        dispatcher = new OutboundDispatcher(Duration.ofSeconds(10), 1024, 1, OverflowPolicy.DISCONNECT);
+        WebSocketSession session = blockingSession("s", Collections.synchronizedList(new ArrayList<>()));
+        OutboundSession outbound = dispatcher.wrap(session);
+
+        outbound.send(new TextMessage("first"));
+        waitFor(() -> outbound.getQueueDepth() == 0);
+        outbound.send(new TextMessage("a"));
+        outbound.send(new TextMessage("b"));
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(dispatcher.getMetrics().getDisconnectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWatchdogClosesStalledSendWithoutFurtherMessages() throws Exception {
+        dispatcher = new OutboundDispatcher(Duration.ofMillis(100), 1024, 16, OverflowPolicy.DROP_OLDEST);
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        WebSocketSession session = blockingSession("s", received);
+        OutboundSession outbound = dispatcher.wrap(session);
+
+        outbound.send(new TextMessage("stuck"));
+        outbound.send(new TextMessage("queued"));
+        awaitSending(received);
+
+        // 次の send() を待たずに切断し、積まれていたメッセージは捨てる
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(outbound.getQueueDepth()).isZero();
+        assertThat(dispatcher.getMetrics().getDisconnectedCount()).isEqualTo(1);
+    }
+
+    private WebSocketSession recordingSession(String id, List<String> received) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            received.add(((WebSocketMessage<?>) invocation.getArgument(0)).getPayload().toString());
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    /**
+     * 最初の1通の送信で unblock されるまで止まるセッション。
+     */
+    private WebSocketSession blockingSession(String id, List<String> received) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            received.add(((WebSocketMessage<?>) invocation.getArgument(0)).getPayload().toString());
+            unblock.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private void awaitSending(List<String> received) throws InterruptedException {
+        waitFor(() -> !received.isEmpty());
+    }
+
+    private void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
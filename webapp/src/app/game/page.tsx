@@ -44,6 +44,9 @@ export default function Game() {
 
   // WebSocket reference
   const socketRef = useRef<WebSocket | null>(null);
+  // 差分同期用: 最後に反映した seq と、サーバーから受け取った盤面
+  const stateSeqRef = useRef<number>(-1);
+  const gameStateRef = useRef<any>(null);
   console.log(players[currentPlayerIndex]?.username);
 
   const getOrder = useMemo<number>(
@@ -77,64 +80,115 @@ export default function Game() {
     if (!userId) return;
 
     if (!socketRef.current) {
-      const ws = new WebSocket(`ws://localhost:8080/game?roomId=${roomId}`);
-      socketRef.current = ws;
-
-      ws.onopen = () => {
-        console.log("WebSocket connected");
-        console.log("UID:", userId);
+      // 再開用: サーバーから受け取ったトークンと、最後に受け取った mseq
+      let resumeToken: string | null = null;
+      let lastSeq = 0;
+      let retries = 0;
+      let retryTimer: ReturnType<typeof setTimeout> | undefined;
+      let disposed = false;
+
+      const join = (ws: WebSocket) => {
         ws.send(
           JSON.stringify({
             type: "join",
+            userId,
             userName,
             order: getOrder,
           })
         );
       };
 
-      ws.onmessage = (event) => {
-        const data = JSON.parse(event.data);
-        console.log("WebSocket message:", data);
-
-        switch (data.type) {
-          case "updateGameState":
-            updateGameState(data);
-            break;
-          case "rouletteResult":
-            handleRouletteResult(data.result);
-            break;
-          case "checkResult":
-            handleCheckResult(data);
-            break;
-          case "resultMessage":
-            showResultMessage(data.body, 3000);
-            break;
-          case "startTurn":
-            setTimer(30);
-            setRouletteResult(null);
-            setIsRouletteLarge(true);
-            setIsRouletteVisible(true);
-            setIsSpinnable(data.isCurrentUserTurn);
-            setIsCurrentUserTurn(data.isCurrentUserTurn);
-            break;
-          case "overwriteWord":
-            handleOverwriteWord(data.word);
-            break;
-          default:
-            console.log("Unhandled WebSocket message:", data);
-        }
-      };
-
-      ws.onclose = () => {
-        console.log("WebSocket closed");
+      const connect = () => {
+        const resumeQuery = resumeToken
+          ? `&resumeToken=${encodeURIComponent(resumeToken)}&lastSeq=${lastSeq}`
+          : "";
+        const ws = new WebSocket(
+          `ws://localhost:8080/game?roomId=${roomId}${resumeQuery}`
+        );
+        socketRef.current = ws;
+
+        ws.onopen = () => {
+          console.log("WebSocket connected");
+          console.log("UID:", userId);
+          retries = 0;
+          // 再開する場合はサーバーの resumeResult を待つ
+          if (!resumeToken) {
+            join(ws);
+          }
+        };
+
+        ws.onmessage = (event) => {
+          const data = JSON.parse(event.data);
+          console.log("WebSocket message:", data);
+          if (typeof data.mseq === "number") {
+            lastSeq = Math.max(lastSeq, data.mseq);
+          }
+
+          switch (data.type) {
+            case "resumeToken":
+              resumeToken = data.resumeToken;
+              break;
+            case "resumeResult":
+              if (!data.resumed) {
+                // 席が残っていなければ参加し直す
+                resumeToken = null;
+                join(ws);
+              }
+              break;
+            case "updateGameState":
+              stateSeqRef.current = data.seq;
+              gameStateRef.current = data;
+              updateGameState(data);
+              break;
+            case "stateDelta":
+              applyStateDelta(data);
+              break;
+            case "rouletteResult":
+              handleRouletteResult(data.result);
+              break;
+            case "checkResult":
+              handleCheckResult(data);
+              break;
+            case "resultMessage":
+              showResultMessage(data.body, 3000);
+              break;
+            case "startTurn":
+              setTimer(30);
+              setRouletteResult(null);
+              setIsRouletteLarge(true);
+              setIsRouletteVisible(true);
+              setIsSpinnable(data.isCurrentUserTurn);
+              setIsCurrentUserTurn(data.isCurrentUserTurn);
+              break;
+            case "overwriteWord":
+              handleOverwriteWord(data.word);
+              break;
+            default:
+              console.log("Unhandled WebSocket message:", data);
+          }
+        };
+
+        ws.onclose = (event) => {
+          console.log("WebSocket closed", event.code);
+          if (disposed || event.code === 1000 || !resumeToken) return;
+          // 回線が切れたら、サーバーが席を残している間につなぎ直す。
+          // 一斉に切れた場合に同時に戻らないよう、待ち時間はずらす
+          const delay = Math.min(500 * 2 ** retries, 5000) * (0.5 + Math.random());
+          retries++;
+          retryTimer = setTimeout(connect, delay);
+        };
+
+        ws.onerror = (err) => {
+          console.error("WebSocket error:", err);
+        };
       };
 
-      ws.onerror = (err) => {
-        console.error("WebSocket error:", err);
-      };
+      connect();
 
       return () => {
-        socketRef.current.close();
+        disposed = true;
+        clearTimeout(retryTimer);
+        socketRef.current?.close();
       };
     }
   }, [roomId, userId, userName, getOrder]);
@@ -314,6 +368,45 @@ export default function Game() {
     setTimer(0);
   };
 
+  const applyStateDelta = (data: any) => {
+    const state = gameStateRef.current;
+    if (!state || data.seq !== stateSeqRef.current + 1) {
+      // 取りこぼしがあればスナップショットを取り直す
+      socketRef.current?.send(JSON.stringify({ type: "resync" }));
+      return;
+    }
+    const next = {
+      ...state,
+      players: [...state.players],
+      wordHistory: [...state.wordHistory],
+    };
+    data.ops.forEach((op: any) => {
+      switch (op.op) {
+        case "playerJoined":
+          next.players.push(op.player);
+          break;
+        case "playerLeft":
+          next.players = next.players.filter((p: any) => p.id !== op.playerId);
+          break;
+        case "playerMoved":
+          next.players = next.players.map((p: any) =>
+            p.id === op.playerId ? { ...p, position: op.position } : p
+          );
+          break;
+        case "wordAppended":
+          next.wordHistory[op.index] = op.word;
+          break;
+        case "turnChanged":
+          next.currentPlayerIndex = op.currentPlayerIndex;
+          next.lastCharacter = op.lastCharacter;
+          break;
+      }
+    });
+    stateSeqRef.current = data.seq;
+    gameStateRef.current = next;
+    updateGameState(next);
+  };
+
   const updateGameState = (data: any) => {
     setPlayerPositions(data.players.map((p: any) => p.position));
     setCurrentPlayer(parseInt(data.currentPlayerIndex));